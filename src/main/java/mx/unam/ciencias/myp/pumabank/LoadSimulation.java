@@ -0,0 +1,393 @@
+package mx.unam.ciencias.myp.pumabank;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import mx.unam.ciencias.myp.pumabank.facade.MonthlyReport;
+import mx.unam.ciencias.myp.pumabank.facade.PumaBankFacade;
+import mx.unam.ciencias.myp.pumabank.model.Account;
+import mx.unam.ciencias.myp.pumabank.patterns.proxy.AccountProxy;
+
+/**
+ * Runs the randomized simulation of the developer menu without a console:
+ * a bank of generated clients and accounts goes through a number of months
+ * of random operations, each followed by the month-end processing, and the
+ * run is reported as throughput, month-end duration and heap usage.
+ *
+ * <pre>
+ * java -cp out mx.unam.ciencias.myp.pumabank.Main --simulate [--clients N] [--accounts N]
+ *      [--services ANTI_FRAUD%,PREMIUM_ALERTS%,REWARDS%] [--ops OPS_PER_MONTH] [--months N]
+ *      [--mix DEPOSIT,WITHDRAW,BALANCE,TRANSFER,WRONG_PIN] [--seed S] [--threads T] [--log FILE]
+ *      [--verbose]
+ * </pre>
+ *
+ * <p>A run replays identically for the same seed and options: every random
+ * choice comes from the seed, each thread owns the accounts whose position
+ * modulo the number of threads is its own (transfers stay among them), and
+ * the bank runs on a simulated clock that stands still during a month and
+ * moves 30 days at month-end, so interest accrual and PIN lockouts do not
+ * depend on how fast the run goes. The checksum printed at the end covers
+ * the balance and state of every account; two runs agree if their
+ * checksums do.</p>
+ *
+ * <p>With {@code --months 0} the simulation runs until it is stopped, which
+ * makes it a soak test: the line printed after every month shows whether
+ * throughput, month-end time or heap drift. PIN hashing dominates large
+ * runs; lower it with {@code -Dpumabank.pin.iterations}. The monthly log
+ * goes to {@code --log} or to a temporary file deleted afterwards, at the
+ * level set by {@code -Dpumabank.log.level}.</p>
+ */
+public final class LoadSimulation {
+
+    private static final String[] INTEREST_TYPES = {"MONTHLY", "ANNUAL", "PREMIUM"};
+    private static final String[] SERVICES = {"ANTI_FRAUD", "PREMIUM_ALERTS", "REWARDS"};
+    private static final long MONTH_MILLIS = TimeUnit.DAYS.toMillis(30);
+    private static final Instant START = Instant.parse("2025-01-01T00:00:00Z");
+    private static final String WRONG_PIN = "9999";
+
+    private final int clients;
+    private final int accounts;
+    private final int[] services;
+    private final long opsPerMonth;
+    private final int months;
+    private final int[] mix;
+    private final long seed;
+    private final int threads;
+    private final PrintStream console;
+
+    private final SimulatedClock clock = new SimulatedClock(START.toEpochMilli());
+
+    private LoadSimulation(int clients, int accounts, int[] services, long opsPerMonth, int months, int[] mix,
+                           long seed, int threads, PrintStream console) {
+        this.clients = clients;
+        this.accounts = accounts;
+        this.services = services;
+        this.opsPerMonth = opsPerMonth;
+        this.months = months;
+        this.mix = mix;
+        this.seed = seed;
+        this.threads = threads;
+        this.console = console;
+    }
+
+    /**
+     * Starts a simulation from the command line, see the class description.
+     *
+     * @param args command line options
+     * @throws Exception if the log file cannot be created or an operation fails
+     */
+    public static void main(String[] args) throws Exception {
+        int clients = 100;
+        int accounts = 200;
+        int[] services = {30, 20, 10};
+        long ops = 10_000;
+        int months = 12;
+        int[] mix = {40, 30, 15, 10, 5};
+        long seed = 42;
+        int threads = 1;
+        Path log = null;
+        boolean verbose = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--clients":
+                    clients = Integer.parseInt(args[++i]);
+                    break;
+                case "--accounts":
+                    accounts = Integer.parseInt(args[++i]);
+                    break;
+                case "--services":
+                    services = Arrays.stream(args[++i].split(",")).mapToInt(Integer::parseInt).toArray();
+                    break;
+                case "--ops":
+                    ops = Long.parseLong(args[++i]);
+                    break;
+                case "--months":
+                    months = Integer.parseInt(args[++i]);
+                    break;
+                case "--mix":
+                    mix = Arrays.stream(args[++i].split(",")).mapToInt(Integer::parseInt).toArray();
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[++i]);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "--log":
+                    log = Paths.get(args[++i]);
+                    break;
+                case "--verbose":
+                    verbose = true;
+                    break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(2);
+            }
+        }
+        if (clients < 1 || accounts < clients) {
+            throw new IllegalArgumentException("every client needs at least one account");
+        }
+        if (threads < 1 || threads > accounts) {
+            throw new IllegalArgumentException("every thread needs at least one account");
+        }
+        if (ops < 0 || months < 0) {
+            throw new IllegalArgumentException("--ops and --months cannot be negative");
+        }
+        if (services.length != SERVICES.length || Arrays.stream(services).anyMatch(p -> p < 0 || p > 100)) {
+            throw new IllegalArgumentException("--services needs three percentages: anti-fraud,alerts,rewards");
+        }
+        if (mix.length != 5 || Arrays.stream(mix).anyMatch(w -> w < 0) || Arrays.stream(mix).sum() == 0) {
+            throw new IllegalArgumentException("--mix needs five weights: deposit,withdraw,balance,transfer,wrong-pin");
+        }
+
+        // Accounts and proxies print every event; the report goes to the real console.
+        PrintStream console = System.out;
+        PrintStream errors = System.err;
+        if (!verbose) {
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+        }
+        Path logFile = log != null ? log : Files.createTempFile("pumabank-simulation", ".log");
+        try {
+            new LoadSimulation(clients, accounts, services, ops, months, mix, seed, threads, console)
+                .run(logFile, verbose);
+        } finally {
+            System.setOut(console);
+            System.setErr(errors);
+            if (log == null) {
+                Files.deleteIfExists(logFile);
+            }
+        }
+    }
+
+    private void run(Path logFile, boolean verbose) throws InterruptedException, ExecutionException {
+        PumaBankFacade bank = new PumaBankFacade(logFile, clock);
+        bank.setQuietMode(!verbose);
+        bank.setSuppressLogTimestamps(true);
+
+        long setupStarted = System.nanoTime();
+        List<Worker> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            workers.add(new Worker(bank, t, opsPerMonth / threads + (t < opsPerMonth % threads ? 1 : 0)));
+        }
+        List<Account> created = createAccounts(bank, workers);
+        console.printf(Locale.ROOT, "%d clients, %d accounts created in %.1f s; %d ops per month on %d threads,"
+                + " seed %d%n", clients, accounts, (System.nanoTime() - setupStarted) / 1e9, opsPerMonth,
+            threads, seed);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "pumabank-simulation");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long totalOps = 0;
+        long totalOpsNanos = 0;
+        long[] monthEndMillis = new long[Math.max(months, 1)];
+        long peakHeap = 0;
+        try {
+            for (int month = 1; months == 0 || month <= months; month++) {
+                long started = System.nanoTime();
+                for (Future<Void> done : executor.invokeAll(workers)) {
+                    done.get();
+                }
+                long opsNanos = System.nanoTime() - started;
+
+                clock.set(START.toEpochMilli() + month * MONTH_MILLIS);
+                MonthlyReport report = bank.processMonthlyOperations((month - 1) % 12 + 1);
+                long heap = usedHeap();
+
+                totalOps += opsPerMonth;
+                totalOpsNanos += opsNanos;
+                peakHeap = Math.max(peakHeap, heap);
+                if (months > 0) {
+                    monthEndMillis[month - 1] = report.getElapsedMillis();
+                }
+                console.printf(Locale.ROOT, "month %d: %d ops in %.3f s (%.0f ops/s), month-end %d ms,"
+                        + " fees %.2f, interest %.2f, heap %d MB%n", month, opsPerMonth, opsNanos / 1e9,
+                    opsPerMonth / (opsNanos / 1e9), report.getElapsedMillis(), report.getFees(),
+                    report.getInterest(), heap >> 20);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Arrays.sort(monthEndMillis);
+        console.printf(Locale.ROOT, "%d months, %d ops in %.3f s: %.0f ops/s%n", months, totalOps,
+            totalOpsNanos / 1e9, totalOps / (totalOpsNanos / 1e9));
+        console.printf(Locale.ROOT, "month-end ms: p50 %d  max %d; peak heap %d MB of %d MB%n",
+            monthEndMillis[(months - 1) / 2], monthEndMillis[months - 1], peakHeap >> 20,
+            Runtime.getRuntime().maxMemory() >> 20);
+        console.printf("checksum %016x%n", checksum(created));
+    }
+
+    /**
+     * Registers the clients and creates their accounts in order, with
+     * balances, PINs, interest types and services drawn from the seed, and
+     * hands account {@code i} to worker {@code i % threads}.
+     */
+    private List<Account> createAccounts(PumaBankFacade bank, List<Worker> workers) {
+        Random random = new Random(seed);
+        for (int c = 0; c < clients; c++) {
+            bank.registerClient("Client " + c, clientId(c));
+        }
+        List<Account> created = new ArrayList<>(accounts);
+        for (int i = 0; i < accounts; i++) {
+            double balance = cents(100 + random.nextDouble() * 20_000);
+            // 0000 is the system PIN and 9999 the wrong one.
+            String pin = String.format("%04d", 1 + random.nextInt(9998));
+            String interest = INTEREST_TYPES[random.nextInt(INTEREST_TYPES.length)];
+            List<String> chosen = new ArrayList<>();
+            for (int s = 0; s < SERVICES.length; s++) {
+                if (random.nextInt(100) < services[s]) {
+                    chosen.add(SERVICES[s]);
+                }
+            }
+            AccountProxy proxy = bank.createAccount(clientId(i % clients), balance, pin, interest, chosen);
+            Account account = proxy.getUnderlyingAccount();
+            created.add(account);
+            workers.get(i % threads).own(account.getAccountId(), pin);
+        }
+        return created;
+    }
+
+    private static String clientId(int index) {
+        return "SIM" + index;
+    }
+
+    private static double cents(double amount) {
+        return Math.round(amount * 100.0) / 100.0;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Hashes the balance and state of every account, in creation order.
+     */
+    private static long checksum(List<Account> accounts) {
+        long hash = 0xcbf29ce484222325L;
+        for (Account account : accounts) {
+            hash = (hash ^ Double.doubleToLongBits(account.getBalance())) * 0x100000001b3L;
+            hash = (hash ^ account.getState().getClass().getName().hashCode()) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * The operations of one thread for one month, on the accounts it owns.
+     * Its random generator carries over from month to month.
+     */
+    private final class Worker implements Callable<Void> {
+        private final PumaBankFacade bank;
+        private final Random random;
+        private final long ops;
+        private final List<String> owned = new ArrayList<>();
+        private final List<String> pins = new ArrayList<>();
+
+        Worker(PumaBankFacade bank, int index, long ops) {
+            this.bank = bank;
+            this.random = new Random(seed + 1 + index);
+            this.ops = ops;
+        }
+
+        void own(String accountId, String pin) {
+            owned.add(accountId);
+            pins.add(pin);
+        }
+
+        @Override
+        public Void call() {
+            int total = Arrays.stream(mix).sum();
+            for (long op = 0; op < ops; op++) {
+                int pick = random.nextInt(owned.size());
+                String account = owned.get(pick);
+                String pin = pins.get(pick);
+                double amount = cents(10 + random.nextDouble() * 2000);
+                int roll = random.nextInt(total);
+                int kind = 0;
+                while (roll >= mix[kind]) {
+                    roll -= mix[kind];
+                    kind++;
+                }
+                switch (kind) {
+                    case 0:
+                        bank.deposit(account, amount, pin);
+                        break;
+                    case 1:
+                        bank.withdraw(account, amount, pin);
+                        break;
+                    case 2:
+                        bank.checkBalance(account, pin);
+                        break;
+                    case 3:
+                        int to = random.nextInt(owned.size());
+                        if (to == pick) {
+                            bank.checkBalance(account, pin);
+                        } else {
+                            bank.transfer(account, owned.get(to), amount, pin);
+                        }
+                        break;
+                    default:
+                        bank.withdraw(account, 1.0, WRONG_PIN);
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * A clock the simulation sets by hand. It stands still during a month,
+     * so operations do not accrue interest by how long they took.
+     */
+    private static final class SimulatedClock extends Clock {
+        private volatile long millis;
+
+        SimulatedClock(long millis) {
+            this.millis = millis;
+        }
+
+        void set(long millis) {
+            this.millis = millis;
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException("The simulated clock is always UTC");
+        }
+    }
+}
@@ -17,6 +17,10 @@ import mx.unam.ciencias.myp.pumabank.model.Client;
  * those clients, and then run a 12-month randomized simulation where deposits, withdrawals,
  * failed-auth attempts and monthly processing occur. A detailed monthly report is written
  * to {@code monthly_operations_log.txt} by the {@code MonthlyLogger}.
+ *
+ * <p>Started with {@code --simulate}, it runs the simulation without a
+ * console instead, driven by the remaining arguments; see
+ * {@link LoadSimulation}.</p>
  */
 public class Main {
 
@@ -24,7 +28,11 @@ public class Main {
     private static final List<String> SERVICE_OPTIONS = Arrays.asList("ANTI_FRAUD", "PREMIUM_ALERTS", "REWARDS");
     private static final String[] MONTH_NAMES = {"January", "February", "March", "April", "May", "June", "July", "August", "September", "October", "November", "December"};
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("--simulate")) {
+            LoadSimulation.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
         System.out.println("=== PUMA BANK CLI ===\n");
         System.out.println("  _____                       ____              _    ");
         System.out.println(" |  __ \\                     |  _ \\            | |   ");
@@ -270,7 +278,7 @@ public class Main {
                             try {
                                 switch (action) {
                                     case 0:
-                                        pumaBank.deposit(accId, amount, "0000");
+                                        pumaBank.systemDeposit(accId, amount);
                                         break;
                                     case 1:
                                         try { pumaBank.withdraw(accId, amount, pickRandomPin()); } catch (Exception ignored) {}
@@ -282,7 +290,7 @@ public class Main {
                                         try { pumaBank.withdraw(accId, 1.0, "9999"); } catch (Exception ignored) {}
                                         break;
                                     default:
-                                        pumaBank.deposit(accId, Math.round((1 + rand.nextDouble() * 100) * 100.0) / 100.0, "0000");
+                                        pumaBank.systemDeposit(accId, Math.round((1 + rand.nextDouble() * 100) * 100.0) / 100.0);
                                 }
                             } catch (Exception ignored) {}
                         }
@@ -0,0 +1,811 @@
+package mx.unam.ciencias.myp.pumabank.cluster;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import mx.unam.ciencias.myp.pumabank.facade.MonthlyReport;
+import mx.unam.ciencias.myp.pumabank.server.BankServer;
+
+/**
+ * Routes banking requests to several {@link BankServer} shard processes.
+ *
+ * <p>Clients are placed on shards by a consistent {@link HashRing} over
+ * their ids, and every account lives with its client; account ids are
+ * resolved through the client id they start with ({@code clientId-ACC-n}).
+ * The router keeps no bank state of its own: each method sends one or a few
+ * protocol lines to the owning shard and returns the shard's response
+ * line. Session tokens from {@link #login} are only valid on the shard that
+ * issued them.</p>
+ *
+ * <p>{@link #addShard} grows the cluster while it keeps serving. The new
+ * ring is published at once together with the list of clients it takes from
+ * the old shards; those clients keep being routed to their old shard until
+ * each one is moved, one at a time, by detaching it from the old shard and
+ * attaching it to the new one. Requests for the client being moved wait for
+ * the move. The detached data is written to the move directory before it is
+ * attached anywhere and deleted once a shard holds the client. If a move
+ * fails the client is attached back to its old shard and stays routed there;
+ * if even that fails, the client stays in its file until
+ * {@link #reattach} puts it back.</p>
+ *
+ * <p>{@link #closeMonth} is a two-phase month-end: every shard is asked to
+ * prepare, which waits for its running requests and holds new ones back;
+ * only if all of them prepared are they told to commit, and their reports
+ * are merged. Otherwise the prepared shards are told to abort and no shard
+ * closes the month. Transfers between shards and client moves never straddle
+ * a month-end.</p>
+ *
+ * <p>A transfer between accounts of one shard is atomic on that shard. A
+ * transfer between shards debits the source, then credits the target, and
+ * refunds the source if the target refused or could not be reached for the
+ * deposit. Each of the three steps carries an idempotency key, so a step
+ * whose answer is lost is sent again without being applied twice.</p>
+ */
+public final class BankCluster implements Closeable {
+
+    private static final String ACCOUNT_SEPARATOR = "-ACC-";
+    private static final int CLIENT_LOCKS = 256;
+    private static final int ATTACH_CHUNK = 960;
+
+    private final Map<String, ShardLink> links = new ConcurrentHashMap<>();
+    private final Map<String, String> pendingMoves = new ConcurrentHashMap<>();
+    private final ReentrantReadWriteLock[] clientLocks = new ReentrantReadWriteLock[CLIENT_LOCKS];
+    private final ReentrantReadWriteLock cut = new ReentrantReadWriteLock();
+    private final String adminSecret;
+    private final Path moveDirectory;
+    private volatile HashRing ring;
+
+    /**
+     * Creates a router over running shards.
+     *
+     * @param shards        the addresses of the shard servers
+     * @param adminSecret   the admin secret every shard was started with
+     * @param moveDirectory where clients being moved are kept, created if missing
+     * @throws IOException if a shard does not answer or refuses the secret,
+     *                     or the directory cannot be created
+     * @throws IllegalArgumentException if no shard is given
+     */
+    public BankCluster(List<InetSocketAddress> shards, String adminSecret, Path moveDirectory)
+            throws IOException {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("A cluster needs at least one shard");
+        }
+        this.adminSecret = adminSecret;
+        this.moveDirectory = Files.createDirectories(moveDirectory);
+        List<String> names = new ArrayList<>();
+        for (InetSocketAddress address : shards) {
+            ShardLink link = connect(address);
+            links.put(link.name(), link);
+            names.add(link.name());
+        }
+        for (int i = 0; i < CLIENT_LOCKS; i++) {
+            clientLocks[i] = new ReentrantReadWriteLock();
+        }
+        this.ring = new HashRing(names);
+    }
+
+    private ShardLink connect(InetSocketAddress address) throws IOException {
+        ShardLink link = new ShardLink(address, adminSecret);
+        String pong = link.call("PING");
+        if (!"PONG".equals(pong)) {
+            link.close();
+            throw new IOException("Not a PumaBank shard at " + link.name() + ": " + pong);
+        }
+        return link;
+    }
+
+    /**
+     * Returns the shard a client is currently routed to.
+     *
+     * @param clientId the client identifier
+     * @return the shard name, {@code host:port}
+     */
+    public String shardOf(String clientId) {
+        String pending = pendingMoves.get(clientId);
+        return pending != null ? pending : ring.nodeFor(clientId);
+    }
+
+    /**
+     * Returns the shards of the cluster in the order they joined.
+     *
+     * @return the shard names
+     */
+    public List<String> getShards() {
+        return new ArrayList<>(ring.getNodes());
+    }
+
+    /**
+     * Returns the number of clients still waiting to move to a new shard.
+     *
+     * @return the pending moves
+     */
+    public int getPendingMoves() {
+        return pendingMoves.size();
+    }
+
+    private static String clientOf(String accountId) {
+        int separator = accountId.lastIndexOf(ACCOUNT_SEPARATOR);
+        if (separator <= 0) {
+            throw new IllegalArgumentException("Not an account id: " + accountId);
+        }
+        return accountId.substring(0, separator);
+    }
+
+    private ReentrantReadWriteLock clientLock(String clientId) {
+        return clientLocks[clientStripe(clientId)];
+    }
+
+    private static int clientStripe(String clientId) {
+        int h = clientId.hashCode();
+        return (h ^ (h >>> 16)) & (CLIENT_LOCKS - 1);
+    }
+
+    /**
+     * Sends a request carrying an idempotency key, and sends it once more if
+     * the first answer is lost; the shard applies it at most once.
+     */
+    private static String callKeyed(ShardLink link, String request) throws IOException {
+        try {
+            return link.call(request);
+        } catch (IOException e) {
+            try {
+                return link.call(request);
+            } catch (IOException again) {
+                again.addSuppressed(e);
+                throw again;
+            }
+        }
+    }
+
+    /**
+     * Sends a request for one client to its shard while the client cannot move.
+     */
+    private String route(String clientId, String request) throws IOException {
+        ReentrantReadWriteLock lock = clientLock(clientId);
+        lock.readLock().lock();
+        try {
+            return links.get(shardOf(clientId)).call(request);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static String amount(double amount) {
+        return Double.toString(amount);
+    }
+
+    /**
+     * Checks a value that goes into a request line as one word, so it cannot
+     * end the line or add words to it.
+     */
+    private static String word(String what, String value) {
+        if (value == null || value.isEmpty() || value.chars().anyMatch(c -> c <= ' ' || c > '~')) {
+            throw new IllegalArgumentException("Invalid " + what + ": it must be one word of printable ASCII");
+        }
+        return value;
+    }
+
+    /**
+     * Checks the free text at the end of a request line, which may have
+     * spaces but must stay on that line.
+     */
+    private static String text(String what, String value) {
+        if (value == null || value.isBlank() || value.chars().anyMatch(c -> c < ' ' || c > '~')) {
+            throw new IllegalArgumentException("Invalid " + what + ": it must be one line of printable ASCII");
+        }
+        return value;
+    }
+
+    private static String expectOk(String request, String response) {
+        if (!response.equals("OK") && !response.startsWith("OK ")) {
+            throw new IllegalArgumentException(request.split(" ")[0] + " failed: " + response);
+        }
+        return response.length() > 3 ? response.substring(3) : "";
+    }
+
+    /**
+     * Registers a client on its shard.
+     *
+     * @param clientId the client identifier, without spaces
+     * @param name     the client name
+     * @throws IOException if the shard cannot be reached
+     * @throws IllegalArgumentException if the shard refuses the client, or
+     *                                  the id or name does not fit a request line
+     */
+    public void registerClient(String clientId, String name) throws IOException {
+        String request = "REGISTER " + word("client id", clientId) + " " + text("client name", name);
+        cut.readLock().lock();
+        try {
+            expectOk(request, route(clientId, request));
+        } finally {
+            cut.readLock().unlock();
+        }
+    }
+
+    /**
+     * Opens an account for a client on the client's shard.
+     *
+     * @param clientId       the owner
+     * @param initialBalance the opening balance
+     * @param pin            the account PIN
+     * @param interestType   the interest policy name
+     * @param services       decorator service names, possibly empty
+     * @return the new account identifier
+     * @throws IOException if the shard cannot be reached
+     * @throws IllegalArgumentException if the shard refuses the account, or
+     *                                  an argument does not fit a request line
+     */
+    public String createAccount(String clientId, double initialBalance, String pin, String interestType,
+                                List<String> services) throws IOException {
+        for (String service : services) {
+            if (word("service", service).indexOf(',') >= 0) {
+                throw new IllegalArgumentException("Invalid service: " + service);
+            }
+        }
+        String request = "OPEN " + word("client id", clientId) + " " + amount(initialBalance) + " "
+            + word("PIN", pin) + " " + word("interest type", interestType)
+            + (services.isEmpty() ? "" : " " + String.join(",", services));
+        return expectOk(request, route(clientId, request));
+    }
+
+    /**
+     * Opens a session on the account's shard.
+     *
+     * @param accountId the account identifier
+     * @param pin       the account PIN
+     * @return the {@code LOGIN} response line
+     * @throws IOException if the shard cannot be reached
+     * @throws IllegalArgumentException if an id or the credential is not one word of printable ASCII
+     */
+    public String login(String accountId, String pin) throws IOException {
+        return route(clientOf(word("account id", accountId)), "LOGIN " + accountId + " " + word("PIN", pin));
+    }
+
+    /**
+     * Deposits into an account.
+     *
+     * @param accountId  the account identifier
+     * @param amount     the amount
+     * @param credential PIN or session token
+     * @return the {@code DEPOSIT} response line
+     * @throws IOException if the shard cannot be reached
+     * @throws IllegalArgumentException if an id or the credential is not one word of printable ASCII
+     */
+    public String deposit(String accountId, double amount, String credential) throws IOException {
+        return route(clientOf(word("account id", accountId)),
+            "DEPOSIT " + accountId + " " + amount(amount) + " " + word("credential", credential));
+    }
+
+    /**
+     * Withdraws from an account.
+     *
+     * @param accountId  the account identifier
+     * @param amount     the amount
+     * @param credential PIN or session token
+     * @return the {@code WITHDRAW} response line
+     * @throws IOException if the shard cannot be reached
+     * @throws IllegalArgumentException if an id or the credential is not one word of printable ASCII
+     */
+    public String withdraw(String accountId, double amount, String credential) throws IOException {
+        return route(clientOf(word("account id", accountId)),
+            "WITHDRAW " + accountId + " " + amount(amount) + " " + word("credential", credential));
+    }
+
+    /**
+     * Reads the balance of an account.
+     *
+     * @param accountId  the account identifier
+     * @param credential PIN or session token
+     * @return the {@code BALANCE} response line
+     * @throws IOException if the shard cannot be reached
+     * @throws IllegalArgumentException if an id or the credential is not one word of printable ASCII
+     */
+    public String balance(String accountId, String credential) throws IOException {
+        return route(clientOf(word("account id", accountId)), "BALANCE " + accountId + " "
+            + word("credential", credential));
+    }
+
+    /**
+     * Moves an amount between two accounts.
+     *
+     * @param fromId     the account to debit
+     * @param toId       the account to credit
+     * @param amount     the amount
+     * @param credential PIN or session token of the source account
+     * @return a {@code TRANSFER} response line: the status and the balance of the source
+     * @throws IOException if a shard cannot be reached; if the source was
+     *                     already debited it has been refunded, unless the
+     *                     message says otherwise
+     * @throws IllegalStateException if the source refused its refund
+     * @throws IllegalArgumentException if an id or the credential is not one word of printable ASCII
+     */
+    public String transfer(String fromId, String toId, double amount, String credential) throws IOException {
+        String fromClient = clientOf(word("account id", fromId));
+        String toClient = clientOf(word("account id", toId));
+        word("credential", credential);
+        // Lock in stripe order of the client ids; two clients on one stripe share the lock.
+        int fromStripe = clientStripe(fromClient);
+        int toStripe = clientStripe(toClient);
+        ReentrantReadWriteLock first = clientLocks[Math.min(fromStripe, toStripe)];
+        ReentrantReadWriteLock second = clientLocks[Math.max(fromStripe, toStripe)];
+        cut.readLock().lock();
+        first.readLock().lock();
+        if (second != first) {
+            second.readLock().lock();
+        }
+        try {
+            ShardLink source = links.get(shardOf(fromClient));
+            ShardLink target = links.get(shardOf(toClient));
+            if (source == target) {
+                return source.call("TRANSFER " + fromId + " " + toId + " " + amount(amount) + " " + credential);
+            }
+            String state = target.call("STATE " + toId);
+            if (!state.startsWith("OK ")) {
+                return state;
+            }
+            if (state.endsWith("FrozenState") || state.endsWith("ClosedState")) {
+                return "DECLINED";
+            }
+            String key = UUID.randomUUID().toString();
+            String debit = callKeyed(source,
+                "WITHDRAW " + fromId + " " + amount(amount) + " " + credential + " " + key + "-debit");
+            if (!debit.startsWith("APPLIED")) {
+                return debit;
+            }
+            IOException lost = null;
+            try {
+                String credit = callKeyed(target, "CREDIT " + toId + " " + amount(amount) + " " + key + "-credit");
+                if (credit.startsWith("APPLIED")) {
+                    return debit;
+                }
+            } catch (IOException e) {
+                lost = e;
+            }
+            String refund;
+            try {
+                refund = callKeyed(source, "CREDIT " + fromId + " " + amount(amount) + " " + key + "-refund");
+            } catch (IOException e) {
+                if (lost != null) {
+                    e.addSuppressed(lost);
+                }
+                throw new IOException("Transfer " + key + " debited " + fromId + " and could not refund it", e);
+            }
+            if (!refund.startsWith("APPLIED")) {
+                throw new IllegalStateException("Transfer " + key + " debited " + fromId
+                    + " and the refund was refused: " + refund);
+            }
+            if (lost != null) {
+                throw new IOException("Transfer " + key + " could not credit " + toId + "; " + fromId
+                    + " was refunded", lost);
+            }
+            return "DECLINED" + refund.substring(refund.indexOf(' ') < 0 ? refund.length() : refund.indexOf(' '));
+        } finally {
+            if (second != first) {
+                second.readLock().unlock();
+            }
+            first.readLock().unlock();
+            cut.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a running shard and moves to it, one client at a time, the clients
+     * the new ring assigns to it.
+     *
+     * @param address the address of the new shard server, started with the
+     *                cluster's admin secret
+     * @return the number of clients moved
+     * @throws IOException if a shard cannot be reached; clients not moved yet
+     *                     stay on their old shard
+     */
+    public synchronized int addShard(InetSocketAddress address) throws IOException {
+        ShardLink added = connect(address);
+        Map<String, String> moves = new LinkedHashMap<>();
+        cut.writeLock().lock();
+        try {
+            HashRing next = ring.withNode(added.name());
+            for (String node : ring.getNodes()) {
+                String clients = expectOk("CLIENTS", links.get(node).call("CLIENTS"));
+                for (String clientId : clients.isEmpty() ? new String[0] : clients.split(" ")) {
+                    if (next.nodeFor(clientId).equals(added.name())) {
+                        moves.put(clientId, node);
+                    }
+                }
+            }
+            links.put(added.name(), added);
+            pendingMoves.putAll(moves);
+            ring = next;
+        } finally {
+            cut.writeLock().unlock();
+        }
+
+        int moved = 0;
+        for (Map.Entry<String, String> move : moves.entrySet()) {
+            if (moveClient(move.getKey(), links.get(move.getValue()), added)) {
+                moved++;
+            }
+        }
+        return moved;
+    }
+
+    /**
+     * Detaches a client from one shard and attaches it to another while no
+     * request for the client and no month-end can run. The detached data is
+     * on disk until a shard holds the client again.
+     *
+     * <p>If the new shard fails, whatever part of the client it may hold is
+     * detached from it again before the client goes back to the old shard,
+     * so the client never lives on both. If the new shard cannot be asked,
+     * or the old one refuses the client too, the client stays on disk.</p>
+     */
+    private boolean moveClient(String clientId, ShardLink from, ShardLink to) throws IOException {
+        ReentrantReadWriteLock lock = clientLock(clientId);
+        cut.readLock().lock();
+        lock.writeLock().lock();
+        try {
+            String detached = from.call("DETACH " + clientId);
+            if (!detached.startsWith("OK ")) {
+                pendingMoves.remove(clientId);
+                return false;
+            }
+            String data = detached.substring(3);
+            Path parked = park(clientId, data);
+            try {
+                attach(to, data);
+            } catch (IOException | IllegalArgumentException e) {
+                try {
+                    to.call("DETACH " + clientId);
+                    attach(from, data);
+                } catch (IOException | IllegalArgumentException back) {
+                    back.addSuppressed(e);
+                    throw new IOException("Client " + clientId + " is on neither " + from + " nor " + to
+                        + "; it is kept in " + parked + " for reattach", back);
+                }
+                Files.delete(parked);
+                throw new IOException("Cannot move client " + clientId + " to " + to + ": " + e.getMessage(), e);
+            }
+            Files.delete(parked);
+            pendingMoves.remove(clientId);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+            cut.readLock().unlock();
+        }
+    }
+
+    /**
+     * Attaches a client whose move failed, kept in the move directory, to the
+     * shard it is routed to, and deletes its file.
+     *
+     * @param clientId the client identifier
+     * @return whether a kept client was found and attached
+     * @throws IOException if the file cannot be read or the shard cannot be reached
+     * @throws IllegalArgumentException if the shard refuses the client
+     */
+    public boolean reattach(String clientId) throws IOException {
+        Path parked = parkedFile(word("client id", clientId));
+        ReentrantReadWriteLock lock = clientLock(clientId);
+        cut.readLock().lock();
+        lock.writeLock().lock();
+        try {
+            if (!Files.exists(parked)) {
+                return false;
+            }
+            attach(links.get(shardOf(clientId)), new String(Files.readAllBytes(parked), StandardCharsets.US_ASCII));
+            Files.delete(parked);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+            cut.readLock().unlock();
+        }
+    }
+
+    private Path parkedFile(String clientId) {
+        return moveDirectory.resolve(Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(clientId.getBytes(StandardCharsets.UTF_8)) + ".client");
+    }
+
+    /**
+     * Writes detached client data to the move directory and forces it to disk.
+     */
+    private Path park(String clientId, String data) throws IOException {
+        Path file = parkedFile(clientId);
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer bytes = ByteBuffer.wrap(data.getBytes(StandardCharsets.US_ASCII));
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            channel.force(true);
+        }
+        return Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Sends detached client data to a shard in line-sized parts on one connection.
+     */
+    private static void attach(ShardLink shard, String data) throws IOException {
+        ShardLink.Line line = shard.borrow();
+        try {
+            int parts = 0;
+            for (int i = 0; i < data.length(); i += ATTACH_CHUNK) {
+                line.send("ATTACH_PART " + data.substring(i, Math.min(data.length(), i + ATTACH_CHUNK)));
+                parts++;
+            }
+            line.send("ATTACH_END");
+            for (int i = 0; i < parts; i++) {
+                expectOk("ATTACH_PART", line.receive());
+            }
+            expectOk("ATTACH_END", line.receive());
+        } catch (IOException e) {
+            line.close();
+            throw e;
+        }
+        shard.release(line);
+    }
+
+    /**
+     * Closes a month on every shard in two phases and merges their reports.
+     *
+     * @param month the simulated month
+     * @return the merged report, timed over both phases
+     * @throws IllegalStateException if a shard did not prepare; no shard
+     *                               closed the month
+     */
+    public MonthlyReport closeMonth(int month) {
+        cut.writeLock().lock();
+        try {
+            long started = System.nanoTime();
+            List<ShardLink> shards = new ArrayList<>();
+            for (String node : ring.getNodes()) {
+                shards.add(links.get(node));
+            }
+
+            String[] votes = broadcast(shards, "PREPARE_MONTH " + month);
+            String refusal = null;
+            for (int i = 0; i < votes.length; i++) {
+                if (!"PREPARED".equals(votes[i])) {
+                    refusal = shards.get(i) + " answered " + votes[i];
+                }
+            }
+            if (refusal != null) {
+                List<ShardLink> prepared = new ArrayList<>();
+                for (int i = 0; i < votes.length; i++) {
+                    if ("PREPARED".equals(votes[i])) {
+                        prepared.add(shards.get(i));
+                    }
+                }
+                broadcast(prepared, "ABORT_MONTH " + month);
+                throw new IllegalStateException("Month " + month + " aborted: " + refusal);
+            }
+
+            String[] replies = broadcast(shards, "COMMIT_MONTH " + month);
+            List<MonthlyReport> reports = new ArrayList<>();
+            for (int i = 0; i < replies.length; i++) {
+                reports.add(parseReport(shards.get(i), replies[i]));
+            }
+            return MonthlyReport.merge(month, reports, System.nanoTime() - started);
+        } finally {
+            cut.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Sends one request to every shard before reading any response, so the
+     * shards work on it at the same time. A shard that cannot be reached
+     * answers {@code null}.
+     */
+    private static String[] broadcast(List<ShardLink> shards, String request) {
+        ShardLink.Line[] lines = new ShardLink.Line[shards.size()];
+        String[] responses = new String[shards.size()];
+        for (int i = 0; i < lines.length; i++) {
+            try {
+                lines[i] = shards.get(i).borrow();
+                lines[i].send(request);
+            } catch (IOException e) {
+                if (lines[i] != null) {
+                    lines[i].close();
+                    lines[i] = null;
+                }
+            }
+        }
+        for (int i = 0; i < lines.length; i++) {
+            if (lines[i] == null) {
+                continue;
+            }
+            try {
+                responses[i] = lines[i].receive();
+                shards.get(i).release(lines[i]);
+            } catch (IOException e) {
+                lines[i].close();
+            }
+        }
+        return responses;
+    }
+
+    private static MonthlyReport parseReport(ShardLink shard, String reply) {
+        String[] p = reply == null ? new String[0] : reply.split(" ");
+        if (p.length != 7 || !p[0].equals("REPORT")) {
+            throw new IllegalStateException("Shard " + shard + " did not close the month: " + reply);
+        }
+        return new MonthlyReport(Integer.parseInt(p[1]), Long.parseLong(p[2]), Long.parseLong(p[3]),
+            Double.parseDouble(p[4]), Double.parseDouble(p[5]), Long.parseLong(p[6]) * 1_000_000L);
+    }
+
+    /**
+     * Closes the connections to every shard; the shards keep running.
+     */
+    @Override
+    public void close() {
+        for (ShardLink link : links.values()) {
+            link.close();
+        }
+    }
+
+    /**
+     * Starts a shard server in a new JVM with the classpath of this one,
+     * working in {@code directory} so that its monthly log is its own, and
+     * waits until it listens.
+     *
+     * @param port        the port for the shard
+     * @param directory   the working directory of the shard, created if missing
+     * @param adminSecret the admin secret of the shard, passed in its environment
+     * @return the shard process
+     * @throws IOException if the process cannot be started or exits early
+     */
+    public static Process launchShard(int port, Path directory, String adminSecret) throws IOException {
+        Files.createDirectories(directory);
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        StringBuilder classPath = new StringBuilder();
+        for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            if (classPath.length() > 0) {
+                classPath.append(File.pathSeparator);
+            }
+            classPath.append(Paths.get(entry).toAbsolutePath());
+        }
+        ProcessBuilder builder = new ProcessBuilder(java, "-cp", classPath.toString(),
+                BankServer.class.getName(), "--port", Integer.toString(port))
+            .directory(directory.toFile())
+            .redirectErrorStream(true);
+        builder.environment().put(BankServer.ADMIN_SECRET_ENV, adminSecret);
+        Process process = builder.start();
+        BufferedReader out = new BufferedReader(new InputStreamReader(process.getInputStream(),
+            StandardCharsets.UTF_8));
+        String line;
+        String last = "";
+        while ((line = out.readLine()) != null) {
+            last = line;
+            if (line.startsWith("PumaBank server listening")) {
+                Thread drain = new Thread(() -> {
+                    try {
+                        while (out.readLine() != null) {
+                            // keep the pipe from filling up
+                        }
+                    } catch (IOException e) {
+                        // the shard exited
+                    }
+                }, "shard-output-" + port);
+                drain.setDaemon(true);
+                drain.start();
+                return process;
+            }
+        }
+        try {
+            process.waitFor();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        throw new IOException("Shard on port " + port + " did not start: " + last);
+    }
+
+    /**
+     * Runs a cluster demonstration on localhost: starts shard processes,
+     * opens accounts through the router, closes a month, adds one more shard
+     * while moving clients to it, and closes another month. The shards share
+     * the admin secret in {@value BankServer#ADMIN_SECRET_ENV}, or a random
+     * one if it is not set.
+     *
+     * <pre>
+     * java -cp out mx.unam.ciencias.myp.pumabank.cluster.BankCluster [--shards N] [--base-port P]
+     *      [--clients C] [--accounts-per-client A] [--work DIR]
+     * </pre>
+     *
+     * @param args command line options
+     * @throws IOException if a shard cannot be started or reached
+     */
+    public static void main(String[] args) throws IOException {
+        int shards = 3;
+        int basePort = 7100;
+        int clients = 300;
+        int accountsPerClient = 3;
+        Path work = Paths.get("cluster");
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--shards":
+                    shards = Integer.parseInt(args[++i]);
+                    break;
+                case "--base-port":
+                    basePort = Integer.parseInt(args[++i]);
+                    break;
+                case "--clients":
+                    clients = Integer.parseInt(args[++i]);
+                    break;
+                case "--accounts-per-client":
+                    accountsPerClient = Integer.parseInt(args[++i]);
+                    break;
+                case "--work":
+                    work = Paths.get(args[++i]);
+                    break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(2);
+            }
+        }
+        if (shards < 2) {
+            throw new IllegalArgumentException("--shards must be at least 2: one is added later");
+        }
+
+        String adminSecret = System.getenv(BankServer.ADMIN_SECRET_ENV);
+        if (adminSecret == null) {
+            adminSecret = UUID.randomUUID().toString();
+        }
+        List<Process> processes = new ArrayList<>();
+        try {
+            List<InetSocketAddress> initial = new ArrayList<>();
+            for (int i = 0; i < shards; i++) {
+                processes.add(launchShard(basePort + i, work.resolve("shard-" + i), adminSecret));
+                if (i < shards - 1) {
+                    initial.add(new InetSocketAddress("127.0.0.1", basePort + i));
+                }
+            }
+            System.out.printf("Started %d shard processes on ports %d-%d%n", shards, basePort, basePort + shards - 1);
+
+            try (BankCluster cluster = new BankCluster(initial, adminSecret, work.resolve("moves"))) {
+                long start = System.nanoTime();
+                for (int c = 0; c < clients; c++) {
+                    String clientId = "K" + c;
+                    cluster.registerClient(clientId, "Cluster client " + c);
+                    for (int a = 0; a < accountsPerClient; a++) {
+                        String accountId = cluster.createAccount(clientId, 1000, BankServer.DEMO_PIN, "MONTHLY",
+                            List.of());
+                        cluster.deposit(accountId, 10 * (a + 1), BankServer.DEMO_PIN);
+                    }
+                }
+                System.out.printf("Opened %d accounts for %d clients in %d ms%n",
+                    clients * accountsPerClient, clients, (System.nanoTime() - start) / 1_000_000);
+                System.out.println(cluster.closeMonth(1));
+
+                start = System.nanoTime();
+                int moved = cluster.addShard(new InetSocketAddress("127.0.0.1", basePort + shards - 1));
+                System.out.printf("Added shard %d: moved %d of %d clients in %d ms%n",
+                    shards, moved, clients, (System.nanoTime() - start) / 1_000_000);
+                System.out.println(cluster.closeMonth(2));
+            }
+        } finally {
+            for (Process process : processes) {
+                process.destroy();
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package mx.unam.ciencias.myp.pumabank.cluster;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * An immutable consistent hash ring that maps keys to nodes.
+ *
+ * <p>Every node is placed at {@link #VIRTUAL_NODES} points of a 64-bit ring
+ * and a key belongs to the first node point at or after the hash of the key,
+ * wrapping around. Adding a node therefore only takes keys away from the
+ * nodes next to its points, about one key in {@code n + 1}, and never moves
+ * a key between two old nodes. Rings are never modified; {@link #withNode}
+ * returns a new one, so a ring can be read from any thread.</p>
+ */
+public final class HashRing {
+
+    /** Points per node; more points spread keys more evenly. */
+    public static final int VIRTUAL_NODES = 128;
+
+    private final TreeMap<Long, String> points;
+    private final Set<String> nodes;
+
+    /**
+     * Creates a ring holding the given nodes.
+     *
+     * @param nodes the node names
+     * @throws IllegalArgumentException if a name is repeated
+     */
+    public HashRing(Collection<String> nodes) {
+        this(new TreeMap<>(), new LinkedHashSet<>());
+        for (String node : nodes) {
+            place(node);
+        }
+    }
+
+    private HashRing(TreeMap<Long, String> points, Set<String> nodes) {
+        this.points = points;
+        this.nodes = nodes;
+    }
+
+    private void place(String node) {
+        if (!nodes.add(node)) {
+            throw new IllegalArgumentException("Node already in the ring: " + node);
+        }
+        for (int i = 0; i < VIRTUAL_NODES; i++) {
+            points.put(hash(node + "#" + i), node);
+        }
+    }
+
+    /**
+     * Returns a ring with one more node.
+     *
+     * @param node the new node name
+     * @return the new ring; this one is unchanged
+     * @throws IllegalArgumentException if the node is already in the ring
+     */
+    public HashRing withNode(String node) {
+        HashRing next = new HashRing(new TreeMap<>(points), new LinkedHashSet<>(nodes));
+        next.place(node);
+        return next;
+    }
+
+    /**
+     * Returns the node a key belongs to.
+     *
+     * @param key the key, such as a client id
+     * @return the owning node
+     * @throws IllegalStateException if the ring is empty
+     */
+    public String nodeFor(String key) {
+        if (points.isEmpty()) {
+            throw new IllegalStateException("The ring has no nodes");
+        }
+        Map.Entry<Long, String> owner = points.ceilingEntry(hash(key));
+        return owner != null ? owner.getValue() : points.firstEntry().getValue();
+    }
+
+    /**
+     * Returns the nodes in the order they were added.
+     *
+     * @return the node names
+     */
+    public Set<String> getNodes() {
+        return Collections.unmodifiableSet(nodes);
+    }
+
+    /**
+     * 64-bit FNV-1a over the characters, finished with the MurmurHash3 mixer
+     * so that similar keys land far apart.
+     */
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,139 @@
+package mx.unam.ciencias.myp.pumabank.cluster;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Connections from the router to one shard process.
+ *
+ * <p>Each call borrows an idle connection, or opens a new one, sends its
+ * request line and reads the response line, so concurrent callers never
+ * share a connection. Up to {@link #IDLE_CONNECTIONS} connections are kept
+ * open between calls. Every connection sends the shard's admin secret
+ * first, since the router also uses the shard's admin commands.</p>
+ */
+final class ShardLink implements Closeable {
+
+    static final int IDLE_CONNECTIONS = 8;
+
+    private final InetSocketAddress address;
+    private final String name;
+    private final String adminSecret;
+    private final ArrayBlockingQueue<Line> idle = new ArrayBlockingQueue<>(IDLE_CONNECTIONS);
+
+    ShardLink(InetSocketAddress address, String adminSecret) {
+        this.address = address;
+        this.adminSecret = adminSecret;
+        this.name = address.getHostString() + ":" + address.getPort();
+    }
+
+    /**
+     * Returns the name of the shard on the hash ring, {@code host:port}.
+     */
+    String name() {
+        return name;
+    }
+
+    /**
+     * Sends one request and waits for its response.
+     *
+     * @throws IOException if the shard cannot be reached or closes the connection
+     */
+    String call(String request) throws IOException {
+        Line line = borrow();
+        String response;
+        try {
+            line.send(request);
+            response = line.receive();
+        } catch (IOException e) {
+            line.close();
+            throw e;
+        }
+        release(line);
+        return response;
+    }
+
+    Line borrow() throws IOException {
+        Line line = idle.poll();
+        if (line != null) {
+            return line;
+        }
+        line = new Line(address);
+        try {
+            line.send("ADMIN " + adminSecret);
+            String response = line.receive();
+            if (!response.equals("OK")) {
+                throw new IOException("Shard " + name + " refused the admin secret: " + response);
+            }
+        } catch (IOException e) {
+            line.close();
+            throw e;
+        }
+        return line;
+    }
+
+    void release(Line line) {
+        if (!idle.offer(line)) {
+            line.close();
+        }
+    }
+
+    @Override
+    public void close() {
+        Line line;
+        while ((line = idle.poll()) != null) {
+            line.close();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    /**
+     * One blocking connection to the shard.
+     */
+    static final class Line implements Closeable {
+        private final Socket socket;
+        private final OutputStream out;
+        private final BufferedReader in;
+
+        Line(InetSocketAddress address) throws IOException {
+            socket = new Socket();
+            socket.setTcpNoDelay(true);
+            socket.connect(address);
+            out = socket.getOutputStream();
+            in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+        }
+
+        void send(String request) throws IOException {
+            out.write((request + "\n").getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+        }
+
+        String receive() throws IOException {
+            String response = in.readLine();
+            if (response == null) {
+                throw new IOException("Shard closed the connection");
+            }
+            return response;
+        }
+
+        @Override
+        public void close() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // nothing left to release
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package mx.unam.ciencias.myp.pumabank.facade;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+import mx.unam.ciencias.myp.pumabank.model.Account;
+
+/**
+ * A fixed set of lock stripes guarding the accounts of a facade.
+ *
+ * <p>Every account maps to one stripe by identity, so guarding an account
+ * costs no memory per account. Operations on two accounts take both
+ * stripes in ascending stripe order, which is the same global order for
+ * every caller, so two transfers in opposite directions can never wait on
+ * each other. Two accounts on the same stripe take it once.</p>
+ *
+ * <p>Changes to the client and account registries take a separate registry
+ * lock, never together with a stripe. {@link #lockAll} takes every stripe and
+ * then the registry lock, which stops every journaled mutation while a
+ * snapshot is written.</p>
+ */
+final class AccountLocks {
+
+    /** Number of stripes; a power of two. */
+    static final int STRIPES = 4096;
+
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+    private final ReentrantLock registry = new ReentrantLock();
+
+    AccountLocks() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    private static int index(Account account) {
+        int h = System.identityHashCode(account);
+        return (h ^ (h >>> 16)) & (STRIPES - 1);
+    }
+
+    /**
+     * Returns the lock guarding an account.
+     *
+     * @param account the account
+     * @return its stripe
+     */
+    ReentrantLock of(Account account) {
+        return stripes[index(account)];
+    }
+
+    /**
+     * Locks two accounts in stripe order.
+     *
+     * @param a one account
+     * @param b the other account
+     */
+    void lockBoth(Account a, Account b) {
+        int i = index(a);
+        int j = index(b);
+        stripes[Math.min(i, j)].lock();
+        if (i != j) {
+            stripes[Math.max(i, j)].lock();
+        }
+    }
+
+    /**
+     * Releases the stripes taken by {@link #lockBoth}.
+     *
+     * @param a one account
+     * @param b the other account
+     */
+    void unlockBoth(Account a, Account b) {
+        int i = index(a);
+        int j = index(b);
+        if (i != j) {
+            stripes[Math.max(i, j)].unlock();
+        }
+        stripes[Math.min(i, j)].unlock();
+    }
+
+    /**
+     * Returns the lock guarding changes to the client and account registries.
+     *
+     * @return the registry lock
+     */
+    ReentrantLock registry() {
+        return registry;
+    }
+
+    /**
+     * Locks every stripe in ascending order and then the registry lock.
+     */
+    void lockAll() {
+        for (ReentrantLock stripe : stripes) {
+            stripe.lock();
+        }
+        registry.lock();
+    }
+
+    /**
+     * Releases the locks taken by {@link #lockAll}.
+     */
+    void unlockAll() {
+        registry.unlock();
+        for (int i = STRIPES - 1; i >= 0; i--) {
+            stripes[i].unlock();
+        }
+    }
+}
@@ -0,0 +1,623 @@
+package mx.unam.ciencias.myp.pumabank.facade;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import mx.unam.ciencias.myp.pumabank.model.Account;
+import mx.unam.ciencias.myp.pumabank.model.Client;
+import mx.unam.ciencias.myp.pumabank.model.IAccount;
+import mx.unam.ciencias.myp.pumabank.patterns.decorator.AccountDecorator;
+import mx.unam.ciencias.myp.pumabank.patterns.decorator.AntiFraudDecorator;
+import mx.unam.ciencias.myp.pumabank.patterns.decorator.PremiumAlertsDecorator;
+import mx.unam.ciencias.myp.pumabank.patterns.decorator.RewardsProgramDecorator;
+import mx.unam.ciencias.myp.pumabank.patterns.proxy.AccountProxy;
+import mx.unam.ciencias.myp.pumabank.patterns.proxy.PinAuthenticator;
+import mx.unam.ciencias.myp.pumabank.patterns.state.AccountState;
+import mx.unam.ciencias.myp.pumabank.patterns.state.states.ActiveState;
+import mx.unam.ciencias.myp.pumabank.patterns.state.states.ClosedState;
+import mx.unam.ciencias.myp.pumabank.patterns.state.states.FrozenState;
+import mx.unam.ciencias.myp.pumabank.patterns.state.states.OverdrawnState;
+import mx.unam.ciencias.myp.pumabank.patterns.strategy.InterestAccrual;
+import mx.unam.ciencias.myp.pumabank.patterns.strategy.InterestCalculation;
+
+/**
+ * Reads and writes binary snapshots of a {@link PumaBankFacade}.
+ *
+ * <p>The file is laid out in columns: after a header with the counts and
+ * monthly counters come the interest policies, then one section per client
+ * field and one section per account field (identifiers, owner, balance,
+ * state, interest policy, services, reward points, interest accrual, PIN
+ * hash). Policies are encoded by {@link InterestPolicyCodec}, so tiered
+ * schedules loaded at run time survive a restore.
+ * Each section holds the values of every row back to back, so fixed-width
+ * columns are written and read as tight runs of primitives. Writing goes
+ * through a single large buffer flushed with sequential channel writes into
+ * a temporary file that replaces the target at the end; reading maps the
+ * file into memory.</p>
+ *
+ * <p>Accounts are stored grouped by client, in the order of each client's
+ * account list, so identifiers generated after a restore continue from the
+ * saved ones.</p>
+ *
+ * <p>The same layout, restricted to some clients and with zero counters,
+ * carries clients between banks: {@link #exportClients} encodes them and
+ * {@link #importClients} adds them to another facade.</p>
+ */
+final class BankSnapshot {
+
+    private static final int MAGIC = 0x50425331; // "PBS1"
+    private static final int VERSION = 2;
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private static final byte STATE_ACTIVE = 0;
+    private static final byte STATE_OVERDRAWN = 1;
+    private static final byte STATE_OVERDRAWN_FEE_APPLIED = 2;
+    private static final byte STATE_FROZEN = 3;
+    private static final byte STATE_CLOSED = 4;
+
+    /** Service names by code; code 0 ends a service chain. */
+    private static final String[] SERVICES = {null, "ANTI_FRAUD", "PREMIUM_ALERTS", "REWARDS"};
+    private static final int SERVICE_BITS = 2;
+    private static final int MAX_SERVICES = 16;
+
+    private BankSnapshot() {
+    }
+
+    /**
+     * Writes a snapshot of the facade.
+     *
+     * @param facade the bank to save
+     * @param file   the target file
+     * @throws IOException if the file cannot be written
+     */
+    static void write(PumaBankFacade facade, Path file) throws IOException {
+        List<Client> clients = new ArrayList<>(facade.clientRegistry().values());
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            write(facade, clients, true, new Output(channel, ByteBuffer.allocateDirect(BUFFER_SIZE)));
+            channel.force(false);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Encodes some clients and all of their accounts in snapshot layout, with
+     * the monthly counters left at zero.
+     *
+     * @param facade    the bank holding the clients
+     * @param clientIds the clients to encode
+     * @return the encoded clients
+     * @throws IllegalArgumentException if a client does not exist
+     */
+    static byte[] exportClients(PumaBankFacade facade, Collection<String> clientIds) {
+        List<Client> clients = new ArrayList<>(clientIds.size());
+        for (String clientId : clientIds) {
+            Client client = facade.clientRegistry().get(clientId);
+            if (client == null) {
+                throw new IllegalArgumentException("Client not found: " + clientId);
+            }
+            clients.add(client);
+        }
+        return encode(facade, clients, false);
+    }
+
+    /**
+     * Encodes the whole bank, monthly counters included, in snapshot layout.
+     *
+     * @param facade the bank to encode
+     * @return the encoded snapshot
+     */
+    static byte[] encode(PumaBankFacade facade) {
+        return encode(facade, new ArrayList<>(facade.clientRegistry().values()), true);
+    }
+
+    private static byte[] encode(PumaBankFacade facade, List<Client> clients, boolean counters) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            write(facade, clients, counters, new Output(Channels.newChannel(bytes), ByteBuffer.allocate(8192)));
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot encode clients in memory", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Writes the given clients, their accounts and optionally the monthly
+     * counters of the facade.
+     */
+    private static void write(PumaBankFacade facade, List<Client> clients, boolean counters, Output out)
+            throws IOException {
+        Map<AccountProxy, String> ids = new IdentityHashMap<>();
+        for (Map.Entry<String, AccountProxy> entry : facade.proxyRegistry().entrySet()) {
+            ids.put(entry.getValue(), entry.getKey());
+        }
+
+        List<String> accountIds = new ArrayList<>();
+        List<AccountProxy> proxies = new ArrayList<>();
+        List<IAccount> decorated = new ArrayList<>();
+        int[] owners = new int[facade.proxyRegistry().size()];
+        for (int c = 0; c < clients.size(); c++) {
+            Client client = clients.get(c);
+            for (IAccount account : facade.accountRegistry().getOrDefault(client.getClientId(), new ArrayList<>())) {
+                AccountProxy proxy = proxyOf(account);
+                String id = ids.get(proxy);
+                if (id == null) {
+                    throw new IllegalStateException("Account without identifier for client " + client.getClientId());
+                }
+                owners[proxies.size()] = c;
+                accountIds.add(id);
+                proxies.add(proxy);
+                decorated.add(account);
+            }
+        }
+        int count = proxies.size();
+
+        List<byte[]> policyTable = new ArrayList<>();
+        Map<InterestCalculation, Integer> policyIndex = new IdentityHashMap<>();
+        int[] policies = new int[count];
+        for (int i = 0; i < count; i++) {
+            InterestCalculation policy = proxies.get(i).getUnderlyingAccount().getInterestPolicy();
+            Integer index = policyIndex.get(policy);
+            if (index == null) {
+                try {
+                    policyTable.add(InterestPolicyCodec.encode(facade.policyRegistry().nameOf(policy), policy));
+                } catch (IllegalStateException e) {
+                    throw new IllegalStateException("Interest policy of " + accountIds.get(i) + " is not registered", e);
+                }
+                index = policyTable.size() - 1;
+                policyIndex.put(policy, index);
+            }
+            policies[i] = index;
+        }
+
+        out.ensure(36);
+        out.buffer.putInt(MAGIC).putInt(VERSION).putInt(clients.size()).putInt(count).putInt(policyTable.size())
+            .putInt(counters ? facade.getMonthlyTransactions() : 0)
+            .putDouble(counters ? facade.getTotalFeesCollected() : 0.0)
+            .putDouble(counters ? facade.getTotalInterestPaid() : 0.0);
+        for (byte[] policy : policyTable) {
+            out.putBytes(policy);
+        }
+
+        for (Client client : clients) {
+            out.putString(client.getClientId());
+        }
+        for (Client client : clients) {
+            out.putString(client.getName());
+        }
+
+        for (String id : accountIds) {
+            out.putString(id);
+        }
+        for (int i = 0; i < count; i++) {
+            out.ensure(4);
+            out.buffer.putInt(owners[i]);
+        }
+        for (AccountProxy proxy : proxies) {
+            out.ensure(8);
+            out.buffer.putDouble(proxy.getUnderlyingAccount().getBalance());
+        }
+        for (AccountProxy proxy : proxies) {
+            out.ensure(1);
+            out.buffer.put(stateCode(proxy.getUnderlyingAccount().getState()));
+        }
+        for (int policy : policies) {
+            out.ensure(4);
+            out.buffer.putInt(policy);
+        }
+        for (IAccount account : decorated) {
+            out.ensure(4);
+            out.buffer.putInt(serviceChain(account));
+        }
+        for (IAccount account : decorated) {
+            out.ensure(4);
+            out.buffer.putInt(rewardPoints(account));
+        }
+        for (AccountProxy proxy : proxies) {
+            out.ensure(8);
+            out.buffer.putDouble(proxy.getUnderlyingAccount().getInterestAccrual().getRunningTotal());
+        }
+        for (AccountProxy proxy : proxies) {
+            out.ensure(4);
+            out.buffer.putInt(proxy.getUnderlyingAccount().getInterestAccrual().getMonthsRecorded());
+        }
+        for (AccountProxy proxy : proxies) {
+            out.ensure(4);
+            out.buffer.putInt(proxy.getUnderlyingAccount().getInterestAccrual().getMonthOfYear());
+        }
+        for (AccountProxy proxy : proxies) {
+            out.ensure(8);
+            out.buffer.putLong(proxy.getUnderlyingAccount().getInterestAccrual().getPeriodStart());
+        }
+        for (AccountProxy proxy : proxies) {
+            out.ensure(8);
+            out.buffer.putLong(proxy.getUnderlyingAccount().getInterestAccrual().getLastUpdate());
+        }
+        for (AccountProxy proxy : proxies) {
+            out.ensure(8);
+            out.buffer.putDouble(proxy.getUnderlyingAccount().getInterestAccrual().getLastBalance());
+        }
+        for (AccountProxy proxy : proxies) {
+            out.ensure(8);
+            out.buffer.putDouble(proxy.getUnderlyingAccount().getInterestAccrual().getBalanceMillis());
+        }
+        for (AccountProxy proxy : proxies) {
+            PinAuthenticator pin = proxy.getAuthenticator();
+            out.ensure(4);
+            out.buffer.putInt(pin.getHash() == null ? -pin.getIterations() : pin.getIterations());
+        }
+        for (AccountProxy proxy : proxies) {
+            byte[] salt = proxy.getAuthenticator().getSalt();
+            out.ensure(PinAuthenticator.SALT_LENGTH);
+            out.buffer.put(salt == null ? new byte[PinAuthenticator.SALT_LENGTH] : salt);
+        }
+        for (AccountProxy proxy : proxies) {
+            byte[] hash = proxy.getAuthenticator().getHash();
+            out.ensure(PinAuthenticator.HASH_LENGTH);
+            out.buffer.put(hash == null ? new byte[PinAuthenticator.HASH_LENGTH] : hash);
+        }
+        out.flush();
+    }
+
+    /**
+     * Reads a snapshot and rebuilds a facade from it.
+     *
+     * @param file the snapshot file
+     * @return the restored facade
+     * @throws IOException if the file cannot be read or is not a snapshot
+     */
+    static PumaBankFacade read(Path file) throws IOException {
+        MappedByteBuffer in;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        PumaBankFacade facade = new PumaBankFacade(false);
+        try {
+            read(in, facade, true);
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupt snapshot " + file + ": " + e.getMessage(), e);
+        }
+        return facade;
+    }
+
+    /**
+     * Restores a bank encoded by {@link #encode(PumaBankFacade)} into an empty facade.
+     *
+     * @param facade the empty facade
+     * @param data   the encoded snapshot
+     * @throws IOException if the data is not a valid snapshot
+     */
+    static void decode(PumaBankFacade facade, byte[] data) throws IOException {
+        try {
+            read(ByteBuffer.wrap(data), facade, true);
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupt snapshot data: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Adds clients encoded by {@link #exportClients} to a facade. Nothing is
+     * added if one of the clients already exists there.
+     *
+     * @param facade the bank receiving the clients
+     * @param data   the encoded clients
+     * @return the number of accounts added
+     * @throws IOException if the data is not a valid encoding
+     * @throws IllegalArgumentException if a client already exists
+     */
+    static int importClients(PumaBankFacade facade, byte[] data) throws IOException {
+        try {
+            return read(ByteBuffer.wrap(data), facade, false);
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupt client data: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Adds the clients and accounts of a snapshot to a facade, restoring the
+     * monthly counters too if asked to, and returns the number of accounts.
+     */
+    private static int read(ByteBuffer in, PumaBankFacade facade, boolean counters) throws IOException {
+        if (in.getInt() != MAGIC) {
+            throw new IOException("Not a PumaBank snapshot");
+        }
+        int version = in.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported snapshot version " + version);
+        }
+        int clientCount = in.getInt();
+        int count = in.getInt();
+        int policyCount = in.getInt();
+        int transactions = in.getInt();
+        double fees = in.getDouble();
+        double interest = in.getDouble();
+
+        InterestCalculation[] policyTable = new InterestCalculation[policyCount];
+        for (int i = 0; i < policyCount; i++) {
+            byte[] policy = new byte[in.getInt()];
+            in.get(policy);
+            policyTable[i] = InterestPolicyCodec.decode(policy, facade.policyRegistry());
+        }
+
+        String[] clientIds = new String[clientCount];
+        for (int i = 0; i < clientCount; i++) {
+            clientIds[i] = getString(in);
+        }
+        Client[] clients = new Client[clientCount];
+        Map<String, Client> clientRegistry = facade.clientRegistry();
+        for (String clientId : clientIds) {
+            if (clientRegistry.containsKey(clientId)) {
+                throw new IllegalArgumentException("Client already exists: " + clientId);
+            }
+        }
+        Map<String, List<IAccount>> accountRegistry = facade.accountRegistry();
+        for (int i = 0; i < clientCount; i++) {
+            clients[i] = new Client(getString(in), clientIds[i]);
+            clientRegistry.put(clientIds[i], clients[i]);
+            accountRegistry.put(clientIds[i], new ArrayList<>());
+        }
+        String[] ids = new String[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = getString(in);
+        }
+        int[] owners = new int[count];
+        in.asIntBuffer().get(owners);
+        in.position(in.position() + 4 * count);
+        double[] balances = new double[count];
+        in.asDoubleBuffer().get(balances);
+        in.position(in.position() + 8 * count);
+        byte[] states = new byte[count];
+        in.get(states);
+        int[] policies = new int[count];
+        in.asIntBuffer().get(policies);
+        in.position(in.position() + 4 * count);
+        int[] services = new int[count];
+        in.asIntBuffer().get(services);
+        in.position(in.position() + 4 * count);
+        int[] points = new int[count];
+        in.asIntBuffer().get(points);
+        in.position(in.position() + 4 * count);
+        double[] totals = new double[count];
+        in.asDoubleBuffer().get(totals);
+        in.position(in.position() + 8 * count);
+        int[] months = new int[count];
+        in.asIntBuffer().get(months);
+        in.position(in.position() + 4 * count);
+        int[] monthsOfYear = new int[count];
+        in.asIntBuffer().get(monthsOfYear);
+        in.position(in.position() + 4 * count);
+        long[] periodStarts = new long[count];
+        in.asLongBuffer().get(periodStarts);
+        in.position(in.position() + 8 * count);
+        long[] lastChanges = new long[count];
+        in.asLongBuffer().get(lastChanges);
+        in.position(in.position() + 8 * count);
+        // The balance held since the last change, which is the account balance.
+        in.position(in.position() + 8 * count);
+        double[] balanceMillis = new double[count];
+        in.asDoubleBuffer().get(balanceMillis);
+        in.position(in.position() + 8 * count);
+        int[] iterations = new int[count];
+        in.asIntBuffer().get(iterations);
+        in.position(in.position() + 4 * count);
+        int saltStart = in.position();
+        int hashStart = saltStart + count * PinAuthenticator.SALT_LENGTH;
+
+        List<String> chain = new ArrayList<>(MAX_SERVICES);
+        for (int i = 0; i < count; i++) {
+            Account account = new Account(clients[owners[i]], balances[i], state(states[i]),
+                                          policyTable[policies[i]], facade);
+            InterestAccrual accrual = account.getInterestAccrual();
+            accrual.restoreHistory(totals[i], months[i]);
+            if (monthsOfYear[i] != 0) {
+                accrual.setMonthOfYear(monthsOfYear[i]);
+            }
+            account.restoreInterestPeriod(periodStarts[i], lastChanges[i], balanceMillis[i]);
+
+            PinAuthenticator pin;
+            if (iterations[i] < 0) {
+                pin = PinAuthenticator.fromHash(null, null, -iterations[i]);
+            } else {
+                byte[] salt = new byte[PinAuthenticator.SALT_LENGTH];
+                byte[] hash = new byte[PinAuthenticator.HASH_LENGTH];
+                in.position(saltStart + i * PinAuthenticator.SALT_LENGTH);
+                in.get(salt);
+                in.position(hashStart + i * PinAuthenticator.HASH_LENGTH);
+                in.get(hash);
+                pin = PinAuthenticator.fromHash(salt, hash, iterations[i]);
+            }
+
+            chain.clear();
+            for (int code = services[i]; code != 0; code >>>= SERVICE_BITS) {
+                chain.add(SERVICES[code & ((1 << SERVICE_BITS) - 1)]);
+            }
+            IAccount decorated = facade.restoreAccount(ids[i], account, pin, chain);
+            if (points[i] != 0) {
+                RewardsProgramDecorator rewards = outermostRewards(decorated);
+                if (rewards != null) {
+                    rewards.setRewardPoints(points[i]);
+                }
+            }
+        }
+        if (counters) {
+            facade.restoreCounters(transactions, fees, interest);
+        }
+        return count;
+    }
+
+    /**
+     * Walks a decorator chain down to its security proxy.
+     */
+    private static AccountProxy proxyOf(IAccount account) {
+        IAccount current = account;
+        while (current instanceof AccountDecorator) {
+            current = ((AccountDecorator) current).decoratedAccount;
+        }
+        if (!(current instanceof AccountProxy)) {
+            throw new IllegalStateException("Account is not guarded by an AccountProxy");
+        }
+        return (AccountProxy) current;
+    }
+
+    /**
+     * Encodes the services of a decorator chain, innermost first, two bits each.
+     */
+    private static int serviceChain(IAccount account) {
+        int chain = 0;
+        int services = 0;
+        IAccount current = account;
+        while (current instanceof AccountDecorator) {
+            int code;
+            if (current instanceof AntiFraudDecorator) {
+                code = 1;
+            } else if (current instanceof PremiumAlertsDecorator) {
+                code = 2;
+            } else if (current instanceof RewardsProgramDecorator) {
+                code = 3;
+            } else {
+                throw new IllegalStateException("Unsupported decorator " + current.getClass().getName());
+            }
+            if (++services > MAX_SERVICES) {
+                throw new IllegalStateException("Too many services on one account");
+            }
+            // Walking from the outside in leaves the innermost service in the lowest bits.
+            chain = (chain << SERVICE_BITS) | code;
+            current = ((AccountDecorator) current).decoratedAccount;
+        }
+        return chain;
+    }
+
+    /**
+     * Returns the outermost rewards decorator of a chain, or {@code null}.
+     */
+    static RewardsProgramDecorator outermostRewards(IAccount account) {
+        IAccount current = account;
+        while (current instanceof AccountDecorator) {
+            if (current instanceof RewardsProgramDecorator) {
+                return (RewardsProgramDecorator) current;
+            }
+            current = ((AccountDecorator) current).decoratedAccount;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the points of the outermost rewards decorator of a chain.
+     */
+    static int rewardPoints(IAccount account) {
+        RewardsProgramDecorator rewards = outermostRewards(account);
+        return rewards == null ? 0 : rewards.getRewardPoints();
+    }
+
+    /**
+     * Encodes an account state.
+     */
+    static byte stateCode(AccountState state) {
+        if (state instanceof ActiveState) return STATE_ACTIVE;
+        if (state instanceof OverdrawnState) {
+            return ((OverdrawnState) state).isFeeApplied() ? STATE_OVERDRAWN_FEE_APPLIED : STATE_OVERDRAWN;
+        }
+        if (state instanceof FrozenState) return STATE_FROZEN;
+        if (state instanceof ClosedState) return STATE_CLOSED;
+        throw new IllegalStateException("Unsupported account state " + state.getClass().getName());
+    }
+
+    /**
+     * Decodes an account state.
+     */
+    static AccountState state(byte code) {
+        switch (code) {
+            case STATE_ACTIVE: return new ActiveState();
+            case STATE_OVERDRAWN: return new OverdrawnState(false);
+            case STATE_OVERDRAWN_FEE_APPLIED: return new OverdrawnState(true);
+            case STATE_FROZEN: return new FrozenState();
+            case STATE_CLOSED: return new ClosedState();
+            default: throw new IllegalArgumentException("Unknown state code " + code);
+        }
+    }
+
+    /**
+     * Reads a length-prefixed UTF-8 string.
+     */
+    private static String getString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Buffered sequential writer over a channel.
+     */
+    private static final class Output {
+        final ByteBuffer buffer;
+        private final WritableByteChannel channel;
+
+        Output(WritableByteChannel channel, ByteBuffer buffer) {
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        /**
+         * Makes room for {@code bytes} more bytes, flushing the buffer if needed.
+         */
+        void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        /**
+         * Writes a length-prefixed UTF-8 string.
+         */
+        void putString(String value) throws IOException {
+            putBytes(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        /**
+         * Writes a length-prefixed byte array.
+         */
+        void putBytes(byte[] bytes) throws IOException {
+            ensure(4);
+            buffer.putInt(bytes.length);
+            if (bytes.length > buffer.capacity()) {
+                flush();
+                ByteBuffer large = ByteBuffer.wrap(bytes);
+                while (large.hasRemaining()) {
+                    channel.write(large);
+                }
+                return;
+            }
+            ensure(bytes.length);
+            buffer.put(bytes);
+        }
+
+        /**
+         * Writes out everything buffered so far.
+         */
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
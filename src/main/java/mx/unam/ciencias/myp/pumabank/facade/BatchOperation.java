@@ -0,0 +1,101 @@
+package mx.unam.ciencias.myp.pumabank.facade;
+
+/**
+ * A single account operation submitted to {@link PumaBankFacade#executeBatch}.
+ * <p>
+ * Instances are immutable and created through the static factory methods.
+ * </p>
+ */
+public final class BatchOperation {
+
+    /**
+     * The kind of account operation.
+     */
+    public enum Type {
+        DEPOSIT,
+        WITHDRAW,
+        CHECK_BALANCE
+    }
+
+    private final Type type;
+    private final String accountId;
+    private final double amount;
+    private final String pin;
+
+    private BatchOperation(Type type, String accountId, double amount, String pin) {
+        if (type == null || accountId == null) {
+            throw new IllegalArgumentException("Operation type and account are required");
+        }
+        this.type = type;
+        this.accountId = accountId;
+        this.amount = amount;
+        this.pin = pin;
+    }
+
+    /**
+     * Creates a deposit operation.
+     *
+     * @param accountId the target account
+     * @param amount    the amount to deposit
+     * @param pin       the PIN or session token of the account
+     * @return the operation
+     */
+    public static BatchOperation deposit(String accountId, double amount, String pin) {
+        return new BatchOperation(Type.DEPOSIT, accountId, amount, pin);
+    }
+
+    /**
+     * Creates a withdrawal operation.
+     *
+     * @param accountId the target account
+     * @param amount    the amount to withdraw
+     * @param pin       the PIN or session token of the account
+     * @return the operation
+     */
+    public static BatchOperation withdraw(String accountId, double amount, String pin) {
+        return new BatchOperation(Type.WITHDRAW, accountId, amount, pin);
+    }
+
+    /**
+     * Creates a balance check operation.
+     *
+     * @param accountId the target account
+     * @param pin       the PIN or session token of the account
+     * @return the operation
+     */
+    public static BatchOperation checkBalance(String accountId, String pin) {
+        return new BatchOperation(Type.CHECK_BALANCE, accountId, 0.0, pin);
+    }
+
+    /**
+     * Returns the kind of operation.
+     * @return the operation type
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Returns the target account identifier.
+     * @return the account identifier
+     */
+    public String getAccountId() {
+        return accountId;
+    }
+
+    /**
+     * Returns the amount of a deposit or withdrawal.
+     * @return the amount, or 0.0 for balance checks
+     */
+    public double getAmount() {
+        return amount;
+    }
+
+    /**
+     * Returns the credential sent with the operation.
+     * @return the PIN or session token
+     */
+    public String getPin() {
+        return pin;
+    }
+}
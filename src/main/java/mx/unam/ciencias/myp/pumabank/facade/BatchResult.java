@@ -0,0 +1,78 @@
+package mx.unam.ciencias.myp.pumabank.facade;
+
+/**
+ * The outcome of one {@link BatchOperation} executed by
+ * {@link PumaBankFacade#executeBatch}.
+ */
+public final class BatchResult {
+
+    /**
+     * What happened to the operation.
+     */
+    public enum Status {
+        /** The operation reached the account and changed or read its balance. */
+        APPLIED,
+        /** The operation reached the account but its state left the balance unchanged. */
+        DECLINED,
+        /** The operation was rejected by the account rules (for example, a non-positive amount). */
+        INVALID,
+        /** The PIN of the operation was incorrect. */
+        AUTH_FAILED,
+        /** The account is blocked by failed PIN attempts. */
+        THROTTLED,
+        /** The account does not exist. */
+        NOT_FOUND
+    }
+
+    private final BatchOperation operation;
+    private final Status status;
+    private final double balance;
+    private final String message;
+
+    BatchResult(BatchOperation operation, Status status, double balance, String message) {
+        this.operation = operation;
+        this.status = status;
+        this.balance = balance;
+        this.message = message;
+    }
+
+    /**
+     * Returns the operation this result belongs to.
+     * @return the operation
+     */
+    public BatchOperation getOperation() {
+        return operation;
+    }
+
+    /**
+     * Returns the outcome of the operation.
+     * @return the status
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Returns whether the operation was applied.
+     * @return {@code true} if the status is {@link Status#APPLIED}
+     */
+    public boolean isApplied() {
+        return status == Status.APPLIED;
+    }
+
+    /**
+     * Returns the account balance right after the operation.
+     * @return the balance, or {@code -1} if the account was not reached
+     */
+    public double getBalance() {
+        return balance;
+    }
+
+    /**
+     * Returns the reason of an {@link Status#INVALID} result.
+     * @return the error message, or {@code null}
+     */
+    public String getMessage() {
+        return message;
+    }
+}
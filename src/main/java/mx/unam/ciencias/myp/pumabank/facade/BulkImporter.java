@@ -0,0 +1,675 @@
+package mx.unam.ciencias.myp.pumabank.facade;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantLock;
+
+import mx.unam.ciencias.myp.pumabank.model.Account;
+import mx.unam.ciencias.myp.pumabank.model.Client;
+import mx.unam.ciencias.myp.pumabank.model.IAccount;
+import mx.unam.ciencias.myp.pumabank.patterns.proxy.PinAuthenticator;
+import mx.unam.ciencias.myp.pumabank.patterns.state.states.ActiveState;
+import mx.unam.ciencias.myp.pumabank.patterns.strategy.InterestCalculation;
+
+/**
+ * Streams clients and accounts from a file into a {@link PumaBankFacade}.
+ *
+ * <p>Two formats are accepted. A CSV file holds one record per line:
+ * {@code C,clientId,name} registers a client and
+ * {@code A,clientId,balance,pin,interestType[,services]} creates an account,
+ * where {@code services} is a {@code ;}-separated list applied innermost
+ * first. Fields may be quoted with {@code "}; blank lines, lines starting with
+ * {@code #} and a header line are skipped. A binary file starts with
+ * {@link #MAGIC} and holds big-endian records: {@code 1, id, name} for a
+ * client and {@code 2, clientId, balance (double), pin, interestType,
+ * serviceCount (byte), serviceCodes (bytes)} for an account, where strings are
+ * an unsigned 16-bit length followed by UTF-8 bytes and service codes are
+ * 1 (anti-fraud), 2 (premium alerts) and 3 (rewards).</p>
+ *
+ * <p>The file is read through a reusable buffer and parsed in place: amounts
+ * are decoded straight from the bytes, and interest types, service lists and
+ * the owner of consecutive accounts are matched against the previous values
+ * instead of allocating new strings. Parsed accounts are collected in batches
+ * whose objects and PIN hashes are built on a thread pool; the batches are
+ * then registered on the calling thread in file order, so account
+ * identifiers are the same as with one-by-one creation. Nothing is logged or
+ * printed per record.</p>
+ *
+ * <p>A client that is already registered, an account whose client is
+ * unknown, and records with an invalid amount, interest type or service are
+ * skipped and counted as rejected.</p>
+ */
+final class BulkImporter {
+
+    /** First four bytes of a binary import file, {@code "PBI1"}. */
+    static final int MAGIC = 0x50424931;
+
+    static final int DEFAULT_BATCH_SIZE = 512;
+
+    private static final byte CLIENT = 1;
+    private static final byte ACCOUNT = 2;
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final int MAX_REPORTED = 10;
+
+    /** Service names by binary code. */
+    private static final String[] SERVICES = {null, "ANTI_FRAUD", "PREMIUM_ALERTS", "REWARDS"};
+    private static final List<String> INVALID_SERVICES = Collections.unmodifiableList(new ArrayList<>());
+
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15
+    };
+
+    /**
+     * Accounts parsed from the file and not yet registered. The parser fills
+     * the input columns; a worker fills {@code accounts} and
+     * {@code authenticators}.
+     */
+    private static final class Batch {
+        final Client[] clients;
+        final double[] balances;
+        final String[] pins;
+        final InterestCalculation[] policies;
+        final String[] types;
+        final List<List<String>> services;
+        final Account[] accounts;
+        final PinAuthenticator[] authenticators;
+        int size;
+
+        Batch(int capacity) {
+            clients = new Client[capacity];
+            balances = new double[capacity];
+            pins = new String[capacity];
+            policies = new InterestCalculation[capacity];
+            types = new String[capacity];
+            services = new ArrayList<>(capacity);
+            accounts = new Account[capacity];
+            authenticators = new PinAuthenticator[capacity];
+        }
+    }
+
+    /**
+     * Maps short byte sequences to strings without allocating for sequences
+     * seen before. Meant for fields with few distinct values.
+     */
+    private static final class Interner {
+        private final byte[][] keys = new byte[64][];
+        private final String[] values = new String[64];
+        private int size;
+
+        String intern(byte[] buf, int from, int to) {
+            for (int i = 0; i < size; i++) {
+                if (Arrays.equals(keys[i], 0, keys[i].length, buf, from, to)) {
+                    return values[i];
+                }
+            }
+            String value = new String(buf, from, to - from, StandardCharsets.UTF_8);
+            if (size < keys.length) {
+                keys[size] = Arrays.copyOfRange(buf, from, to);
+                values[size++] = value;
+            }
+            return value;
+        }
+    }
+
+    private final PumaBankFacade facade;
+    private final int threads;
+    private final int batchSize;
+
+    private final Map<String, Client> clientRegistry;
+    private final Map<String, List<IAccount>> accountRegistry;
+    private final Interner types = new Interner();
+    private final Interner serviceFields = new Interner();
+    private final Map<String, List<String>> servicesByField = new HashMap<>();
+    private final Map<Integer, List<String>> servicesByCodes = new HashMap<>();
+    private final ArrayDeque<Future<Batch>> pending = new ArrayDeque<>();
+    private ExecutorService workers;
+    private Batch batch;
+
+    private byte[] lastClientKey = new byte[0];
+    private Client lastClient;
+
+    private long clients;
+    private long accounts;
+    private long rejected;
+    private long record;
+
+    /**
+     * Creates an importer for one file.
+     *
+     * @param facade    the bank receiving the records
+     * @param threads   worker threads building accounts; 1 builds them on the calling thread
+     * @param batchSize accounts per batch
+     */
+    BulkImporter(PumaBankFacade facade, int threads, int batchSize) {
+        if (threads < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("threads and batchSize must be positive");
+        }
+        this.facade = facade;
+        this.threads = threads;
+        this.batchSize = batchSize;
+        this.clientRegistry = facade.clientRegistry();
+        this.accountRegistry = facade.accountRegistry();
+    }
+
+    /**
+     * Imports every record of a file, detecting its format from the first bytes.
+     *
+     * @param file the CSV or binary file
+     * @return the counts and duration of the import
+     * @throws IOException if the file cannot be read or a binary file is corrupt
+     */
+    ImportResult importFile(Path file) throws IOException {
+        long start = System.nanoTime();
+        if (threads > 1) {
+            workers = Executors.newFixedThreadPool(threads, r -> {
+                Thread t = new Thread(r, "pumabank-import");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        batch = new Batch(batchSize);
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer head = ByteBuffer.allocate(4);
+            while (head.hasRemaining() && in.read(head) >= 0) {
+                // fill the magic number
+            }
+            boolean binary = !head.hasRemaining() && head.getInt(0) == MAGIC;
+            in.position(binary ? 4 : 0);
+            if (binary) {
+                readBinary(in);
+            } else {
+                readCsv(in);
+            }
+            flush();
+            while (!pending.isEmpty()) {
+                register(await(pending.poll()));
+            }
+        } finally {
+            if (workers != null) {
+                workers.shutdownNow();
+            }
+        }
+        return new ImportResult(clients, accounts, rejected, System.nanoTime() - start);
+    }
+
+    /**
+     * Reads a CSV file line by line through a growable byte buffer.
+     */
+    private void readCsv(FileChannel in) throws IOException {
+        byte[] buf = new byte[BUFFER_SIZE];
+        ByteBuffer window = ByteBuffer.wrap(buf);
+        int[] bounds = new int[16];
+        int start = 0;
+        int scan = 0;
+        int limit = 0;
+        boolean eof = false;
+        while (true) {
+            int nl = scan;
+            while (nl < limit && buf[nl] != '\n') {
+                nl++;
+            }
+            if (nl < limit) {
+                csvLine(buf, start, nl, bounds);
+                start = nl + 1;
+                scan = start;
+                continue;
+            }
+            if (eof) {
+                if (start < limit) {
+                    csvLine(buf, start, limit, bounds);
+                }
+                return;
+            }
+            if (start > 0) {
+                System.arraycopy(buf, start, buf, 0, limit - start);
+                limit -= start;
+                start = 0;
+            }
+            if (limit == buf.length) {
+                buf = Arrays.copyOf(buf, buf.length * 2);
+                window = ByteBuffer.wrap(buf);
+            }
+            scan = limit;
+            window.limit(buf.length).position(limit);
+            int n = in.read(window);
+            if (n < 0) {
+                eof = true;
+            } else {
+                limit += n;
+            }
+        }
+    }
+
+    /**
+     * Splits one CSV line into field bounds and imports it.
+     *
+     * @param bounds receives the start and end offset of each field
+     */
+    private void csvLine(byte[] buf, int from, int to, int[] bounds) {
+        if (to > from && buf[to - 1] == '\r') {
+            to--;
+        }
+        if (to == from || buf[from] == '#') {
+            return;
+        }
+        record++;
+        int fields = 0;
+        int i = from;
+        while (fields < bounds.length / 2) {
+            int fieldStart = i;
+            if (i < to && buf[i] == '"') {
+                i++;
+                while (i < to && (buf[i] != '"' || (i + 1 < to && buf[i + 1] == '"'))) {
+                    i += buf[i] == '"' ? 2 : 1;
+                }
+                i++;
+            }
+            while (i < to && buf[i] != ',') {
+                i++;
+            }
+            bounds[2 * fields] = fieldStart;
+            bounds[2 * fields + 1] = Math.min(i, to);
+            fields++;
+            if (i >= to) {
+                break;
+            }
+            i++;
+        }
+
+        byte kind = bounds[1] - bounds[0] == 1 ? buf[bounds[0]] : 0;
+        if (kind == 'C' && fields == 3) {
+            client(text(buf, bounds[2], bounds[3]), text(buf, bounds[4], bounds[5]));
+        } else if (kind == 'A' && (fields == 5 || fields == 6)) {
+            try {
+                Client owner = owner(buf, bounds[2], bounds[3]);
+                double balance = parseAmount(buf, bounds[4], bounds[5]);
+                String pin = text(buf, bounds[6], bounds[7]);
+                String type = types.intern(buf, bounds[8], bounds[9]);
+                List<String> services = fields == 6 ? services(buf, bounds[10], bounds[11]) : Collections.emptyList();
+                account(owner, balance, pin, type, services);
+            } catch (IllegalArgumentException e) {
+                reject(e.getMessage());
+            }
+        } else if (record == 1) {
+            record = 0; // header line
+        } else {
+            reject("unrecognized line");
+        }
+    }
+
+    /**
+     * Decodes a field, removing its quotes if it has them.
+     */
+    private static String text(byte[] buf, int from, int to) {
+        if (to - from >= 2 && buf[from] == '"' && buf[to - 1] == '"') {
+            return new String(buf, from + 1, to - from - 2, StandardCharsets.UTF_8).replace("\"\"", "\"");
+        }
+        return new String(buf, from, to - from, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the service list of a CSV field, parsing each distinct field once.
+     */
+    private List<String> services(byte[] buf, int from, int to) {
+        String field = serviceFields.intern(buf, from, to);
+        List<String> services = servicesByField.computeIfAbsent(field, f -> {
+            List<String> names = new ArrayList<>();
+            for (String name : f.split(";")) {
+                String service = name.trim().toUpperCase();
+                if (service.isEmpty()) {
+                    continue;
+                }
+                if (!Arrays.asList(SERVICES).contains(service)) {
+                    return INVALID_SERVICES;
+                }
+                names.add(service);
+            }
+            return Collections.unmodifiableList(names);
+        });
+        if (services == INVALID_SERVICES) {
+            throw new IllegalArgumentException("unknown service in " + field);
+        }
+        return services;
+    }
+
+    /**
+     * Reads a binary file record by record through a reusable buffer.
+     */
+    private void readBinary(FileChannel in) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(BUFFER_SIZE);
+        buf.flip();
+        while (fill(in, buf, 1)) {
+            byte kind = buf.get();
+            record++;
+            if (kind == CLIENT) {
+                String id = readString(in, buf);
+                String name = readString(in, buf);
+                if (name == null) {
+                    reject("truncated record");
+                    return;
+                }
+                client(id, name);
+            } else if (kind == ACCOUNT) {
+                if (!fill(in, buf, 2)) {
+                    reject("truncated record");
+                    return;
+                }
+                int length = buf.getShort() & 0xFFFF;
+                if (!fill(in, buf, length + 8)) {
+                    reject("truncated record");
+                    return;
+                }
+                Client owner;
+                try {
+                    owner = owner(buf.array(), buf.position(), buf.position() + length);
+                } catch (IllegalArgumentException e) {
+                    owner = null;
+                    reject(e.getMessage());
+                }
+                buf.position(buf.position() + length);
+                double balance = buf.getDouble();
+                String pin = readString(in, buf);
+                if (pin == null || !fill(in, buf, 2)) {
+                    reject("truncated record");
+                    return;
+                }
+                length = buf.getShort() & 0xFFFF;
+                if (!fill(in, buf, length + 1)) {
+                    reject("truncated record");
+                    return;
+                }
+                String type = types.intern(buf.array(), buf.position(), buf.position() + length);
+                buf.position(buf.position() + length);
+                int count = buf.get() & 0xFF;
+                if (!fill(in, buf, count)) {
+                    reject("truncated record");
+                    return;
+                }
+                List<String> services = services(buf, count);
+                if (owner == null) {
+                    continue;
+                }
+                if (services == null) {
+                    reject("unknown service code");
+                } else {
+                    try {
+                        account(owner, balance, pin, type, services);
+                    } catch (IllegalArgumentException e) {
+                        reject(e.getMessage());
+                    }
+                }
+            } else {
+                throw new IOException("Corrupt import file: unknown record type " + kind + " in record " + record);
+            }
+        }
+    }
+
+    /**
+     * Makes sure at least {@code needed} bytes are buffered, compacting and
+     * reading more from the channel if necessary.
+     *
+     * @return {@code false} if the file ends first
+     */
+    private static boolean fill(FileChannel in, ByteBuffer buf, int needed) throws IOException {
+        if (buf.remaining() >= needed) {
+            return true;
+        }
+        buf.compact();
+        while (buf.position() < needed) {
+            if (in.read(buf) < 0) {
+                buf.flip();
+                return false;
+            }
+        }
+        buf.flip();
+        return true;
+    }
+
+    /**
+     * Reads a length-prefixed UTF-8 string.
+     *
+     * @return the string, or {@code null} if the file ends first
+     */
+    private static String readString(FileChannel in, ByteBuffer buf) throws IOException {
+        if (!fill(in, buf, 2)) {
+            return null;
+        }
+        int length = buf.getShort() & 0xFFFF;
+        if (!fill(in, buf, length)) {
+            return null;
+        }
+        String value = new String(buf.array(), buf.position(), length, StandardCharsets.UTF_8);
+        buf.position(buf.position() + length);
+        return value;
+    }
+
+    /**
+     * Reads {@code count} service codes and returns the matching names,
+     * reusing the list of a code sequence seen before.
+     *
+     * @return the service names, or {@code null} if a code is unknown
+     */
+    private List<String> services(ByteBuffer buf, int count) {
+        int key = count;
+        boolean cacheable = count <= 8;
+        for (int i = 0; i < count; i++) {
+            int code = buf.get(buf.position() + i) & 0xFF;
+            if (code == 0 || code >= SERVICES.length) {
+                buf.position(buf.position() + count);
+                return null;
+            }
+            key = key << 2 | code;
+        }
+        List<String> services = cacheable ? servicesByCodes.get(key) : null;
+        if (services == null) {
+            List<String> names = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                names.add(SERVICES[buf.get(buf.position() + i)]);
+            }
+            services = Collections.unmodifiableList(names);
+            if (cacheable) {
+                servicesByCodes.put(key, services);
+            }
+        }
+        buf.position(buf.position() + count);
+        return services;
+    }
+
+    /**
+     * Parses a decimal amount straight from its bytes. Values with more than
+     * 15 significant digits or an exponent go through {@link Double#parseDouble}.
+     *
+     * @throws NumberFormatException if the field is not a number
+     */
+    static double parseAmount(byte[] buf, int from, int to) {
+        int i = from;
+        boolean negative = false;
+        if (i < to && (buf[i] == '-' || buf[i] == '+')) {
+            negative = buf[i] == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int significant = 0;
+        int scale = 0;
+        boolean point = false;
+        for (; i < to; i++) {
+            int c = buf[i];
+            if (c >= '0' && c <= '9' && significant < 15) {
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+                if (mantissa != 0) {
+                    significant++;
+                }
+                if (point) {
+                    scale++;
+                }
+            } else if (c == '.' && !point) {
+                point = true;
+            } else {
+                return Double.parseDouble(new String(buf, from, to - from, StandardCharsets.US_ASCII));
+            }
+        }
+        if (digits == 0 || scale >= POWERS_OF_TEN.length) {
+            return Double.parseDouble(new String(buf, from, to - from, StandardCharsets.US_ASCII));
+        }
+        double value = mantissa / POWERS_OF_TEN[scale];
+        return negative ? -value : value;
+    }
+
+    /**
+     * Returns the registered client with the given identifier, reusing the
+     * previous lookup when consecutive accounts share an owner.
+     *
+     * @throws IllegalArgumentException if the client is not registered
+     */
+    private Client owner(byte[] buf, int from, int to) {
+        if (lastClient != null && Arrays.equals(lastClientKey, 0, lastClientKey.length, buf, from, to)) {
+            return lastClient;
+        }
+        String clientId = text(buf, from, to);
+        Client client = clientRegistry.get(clientId);
+        if (client == null) {
+            throw new IllegalArgumentException("client not found: " + clientId);
+        }
+        lastClientKey = Arrays.copyOfRange(buf, from, to);
+        lastClient = client;
+        return client;
+    }
+
+    /**
+     * Registers a client right away, since later accounts refer to it.
+     */
+    private void client(String clientId, String name) {
+        if (clientId.isEmpty() || clientRegistry.containsKey(clientId)) {
+            reject("client already registered: " + clientId);
+            return;
+        }
+        ReentrantLock registry = facade.registryLock();
+        registry.lock();
+        try {
+            clientRegistry.put(clientId, new Client(name, clientId));
+            accountRegistry.put(clientId, new ArrayList<>());
+            if (facade.getJournal() != null) {
+                facade.getJournal().logClient(clientId, name);
+            }
+        } finally {
+            registry.unlock();
+        }
+        clients++;
+    }
+
+    /**
+     * Adds a parsed account to the current batch.
+     *
+     * @throws IllegalArgumentException if the interest type is unknown
+     */
+    private void account(Client owner, double balance, String pin, String type, List<String> services) {
+        InterestCalculation policy = facade.policyRegistry().get(type);
+        int i = batch.size++;
+        batch.clients[i] = owner;
+        batch.balances[i] = balance;
+        batch.pins[i] = pin;
+        batch.policies[i] = policy;
+        batch.types[i] = type;
+        batch.services.add(services);
+        if (batch.size == batchSize) {
+            flush();
+        }
+    }
+
+    /**
+     * Hands the current batch to the workers, registering the oldest pending
+     * batches first if too many are in flight.
+     */
+    private void flush() {
+        if (batch.size == 0) {
+            return;
+        }
+        Batch full = batch;
+        batch = new Batch(batchSize);
+        if (workers == null) {
+            register(build(full));
+            return;
+        }
+        while (pending.size() >= 2 * threads) {
+            register(await(pending.poll()));
+        }
+        pending.add(workers.submit(() -> build(full)));
+    }
+
+    /**
+     * Creates the accounts and PIN hashes of a batch. Runs on a worker thread
+     * and touches nothing but the batch.
+     */
+    private Batch build(Batch batch) {
+        for (int i = 0; i < batch.size; i++) {
+            batch.accounts[i] = new Account(batch.clients[i], batch.balances[i], new ActiveState(),
+                                            batch.policies[i], facade);
+            batch.authenticators[i] = new PinAuthenticator(batch.pins[i]);
+            batch.pins[i] = null;
+        }
+        return batch;
+    }
+
+    private static Batch await(Future<Batch> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Import interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * Adds the built accounts of a batch to the registries, in file order.
+     */
+    private void register(Batch batch) {
+        WriteAheadJournal journal = facade.getJournal();
+        ReentrantLock registry = facade.registryLock();
+        registry.lock();
+        try {
+            for (int i = 0; i < batch.size; i++) {
+                String clientId = batch.clients[i].getClientId();
+                String accountId = clientId + "-ACC-" + (accountRegistry.get(clientId).size() + 1);
+                facade.restoreAccount(accountId, batch.accounts[i], batch.authenticators[i], batch.services.get(i));
+                if (journal != null) {
+                    journal.logAccount(clientId, accountId, batch.balances[i], batch.types[i],
+                                       batch.accounts[i].getInterestPolicy(), batch.services.get(i),
+                                       batch.authenticators[i]);
+                }
+            }
+        } finally {
+            registry.unlock();
+        }
+        accounts += batch.size;
+    }
+
+    private void reject(String reason) {
+        rejected++;
+        if (rejected <= MAX_REPORTED) {
+            System.err.println("Import record " + record + " skipped: " + reason);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package mx.unam.ciencias.myp.pumabank.facade;
+
+/**
+ * Output formats of {@link PumaBankFacade#exportStatements}.
+ */
+public enum ExportFormat {
+    /**
+     * One JSON object per line and client, holding the portfolio totals and
+     * an array with the statement of each account.
+     */
+    JSON_LINES,
+    /**
+     * A header line and one row per account with its client and statement;
+     * clients without accounts get a row with empty account columns.
+     */
+    CSV
+}
@@ -0,0 +1,249 @@
+package mx.unam.ciencias.myp.pumabank.facade;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Remembers the results of keyed operations so that a retried request gets
+ * the original result instead of running again.
+ *
+ * <p>Keys are reduced to a 64-bit hash and stored with their result in flat
+ * {@code long} arrays, three longs per entry, probed linearly: no object is
+ * kept per key. The cache is split into {@value #SEGMENTS} segments chosen by
+ * the top bits of the hash, each with its own lock, so lookups for different
+ * keys rarely contend.</p>
+ *
+ * <p>Each segment holds two generations of entries. New entries go to the
+ * current generation; when it has received its share of the capacity, or is
+ * older than the time to live, it becomes the previous generation and the
+ * one before is dropped as a whole. Memory is therefore fixed at two tables
+ * per segment, and a key is remembered for the time to live unless
+ * {@code capacity} newer keys push it out first. An entry is never honored
+ * after its time to live, whichever generation it is in.</p>
+ *
+ * <p>Each entry also keeps a 24-bit fingerprint of the request it answered.
+ * A key sent again with a different request is refused, since returning the
+ * result of another request would be wrong. Two keys that share a 64-bit
+ * hash are treated as the same key; with millions of keys this is a one in
+ * billions event.</p>
+ */
+public final class IdempotencyCache {
+
+    /** Default number of keys remembered. */
+    public static final int DEFAULT_CAPACITY = 1 << 17;
+
+    /** Default time a key is remembered. */
+    public static final Duration DEFAULT_TTL = Duration.ofHours(24);
+
+    /** Number of independently locked segments; a power of two. */
+    public static final int SEGMENTS = 64;
+
+    private static final int SEGMENT_BITS = Integer.numberOfTrailingZeros(SEGMENTS);
+    private static final int STRIDE = 3;
+    private static final int FINGERPRINT_BITS = 24;
+    private static final BatchResult.Status[] STATUSES = BatchResult.Status.values();
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final long ttlMillis;
+    private final int segmentCapacity;
+    private final int slots;
+
+    /**
+     * Creates a cache.
+     *
+     * @param capacity the number of keys to remember
+     * @param ttl      how long a key is remembered, under 49 days
+     * @throws IllegalArgumentException if the capacity is not positive or the
+     *                                  time to live is out of range
+     */
+    public IdempotencyCache(int capacity, Duration ttl) {
+        if (capacity < 1 || ttl.isNegative() || ttl.isZero() || ttl.toMillis() > 0xffffffffL) {
+            throw new IllegalArgumentException("Invalid idempotency cache configuration");
+        }
+        this.ttlMillis = ttl.toMillis();
+        this.segmentCapacity = Math.max(1, (capacity + SEGMENTS - 1) / SEGMENTS);
+        this.slots = segmentCapacity + segmentCapacity / 3 + 1;
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    /**
+     * Looks up the result remembered for a key.
+     *
+     * @param key       the idempotency key
+     * @param request   a hash of the request the key is sent with
+     * @param operation the operation to report in the result, possibly {@code null}
+     * @param now       the current time in epoch milliseconds
+     * @return the remembered result, or {@code null} if the key is unknown or expired
+     * @throws IllegalArgumentException if the key was remembered for a different request
+     */
+    public BatchResult find(String key, int request, BatchOperation operation, long now) {
+        long hash = hash(key);
+        Segment segment = segments[(int) (hash >>> (64 - SEGMENT_BITS))];
+        long meta;
+        long balance;
+        synchronized (segment) {
+            int slot = segment.current == null ? -1 : indexOf(segment.current, hash);
+            long start = segment.currentStart;
+            long[] table = segment.current;
+            if (slot < 0 || !live(table, slot, start, now)) {
+                slot = segment.previous == null ? -1 : indexOf(segment.previous, hash);
+                start = segment.previousStart;
+                table = segment.previous;
+                if (slot < 0 || !live(table, slot, start, now)) {
+                    return null;
+                }
+            }
+            meta = table[slot + 1];
+            balance = table[slot + 2];
+        }
+        if (((meta >>> 8) & ((1 << FINGERPRINT_BITS) - 1)) != (request & ((1 << FINGERPRINT_BITS) - 1))) {
+            throw new IllegalArgumentException("Idempotency key reused for a different request: " + key);
+        }
+        return new BatchResult(operation, STATUSES[(int) (meta & 0xff)], Double.longBitsToDouble(balance), null);
+    }
+
+    /**
+     * Remembers the result of a keyed request.
+     *
+     * @param key     the idempotency key
+     * @param request a hash of the request
+     * @param status  the outcome to return for retries
+     * @param balance the balance to return for retries
+     * @param now     the current time in epoch milliseconds
+     */
+    public void remember(String key, int request, BatchResult.Status status, double balance, long now) {
+        long hash = hash(key);
+        Segment segment = segments[(int) (hash >>> (64 - SEGMENT_BITS))];
+        synchronized (segment) {
+            if (segment.current == null) {
+                segment.current = new long[slots * STRIDE];
+                segment.currentStart = now;
+            }
+            int slot = indexOf(segment.current, hash);
+            if (slot < 0 && (segment.currentSize >= segmentCapacity || now - segment.currentStart >= ttlMillis)) {
+                segment.rotate(now);
+                slot = indexOf(segment.current, hash);
+            }
+            if (slot < 0) {
+                slot = -slot - 1;
+                segment.current[slot] = hash;
+                segment.currentSize++;
+            }
+            long offset = Math.max(0, Math.min(0xffffffffL, now - segment.currentStart));
+            segment.current[slot + 1] = offset << 32
+                | (long) (request & ((1 << FINGERPRINT_BITS) - 1)) << 8
+                | status.ordinal();
+            segment.current[slot + 2] = Double.doubleToRawLongBits(balance);
+        }
+    }
+
+    /**
+     * Returns the number of keys held, counting both generations and
+     * entries that expired but were not dropped yet.
+     *
+     * @return the keys held
+     */
+    public long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.currentSize + segment.previousSize;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Returns the memory taken by the entry tables.
+     *
+     * @return the allocated table size in bytes
+     */
+    public long getMemoryBytes() {
+        long bytes = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                bytes += (segment.current == null ? 0 : segment.current.length * 8L)
+                    + (segment.previous == null ? 0 : segment.previous.length * 8L);
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Returns whether the entry at a slot is still within its time to live.
+     */
+    private boolean live(long[] table, int slot, long generationStart, long now) {
+        return generationStart + (table[slot + 1] >>> 32) + ttlMillis > now;
+    }
+
+    /**
+     * Finds a hash in a table: the index of its entry, or {@code -(index + 1)}
+     * of the empty slot where it would go.
+     */
+    private int indexOf(long[] table, long hash) {
+        int slot = (int) (((hash & 0xffffffffL) * slots) >>> 32);
+        while (true) {
+            long stored = table[slot * STRIDE];
+            if (stored == hash) {
+                return slot * STRIDE;
+            }
+            if (stored == 0) {
+                return -(slot * STRIDE) - 1;
+            }
+            if (++slot == slots) {
+                slot = 0;
+            }
+        }
+    }
+
+    /**
+     * 64-bit FNV-1a over the characters, finished with the MurmurHash3 mixer;
+     * zero marks an empty slot, so it is never returned.
+     */
+    private static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h == 0 ? 1 : h;
+    }
+
+    /**
+     * The two generations of one segment, guarded by the segment monitor.
+     */
+    private static final class Segment {
+        private long[] current;
+        private long[] previous;
+        private int currentSize;
+        private int previousSize;
+        private long currentStart;
+        private long previousStart;
+
+        /**
+         * Makes the current generation the previous one and reuses the
+         * dropped table for a new current generation.
+         */
+        void rotate(long now) {
+            long[] recycled = previous;
+            previous = current;
+            previousSize = currentSize;
+            previousStart = currentStart;
+            if (recycled == null) {
+                recycled = new long[previous.length];
+            } else {
+                Arrays.fill(recycled, 0L);
+            }
+            current = recycled;
+            currentSize = 0;
+            currentStart = now;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package mx.unam.ciencias.myp.pumabank.facade;
+
+/**
+ * The outcome of a bulk import run by {@link PumaBankFacade#importAccounts}.
+ */
+public final class ImportResult {
+
+    private final long clients;
+    private final long accounts;
+    private final long rejected;
+    private final long elapsedNanos;
+
+    ImportResult(long clients, long accounts, long rejected, long elapsedNanos) {
+        this.clients = clients;
+        this.accounts = accounts;
+        this.rejected = rejected;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Returns the number of clients registered by the import.
+     * @return the imported clients
+     */
+    public long getClients() {
+        return clients;
+    }
+
+    /**
+     * Returns the number of accounts created by the import.
+     * @return the imported accounts
+     */
+    public long getAccounts() {
+        return accounts;
+    }
+
+    /**
+     * Returns the number of records skipped because they were malformed or
+     * referred to an unknown client, interest type or service.
+     * @return the rejected records
+     */
+    public long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * Returns how long the import took.
+     * @return the elapsed time in milliseconds
+     */
+    public long getElapsedMillis() {
+        return elapsedNanos / 1_000_000;
+    }
+
+    /**
+     * Returns the import rate.
+     * @return the accounts created per second
+     */
+    public double getAccountsPerSecond() {
+        return elapsedNanos == 0 ? 0.0 : accounts * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Imported %d clients and %d accounts in %d ms (%.0f accounts/s), %d records rejected",
+            clients, accounts, getElapsedMillis(), getAccountsPerSecond(), rejected);
+    }
+}
@@ -0,0 +1,88 @@
+package mx.unam.ciencias.myp.pumabank.facade;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import mx.unam.ciencias.myp.pumabank.patterns.strategy.InterestCalculation;
+import mx.unam.ciencias.myp.pumabank.patterns.strategy.InterestPolicyRegistry;
+import mx.unam.ciencias.myp.pumabank.patterns.strategy.periods.TieredInterest;
+
+/**
+ * Encodes the interest policy of an account for snapshots and journal records.
+ *
+ * <p>A tiered schedule is written with its boundaries, rates and mode, since
+ * {@link PumaBankFacade#loadInterestSchedule} can give accounts schedules
+ * that are no longer, or never were, the registered one. Every other policy
+ * is a shared registry instance and is written by its interest type name.</p>
+ */
+final class InterestPolicyCodec {
+
+    private static final byte NAMED = 0;
+    private static final byte TIERED = 1;
+
+    private InterestPolicyCodec() {
+    }
+
+    /**
+     * Encodes a policy.
+     *
+     * @param name   the interest type the policy is registered under, or
+     *               {@code null} if it is not registered
+     * @param policy the policy
+     * @return the encoded policy
+     * @throws IllegalStateException if the policy is neither tiered nor registered
+     */
+    static byte[] encode(String name, InterestCalculation policy) {
+        if (policy instanceof TieredInterest) {
+            TieredInterest tiered = (TieredInterest) policy;
+            double[] boundaries = tiered.getBoundaries();
+            double[] rates = tiered.getRates();
+            ByteBuffer out = ByteBuffer.allocate(1 + 1 + 4 + 16 * boundaries.length);
+            out.put(TIERED).put((byte) tiered.getMode().ordinal()).putInt(boundaries.length);
+            for (double boundary : boundaries) {
+                out.putDouble(boundary);
+            }
+            for (double rate : rates) {
+                out.putDouble(rate);
+            }
+            return out.array();
+        }
+        if (name == null) {
+            throw new IllegalStateException("Interest policy " + policy.getClass().getSimpleName()
+                + " is not registered");
+        }
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(1 + bytes.length).put(NAMED).put(bytes).array();
+    }
+
+    /**
+     * Decodes a policy written by {@link #encode}.
+     *
+     * @param data     the encoded policy
+     * @param registry the registry resolving interest type names
+     * @return the policy
+     * @throws IllegalArgumentException if the data is not a valid policy
+     */
+    static InterestCalculation decode(byte[] data, InterestPolicyRegistry registry) {
+        ByteBuffer in = ByteBuffer.wrap(data);
+        byte kind = in.get();
+        if (kind == NAMED) {
+            return registry.get(new String(data, 1, data.length - 1, StandardCharsets.UTF_8));
+        }
+        if (kind != TIERED) {
+            throw new IllegalArgumentException("Unknown interest policy kind " + kind);
+        }
+        TieredInterest.Mode[] modes = TieredInterest.Mode.values();
+        int mode = in.get();
+        int tiers = in.getInt();
+        if (mode < 0 || mode >= modes.length || tiers < 1 || tiers > in.remaining() / 16) {
+            throw new IllegalArgumentException("Invalid tiered interest schedule");
+        }
+        double[] boundaries = new double[tiers];
+        double[] rates = new double[tiers];
+        in.asDoubleBuffer().get(boundaries);
+        in.position(in.position() + 8 * tiers);
+        in.asDoubleBuffer().get(rates);
+        return new TieredInterest(boundaries, rates, modes[mode]);
+    }
+}
@@ -0,0 +1,166 @@
+package mx.unam.ciencias.myp.pumabank.facade;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-size, lock-free histogram of durations in nanoseconds.
+ *
+ * <p>Buckets are log-linear, as in HdrHistogram: values below
+ * {@value #SUB_BUCKETS} get a bucket each, and every power of two above is
+ * split into {@code SUB_BUCKETS / 2} equal buckets. A reported value is the
+ * highest value of its bucket, so it is at most 1/64 (about 1.6%) above the
+ * recorded one, over the whole range of {@code long}. The histogram takes
+ * {@value #BUCKETS} counters, about 29 KB, however much is recorded.</p>
+ *
+ * <p>{@link #record} is one atomic increment, plus a compare-and-set when a
+ * new maximum is seen, and allocates nothing. Reads walk the buckets without
+ * stopping recorders, so a percentile read while threads record may not
+ * include the very latest values.</p>
+ */
+public final class LatencyHistogram {
+
+    /** Buckets below the first power of two that is subdivided. */
+    public static final int SUB_BUCKETS = 128;
+
+    private static final int SUB_BITS = Integer.numberOfTrailingZeros(SUB_BUCKETS);
+    private static final int HALF = SUB_BUCKETS / 2;
+
+    /** Number of counters. */
+    public static final int BUCKETS = (63 - SUB_BITS + 2) * HALF;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records one duration; negative durations count as zero.
+     *
+     * @param nanos the duration in nanoseconds
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.getAndIncrement(indexOf(value));
+        long seen;
+        while (value > (seen = max.get()) && !max.compareAndSet(seen, value)) {
+            // another thread raised the maximum; compare again
+        }
+    }
+
+    /**
+     * Returns the number of durations recorded.
+     * @return the count
+     */
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the longest duration recorded, exactly.
+     * @return the maximum in nanoseconds, or 0 if nothing was recorded
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Returns the duration that the given percentage of recorded durations
+     * do not exceed, such as 99 or 99.9.
+     *
+     * @param percentile the percentage, from 0 to 100
+     * @return the duration in nanoseconds, or 0 if nothing was recorded
+     * @throws IllegalArgumentException if the percentile is out of range
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (!(percentile >= 0 && percentile <= 100)) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentile);
+        }
+        long total = getCount();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(highestValueOf(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Returns the sum of the recorded durations, estimated from the buckets:
+     * each duration counts as the middle of its bucket, so the estimate is
+     * within 1/128 of the true sum.
+     *
+     * @return the estimated sum in nanoseconds
+     */
+    public double getEstimatedSum() {
+        double sum = 0;
+        long lowest = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            long highest = highestValueOf(i);
+            long count = counts.get(i);
+            if (count > 0) {
+                sum += count * (lowest / 2.0 + highest / 2.0);
+            }
+            lowest = highest + 1;
+        }
+        return sum;
+    }
+
+    /**
+     * Forgets everything recorded. Durations recorded while the reset runs
+     * may be partly kept.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        max.set(0);
+    }
+
+    /**
+     * Returns a one-line summary with the count, p50, p99, p99.9 and maximum
+     * in microseconds.
+     *
+     * @return the summary
+     */
+    @Override
+    public String toString() {
+        return String.format("count=%d p50=%.1fus p99=%.1fus p999=%.1fus max=%.1fus", getCount(),
+            getValueAtPercentile(50) / 1e3, getValueAtPercentile(99) / 1e3,
+            getValueAtPercentile(99.9) / 1e3, getMax() / 1e3);
+    }
+
+    /**
+     * Returns the bucket of a non-negative value: the value itself below
+     * {@link #SUB_BUCKETS}, otherwise its power of two and its top bits.
+     */
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BITS + 1;
+        return shift * HALF + (int) (value >>> shift);
+    }
+
+    /**
+     * Returns the highest value that falls in a bucket.
+     */
+    static long highestValueOf(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / HALF - 1;
+        long sub = index - (long) shift * HALF;
+        long highest = ((sub + 1) << shift) - 1;
+        return highest < 0 ? Long.MAX_VALUE : highest;
+    }
+}
@@ -0,0 +1,114 @@
+package mx.unam.ciencias.myp.pumabank.facade;
+
+import java.util.List;
+
+/**
+ * The totals of one month-end run by
+ * {@link PumaBankFacade#processMonthlyOperations}, the same figures written
+ * to the footer of the monthly log.
+ */
+public final class MonthlyReport {
+
+    private final int month;
+    private final long accounts;
+    private final long transactions;
+    private final double fees;
+    private final double interest;
+    private final long elapsedNanos;
+
+    /**
+     * Creates a report, for example from the figures a shard sent back.
+     *
+     * @param month        the simulated month
+     * @param accounts     the accounts processed
+     * @param transactions the transactions recorded
+     * @param fees         the fees collected
+     * @param interest     the interest paid
+     * @param elapsedNanos how long the month-end took
+     */
+    public MonthlyReport(int month, long accounts, long transactions, double fees, double interest,
+                         long elapsedNanos) {
+        this.month = month;
+        this.accounts = accounts;
+        this.transactions = transactions;
+        this.fees = fees;
+        this.interest = interest;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Adds up the reports of several shards that closed the same month.
+     *
+     * @param month        the simulated month
+     * @param reports      the reports to merge
+     * @param elapsedNanos how long the whole month-end took
+     * @return the combined report
+     */
+    public static MonthlyReport merge(int month, List<MonthlyReport> reports, long elapsedNanos) {
+        long accounts = 0;
+        long transactions = 0;
+        double fees = 0;
+        double interest = 0;
+        for (MonthlyReport r : reports) {
+            accounts += r.accounts;
+            transactions += r.transactions;
+            fees += r.fees;
+            interest += r.interest;
+        }
+        return new MonthlyReport(month, accounts, transactions, fees, interest, elapsedNanos);
+    }
+
+    /**
+     * Returns the simulated month that was closed.
+     * @return the month
+     */
+    public int getMonth() {
+        return month;
+    }
+
+    /**
+     * Returns the number of accounts processed.
+     * @return the accounts
+     */
+    public long getAccounts() {
+        return accounts;
+    }
+
+    /**
+     * Returns the transactions recorded during the month-end.
+     * @return the transactions
+     */
+    public long getTransactions() {
+        return transactions;
+    }
+
+    /**
+     * Returns the fees collected during the month-end.
+     * @return the fees
+     */
+    public double getFees() {
+        return fees;
+    }
+
+    /**
+     * Returns the interest paid during the month-end.
+     * @return the interest
+     */
+    public double getInterest() {
+        return interest;
+    }
+
+    /**
+     * Returns how long the month-end took.
+     * @return the elapsed time in milliseconds
+     */
+    public long getElapsedMillis() {
+        return elapsedNanos / 1_000_000;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Month %d: %d accounts, %d transactions, fees $%.2f, interest $%.2f in %d ms",
+            month, accounts, transactions, fees, interest, getElapsedMillis());
+    }
+}
@@ -1,25 +1,53 @@
 package mx.unam.ciencias.myp.pumabank.facade;
 
+import mx.unam.ciencias.myp.pumabank.jfr.AccountOperationEvent;
+import mx.unam.ciencias.myp.pumabank.jfr.MonthEndAccountEvent;
+import mx.unam.ciencias.myp.pumabank.jfr.StateTransitionEvent;
+import mx.unam.ciencias.myp.pumabank.metrics.Counter;
+import mx.unam.ciencias.myp.pumabank.metrics.Gauge;
+import mx.unam.ciencias.myp.pumabank.metrics.Histogram;
+import mx.unam.ciencias.myp.pumabank.metrics.MetricsRegistry;
+import mx.unam.ciencias.myp.pumabank.metrics.PrometheusExporter;
 import mx.unam.ciencias.myp.pumabank.model.Account;
 import mx.unam.ciencias.myp.pumabank.model.Client;
 import mx.unam.ciencias.myp.pumabank.model.IAccount;
 import mx.unam.ciencias.myp.pumabank.patterns.decorator.*;
+import mx.unam.ciencias.myp.pumabank.patterns.observer.LogCategory;
+import mx.unam.ciencias.myp.pumabank.patterns.observer.LogLevel;
 import mx.unam.ciencias.myp.pumabank.patterns.observer.MonthlyLogger;
 import mx.unam.ciencias.myp.pumabank.patterns.observer.Observer;
 import mx.unam.ciencias.myp.pumabank.patterns.observer.PushNotifier;
 import mx.unam.ciencias.myp.pumabank.patterns.proxy.AccountProxy;
+import mx.unam.ciencias.myp.pumabank.patterns.proxy.LoginThrottle;
 import mx.unam.ciencias.myp.pumabank.patterns.proxy.PinAuthenticator;
+import mx.unam.ciencias.myp.pumabank.patterns.proxy.SessionCache;
 import mx.unam.ciencias.myp.pumabank.patterns.state.AccountState;
 import mx.unam.ciencias.myp.pumabank.patterns.state.states.ActiveState;
+import mx.unam.ciencias.myp.pumabank.patterns.state.states.ClosedState;
+import mx.unam.ciencias.myp.pumabank.patterns.state.states.FrozenState;
+import mx.unam.ciencias.myp.pumabank.patterns.state.states.OverdrawnState;
+import mx.unam.ciencias.myp.pumabank.patterns.strategy.InterestBatch;
 import mx.unam.ciencias.myp.pumabank.patterns.strategy.InterestCalculation;
-import mx.unam.ciencias.myp.pumabank.patterns.strategy.periods.AnnualInterest;
-import mx.unam.ciencias.myp.pumabank.patterns.strategy.periods.MonthlyInterest;
-import mx.unam.ciencias.myp.pumabank.patterns.strategy.periods.PremiumInterest;
+import mx.unam.ciencias.myp.pumabank.patterns.strategy.InterestPolicyRegistry;
+import mx.unam.ciencias.myp.pumabank.patterns.strategy.periods.TieredInterest;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Main facade for the PumaBank system.
@@ -42,26 +70,110 @@ public class PumaBankFacade {
     private MonthlyLogger monthlyLogger;
     private boolean suppressLogTimestamps = false;
     private boolean quietMode = false;
+    private final InterestPolicyRegistry interestPolicies = new InterestPolicyRegistry();
+    private Clock clock;
+    private final SessionCache sessionCache = new SessionCache();
+    private final LoginThrottle loginThrottle;
+    private WriteAheadJournal journal;
+    private final AccountLocks accountLocks = new AccountLocks();
+    private volatile IdempotencyCache idempotencyCache;
     
-    private int monthlyTransactions;
-    private double totalFeesCollected;
-    private double totalInterestPaid;
+    // Adders, because requests for different accounts may record concurrently.
+    private final LongAdder monthlyTransactions = new LongAdder();
+    private final DoubleAdder totalFeesCollected = new DoubleAdder();
+    private final DoubleAdder totalInterestPaid = new DoubleAdder();
+    private final EnumMap<TimedOperation, LatencyHistogram> latencies = new EnumMap<>(TimedOperation.class);
+
+    // Cumulative since start, unlike the monthly figures above; all striped.
+    private final MetricsRegistry metrics = new MetricsRegistry();
+    private final Counter transactionsTotal = metrics.counter("pumabank_transactions_total",
+        "Operations recorded as transactions, month-end included");
+    private final Counter interestPaidTotal = metrics.counter("pumabank_interest_paid_total",
+        "Interest paid to accounts");
+    private final Counter notificationsTotal = metrics.counter("pumabank_observer_notifications_total",
+        "Account events delivered to observers");
+    private final Histogram depositAmounts = metrics.histogram("pumabank_transaction_amount",
+        "Amounts of applied deposits and withdrawals", AMOUNT_BUCKETS, "operation", "deposit");
+    private final Histogram withdrawalAmounts = metrics.histogram("pumabank_transaction_amount",
+        "Amounts of applied deposits and withdrawals", AMOUNT_BUCKETS, "operation", "withdraw");
+
+    private static final double[] AMOUNT_BUCKETS = {10, 100, 1_000, 10_000, 100_000, 1_000_000};
 
     /**
      * Constructs a new PumaBankFacade and initializes internal registries,
      * global observers and the monthly logger.
      */
     public PumaBankFacade() {
+        this(true);
+    }
+
+    /**
+     * Constructs a facade that logs to its own file instead of
+     * {@code monthly_operations_log.txt}, so several facades can run side by
+     * side, as the shards of a {@link ShardedBank} do.
+     *
+     * @param logFile the monthly log file, wiped on construction
+     */
+    public PumaBankFacade(Path logFile) {
+        this(true, new MonthlyLogger(logFile), Clock.systemUTC());
+    }
+
+    /**
+     * Constructs a facade that logs to its own file and runs on a given
+     * clock. Unlike {@link #setClock}, the clock also times the lockouts of
+     * the {@link LoginThrottle}, so a simulated clock makes failed PIN
+     * attempts behave the same on every run.
+     *
+     * @param logFile the monthly log file, wiped on construction
+     * @param clock   the bank clock
+     */
+    public PumaBankFacade(Path logFile, Clock clock) {
+        this(true, new MonthlyLogger(logFile), Objects.requireNonNull(clock));
+    }
+
+    /**
+     * Constructs a facade, optionally keeping the existing log file. A facade
+     * restored from a snapshot keeps the log of the previous run.
+     *
+     * @param clearLog whether to wipe the monthly log file
+     */
+    PumaBankFacade(boolean clearLog) {
+        this(clearLog, new MonthlyLogger(), Clock.systemUTC());
+    }
+
+    private PumaBankFacade(boolean clearLog, MonthlyLogger monthlyLogger, Clock clock) {
+        this.clock = clock;
+        this.loginThrottle = new LoginThrottle(clock);
         this.clients = new HashMap<>();
         this.clientAccounts = new HashMap<>();
         this.accountProxies = new HashMap<>();
         this.globalObservers = new ArrayList<>();
-        this.monthlyLogger = new MonthlyLogger();
-        this.monthlyTransactions = 0;
-        this.totalFeesCollected = 0;
-        this.totalInterestPaid = 0;
+        this.monthlyLogger = monthlyLogger;
+        for (TimedOperation operation : TimedOperation.values()) {
+            latencies.put(operation, new LatencyHistogram());
+        }
+        registerMetrics();
         
-        registerGlobalObservers();
+        registerGlobalObservers(clearLog);
+    }
+
+    /**
+     * Registers the metrics that are read when exported rather than updated.
+     */
+    private void registerMetrics() {
+        for (TimedOperation operation : TimedOperation.values()) {
+            metrics.summary("pumabank_operation_duration_seconds", "Duration of facade operations",
+                latencies.get(operation), "operation", operation.getLabel());
+        }
+        for (AccountState state : List.of(new ActiveState(), new OverdrawnState(), new FrozenState(),
+                new ClosedState())) {
+            accountsIn(state);
+        }
+        metrics.gauge("pumabank_clients", "Registered clients", () -> clients.size());
+        metrics.counter("pumabank_journal_records_total", "Records appended to the write-ahead journal",
+            () -> journal == null ? 0 : journal.getRecordCount());
+        metrics.counter("pumabank_journal_forces_total", "Times the journal was forced to disk",
+            () -> journal == null ? 0 : journal.getForceCount());
     }
 
     /**
@@ -80,17 +192,73 @@ public class PumaBankFacade {
         this.quietMode = quiet;
     }
 
+    /**
+     * Changes the minimum level of the system operations written to the
+     * monthly log. Takes effect immediately; for example {@link LogLevel#INFO}
+     * drops per-operation lines such as {@code BALANCE_CHECK}.
+     *
+     * @param level the new minimum level
+     */
+    public void setLogLevel(LogLevel level) {
+        monthlyLogger.setLevel(level);
+    }
+
+    /**
+     * Enables or disables a single category of system operations in the
+     * monthly log. Takes effect immediately.
+     *
+     * @param category the category to change
+     * @param enabled  {@code false} to silence the category
+     */
+    public void setLogCategoryEnabled(LogCategory category, boolean enabled) {
+        monthlyLogger.setCategoryEnabled(category, enabled);
+    }
+
+    /**
+     * Returns the clock used by accounts to accrue balances over time.
+     *
+     * @return the bank clock
+     */
+    public Clock getClock() {
+        return clock;
+    }
+
+    /**
+     * Replaces the clock used by accounts to accrue balances over time, for
+     * example with a simulated clock.
+     *
+     * @param clock the new clock
+     */
+    public void setClock(Clock clock) {
+        this.clock = Objects.requireNonNull(clock);
+    }
+
+    /**
+     * Replaces the schedule used by accounts created with the {@code "TIERED"}
+     * interest type. Existing accounts keep the schedule they were created with.
+     *
+     * @param file properties file describing the schedule, see
+     *             {@link TieredInterest#load(Path)}
+     * @throws IOException              if the file cannot be read
+     * @throws IllegalArgumentException if the file is not a valid schedule
+     */
+    public void loadInterestSchedule(Path file) throws IOException {
+        interestPolicies.register("TIERED", TieredInterest.load(file));
+    }
+
     /**
      * Registers global observers used across all accounts (for example the
      * monthly logger and push notifications). This is called during
      * construction.
      */
-    private void registerGlobalObservers() {
-        monthlyLogger.clearLog();
+    private void registerGlobalObservers(boolean clearLog) {
+        if (clearLog) {
+            monthlyLogger.clearLog();
+        }
         globalObservers.add(monthlyLogger);
         globalObservers.add(new PushNotifier());
         
-        monthlyLogger.logSystemOperation("SYSTEM_START", "PumaBank system initialized");
+        monthlyLogger.logSystemOperation(LogCategory.SYSTEM_START, "PumaBank system initialized");
     }
 
     /**
@@ -105,11 +273,22 @@ public class PumaBankFacade {
      */
     public Client registerClient(String name, String clientId) {
         Client client = new Client(name, clientId);
-        clients.put(clientId, client);
-        clientAccounts.put(clientId, new ArrayList<>());
+        ReentrantLock registry = accountLocks.registry();
+        registry.lock();
+        try {
+            clients.put(clientId, client);
+            clientAccounts.put(clientId, new ArrayList<>());
+            if (journal != null) {
+                journal.logClient(clientId, name);
+            }
+        } finally {
+            registry.unlock();
+        }
         
-        monthlyLogger.logSystemOperation("CLIENT_REGISTERED", 
-            "Client: " + name + " (ID: " + clientId + ")");
+        if (monthlyLogger.isEnabled(LogCategory.CLIENT_REGISTERED)) {
+            monthlyLogger.logSystemOperation(LogCategory.CLIENT_REGISTERED,
+                "Client: " + name + " (ID: " + clientId + ")");
+        }
         System.out.println("Registered client: " + client);
         return client;
     }
@@ -129,8 +308,8 @@ public class PumaBankFacade {
      *                       account
      * @param initialBalance initial balance for the account
      * @param pin            PIN used by the {@link PinAuthenticator}
-     * @param interestType   one of: "MONTHLY", "ANNUAL", "PREMIUM" (case
-     *                       insensitive)
+     * @param interestType   one of: "MONTHLY", "ANNUAL", "PREMIUM", "TIERED",
+     *                       "AVERAGE_DAILY" (case insensitive)
      * @param services       optional list of decorator service names
      * @return the {@link AccountProxy} wrapping the created account
      * @throws IllegalArgumentException if the client does not exist or if
@@ -154,38 +333,41 @@ public class PumaBankFacade {
         }
 
         PinAuthenticator authenticator = new PinAuthenticator(pin);
-        AccountProxy accountProxy = new AccountProxy(account, authenticator);
+        AccountProxy accountProxy = new AccountProxy(account, authenticator, sessionCache, loginThrottle);
 
         IAccount decoratedAccount = accountProxy;
         
         if (services != null && !services.isEmpty()) {
             for (String service : services) {
-                switch (service.toUpperCase()) {
-                    case "ANTI_FRAUD":
-                        decoratedAccount = new AntiFraudDecorator(decoratedAccount);
-                        break;
-                    case "PREMIUM_ALERTS":
-                        decoratedAccount = new PremiumAlertsDecorator(decoratedAccount);
-                        break;
-                    case "REWARDS":
-                        decoratedAccount = new RewardsProgramDecorator(decoratedAccount);
-                        break;
-                    default:
-                        System.err.println("Unknown service: " + service);
-                }
+                decoratedAccount = decorate(decoratedAccount, service);
             }
         }
 
-        String accountId = generateAccountId(clientId);
-        accountProxies.put(accountId, accountProxy);
-        clientAccounts.get(clientId).add(decoratedAccount);
-        
-        String servicesText = services != null && !services.isEmpty() ? 
-            String.join(", ", services) : "No additional services";
+        String accountId;
+        ReentrantLock registry = accountLocks.registry();
+        registry.lock();
+        try {
+            accountId = generateAccountId(clientId);
+            account.setAccountId(accountId);
+            accountProxies.put(accountId, accountProxy);
+            accountsIn(initialState).increment();
+            clientAccounts.get(clientId).add(decoratedAccount);
+            if (journal != null) {
+                journal.logAccount(clientId, accountId, initialBalance, interestPolicies.nameOf(interestPolicy),
+                                   interestPolicy, services, authenticator);
+            }
+        } finally {
+            registry.unlock();
+        }
         
-        monthlyLogger.logSystemOperation("ACCOUNT_CREATED", 
-            String.format("Account: %s | Client: %s | Balance: $%.2f | Interest: %s | Services: %s",
-                accountId, client.getName(), initialBalance, interestType, servicesText));
+        if (monthlyLogger.isEnabled(LogCategory.ACCOUNT_CREATED)) {
+            String servicesText = services != null && !services.isEmpty() ?
+                String.join(", ", services) : "No additional services";
+
+            monthlyLogger.logSystemOperation(LogCategory.ACCOUNT_CREATED,
+                String.format("Account: %s | Client: %s | Balance: $%.2f | Interest: %s | Services: %s",
+                    accountId, client.getName(), initialBalance, interestType, servicesText));
+        }
         
         System.out.println("Account created for " + client.getName() + 
                          " - Initial balance: $" + initialBalance);
@@ -194,30 +376,438 @@ public class PumaBankFacade {
     }
 
     /**
-     * Creates an interest calculation policy based on a textual type.
+     * Wraps an account with the decorator of a service. Unknown services are
+     * reported and leave the account unchanged.
+     *
+     * @param account the account to wrap
+     * @param service one of "ANTI_FRAUD", "PREMIUM_ALERTS" or "REWARDS" (case insensitive)
+     * @return the decorated account
+     */
+    static IAccount decorate(IAccount account, String service) {
+        switch (service.toUpperCase()) {
+            case "ANTI_FRAUD":
+                return new AntiFraudDecorator(account);
+            case "PREMIUM_ALERTS":
+                return new PremiumAlertsDecorator(account);
+            case "REWARDS":
+                return new RewardsProgramDecorator(account);
+            default:
+                System.err.println("Unknown service: " + service);
+                return account;
+        }
+    }
+
+    /**
+     * Imports clients and accounts from a CSV or binary file, building the
+     * accounts in parallel on every available processor.
+     *
+     * @param file the file to import, see {@link #importAccounts(Path, int)}
+     * @return the counts, duration and rate of the import
+     * @throws IOException if the file cannot be read or a binary file is corrupt
+     */
+    public ImportResult importAccounts(Path file) throws IOException {
+        return importAccounts(file, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Imports clients and accounts from a CSV or binary file.
+     *
+     * <p>Records are streamed from the file and accounts are created in
+     * parallel batches with the same interest policies, proxies and
+     * decorators as {@link #createAccount}, and the same identifiers. Nothing
+     * is printed or logged per record; the whole import writes a single
+     * {@link LogCategory#BULK_IMPORT} record. See {@link BulkImporter} for the
+     * file formats. Records that cannot be imported are skipped and counted in
+     * the result.</p>
+     *
+     * @param file    the file to import
+     * @param threads number of threads building accounts and hashing PINs
+     * @return the counts, duration and rate of the import
+     * @throws IOException if the file cannot be read or a binary file is corrupt
+     * @throws IllegalArgumentException if {@code threads} is not positive
+     */
+    public ImportResult importAccounts(Path file, int threads) throws IOException {
+        ImportResult result = new BulkImporter(this, threads, BulkImporter.DEFAULT_BATCH_SIZE).importFile(file);
+        if (monthlyLogger.isEnabled(LogCategory.BULK_IMPORT)) {
+            monthlyLogger.logSystemOperation(LogCategory.BULK_IMPORT, file.getFileName() + ": " + result);
+        }
+        if (!quietMode) {
+            System.out.println(result);
+        }
+        return result;
+    }
+
+    /**
+     * Exports every client's portfolio and every account's monthly statement,
+     * formatting on every available processor.
+     *
+     * @param file   the file to write, replaced if it exists
+     * @param format the output format
+     * @return the number of accounts exported
+     * @throws IOException if the file cannot be written
+     */
+    public long exportStatements(Path file, ExportFormat format) throws IOException {
+        return exportStatements(file, format, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Exports every client's portfolio and every account's monthly statement.
+     *
+     * <p>For each client the export holds its name, number of accounts and
+     * total balance; for each account its identifier, state, interest type,
+     * services, reward points, and the opening balance, current balance, fees
+     * and interest of the last month processed by
+     * {@link #processMonthlyOperations}. The output is streamed in client
+     * registry order with bounded memory, see {@link StatementExporter}, and
+     * a single {@link LogCategory#STATEMENT_EXPORT} record is written instead
+     * of one portfolio query per client.</p>
+     *
+     * @param file    the file to write, replaced if it exists
+     * @param format  the output format
+     * @param threads number of threads formatting client partitions
+     * @return the number of accounts exported
+     * @throws IOException if the file cannot be written
+     * @throws IllegalArgumentException if {@code format} is null or {@code threads} is not positive
+     */
+    public long exportStatements(Path file, ExportFormat format, int threads) throws IOException {
+        long start = System.nanoTime();
+        long exported = new StatementExporter(this, format, threads).export(file);
+        if (monthlyLogger.isEnabled(LogCategory.STATEMENT_EXPORT)) {
+            monthlyLogger.logSystemOperation(LogCategory.STATEMENT_EXPORT,
+                String.format("%s: %d clients and %d accounts exported as %s in %d ms",
+                    file.getFileName(), clients.size(), exported, format, (System.nanoTime() - start) / 1_000_000));
+        }
+        return exported;
+    }
+
+    /**
+     * Saves the whole bank state to a compact binary snapshot.
+     *
+     * <p>The snapshot holds every client and account with its balance, state,
+     * interest type, services, reward points, annual interest history and PIN
+     * hash, plus the monthly counters. See {@link BankSnapshot} for the
+     * format. If a journal is attached it is emptied once the snapshot is
+     * written.</p>
+     *
+     * <p>Every account stripe and the registry lock are held while the
+     * snapshot is written and the journal emptied, so no journaled mutation
+     * can land between the two and be lost.</p>
+     *
+     * @param file the snapshot file, replaced if it exists
+     * @throws IOException if the file cannot be written
+     * @throws IllegalStateException if an account uses a state, decorator or
+     *                               interest policy that cannot be saved
+     */
+    public void saveSnapshot(Path file) throws IOException {
+        accountLocks.lockAll();
+        try {
+            BankSnapshot.write(this, file);
+            if (journal != null) {
+                journal.truncate();
+            }
+        } finally {
+            accountLocks.unlockAll();
+        }
+    }
+
+    /**
+     * Rebuilds a bank from a snapshot written by {@link #saveSnapshot(Path)}.
+     * Registries and decorator chains are recreated without logging each
+     * account, and the existing log file is kept.
+     *
+     * @param file the snapshot file
+     * @return a new facade holding the saved state
+     * @throws IOException if the file cannot be read or is not a valid snapshot
+     */
+    public static PumaBankFacade loadSnapshot(Path file) throws IOException {
+        return BankSnapshot.read(file);
+    }
+
+    /**
+     * Rebuilds a bank after a restart: loads the snapshot, if there is one, and
+     * replays the journal written since it. A torn record at the end of the
+     * journal is discarded. The journal is not attached to the returned facade;
+     * open it again with {@link #attachJournal} to keep journaling.
+     *
+     * @param snapshot the latest snapshot file, which may not exist yet
+     * @param journal  the journal file, which may not exist yet
+     * @return the recovered facade
+     * @throws IOException if either file cannot be read
+     */
+    public static PumaBankFacade recover(Path snapshot, Path journal) throws IOException {
+        PumaBankFacade facade = Files.exists(snapshot) ? loadSnapshot(snapshot) : new PumaBankFacade(false);
+        boolean quiet = facade.quietMode;
+        facade.setQuietMode(true);
+        try {
+            WriteAheadJournal.replay(journal, facade);
+        } finally {
+            facade.setQuietMode(quiet);
+        }
+        return facade;
+    }
+
+    /**
+     * Starts journaling every mutation to {@code journal}. Deposits and
+     * withdrawals are journaled only when their credential was accepted.
+     *
+     * @param journal the journal to append to, or {@code null} to stop journaling
+     */
+    public void attachJournal(WriteAheadJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Returns the attached journal.
+     *
+     * @return the journal, or {@code null} if mutations are not journaled
+     */
+    public WriteAheadJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Encodes clients and all of their accounts, including balances, states,
+     * services and PIN hashes, so that {@link #importClients} can add them to
+     * another bank. The clients stay in this bank.
+     *
+     * @param clientIds the clients to encode
+     * @return the encoded clients
+     * @throws IllegalArgumentException if a client does not exist
+     */
+    public byte[] exportClients(Collection<String> clientIds) {
+        return BankSnapshot.exportClients(this, clientIds);
+    }
+
+    /**
+     * Adds clients encoded by {@link #exportClients} to this bank, keeping
+     * their account identifiers, and journals them as one record.
+     *
+     * @param data the encoded clients
+     * @return the number of accounts added
+     * @throws IOException if the data is not a valid encoding
+     * @throws IllegalArgumentException if one of the clients already exists,
+     *                                  in which case nothing is added
+     */
+    public int importClients(byte[] data) throws IOException {
+        int accounts;
+        ReentrantLock registry = accountLocks.registry();
+        registry.lock();
+        try {
+            accounts = BankSnapshot.importClients(this, data);
+            if (journal != null) {
+                journal.logClientImport(data);
+            }
+        } finally {
+            registry.unlock();
+        }
+        if (monthlyLogger.isEnabled(LogCategory.CLIENT_MIGRATED)) {
+            monthlyLogger.logSystemOperation(LogCategory.CLIENT_MIGRATED,
+                "Imported " + accounts + " accounts");
+        }
+        return accounts;
+    }
+
+    /**
+     * Removes a client and all of its accounts, closing their sessions, as
+     * the source of a move does after {@link #exportClients}, and journals
+     * the removal.
+     *
+     * @param clientId the client to remove
+     * @return the number of accounts removed, or -1 if the client does not exist
+     */
+    public int removeClient(String clientId) {
+        int removed = 0;
+        ReentrantLock registry = accountLocks.registry();
+        registry.lock();
+        try {
+            if (clients.remove(clientId) == null) {
+                return -1;
+            }
+            clientAccounts.remove(clientId);
+            Iterator<AccountProxy> proxies = accountProxies.values().iterator();
+            while (proxies.hasNext()) {
+                AccountProxy proxy = proxies.next();
+                if (proxy.getUnderlyingAccount().getClient().getClientId().equals(clientId)) {
+                    proxies.remove();
+                    sessionCache.closeAll(proxy);
+                    accountsIn(proxy.getUnderlyingAccount().getState()).decrement();
+                    removed++;
+                }
+            }
+            if (journal != null) {
+                journal.logClientRemove(clientId);
+            }
+        } finally {
+            registry.unlock();
+        }
+        if (monthlyLogger.isEnabled(LogCategory.CLIENT_MIGRATED)) {
+            monthlyLogger.logSystemOperation(LogCategory.CLIENT_MIGRATED,
+                "Removed client " + clientId + " with " + removed + " accounts");
+        }
+        return removed;
+    }
+
+    /**
+     * Returns the client registry, for {@link BankSnapshot}.
+     */
+    Map<String, Client> clientRegistry() {
+        return clients;
+    }
+
+    /**
+     * Returns the decorated accounts of every client, for {@link BankSnapshot}.
+     */
+    Map<String, List<IAccount>> accountRegistry() {
+        return clientAccounts;
+    }
+
+    /**
+     * Returns the proxy registry, for {@link BankSnapshot}.
+     */
+    Map<String, AccountProxy> proxyRegistry() {
+        return accountProxies;
+    }
+
+    /**
+     * Returns the shared interest policies, for {@link BankSnapshot}.
+     */
+    InterestPolicyRegistry policyRegistry() {
+        return interestPolicies;
+    }
+
+    /**
+     * Adds a restored account to the registries without logging it.
      *
-     * @param interestType one of "MONTHLY", "ANNUAL", or "PREMIUM"
+     * @param accountId the saved account identifier
+     * @param account   the rebuilt underlying account
+     * @param pin       the restored authenticator
+     * @param services  the service names, innermost first
+     * @return the decorated account
+     */
+    IAccount restoreAccount(String accountId, Account account, PinAuthenticator pin, List<String> services) {
+        for (Observer observer : globalObservers) {
+            account.addObserver(observer);
+        }
+        AccountProxy proxy = new AccountProxy(account, pin, sessionCache, loginThrottle);
+        IAccount decorated = proxy;
+        for (String service : services) {
+            decorated = decorate(decorated, service);
+        }
+        account.setAccountId(accountId);
+        accountProxies.put(accountId, proxy);
+        accountsIn(account.getState()).increment();
+        clientAccounts.computeIfAbsent(account.getClient().getClientId(), k -> new ArrayList<>()).add(decorated);
+        return decorated;
+    }
+
+    /**
+     * Returns the lock guarding changes to the client and account registries.
+     */
+    ReentrantLock registryLock() {
+        return accountLocks.registry();
+    }
+
+    /**
+     * Returns the decorated account of an identifier, or {@code null}.
+     */
+    IAccount decoratedAccount(String accountId) {
+        return findDecoratedAccount(accountId);
+    }
+
+    /**
+     * Adds the fees and interest of one account's month-end run, replayed
+     * from the journal, to the monthly counters. A run that completed also
+     * counts as a transaction.
+     */
+    void addMonthEndTotals(double fees, double interest, boolean completed) {
+        if (completed) {
+            monthlyTransactions.increment();
+        }
+        totalFeesCollected.add(fees);
+        totalInterestPaid.add(interest);
+    }
+
+    /**
+     * Restores the monthly counters saved in a snapshot.
+     */
+    void restoreCounters(int transactions, double fees, double interest) {
+        monthlyTransactions.reset();
+        monthlyTransactions.add(transactions);
+        totalFeesCollected.reset();
+        totalFeesCollected.add(fees);
+        totalInterestPaid.reset();
+        totalInterestPaid.add(interest);
+    }
+
+    /**
+     * Returns the shared interest calculation policy for a textual type.
+     *
+     * <p>Policies are shared by every account of the same type; per-account
+     * history (such as the annual average) lives in each account's
+     * {@code InterestAccrual}.</p>
+     *
+     * @param interestType one of "MONTHLY", "ANNUAL", "PREMIUM", "TIERED" or
+     *                     "AVERAGE_DAILY"
      * @return an {@link InterestCalculation} implementation
      * @throws IllegalArgumentException if the supplied type is not supported
      */
     private InterestCalculation createInterestPolicy(String interestType) {
-    switch (interestType.toUpperCase()) {
-            case "MONTHLY":
-                return new MonthlyInterest(0.01, 1000.0);
-            case "ANNUAL":
-                AnnualInterest annual = new AnnualInterest(0.12, 50000.0);
-                annual.setCurrentMonth(12); // Configure to pay in December
-                return annual;
-            case "PREMIUM":
-                return new PremiumInterest(0.015, 100000.0, 500000.0, 0.005, 0.01);
-            default:
-                throw new IllegalArgumentException("Invalid interest type: " + interestType);
+        return interestPolicies.get(interestType);
+    }
+
+    /**
+     * Verifies the PIN of an account once and opens a session on it. The
+     * returned token can be passed instead of the PIN to {@link #deposit},
+     * {@link #withdraw} and {@link #checkBalance} until it expires or is closed,
+     * skipping the hashed PIN verification.
+     *
+     * @param accountId account identifier
+     * @param pin       authentication PIN
+     * @return the session token, or {@code null} if the PIN is incorrect
+     * @throws IllegalArgumentException if the account cannot be found
+     */
+    public String openSession(String accountId, String pin) {
+        AccountProxy proxy = accountProxies.get(accountId);
+        if (proxy == null) {
+            throw new IllegalArgumentException("Account not found: " + accountId);
         }
+        return proxy.openSession(pin);
+    }
+
+    /**
+     * Ends a session before it expires.
+     *
+     * @param token the session token returned by {@link #openSession}
+     * @return {@code true} if the session was open
+     */
+    public boolean closeSession(String token) {
+        return sessionCache.close(token);
+    }
+
+    /**
+     * Returns the session cache shared by every account of this bank, which also
+     * exposes the hit rate and PIN verification latency.
+     *
+     * @return the shared {@link SessionCache}
+     */
+    public SessionCache getSessionCache() {
+        return sessionCache;
+    }
+
+    /**
+     * Returns the throttle shared by every account of this bank, which limits
+     * failed PIN attempts and counts rejected attempts and lockouts.
+     *
+     * @return the shared {@link LoginThrottle}
+     */
+    public LoginThrottle getLoginThrottle() {
+        return loginThrottle;
     }
 
     /**
      * Deposits an amount into the decorated account identified by
-     * {@code accountId}.
+     * {@code accountId}. If the account is blocked by failed PIN attempts the
+     * call is dropped without logging or counting a transaction.
      *
      * @param accountId account identifier previously returned by
      *                  {@link #generateAccountId(String)}
@@ -227,12 +817,41 @@ public class PumaBankFacade {
      * @throws IllegalArgumentException if the account cannot be found
      */
     public void deposit(String accountId, double amount, String pin) {
+        long started = System.nanoTime();
+        AccountOperationEvent event = new AccountOperationEvent();
+        event.begin();
+        AccountProxy proxy = accountProxies.get(accountId);
+        if (proxy != null && proxy.rejectIfLocked()) {
+            commitOperation(event, "DEPOSIT", accountId, null, amount, proxy.getUnderlyingAccount().getBalance(),
+                BatchResult.Status.THROTTLED);
+            return;
+        }
         IAccount account = findDecoratedAccount(accountId);
     if (account != null) {
-            monthlyLogger.logSystemOperation("DEPOSIT_ATTEMPT", 
-                String.format("Account: %s | Amount: $%.2f", accountId, amount));
-            account.deposit(amount, pin);
-            recordTransaction();
+            if (monthlyLogger.isEnabled(LogCategory.DEPOSIT_ATTEMPT)) {
+                monthlyLogger.logSystemOperation(LogCategory.DEPOSIT_ATTEMPT,
+                    String.format("Account: %s | Amount: $%.2f", accountId, amount));
+            }
+            Account real = proxy.getUnderlyingAccount();
+            ReentrantLock lock = accountLocks.of(real);
+            BatchResult.Status outcome;
+            lock.lock();
+            try {
+                long version = real.getVersion();
+                account.deposit(amount, pin);
+                if (journal != null && proxy.getLastAccess() == AccountProxy.Access.GRANTED) {
+                    journal.logDeposit(accountId, amount);
+                }
+                outcome = outcomeOf(proxy, real, version);
+                recordTransaction();
+            } finally {
+                lock.unlock();
+            }
+            latencies.get(TimedOperation.DEPOSIT).record(System.nanoTime() - started);
+            if (outcome == BatchResult.Status.APPLIED) {
+                depositAmounts.observe(amount);
+            }
+            commitOperation(event, "DEPOSIT", accountId, null, amount, real.getBalance(), outcome);
             } else {
             throw new IllegalArgumentException("Account not found: " + accountId);
         }
@@ -240,7 +859,8 @@ public class PumaBankFacade {
 
     /**
      * Withdraws an amount from the decorated account identified by
-     * {@code accountId}.
+     * {@code accountId}. If the account is blocked by failed PIN attempts the
+     * call is dropped without logging or counting a transaction.
      *
      * @param accountId account identifier
      * @param amount    amount to withdraw
@@ -248,19 +868,49 @@ public class PumaBankFacade {
      * @throws IllegalArgumentException if the account cannot be found
      */
     public void withdraw(String accountId, double amount, String pin) {
+        long started = System.nanoTime();
+        AccountOperationEvent event = new AccountOperationEvent();
+        event.begin();
+        AccountProxy proxy = accountProxies.get(accountId);
+        if (proxy != null && proxy.rejectIfLocked()) {
+            commitOperation(event, "WITHDRAW", accountId, null, amount, proxy.getUnderlyingAccount().getBalance(),
+                BatchResult.Status.THROTTLED);
+            return;
+        }
         IAccount account = findDecoratedAccount(accountId);
         if (account != null) {
-            monthlyLogger.logSystemOperation("WITHDRAWAL_ATTEMPT", 
-                String.format("Account: %s | Amount: $%.2f", accountId, amount));
-            account.withdraw(amount, pin);
-            recordTransaction();
+            if (monthlyLogger.isEnabled(LogCategory.WITHDRAWAL_ATTEMPT)) {
+                monthlyLogger.logSystemOperation(LogCategory.WITHDRAWAL_ATTEMPT,
+                    String.format("Account: %s | Amount: $%.2f", accountId, amount));
+            }
+            Account real = proxy.getUnderlyingAccount();
+            ReentrantLock lock = accountLocks.of(real);
+            BatchResult.Status outcome;
+            lock.lock();
+            try {
+                long version = real.getVersion();
+                account.withdraw(amount, pin);
+                if (journal != null && proxy.getLastAccess() == AccountProxy.Access.GRANTED) {
+                    journal.logWithdraw(accountId, amount);
+                }
+                outcome = outcomeOf(proxy, real, version);
+                recordTransaction();
+            } finally {
+                lock.unlock();
+            }
+            latencies.get(TimedOperation.WITHDRAW).record(System.nanoTime() - started);
+            if (outcome == BatchResult.Status.APPLIED) {
+                withdrawalAmounts.observe(amount);
+            }
+            commitOperation(event, "WITHDRAW", accountId, null, amount, real.getBalance(), outcome);
         } else {
             throw new IllegalArgumentException("Account not found: " + accountId);
         }
     }
 
     /**
-     * Returns the current balance of the decorated account.
+     * Returns the current balance of the decorated account. If the account is
+     * blocked by failed PIN attempts {@code -1} is returned without logging.
      *
      * @param accountId account identifier
      * @param pin       authentication PIN
@@ -268,18 +918,714 @@ public class PumaBankFacade {
      * @throws IllegalArgumentException if the account cannot be found
      */
     public double checkBalance(String accountId, String pin) {
+        long started = System.nanoTime();
+        AccountOperationEvent event = new AccountOperationEvent();
+        event.begin();
+        AccountProxy proxy = accountProxies.get(accountId);
+        if (proxy != null && proxy.rejectIfLocked()) {
+            commitOperation(event, "CHECK_BALANCE", accountId, null, 0, -1, BatchResult.Status.THROTTLED);
+            return -1;
+        }
         IAccount account = findDecoratedAccount(accountId);
         if (account != null) {
-            monthlyLogger.logSystemOperation("BALANCE_CHECK", 
-                String.format("Account: %s", accountId));
-            double balance = account.checkBalance(pin);
+            if (monthlyLogger.isEnabled(LogCategory.BALANCE_CHECK)) {
+                monthlyLogger.logSystemOperation(LogCategory.BALANCE_CHECK, "Account: " + accountId);
+            }
+            double balance;
+            BatchResult.Status outcome;
+            ReentrantLock lock = accountLocks.of(proxy.getUnderlyingAccount());
+            lock.lock();
+            try {
+                balance = account.checkBalance(pin);
+                outcome = refusalOf(proxy);
+            } finally {
+                lock.unlock();
+            }
             recordTransaction();
+            latencies.get(TimedOperation.CHECK_BALANCE).record(System.nanoTime() - started);
+            commitOperation(event, "CHECK_BALANCE", accountId, null, 0, balance,
+                outcome != null ? outcome : BatchResult.Status.APPLIED);
             return balance;
         } else {
             throw new IllegalArgumentException("Account not found: " + accountId);
         }
     }
 
+    /**
+     * Returns the balance of an account for a read-only replica. The PIN is
+     * verified, but the read leaves no trace: no transaction is counted, no
+     * attempt reaches the throttle, no session is used and nothing is timed
+     * or logged, so the replica holds exactly what its replayed records made.
+     *
+     * @param accountId account identifier
+     * @param pin       authentication PIN
+     * @return the account balance, or {@code -1} if the PIN is wrong
+     * @throws IllegalArgumentException if the account cannot be found
+     */
+    double replicaBalance(String accountId, String pin) {
+        AccountProxy proxy = accountProxies.get(accountId);
+        if (proxy == null) {
+            throw new IllegalArgumentException("Account not found: " + accountId);
+        }
+        return proxy.getAuthenticator().validate(pin) ? proxy.getUnderlyingAccount().getBalance() : -1;
+    }
+
+    /**
+     * Moves an amount from one account to another as a single operation.
+     *
+     * <p>Both accounts are locked in a global order, so concurrent transfers
+     * in opposite directions cannot deadlock, and no other operation sees
+     * the debit without the credit. The source is debited through its
+     * decorated account with {@code pin}, so the PIN is checked once and the
+     * withdrawal follows the rules of its current state; only if the balance
+     * moved is the target credited through its own state rules. Nothing is
+     * debited when the target cannot take deposits (frozen or closed).
+     * If the credit fails or leaves the target balance unchanged, the debit
+     * is given back to the source account and the transfer is declined; the
+     * refund is journaled, so recovery ends with the same balances.
+     * One {@link LogCategory#TRANSFER} record describes the whole
+     * operation.</p>
+     *
+     * @param fromId the account to debit
+     * @param toId   the account to credit
+     * @param amount the amount to move
+     * @param pin    PIN or session token of the source account
+     * @return {@link BatchResult.Status#APPLIED} if the money moved,
+     *         {@link BatchResult.Status#DECLINED} if a state rule refused it,
+     *         {@link BatchResult.Status#AUTH_FAILED} or
+     *         {@link BatchResult.Status#THROTTLED} if the credential was refused
+     * @throws IllegalArgumentException if an account cannot be found, both are
+     *                                  the same or the amount is not positive
+     */
+    public BatchResult.Status transfer(String fromId, String toId, double amount, String pin) {
+        return transfer(fromId, toId, amount, pin, false);
+    }
+
+    /**
+     * Moves an amount between two accounts on behalf of the bank, without a
+     * credential, as a replayed journal record does. The account rules
+     * apply as in {@link #transfer(String, String, double, String)}.
+     */
+    BatchResult.Status systemTransfer(String fromId, String toId, double amount) {
+        return transfer(fromId, toId, amount, null, true);
+    }
+
+    private BatchResult.Status transfer(String fromId, String toId, double amount, String pin, boolean system) {
+        long started = System.nanoTime();
+        if (fromId.equals(toId)) {
+            throw new IllegalArgumentException("Cannot transfer to the same account: " + fromId);
+        }
+        if (!(amount > 0) || Double.isInfinite(amount)) {
+            throw new IllegalArgumentException("Transfer amount must be > 0");
+        }
+        AccountProxy fromProxy = accountProxies.get(fromId);
+        AccountProxy toProxy = accountProxies.get(toId);
+        IAccount from = fromProxy == null ? null : findDecoratedAccount(fromId);
+        IAccount to = toProxy == null ? null : findDecoratedAccount(toId);
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("Account not found: " + (from == null ? fromId : toId));
+        }
+        AccountOperationEvent event = new AccountOperationEvent();
+        event.begin();
+        if (!system && fromProxy.rejectIfLocked()) {
+            commitOperation(event, "TRANSFER", fromId, toId, amount, fromProxy.getUnderlyingAccount().getBalance(),
+                BatchResult.Status.THROTTLED);
+            return BatchResult.Status.THROTTLED;
+        }
+        Account source = fromProxy.getUnderlyingAccount();
+        Account target = toProxy.getUnderlyingAccount();
+
+        BatchResult.Status status;
+        double fromBalance;
+        double toBalance;
+        accountLocks.lockBoth(source, target);
+        try {
+            if (target.getState() instanceof FrozenState || target.getState() instanceof ClosedState) {
+                status = BatchResult.Status.DECLINED;
+            } else {
+                long version = source.getVersion();
+                if (system) {
+                    from.systemWithdraw(amount);
+                } else {
+                    from.withdraw(amount, pin);
+                }
+                BatchResult.Status refused = system ? null : refusalOf(fromProxy);
+                if (refused != null) {
+                    status = refused;
+                } else if (source.getVersion() == version) {
+                    status = BatchResult.Status.DECLINED;
+                } else if (credit(to, target, amount, fromId, toId)) {
+                    status = BatchResult.Status.APPLIED;
+                    if (journal != null) {
+                        journal.logTransfer(fromId, toId, amount);
+                    }
+                } else {
+                    source.systemDeposit(amount);
+                    status = BatchResult.Status.DECLINED;
+                    if (journal != null) {
+                        journal.logTransferRefund(fromId, toId, amount);
+                    }
+                }
+            }
+            fromBalance = source.getBalance();
+            toBalance = target.getBalance();
+            recordTransaction();
+        } finally {
+            accountLocks.unlockBoth(source, target);
+        }
+        latencies.get(TimedOperation.TRANSFER).record(System.nanoTime() - started);
+
+        if (monthlyLogger.isEnabled(LogCategory.TRANSFER)) {
+            monthlyLogger.logSystemOperation(LogCategory.TRANSFER,
+                String.format("From: %s | To: %s | Amount: $%.2f | Status: %s | From Balance: $%.2f | To Balance: $%.2f",
+                    fromId, toId, amount, status, fromBalance, toBalance));
+        }
+        commitOperation(event, "TRANSFER", fromId, toId, amount, fromBalance, status);
+        return status;
+    }
+
+    /**
+     * Credits the target of a transfer whose debit already went through.
+     * A credit that throws after the balance moved still counts as made.
+     * Called with both account locks held.
+     *
+     * @return whether the target balance moved
+     */
+    private boolean credit(IAccount to, Account target, double amount, String fromId, String toId) {
+        long version = target.getVersion();
+        String failure = "target balance unchanged";
+        try {
+            to.systemDeposit(amount);
+        } catch (RuntimeException e) {
+            failure = e.toString();
+        }
+        boolean credited = target.getVersion() != version;
+        if (!credited) {
+            String details = String.format("$%.2f debited from %s was refunded, the credit to %s failed: %s",
+                amount, fromId, toId, failure);
+            monthlyLogger.logSystemOperation(LogCategory.TRANSFER_REFUNDED, details);
+            if (!quietMode) System.err.println("Transfer refunded: " + details);
+        }
+        return credited;
+    }
+
+    /**
+     * Replays a transfer whose credit failed: the source account is debited
+     * through its services, as the transfer did, and given the amount back
+     * directly, as the refund did.
+     *
+     * @param fromId the debited and refunded account
+     * @param toId   the account the credit failed on
+     * @param amount the transferred amount
+     * @throws IllegalArgumentException if the account cannot be found
+     */
+    void replayTransferRefund(String fromId, String toId, double amount) {
+        AccountProxy proxy = accountProxies.get(fromId);
+        IAccount from = proxy == null ? null : findDecoratedAccount(fromId);
+        if (from == null) {
+            throw new IllegalArgumentException("Account not found: " + fromId);
+        }
+        Account source = proxy.getUnderlyingAccount();
+        ReentrantLock lock = accountLocks.of(source);
+        lock.lock();
+        try {
+            long version = source.getVersion();
+            from.systemWithdraw(amount);
+            if (source.getVersion() != version) {
+                source.systemDeposit(amount);
+            }
+            if (journal != null) {
+                journal.logTransferRefund(fromId, toId, amount);
+            }
+            recordTransaction();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Tells what an operation on one account did: refused if the proxy did not
+     * grant its credential, applied if the balance version moved, declined by
+     * the account state otherwise. Called with the account lock held.
+     */
+    private static BatchResult.Status outcomeOf(AccountProxy proxy, Account account, long version) {
+        BatchResult.Status refused = refusalOf(proxy);
+        if (refused != null) {
+            return refused;
+        }
+        return account.getVersion() != version ? BatchResult.Status.APPLIED : BatchResult.Status.DECLINED;
+    }
+
+    /**
+     * Returns the status of an operation the proxy refused, or {@code null}
+     * if it granted the credential. Called with the account lock held.
+     */
+    private static BatchResult.Status refusalOf(AccountProxy proxy) {
+        switch (proxy.getLastAccess()) {
+            case DENIED:
+                return BatchResult.Status.AUTH_FAILED;
+            case THROTTLED:
+                return BatchResult.Status.THROTTLED;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Fills in and commits an operation event, if a recording asks for it.
+     */
+    private static void commitOperation(AccountOperationEvent event, String operation, String accountId,
+                                        String targetAccountId, double amount, double balance,
+                                        BatchResult.Status outcome) {
+        if (event.shouldCommit()) {
+            event.accountId = accountId;
+            event.operation = operation;
+            event.amount = amount;
+            event.balance = balance;
+            event.targetAccountId = targetAccountId;
+            event.outcome = outcome.name();
+            event.commit();
+        }
+    }
+
+    /**
+     * Deposits an amount at most once per idempotency key. A retry with the
+     * same key gets the result of the first call without touching the
+     * account; only results that reached the account (applied or declined)
+     * are remembered, so a retry after a wrong PIN or a throttled account
+     * runs again.
+     *
+     * @param accountId      account identifier
+     * @param amount         amount to deposit
+     * @param pin            PIN or session token
+     * @param idempotencyKey a key chosen by the caller, the same for every retry
+     * @return the result, or the remembered result of the first call
+     * @throws IllegalArgumentException if the account cannot be found or the
+     *                                  key was used for a different request
+     */
+    public BatchResult deposit(String accountId, double amount, String pin, String idempotencyKey) {
+        requireKey(idempotencyKey);
+        return apply(BatchOperation.deposit(accountId, amount, pin), idempotencyKey, false);
+    }
+
+    /**
+     * Withdraws an amount at most once per idempotency key, see
+     * {@link #deposit(String, double, String, String)}.
+     *
+     * @param accountId      account identifier
+     * @param amount         amount to withdraw
+     * @param pin            PIN or session token
+     * @param idempotencyKey a key chosen by the caller, the same for every retry
+     * @return the result, or the remembered result of the first call
+     * @throws IllegalArgumentException if the account cannot be found or the
+     *                                  key was used for a different request
+     */
+    public BatchResult withdraw(String accountId, double amount, String pin, String idempotencyKey) {
+        requireKey(idempotencyKey);
+        return apply(BatchOperation.withdraw(accountId, amount, pin), idempotencyKey, false);
+    }
+
+    /**
+     * Deposits an amount on behalf of the bank itself, without a credential:
+     * the credit or refund of a transfer between banks, or a replayed
+     * journal record. The account rules still apply, the throttle does not,
+     * and the deposit is journaled, counted and timed like one made with a
+     * credential. Nothing a client sends may reach this method.
+     *
+     * @param accountId account identifier
+     * @param amount    amount to deposit
+     * @return the result: applied, declined by the account state, or invalid
+     * @throws IllegalArgumentException if the account cannot be found
+     */
+    public BatchResult systemDeposit(String accountId, double amount) {
+        return apply(BatchOperation.deposit(accountId, amount, null), null, true);
+    }
+
+    /**
+     * Deposits an amount on behalf of the bank at most once per idempotency
+     * key, see {@link #systemDeposit(String, double)} and
+     * {@link #deposit(String, double, String, String)}.
+     *
+     * @param accountId      account identifier
+     * @param amount         amount to deposit
+     * @param idempotencyKey a key chosen by the caller, the same for every retry
+     * @return the result, or the remembered result of the first call
+     * @throws IllegalArgumentException if the account cannot be found or the
+     *                                  key was used for a different request
+     */
+    public BatchResult systemDeposit(String accountId, double amount, String idempotencyKey) {
+        requireKey(idempotencyKey);
+        return apply(BatchOperation.deposit(accountId, amount, null), idempotencyKey, true);
+    }
+
+    /**
+     * Withdraws an amount on behalf of the bank itself, without a
+     * credential, see {@link #systemDeposit(String, double)}.
+     *
+     * @param accountId account identifier
+     * @param amount    amount to withdraw
+     * @return the result: applied, declined by the account state, or invalid
+     * @throws IllegalArgumentException if the account cannot be found
+     */
+    public BatchResult systemWithdraw(String accountId, double amount) {
+        return apply(BatchOperation.withdraw(accountId, amount, null), null, true);
+    }
+
+    /**
+     * Moves an amount between two accounts at most once per idempotency key,
+     * see {@link #transfer(String, String, double, String)} and
+     * {@link #deposit(String, double, String, String)}.
+     *
+     * @param fromId         the account to debit
+     * @param toId           the account to credit
+     * @param amount         the amount to move
+     * @param pin            PIN or session token of the source account
+     * @param idempotencyKey a key chosen by the caller, the same for every retry
+     * @return the status, or the remembered status of the first call
+     * @throws IllegalArgumentException if an account cannot be found, both are
+     *                                  the same, the amount is not positive or
+     *                                  the key was used for a different request
+     */
+    public BatchResult.Status transfer(String fromId, String toId, double amount, String pin,
+                                       String idempotencyKey) {
+        long started = System.nanoTime();
+        AccountOperationEvent event = new AccountOperationEvent();
+        event.begin();
+        requireKey(idempotencyKey);
+        AccountProxy fromProxy = accountProxies.get(fromId);
+        AccountProxy toProxy = accountProxies.get(toId);
+        if (fromProxy == null || toProxy == null) {
+            throw new IllegalArgumentException("Account not found: " + (fromProxy == null ? fromId : toId));
+        }
+        IdempotencyCache cache = getIdempotencyCache();
+        int request = requestHash("TRANSFER", fromId + ">" + toId, amount);
+        long now = clock.millis();
+        Account source = fromProxy.getUnderlyingAccount();
+        Account target = toProxy.getUnderlyingAccount();
+        accountLocks.lockBoth(source, target);
+        try {
+            BatchResult previous = cache.find(idempotencyKey, request, null, now);
+            if (previous != null) {
+                logDuplicate(idempotencyKey, fromId, previous.getStatus());
+                latencies.get(TimedOperation.TRANSFER).record(System.nanoTime() - started);
+                commitOperation(event, "TRANSFER", fromId, toId, amount, source.getBalance(), previous.getStatus());
+                return previous.getStatus();
+            }
+            // The transfer records its own duration and event.
+            BatchResult.Status status = transfer(fromId, toId, amount, pin);
+            if (status == BatchResult.Status.APPLIED || status == BatchResult.Status.DECLINED) {
+                cache.remember(idempotencyKey, request, status, source.getBalance(), now);
+            }
+            return status;
+        } finally {
+            accountLocks.unlockBoth(source, target);
+        }
+    }
+
+    /**
+     * Runs a deposit or withdrawal, keyed or not, with the credential of the
+     * operation or on behalf of the bank. A keyed one looks up and fills the
+     * cache with the account locked, so that two concurrent retries cannot
+     * both miss it.
+     */
+    private BatchResult apply(BatchOperation op, String idempotencyKey, boolean system) {
+        long started = System.nanoTime();
+        AccountOperationEvent event = new AccountOperationEvent();
+        event.begin();
+        String accountId = op.getAccountId();
+        AccountProxy proxy = accountProxies.get(accountId);
+        IAccount account = proxy == null ? null : findDecoratedAccount(accountId);
+        if (account == null) {
+            throw new IllegalArgumentException("Account not found: " + accountId);
+        }
+        IdempotencyCache cache = idempotencyKey == null ? null : getIdempotencyCache();
+        int request = requestHash(op.getType().name(), accountId, op.getAmount());
+        long now = clock.millis();
+        Account real = proxy.getUnderlyingAccount();
+        boolean deposit = op.getType() == BatchOperation.Type.DEPOSIT;
+        ReentrantLock lock = accountLocks.of(real);
+        BatchResult result;
+        boolean applied = false;
+        lock.lock();
+        try {
+            result = cache == null ? null : cache.find(idempotencyKey, request, op, now);
+            if (result != null) {
+                logDuplicate(idempotencyKey, accountId, result.getStatus());
+            } else if (!system && proxy.rejectIfLocked()) {
+                result = new BatchResult(op, BatchResult.Status.THROTTLED, -1, null);
+            } else {
+                try {
+                    result = system ? applySystemOperation(op, account, real)
+                                    : applyOperation(op, account, proxy, op.getPin());
+                } catch (IllegalArgumentException e) {
+                    result = new BatchResult(op, BatchResult.Status.INVALID, real.getBalance(), e.getMessage());
+                }
+                if (result.getStatus() == BatchResult.Status.APPLIED
+                        || result.getStatus() == BatchResult.Status.DECLINED) {
+                    if (cache != null) {
+                        cache.remember(idempotencyKey, request, result.getStatus(), result.getBalance(), now);
+                    }
+                    applied = result.getStatus() == BatchResult.Status.APPLIED;
+                    if (journal != null) {
+                        if (deposit) {
+                            journal.logDeposit(accountId, op.getAmount());
+                        } else {
+                            journal.logWithdraw(accountId, op.getAmount());
+                        }
+                    }
+                    recordTransaction();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (result.getStatus() != BatchResult.Status.THROTTLED) {
+            latencies.get(deposit ? TimedOperation.DEPOSIT : TimedOperation.WITHDRAW)
+                .record(System.nanoTime() - started);
+        }
+        // A retry answered from the cache moved no money.
+        if (applied) {
+            (deposit ? depositAmounts : withdrawalAmounts).observe(op.getAmount());
+        }
+        commitOperation(event, op.getType().name(), accountId, null, op.getAmount(), real.getBalance(),
+            result.getStatus());
+        return result;
+    }
+
+    private static void requireKey(String idempotencyKey) {
+        if (idempotencyKey == null || idempotencyKey.isEmpty()) {
+            throw new IllegalArgumentException("An idempotency key is required");
+        }
+    }
+
+    /**
+     * Hashes what a keyed request asks for, so a key reused for another
+     * request is recognized.
+     */
+    private static int requestHash(String type, String accounts, double amount) {
+        return (type.hashCode() * 31 + accounts.hashCode()) * 31 + Double.hashCode(amount);
+    }
+
+    private void logDuplicate(String idempotencyKey, String accountId, BatchResult.Status status) {
+        if (monthlyLogger.isEnabled(LogCategory.DUPLICATE_REQUEST)) {
+            monthlyLogger.logSystemOperation(LogCategory.DUPLICATE_REQUEST,
+                "Key: " + idempotencyKey + " | Account: " + accountId + " | Original status: " + status);
+        }
+    }
+
+    /**
+     * Returns the cache that remembers keyed operations, creating one with
+     * {@link IdempotencyCache#DEFAULT_CAPACITY} keys and a time to live of
+     * {@link IdempotencyCache#DEFAULT_TTL} on first use.
+     *
+     * @return the idempotency cache
+     */
+    public IdempotencyCache getIdempotencyCache() {
+        IdempotencyCache cache = idempotencyCache;
+        if (cache == null) {
+            synchronized (this) {
+                cache = idempotencyCache;
+                if (cache == null) {
+                    cache = new IdempotencyCache(IdempotencyCache.DEFAULT_CAPACITY, IdempotencyCache.DEFAULT_TTL);
+                    idempotencyCache = cache;
+                }
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * Replaces the cache that remembers keyed operations, for example with
+     * one sized for the expected retry window. Keys remembered by the
+     * previous cache are forgotten.
+     *
+     * @param cache the new cache
+     */
+    public void setIdempotencyCache(IdempotencyCache cache) {
+        this.idempotencyCache = Objects.requireNonNull(cache);
+    }
+
+    /**
+     * Executes a batch of account operations.
+     *
+     * <p>Operations are grouped by account, keeping the order in which each
+     * account first appears and the order of the operations within an account.
+     * Each group is looked up once and authenticated once: the PIN of its first
+     * operation opens a session and every operation sent with that same PIN uses
+     * the session token instead of verifying the PIN again. Operations sent
+     * with a different credential are authenticated individually. Each group
+     * writes a single {@link LogCategory#BATCH_OPERATIONS} record instead of one
+     * record per operation.</p>
+     *
+     * @param operations the operations to execute
+     * @return one result per operation, in the same order as {@code operations}
+     */
+    public List<BatchResult> executeBatch(List<BatchOperation> operations) {
+        BatchResult[] results = new BatchResult[operations.size()];
+        Map<String, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < operations.size(); i++) {
+            groups.computeIfAbsent(operations.get(i).getAccountId(), k -> new ArrayList<>()).add(i);
+        }
+
+        for (Map.Entry<String, List<Integer>> group : groups.entrySet()) {
+            executeGroup(group.getKey(), group.getValue(), operations, results);
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Executes the operations of one account for {@link #executeBatch}.
+     *
+     * @param accountId  the account of the group
+     * @param indices    positions of the group operations in {@code operations}
+     * @param operations the whole batch
+     * @param results    the array receiving the result of each operation
+     */
+    private void executeGroup(String accountId, List<Integer> indices,
+                              List<BatchOperation> operations, BatchResult[] results) {
+        AccountProxy proxy = accountProxies.get(accountId);
+        IAccount account = proxy == null ? null : findDecoratedAccount(accountId);
+        if (account == null) {
+            for (int index : indices) {
+                results[index] = new BatchResult(operations.get(index), BatchResult.Status.NOT_FOUND, -1, null);
+            }
+            return;
+        }
+        Account real = proxy.getUnderlyingAccount();
+
+        String groupPin = operations.get(indices.get(0)).getPin();
+        boolean needsSession = groupPin != null && !groupPin.startsWith(SessionCache.TOKEN_PREFIX);
+        String token = needsSession && !proxy.isLocked() ? proxy.openSession(groupPin) : null;
+
+        int applied = 0;
+        int rejected = 0;
+        int deposits = 0;
+        int withdrawals = 0;
+        int checks = 0;
+        double deposited = 0.0;
+        double withdrawn = 0.0;
+
+        ReentrantLock lock = accountLocks.of(real);
+        lock.lock();
+        try {
+            for (int index : indices) {
+                BatchOperation op = operations.get(index);
+                String credential = op.getPin();
+                if (needsSession && groupPin.equals(credential)) {
+                    if (token == null) {
+                        BatchResult.Status status = proxy.rejectIfLocked()
+                            ? BatchResult.Status.THROTTLED : BatchResult.Status.AUTH_FAILED;
+                        results[index] = new BatchResult(op, status, -1, null);
+                        rejected++;
+                        continue;
+                    }
+                    credential = token;
+                } else if (proxy.rejectIfLocked()) {
+                    results[index] = new BatchResult(op, BatchResult.Status.THROTTLED, -1, null);
+                    rejected++;
+                    continue;
+                }
+
+                BatchResult result;
+                try {
+                    result = applyOperation(op, account, proxy, credential);
+                } catch (IllegalArgumentException e) {
+                    result = new BatchResult(op, BatchResult.Status.INVALID, real.getBalance(), e.getMessage());
+                }
+                results[index] = result;
+                if (result.isApplied()) {
+                    applied++;
+                    recordTransaction();
+                    switch (op.getType()) {
+                        case DEPOSIT:
+                            deposits++;
+                            deposited += op.getAmount();
+                            break;
+                        case WITHDRAW:
+                            withdrawals++;
+                            withdrawn += op.getAmount();
+                            break;
+                        default:
+                            checks++;
+                    }
+                } else {
+                    rejected++;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (token != null) {
+            proxy.closeSession(token);
+        }
+
+        if (monthlyLogger.isEnabled(LogCategory.BATCH_OPERATIONS)) {
+            monthlyLogger.logSystemOperation(LogCategory.BATCH_OPERATIONS,
+                String.format("Account: %s | Operations: %d | Applied: %d | Rejected: %d | "
+                    + "Deposits: %d ($%.2f) | Withdrawals: %d ($%.2f) | Balance checks: %d | Balance: $%.2f",
+                    accountId, indices.size(), applied, rejected, deposits, deposited,
+                    withdrawals, withdrawn, checks, real.getBalance()));
+        }
+    }
+
+    /**
+     * Applies one batch operation to a decorated account. Whether the
+     * credential was accepted is told by the proxy, and whether the operation
+     * moved money by the balance version of the account changing.
+     *
+     * @param op         the operation
+     * @param account    the decorated account
+     * @param proxy      the security proxy of the account
+     * @param credential the session token or credential to send
+     * @return the result of the operation
+     */
+    private BatchResult applyOperation(BatchOperation op, IAccount account, AccountProxy proxy, String credential) {
+        Account real = proxy.getUnderlyingAccount();
+        long version = real.getVersion();
+        double balance;
+        switch (op.getType()) {
+            case DEPOSIT:
+                account.deposit(op.getAmount(), credential);
+                balance = real.getBalance();
+                break;
+            case WITHDRAW:
+                account.withdraw(op.getAmount(), credential);
+                balance = real.getBalance();
+                break;
+            default:
+                balance = account.checkBalance(credential);
+        }
+        BatchResult.Status refused = refusalOf(proxy);
+        if (refused != null) {
+            return new BatchResult(op, refused, -1, null);
+        }
+        boolean applied = op.getType() == BatchOperation.Type.CHECK_BALANCE || real.getVersion() != version;
+        return new BatchResult(op, applied ? BatchResult.Status.APPLIED : BatchResult.Status.DECLINED, balance, null);
+    }
+
+    /**
+     * Applies a deposit or withdrawal made on behalf of the bank to a
+     * decorated account. Whether it moved money is told by the balance
+     * version of the account changing.
+     *
+     * @param op      the operation
+     * @param account the decorated account
+     * @param real    the underlying account
+     * @return the result of the operation
+     */
+    private static BatchResult applySystemOperation(BatchOperation op, IAccount account, Account real) {
+        long version = real.getVersion();
+        if (op.getType() == BatchOperation.Type.DEPOSIT) {
+            account.systemDeposit(op.getAmount());
+        } else {
+            account.systemWithdraw(op.getAmount());
+        }
+        boolean applied = real.getVersion() != version;
+        return new BatchResult(op, applied ? BatchResult.Status.APPLIED : BatchResult.Status.DECLINED,
+            real.getBalance(), null);
+    }
+
     /**
      * Processes monthly operations for all accounts.
      *
@@ -288,56 +1634,170 @@ public class PumaBankFacade {
      * decorators, strategies and states to apply monthly fees, interest and
      * state transitions. The method also collects aggregated metrics and
      * produces a monthly report via {@link MonthlyLogger}.</p>
+     *
+     * <p>Before walking the accounts, interest for every account with a
+     * stateless policy is precomputed in one pass per policy through
+     * {@link InterestBatch}.</p>
+     *
+     * @param simulatedMonth the month being closed
+     * @return the totals written to the report footer
      */
-    public void processMonthlyOperations(int simulatedMonth) {
+    public MonthlyReport processMonthlyOperations(int simulatedMonth) {
+        long started = System.nanoTime();
 
         monthlyLogger.startMonthlyReport(simulatedMonth, !suppressLogTimestamps);
-        monthlyLogger.logSystemOperation("MONTHLY_PROCESSING_START", 
-            "Starting monthly operations for " + getTotalAccounts() + " accounts");
+        if (monthlyLogger.isEnabled(LogCategory.MONTHLY_PROCESSING_START)) {
+            monthlyLogger.logSystemOperation(LogCategory.MONTHLY_PROCESSING_START,
+                "Starting monthly operations for " + getTotalAccounts() + " accounts");
+        }
 
-        monthlyTransactions = 0;
-        totalFeesCollected = 0;
-        totalInterestPaid = 0;
+        ReentrantLock registry = accountLocks.registry();
+        registry.lock();
+        try {
+            monthlyTransactions.reset();
+            totalFeesCollected.reset();
+            totalInterestPaid.reset();
+            if (journal != null) {
+                journal.logMonthStart(simulatedMonth);
+            }
+        } finally {
+            registry.unlock();
+        }
 
         if (!quietMode) System.out.println("=== STARTING PUMA BANK MONTHLY PROCESSES ===");
 
+        List<Account> realAccounts = new ArrayList<>();
+        for (List<IAccount> accounts : clientAccounts.values()) {
+            for (IAccount account : accounts) {
+                IAccount realAccount = getRealAccount(account);
+                if (realAccount instanceof Account) {
+                    ((Account) realAccount).startStatement();
+                    ((Account) realAccount).getInterestAccrual()
+                        .setMonthOfYear(Math.floorMod(simulatedMonth - 1, 12) + 1);
+                    realAccounts.add((Account) realAccount);
+                }
+            }
+        }
+        InterestBatch.precompute(realAccounts);
+
+        LatencyHistogram processMonthLatency = latencies.get(TimedOperation.PROCESS_MONTH);
         for (List<IAccount> accounts : clientAccounts.values()) {
             for (IAccount account : accounts) {
                 String accountId = getAccountId(account);
                 
                 try {
-                    monthlyLogger.logSystemOperation("ACCOUNT_PROCESSING_START", 
-                        "Processing account: " + accountId);
+                    if (monthlyLogger.isEnabled(LogCategory.ACCOUNT_PROCESSING_START)) {
+                        monthlyLogger.logSystemOperation(LogCategory.ACCOUNT_PROCESSING_START,
+                            "Processing account: " + accountId);
+                    }
                     
                     if (!quietMode) System.out.println("Processing account: " + accountId);
-                    account.processMonth();
+                    IAccount real = getRealAccount(account);
+                    ReentrantLock lock = real instanceof Account ? accountLocks.of((Account) real) : null;
+                    if (lock != null) {
+                        lock.lock();
+                    }
+                    long accountStarted = System.nanoTime();
+                    MonthEndAccountEvent event = new MonthEndAccountEvent();
+                    event.begin();
+                    boolean completed = false;
+                    try {
+                        account.processMonth();
+                        monthlyTransactions.increment();
+                        completed = true;
+                    } finally {
+                        if (journal != null && real instanceof Account) {
+                            journal.logMonthAccount(accountId, (Account) real, BankSnapshot.rewardPoints(account),
+                                                    completed);
+                        }
+                        processMonthLatency.record(System.nanoTime() - accountStarted);
+                        if (event.shouldCommit() && real instanceof Account) {
+                            Account processed = (Account) real;
+                            event.accountId = accountId;
+                            event.month = simulatedMonth;
+                            event.openingBalance = processed.getStatementOpeningBalance();
+                            event.closingBalance = processed.getBalance();
+                            event.fees = processed.getStatementFees();
+                            event.interest = processed.getStatementInterest();
+                            event.state = StateTransitionEvent.nameOf(processed.getState());
+                            event.commit();
+                        }
+                        if (lock != null) {
+                            lock.unlock();
+                        }
+                    }
                     
-                    monthlyTransactions++;
-                    monthlyLogger.logSystemOperation("ACCOUNT_PROCESSING_END", 
-                        "Completed processing account: " + accountId);
+                    if (monthlyLogger.isEnabled(LogCategory.ACCOUNT_PROCESSING_END)) {
+                        monthlyLogger.logSystemOperation(LogCategory.ACCOUNT_PROCESSING_END,
+                            "Completed processing account: " + accountId);
+                    }
                         
                 } catch (Exception e) {
-                        monthlyLogger.logSystemOperation("ACCOUNT_PROCESSING_ERROR", 
-                        "Error processing account " + accountId + ": " + e.getMessage());
+                    if (monthlyLogger.isEnabled(LogCategory.ACCOUNT_PROCESSING_ERROR)) {
+                        monthlyLogger.logSystemOperation(LogCategory.ACCOUNT_PROCESSING_ERROR,
+                            "Error processing account " + accountId + ": " + e.getMessage());
+                    }
                     if (!quietMode) System.err.println("Error processing account " + accountId + ": " + e.getMessage());
                 }
             }
         }
-        monthlyLogger.logSystemOperation("MONTHLY_PROCESSING_END", 
-            "Completed monthly operations. Transactions: " + monthlyTransactions);
+        if (monthlyLogger.isEnabled(LogCategory.MONTHLY_PROCESSING_END)) {
+            monthlyLogger.logSystemOperation(LogCategory.MONTHLY_PROCESSING_END,
+                "Completed monthly operations. Transactions: " + monthlyTransactions.sum());
+        }
+        latencies.get(TimedOperation.MONTH_END).record(System.nanoTime() - started);
         monthlyLogger.endMonthlyReport(
             getTotalAccounts(), 
-            monthlyTransactions, 
-            totalFeesCollected, 
-            totalInterestPaid,
+            getMonthlyTransactions(),
+            totalFeesCollected.sum(),
+            totalInterestPaid.sum(),
             !suppressLogTimestamps,
-            simulatedMonth
+            simulatedMonth,
+            suppressLogTimestamps ? List.of() : latencySummary()
         );
 
         if (!quietMode) {
             System.out.println("=== MONTHLY PROCESSES COMPLETED ===");
-            System.out.println("Detailed report saved to: monthly_operations_log.txt");
+            System.out.println("Detailed report saved to: " + monthlyLogger.getLogFile());
         }
+        return new MonthlyReport(simulatedMonth, getTotalAccounts(), getMonthlyTransactions(),
+            totalFeesCollected.sum(), totalInterestPaid.sum(), System.nanoTime() - started);
+    }
+
+    /**
+     * Returns the latency histogram of an operation. Durations are kept from
+     * the creation of the facade, or the last
+     * {@link #resetLatencyHistograms()}, across months.
+     *
+     * @param operation the timed operation
+     * @return its histogram, in nanoseconds
+     */
+    public LatencyHistogram getLatencyHistogram(TimedOperation operation) {
+        return latencies.get(operation);
+    }
+
+    /**
+     * Forgets the durations recorded by every latency histogram.
+     */
+    public void resetLatencyHistograms() {
+        for (LatencyHistogram histogram : latencies.values()) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * Formats one footer line per timed operation that was recorded. Left
+     * out of the footer when log timestamps are suppressed, since durations
+     * would make deterministic logs differ between runs.
+     */
+    private List<String> latencySummary() {
+        List<String> lines = new ArrayList<>();
+        for (Map.Entry<TimedOperation, LatencyHistogram> entry : latencies.entrySet()) {
+            if (entry.getValue().getCount() > 0) {
+                lines.add(String.format("Latency %s: %s", entry.getKey().getLabel(), entry.getValue()));
+            }
+        }
+        return lines;
     }
 
     /**
@@ -347,11 +1807,18 @@ public class PumaBankFacade {
      * @return the decorated {@link IAccount} or {@code null} if not found
      */
     private IAccount findDecoratedAccount(String accountId) {
-        String clientId = accountId.split("-")[0];
-        List<IAccount> accounts = clientAccounts.get(clientId);
+        AccountProxy proxy = accountProxies.get(accountId);
+        if (proxy == null) {
+            return null;
+        }
+        List<IAccount> accounts = clientAccounts.get(proxy.getUnderlyingAccount().getClient().getClientId());
         if (accounts != null) {
             for (IAccount account : accounts) {
-                if (getAccountId(account).equals(accountId)) {
+                IAccount current = account;
+                while (current instanceof AccountDecorator) {
+                    current = ((AccountDecorator) current).decoratedAccount;
+                }
+                if (current == proxy) {
                     return account;
                 }
             }
@@ -364,8 +1831,9 @@ public class PumaBankFacade {
      * {@link IAccount} instance.
      *
      * <p>The method traverses decorator wrappers until it reaches the
-     * underlying {@link AccountProxy} and then looks up the proxy in the
-     * internal registry to return its identifier.</p>
+     * underlying {@link AccountProxy} and returns the identifier its account
+     * was registered under, without searching the registry, so month-end
+     * stays linear in the number of accounts.</p>
      *
      * @param account a decorated {@link IAccount}
      * @return the account identifier or {@code "UNKNOWN-ACCOUNT"} if the
@@ -378,10 +1846,9 @@ public class PumaBankFacade {
         }
         
         if (current instanceof AccountProxy) {
-            for (Map.Entry<String, AccountProxy> entry : accountProxies.entrySet()) {
-                if (entry.getValue() == current) {
-                    return entry.getKey();
-                }
+            String accountId = ((AccountProxy) current).getUnderlyingAccount().getAccountId();
+            if (accountId != null) {
+                return accountId;
             }
         }
         
@@ -403,9 +1870,26 @@ public class PumaBankFacade {
      * @param fee the fee amount to add to the monthly total
      */
     public void recordFeeCollection(double fee) {
-        this.totalFeesCollected += fee;
-        monthlyLogger.logSystemOperation("FEE_RECORDED", 
-            String.format("Fee: $%.2f | Total Fees: $%.2f", fee, totalFeesCollected));
+        recordFeeCollection(fee, "Other");
+    }
+
+    /**
+     * Records a collected fee amount for monthly metrics, counts it for the
+     * service that charged it and logs the operation.
+     *
+     * @param fee     the fee amount to add to the monthly total
+     * @param service the service or rule that charged it
+     */
+    public void recordFeeCollection(double fee, String service) {
+        totalFeesCollected.add(fee);
+        if (fee > 0) {
+            metrics.counter("pumabank_fees_collected_total", "Fees collected, by the service that charged them",
+                "service", service).add(fee);
+        }
+        if (monthlyLogger.isEnabled(LogCategory.FEE_RECORDED)) {
+            monthlyLogger.logSystemOperation(LogCategory.FEE_RECORDED,
+                String.format("Fee: $%.2f | Total Fees: $%.2f", fee, totalFeesCollected.sum()));
+        }
     }
 
     /**
@@ -415,9 +1899,14 @@ public class PumaBankFacade {
      * @param interest amount of interest paid
      */
     public void recordInterestPayment(double interest) {
-        this.totalInterestPaid += interest;
-        monthlyLogger.logSystemOperation("INTEREST_RECORDED", 
-            String.format("Interest: $%.2f | Total Interest: $%.2f", interest, totalInterestPaid));
+        totalInterestPaid.add(interest);
+        if (interest > 0) {
+            interestPaidTotal.add(interest);
+        }
+        if (monthlyLogger.isEnabled(LogCategory.INTEREST_RECORDED)) {
+            monthlyLogger.logSystemOperation(LogCategory.INTEREST_RECORDED,
+                String.format("Interest: $%.2f | Total Interest: $%.2f", interest, totalInterestPaid.sum()));
+        }
     }
 
     /**
@@ -425,7 +1914,51 @@ public class PumaBankFacade {
      * facade operations that represent user-triggered interactions.
      */
     public void recordTransaction() {
-        this.monthlyTransactions++;
+        monthlyTransactions.increment();
+        transactionsTotal.increment();
+    }
+
+    /**
+     * Moves an account from one state to another in the bank metrics and
+     * counts the transition. Called by {@link Account} when its state class
+     * changes.
+     *
+     * @param from the state left
+     * @param to   the state entered
+     */
+    public void recordStateChange(AccountState from, AccountState to) {
+        accountsIn(from).decrement();
+        accountsIn(to).increment();
+        metrics.counter("pumabank_state_transitions_total", "Account state transitions",
+            "from", stateLabel(from), "to", stateLabel(to)).increment();
+    }
+
+    /**
+     * Counts account events delivered to observers.
+     *
+     * @param observers the observers that received one event
+     */
+    public void recordNotifications(int observers) {
+        notificationsTotal.add(observers);
+    }
+
+    /**
+     * Returns the metrics of this bank, for a {@link PrometheusExporter}.
+     * They are cumulative since the facade was created and are not reset at
+     * month-end.
+     *
+     * @return the metrics registry
+     */
+    public MetricsRegistry getMetrics() {
+        return metrics;
+    }
+
+    private Gauge accountsIn(AccountState state) {
+        return metrics.gauge("pumabank_accounts", "Accounts by state", "state", stateLabel(state));
+    }
+
+    private static String stateLabel(AccountState state) {
+        return StateTransitionEvent.nameOf(state).toLowerCase();
     }
 
     /**
@@ -480,11 +2013,24 @@ public class PumaBankFacade {
 
         if (toRemove == null) return false;
 
-        accounts.remove(toRemove);
-        accountProxies.remove(accountId);
+        AccountProxy removed;
+        ReentrantLock registry = accountLocks.registry();
+        registry.lock();
+        try {
+            accounts.remove(toRemove);
+            removed = accountProxies.remove(accountId);
+            if (journal != null) {
+                journal.logDelete(accountId);
+            }
+        } finally {
+            registry.unlock();
+        }
+        if (removed != null) {
+            sessionCache.closeAll(removed);
+            accountsIn(removed.getUnderlyingAccount().getState()).decrement();
+        }
 
-        monthlyLogger.logSystemOperation("ACCOUNT_DELETED",
-            String.format("Account removed: %s", accountId));
+        monthlyLogger.logSystemOperation(LogCategory.ACCOUNT_DELETED, "Account removed: " + accountId);
 
         return true;
     }
@@ -523,9 +2069,11 @@ public class PumaBankFacade {
         portfolio.put("totalBalance", totalBalance);
         portfolio.put("accounts", new ArrayList<>(accounts));
 
-        monthlyLogger.logSystemOperation("PORTFOLIO_QUERY", 
-            String.format("Client: %s | Accounts: %d | Total Balance: $%.2f", 
-                clientId, accounts.size(), totalBalance));
+        if (monthlyLogger.isEnabled(LogCategory.PORTFOLIO_QUERY)) {
+            monthlyLogger.logSystemOperation(LogCategory.PORTFOLIO_QUERY,
+                String.format("Client: %s | Accounts: %d | Total Balance: $%.2f",
+                    clientId, accounts.size(), totalBalance));
+        }
 
         return portfolio;
     }
@@ -578,7 +2126,7 @@ public class PumaBankFacade {
      * @return total fees collected
      */
     public double getTotalFeesCollected() {
-        return totalFeesCollected;
+        return totalFeesCollected.sum();
     }
 
     /**
@@ -587,7 +2135,7 @@ public class PumaBankFacade {
      * @return total interest paid
      */
     public double getTotalInterestPaid() {
-        return totalInterestPaid;
+        return totalInterestPaid.sum();
     }
 
     /**
@@ -596,6 +2144,6 @@ public class PumaBankFacade {
      * @return number of monthly transactions
      */
     public int getMonthlyTransactions() {
-        return monthlyTransactions;
+        return monthlyTransactions.intValue();
     }
 }
\ No newline at end of file
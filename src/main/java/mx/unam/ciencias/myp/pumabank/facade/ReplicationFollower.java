@@ -0,0 +1,300 @@
+package mx.unam.ciencias.myp.pumabank.facade;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+import mx.unam.ciencias.myp.pumabank.patterns.observer.LogLevel;
+
+/**
+ * A read-only copy of a bank kept up to date by a {@link ReplicationPrimary}.
+ *
+ * <p>The follower starts from the snapshot the primary sends and then
+ * applies the primary's journal records in order on a single applier thread,
+ * the same way {@link PumaBankFacade#recover} replays a journal. It answers
+ * {@link #checkBalance} and {@link #getClientPortfolio} from its own bank;
+ * records are applied in batches of up to {@link #MAX_BATCH} under a write
+ * lock, so a query sees a bank between two records and never waits longer
+ * than one batch.</p>
+ *
+ * <p>If no record or heartbeat arrives for {@link #TIMEOUT_MILLIS}, or the
+ * connection breaks, the follower considers the primary lost and stops
+ * applying; {@link #awaitDisconnect} returns. {@link #promote} then hands
+ * out its bank for writing, which is the failover: attach a new journal and,
+ * if wanted, a new primary to it.</p>
+ */
+public final class ReplicationFollower implements Closeable {
+
+    /** How long the primary may stay silent before it is considered lost. */
+    public static final long TIMEOUT_MILLIS = 10 * ReplicationPrimary.HEARTBEAT_MILLIS;
+
+    /** Most records applied under one hold of the write lock. */
+    public static final int MAX_BATCH = 1024;
+
+    private final Socket socket;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+    private final PumaBankFacade facade;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final CountDownLatch disconnected = new CountDownLatch(1);
+    private final Thread applier;
+    private final long startSequence;
+    private volatile long appliedSequence;
+
+    /**
+     * Connects to a primary, loads its snapshot and starts following it.
+     *
+     * @param primary the address of the primary
+     * @param logFile the monthly log file of the follower's bank
+     * @throws IOException if the primary cannot be reached or sends an invalid snapshot
+     */
+    public ReplicationFollower(InetSocketAddress primary, Path logFile) throws IOException {
+        this.socket = new Socket();
+        socket.setTcpNoDelay(true);
+        socket.connect(primary);
+        try {
+            socket.setSoTimeout((int) TIMEOUT_MILLIS);
+            this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 1 << 16));
+            this.out = new DataOutputStream(socket.getOutputStream());
+            if (in.readInt() != ReplicationPrimary.MAGIC) {
+                throw new IOException("Not a PumaBank replication primary: " + primary);
+            }
+            this.startSequence = in.readLong();
+            byte[] snapshot = new byte[in.readInt()];
+            in.readFully(snapshot);
+            this.facade = new PumaBankFacade(logFile);
+            facade.setQuietMode(true);
+            BankSnapshot.decode(facade, snapshot);
+        } catch (IOException | RuntimeException e) {
+            socket.close();
+            throw e;
+        }
+        this.appliedSequence = startSequence;
+        this.applier = new Thread(this::follow, "pumabank-replication-apply");
+        applier.setDaemon(true);
+        applier.start();
+    }
+
+    /**
+     * Returns the balance of an account as of the last applied record. The
+     * PIN is verified against the replicated hash, but the read counts no
+     * transaction and touches no throttle or session, so the follower's bank
+     * stays a copy of the primary's.
+     *
+     * @param accountId account identifier
+     * @param pin       authentication PIN
+     * @return the balance, or {@code -1} if the PIN is wrong
+     * @throws IllegalArgumentException if the account does not exist here
+     */
+    public double checkBalance(String accountId, String pin) {
+        lock.readLock().lock();
+        try {
+            return facade.replicaBalance(accountId, pin);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns a portfolio summary as of the last applied record, see
+     * {@link PumaBankFacade#getClientPortfolio}.
+     *
+     * @param clientId the client identifier
+     * @return the portfolio
+     * @throws IllegalArgumentException if the client does not exist here
+     */
+    public Map<String, Object> getClientPortfolio(String clientId) {
+        lock.readLock().lock();
+        try {
+            return facade.getClientPortfolio(clientId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Changes the minimum level of the operations the follower's bank writes
+     * to its monthly log, see {@link PumaBankFacade#setLogLevel}. Replayed
+     * records are logged like the original operations were on the primary.
+     *
+     * @param level the new minimum level
+     */
+    public void setLogLevel(LogLevel level) {
+        lock.writeLock().lock();
+        try {
+            facade.setLogLevel(level);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of the last record applied; records are numbered
+     * by the primary.
+     *
+     * @return the applied sequence
+     */
+    public long getAppliedSequence() {
+        return appliedSequence;
+    }
+
+    /**
+     * Returns the sequence of the snapshot this follower started from.
+     * @return the start sequence
+     */
+    public long getStartSequence() {
+        return startSequence;
+    }
+
+    /**
+     * Tells whether records are still being received from the primary.
+     * @return whether the primary is connected
+     */
+    public boolean isConnected() {
+        return disconnected.getCount() > 0;
+    }
+
+    /**
+     * Waits until the primary is lost or this follower is closed.
+     *
+     * @param timeoutMillis how long to wait
+     * @return whether the follower is disconnected
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean awaitDisconnect(long timeoutMillis) throws InterruptedException {
+        return disconnected.await(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops following the primary and returns the bank for reads and writes.
+     * Queries through this follower keep working.
+     *
+     * @return the follower's bank
+     */
+    public PumaBankFacade promote() {
+        close();
+        return facade;
+    }
+
+    /**
+     * Body of the applier thread: applies records in batches and
+     * acknowledges each batch to the primary.
+     */
+    private void follow() {
+        CRC32 crc = new CRC32();
+        try {
+            while (true) {
+                ByteBuffer first = readRecord(crc);
+                if (first == null) {
+                    continue;
+                }
+                lock.writeLock().lock();
+                try {
+                    apply(first);
+                    for (int i = 1; i < MAX_BATCH; i++) {
+                        ByteBuffer next = readBuffered(crc);
+                        if (next == null) {
+                            break;
+                        }
+                        apply(next);
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                out.writeLong(appliedSequence);
+                out.flush();
+            }
+        } catch (IOException e) {
+            // the primary is gone, or this follower was closed
+        } catch (RuntimeException e) {
+            System.err.println("Replication stopped at record " + (appliedSequence + 1) + ": " + e.getMessage());
+        } finally {
+            closeSocket();
+            disconnected.countDown();
+        }
+    }
+
+    private void apply(ByteBuffer record) {
+        WriteAheadJournal.apply(record, facade);
+        appliedSequence++;
+    }
+
+    /**
+     * Reads the next record, waiting for it; returns {@code null} for a heartbeat.
+     */
+    private ByteBuffer readRecord(CRC32 crc) throws IOException {
+        int length = in.readInt();
+        if (length == 0) {
+            return null;
+        }
+        return readBody(length, crc);
+    }
+
+    /**
+     * Reads the next record only if it has fully arrived, so the write lock
+     * is never held while waiting for the network; skips heartbeats.
+     */
+    private ByteBuffer readBuffered(CRC32 crc) throws IOException {
+        while (in.available() >= 4) {
+            in.mark(8);
+            int length = in.readInt();
+            if (length == 0) {
+                continue;
+            }
+            if (in.available() < length + 4) {
+                in.reset();
+                return null;
+            }
+            return readBody(length, crc);
+        }
+        return null;
+    }
+
+    private ByteBuffer readBody(int length, CRC32 crc) throws IOException {
+        if (length < 0 || length > WriteAheadJournal.MAX_RECORD) {
+            throw new IOException("Invalid replication record length " + length);
+        }
+        byte[] body = new byte[length];
+        in.readFully(body);
+        crc.reset();
+        crc.update(body);
+        if ((int) crc.getValue() != in.readInt()) {
+            throw new IOException("Corrupt replication record " + (appliedSequence + 1));
+        }
+        return ByteBuffer.wrap(body);
+    }
+
+    private void closeSocket() {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // already closed
+        }
+    }
+
+    /**
+     * Disconnects from the primary and waits for the applier to stop.
+     */
+    @Override
+    public void close() {
+        closeSocket();
+        if (Thread.currentThread() != applier) {
+            try {
+                applier.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
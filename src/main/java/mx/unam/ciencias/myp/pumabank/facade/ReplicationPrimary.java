@@ -0,0 +1,371 @@
+package mx.unam.ciencias.myp.pumabank.facade;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Streams the mutations of a bank to {@link ReplicationFollower}s over TCP.
+ *
+ * <p>The stream is the {@link WriteAheadJournal} of the bank: every record
+ * the journal appends is numbered and copied to the outbox of each follower
+ * while the journal lock is held, so followers see records in journal order,
+ * which is the order the mutations were applied to each account. A sender
+ * thread per follower writes its outbox in batches, and a heartbeat when
+ * there was nothing to send for {@link #HEARTBEAT_MILLIS}; the follower
+ * answers each batch it applied with the number of the last record, which
+ * {@link #getAcknowledgedSequence()} and {@link #awaitAcknowledged} report.</p>
+ *
+ * <p>A follower that connects first receives a snapshot of the whole bank.
+ * The snapshot is taken in an exclusive step of the {@link RequestExecutor}
+ * and the follower starts receiving records in that same step, so every
+ * mutation is either in the snapshot or in the stream. Mutations must
+ * therefore go through the executor while followers attach. Bulk imports
+ * through {@link PumaBankFacade#importAccounts(java.nio.file.Path)} are
+ * journaled client by client and account by account, and so replicated,
+ * and so are client moves through {@link PumaBankFacade#importClients} and
+ * {@link PumaBankFacade#removeClient}.</p>
+ *
+ * <p>A follower whose outbox grows past {@link #MAX_BACKLOG} bytes is
+ * dropped instead of holding the bank back; it can connect again and start
+ * from a new snapshot.</p>
+ */
+public final class ReplicationPrimary implements Closeable {
+
+    /** How often an idle primary tells its followers it is alive. */
+    public static final long HEARTBEAT_MILLIS = 100;
+
+    /** Largest backlog of unsent records per follower, in bytes. */
+    public static final int MAX_BACKLOG = 64 << 20;
+
+    static final int MAGIC = 0x50425250; // "PBRP"
+
+    private final PumaBankFacade facade;
+    private final RequestExecutor executor;
+    private final WriteAheadJournal journal;
+    private final ServerSocket server;
+    private final Thread acceptor;
+    private final CopyOnWriteArrayList<Link> followers = new CopyOnWriteArrayList<>();
+    private final Object acknowledgements = new Object();
+    private volatile long sequence;
+    private volatile boolean running = true;
+
+    /**
+     * Starts replicating a bank and accepting followers.
+     *
+     * @param facade   the bank to replicate, with a journal attached
+     * @param executor the executor every mutation of the bank goes through
+     * @param address  the address followers connect to; port 0 picks a free port
+     * @throws IOException if the address cannot be bound
+     * @throws IllegalArgumentException if the bank has no journal
+     */
+    public ReplicationPrimary(PumaBankFacade facade, RequestExecutor executor, InetSocketAddress address)
+            throws IOException {
+        if (facade.getJournal() == null) {
+            throw new IllegalArgumentException("Replication needs a journal attached to the bank");
+        }
+        this.facade = facade;
+        this.executor = executor;
+        this.journal = facade.getJournal();
+        this.server = new ServerSocket();
+        server.bind(address);
+        journal.replicateTo(this);
+        this.acceptor = new Thread(this::accept, "pumabank-replication-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * Returns the port followers connect to.
+     * @return the port
+     */
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    /**
+     * Returns the number of the last record shipped.
+     * @return the sequence
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Returns the number of connected followers.
+     * @return the followers
+     */
+    public int getFollowerCount() {
+        return followers.size();
+    }
+
+    /**
+     * Returns the last record every connected follower has applied, or the
+     * last record shipped if there are no followers.
+     *
+     * @return the acknowledged sequence
+     */
+    public long getAcknowledgedSequence() {
+        long acknowledged = sequence;
+        for (Link link : followers) {
+            acknowledged = Math.min(acknowledged, link.acknowledged);
+        }
+        return acknowledged;
+    }
+
+    /**
+     * Waits until every connected follower has applied a record.
+     *
+     * @param target        the record number, usually {@link #getSequence()}
+     * @param timeoutMillis how long to wait
+     * @return whether the followers reached it in time
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean awaitAcknowledged(long target, long timeoutMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        synchronized (acknowledgements) {
+            long remaining;
+            while (getAcknowledgedSequence() < target) {
+                remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(acknowledgements, remaining);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Numbers a framed journal record and queues it for every follower.
+     * Called by the journal with its lock held.
+     */
+    void ship(byte[] frame, int offset, int length) {
+        sequence++;
+        for (Link link : followers) {
+            link.enqueue(frame, offset, length);
+        }
+    }
+
+    /**
+     * Body of the acceptor thread: bootstraps each follower that connects.
+     */
+    private void accept() {
+        while (running) {
+            Socket socket;
+            try {
+                socket = server.accept();
+            } catch (IOException e) {
+                return;
+            }
+            try {
+                bootstrap(socket);
+            } catch (IOException e) {
+                System.err.println("Replication follower " + socket.getRemoteSocketAddress()
+                    + " could not attach: " + e.getMessage());
+                closeQuietly(socket);
+            }
+        }
+    }
+
+    /**
+     * Sends a follower the snapshot and the sequence it starts from, then
+     * starts its sender and acknowledgement threads.
+     */
+    private void bootstrap(Socket socket) throws IOException {
+        socket.setTcpNoDelay(true);
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 1 << 16));
+        Link link = new Link(socket, out);
+        byte[] snapshot;
+        try {
+            snapshot = executor.submitExclusive(() -> {
+                link.acknowledged = sequence;
+                followers.add(link);
+                return BankSnapshot.encode(facade);
+            }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while taking the snapshot", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Cannot take the snapshot", e.getCause());
+        }
+        try {
+            out.writeInt(MAGIC);
+            out.writeLong(link.acknowledged);
+            out.writeInt(snapshot.length);
+            out.write(snapshot);
+            out.flush();
+        } catch (IOException e) {
+            link.close();
+            throw e;
+        }
+        link.start();
+    }
+
+    /**
+     * Disconnects every follower and stops replicating; the bank and its
+     * journal keep working.
+     */
+    @Override
+    public void close() {
+        running = false;
+        journal.replicateTo(null);
+        closeQuietly(server);
+        try {
+            acceptor.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Link link : followers) {
+            link.close();
+        }
+    }
+
+    private static void closeQuietly(Closeable c) {
+        try {
+            c.close();
+        } catch (IOException e) {
+            // already closing
+        }
+    }
+
+    /**
+     * One connected follower: an outbox filled under the journal lock and
+     * drained by a sender thread, double-buffered like the journal itself.
+     */
+    private final class Link {
+        private final Socket socket;
+        private final DataOutputStream out;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition pending = lock.newCondition();
+        private ByteBuffer outbox = ByteBuffer.allocate(1 << 16);
+        private ByteBuffer spare = ByteBuffer.allocate(1 << 16);
+        private boolean closed;
+        private volatile long acknowledged;
+
+        Link(Socket socket, DataOutputStream out) {
+            this.socket = socket;
+            this.out = out;
+        }
+
+        void start() {
+            Thread sender = new Thread(this::send, "pumabank-replication-send");
+            sender.setDaemon(true);
+            sender.start();
+            Thread receiver = new Thread(this::receive, "pumabank-replication-ack");
+            receiver.setDaemon(true);
+            receiver.start();
+        }
+
+        void enqueue(byte[] frame, int offset, int length) {
+            lock.lock();
+            try {
+                if (closed) {
+                    return;
+                }
+                if (outbox.position() + length > MAX_BACKLOG) {
+                    System.err.println("Replication follower " + socket.getRemoteSocketAddress()
+                        + " fell " + outbox.position() + " bytes behind and was dropped");
+                    closeLocked();
+                    return;
+                }
+                if (outbox.remaining() < length) {
+                    ByteBuffer larger = ByteBuffer.allocate(Math.max(outbox.capacity() * 2,
+                        outbox.position() + length));
+                    outbox.flip();
+                    larger.put(outbox);
+                    outbox = larger;
+                }
+                outbox.put(frame, offset, length);
+                pending.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Body of the sender thread: writes whatever was queued since the
+         * last batch, or a zero-length heartbeat frame when idle.
+         */
+        private void send() {
+            try {
+                while (true) {
+                    ByteBuffer batch;
+                    lock.lock();
+                    try {
+                        long remaining = TimeUnit.MILLISECONDS.toNanos(HEARTBEAT_MILLIS);
+                        while (outbox.position() == 0 && !closed && remaining > 0) {
+                            remaining = pending.awaitNanos(remaining);
+                        }
+                        if (closed) {
+                            return;
+                        }
+                        batch = outbox;
+                        outbox = spare;
+                        spare = batch;
+                    } finally {
+                        lock.unlock();
+                    }
+                    if (batch.position() == 0) {
+                        out.writeInt(0);
+                    } else {
+                        out.write(batch.array(), 0, batch.position());
+                        batch.clear();
+                    }
+                    out.flush();
+                }
+            } catch (IOException | InterruptedException e) {
+                close();
+            }
+        }
+
+        /**
+         * Body of the acknowledgement thread: records how far the follower got.
+         */
+        private void receive() {
+            try {
+                DataInputStream in = new DataInputStream(socket.getInputStream());
+                while (true) {
+                    acknowledged = in.readLong();
+                    synchronized (acknowledgements) {
+                        acknowledgements.notifyAll();
+                    }
+                }
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        void close() {
+            lock.lock();
+            try {
+                closeLocked();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void closeLocked() {
+            if (!closed) {
+                closed = true;
+                followers.remove(this);
+                closeQuietly(socket);
+                pending.signal();
+                synchronized (acknowledgements) {
+                    acknowledgements.notifyAll();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,328 @@
+package mx.unam.ciencias.myp.pumabank.facade;
+
+import java.io.Closeable;
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import mx.unam.ciencias.myp.pumabank.model.Client;
+import mx.unam.ciencias.myp.pumabank.patterns.proxy.AccountProxy;
+
+/**
+ * Runs banking requests against a {@link PumaBankFacade} on behalf of many
+ * concurrent callers without a thread per caller.
+ *
+ * <p>Every request returns a {@link CompletableFuture} right away. Requests
+ * for the same account are queued in a per-account mailbox and run one at a
+ * time in submission order, so an account and its decorators, proxy and
+ * observers are never used by two threads at once; requests for different
+ * accounts run concurrently. A mailbox is drained by a single task that
+ * exists only while the account has queued requests.</p>
+ *
+ * <p>In {@link Mode#VIRTUAL} mode each drain runs on a new virtual thread,
+ * so a request that blocks (for example in an observer writing a file) parks
+ * cheaply instead of holding a platform thread. Virtual threads are looked up
+ * reflectively and need Java 21; {@link #isVirtualThreadsAvailable()} tells
+ * whether the running JVM has them. In {@link Mode#PLATFORM} mode drains run
+ * on a fixed pool of platform threads. Only {@code java.util.concurrent}
+ * locks are used around requests, which never pin a virtual thread to its
+ * carrier.</p>
+ *
+ * <p>Operations that change the registries (registering clients, creating
+ * and deleting accounts) and month-end processing run exclusively: they wait
+ * for running requests to finish and hold new ones back until they are
+ * done.</p>
+ */
+public final class RequestExecutor implements Closeable {
+
+    /**
+     * The kind of threads requests run on.
+     */
+    public enum Mode {
+        /** A virtual thread per busy account; needs Java 21. */
+        VIRTUAL,
+        /** A fixed pool of platform threads. */
+        PLATFORM
+    }
+
+    private static final Method VIRTUAL_EXECUTOR = virtualExecutorFactory();
+
+    private final PumaBankFacade facade;
+    private final Mode mode;
+    private final ExecutorService threads;
+    private final ConcurrentHashMap<String, ArrayDeque<Runnable>> mailboxes = new ConcurrentHashMap<>();
+    private final ReentrantReadWriteLock registryLock = new ReentrantReadWriteLock();
+
+    /**
+     * Creates an executor on virtual threads if the JVM has them, or on a pool
+     * of platform threads sized to the number of processors otherwise.
+     *
+     * @param facade the bank receiving the requests
+     */
+    public RequestExecutor(PumaBankFacade facade) {
+        this(facade, isVirtualThreadsAvailable() ? Mode.VIRTUAL : Mode.PLATFORM,
+             Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates an executor with an explicit threading mode.
+     *
+     * @param facade          the bank receiving the requests
+     * @param mode            the kind of threads to use
+     * @param platformThreads size of the pool in {@link Mode#PLATFORM} mode; ignored otherwise
+     * @throws IllegalArgumentException if the pool size is not positive
+     * @throws IllegalStateException    if virtual threads are requested but not available
+     */
+    public RequestExecutor(PumaBankFacade facade, Mode mode, int platformThreads) {
+        if (facade == null || mode == null) {
+            throw new IllegalArgumentException("facade and mode are required");
+        }
+        this.facade = facade;
+        this.mode = mode;
+        if (mode == Mode.VIRTUAL) {
+            if (VIRTUAL_EXECUTOR == null) {
+                throw new IllegalStateException("Virtual threads need Java 21 or later");
+            }
+            try {
+                this.threads = (ExecutorService) VIRTUAL_EXECUTOR.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Cannot create virtual threads", e);
+            }
+        } else {
+            if (platformThreads < 1) {
+                throw new IllegalArgumentException("platformThreads must be positive");
+            }
+            this.threads = Executors.newFixedThreadPool(platformThreads, r -> {
+                Thread t = new Thread(r, "pumabank-request");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    private static Method virtualExecutorFactory() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Tells whether the running JVM supports virtual threads.
+     *
+     * @return {@code true} on Java 21 or later
+     */
+    public static boolean isVirtualThreadsAvailable() {
+        return VIRTUAL_EXECUTOR != null;
+    }
+
+    /**
+     * Returns the kind of threads requests run on.
+     *
+     * @return the threading mode
+     */
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Queues a deposit, see {@link PumaBankFacade#deposit}.
+     *
+     * @param accountId account identifier
+     * @param amount    amount to deposit
+     * @param pin       PIN or session token
+     * @return a future completed when the deposit has run
+     */
+    public CompletableFuture<Void> deposit(String accountId, double amount, String pin) {
+        return submit(accountId, () -> {
+            facade.deposit(accountId, amount, pin);
+            return null;
+        });
+    }
+
+    /**
+     * Queues a withdrawal, see {@link PumaBankFacade#withdraw}.
+     *
+     * @param accountId account identifier
+     * @param amount    amount to withdraw
+     * @param pin       PIN or session token
+     * @return a future completed when the withdrawal has run
+     */
+    public CompletableFuture<Void> withdraw(String accountId, double amount, String pin) {
+        return submit(accountId, () -> {
+            facade.withdraw(accountId, amount, pin);
+            return null;
+        });
+    }
+
+    /**
+     * Queues a balance query, see {@link PumaBankFacade#checkBalance}.
+     *
+     * @param accountId account identifier
+     * @param pin       PIN or session token
+     * @return a future holding the balance
+     */
+    public CompletableFuture<Double> checkBalance(String accountId, String pin) {
+        return submit(accountId, () -> facade.checkBalance(accountId, pin));
+    }
+
+    /**
+     * Queues a client registration, see {@link PumaBankFacade#registerClient}.
+     *
+     * @param name     client name
+     * @param clientId client identifier
+     * @return a future holding the new client
+     */
+    public CompletableFuture<Client> registerClient(String name, String clientId) {
+        return submitExclusive(() -> facade.registerClient(name, clientId));
+    }
+
+    /**
+     * Queues an account creation, see {@link PumaBankFacade#createAccount}.
+     *
+     * @param clientId       owner of the account
+     * @param initialBalance opening balance
+     * @param pin            account PIN
+     * @param interestType   interest type name
+     * @param services       optional service names
+     * @return a future holding the proxy of the new account
+     */
+    public CompletableFuture<AccountProxy> createAccount(String clientId, double initialBalance, String pin,
+                                                         String interestType, List<String> services) {
+        return submitExclusive(() -> facade.createAccount(clientId, initialBalance, pin, interestType, services));
+    }
+
+    /**
+     * Queues an account deletion, see {@link PumaBankFacade#deleteAccount}.
+     *
+     * @param accountId account identifier
+     * @return a future holding whether the account existed
+     */
+    public CompletableFuture<Boolean> deleteAccount(String accountId) {
+        return submitExclusive(() -> facade.deleteAccount(accountId));
+    }
+
+    /**
+     * Queues month-end processing, see {@link PumaBankFacade#processMonthlyOperations}.
+     *
+     * @param month the simulated month
+     * @return a future completed when every account has been processed
+     */
+    public CompletableFuture<Void> processMonthlyOperations(int month) {
+        return submitExclusive(() -> {
+            facade.processMonthlyOperations(month);
+            return null;
+        });
+    }
+
+    /**
+     * Queues an arbitrary request on an account's mailbox. The request runs
+     * after every request queued before it for the same account and never at
+     * the same time as another request for that account.
+     *
+     * @param accountId the account the request touches
+     * @param request   the work to run
+     * @param <T>       the result type
+     * @return a future holding the result or the exception thrown
+     */
+    public <T> CompletableFuture<T> submit(String accountId, Callable<T> request) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Runnable task = () -> {
+            registryLock.readLock().lock();
+            try {
+                result.complete(request.call());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            } finally {
+                registryLock.readLock().unlock();
+            }
+        };
+        boolean[] idle = new boolean[1];
+        mailboxes.compute(accountId, (id, queue) -> {
+            if (queue == null) {
+                queue = new ArrayDeque<>(4);
+                idle[0] = true;
+            }
+            queue.add(task);
+            return queue;
+        });
+        if (idle[0]) {
+            threads.execute(() -> drain(accountId, task));
+        }
+        return result;
+    }
+
+    /**
+     * Runs the queued requests of an account until its mailbox is empty, then
+     * removes the mailbox so the next request starts a new drain. The running
+     * request stays at the head of the queue until it is done, so a request
+     * arriving meanwhile sees a non-empty mailbox and only enqueues itself.
+     */
+    private void drain(String accountId, Runnable first) {
+        Runnable[] next = { first };
+        while (next[0] != null) {
+            next[0].run();
+            mailboxes.computeIfPresent(accountId, (id, queue) -> {
+                queue.poll();
+                next[0] = queue.peek();
+                return next[0] == null ? null : queue;
+            });
+        }
+    }
+
+    /**
+     * Queues a request that runs alone, as registry changes do: it waits for
+     * running requests to finish and holds new ones back until it returns.
+     *
+     * @param request the work to run
+     * @param <T>     the result type
+     * @return a future holding the result or the exception thrown
+     */
+    public <T> CompletableFuture<T> submitExclusive(Callable<T> request) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        threads.execute(() -> {
+            registryLock.writeLock().lock();
+            try {
+                result.complete(request.call());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            } finally {
+                registryLock.writeLock().unlock();
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Returns the number of accounts with queued or running requests.
+     *
+     * @return the busy accounts
+     */
+    public int getBusyAccounts() {
+        return mailboxes.size();
+    }
+
+    /**
+     * Stops accepting requests and waits for the queued ones to finish.
+     */
+    @Override
+    public void close() {
+        threads.shutdown();
+        try {
+            while (!threads.awaitTermination(1, TimeUnit.SECONDS)) {
+                // keep waiting for queued requests
+            }
+        } catch (InterruptedException e) {
+            threads.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,581 @@
+package mx.unam.ciencias.myp.pumabank.facade;
+
+import mx.unam.ciencias.myp.pumabank.model.Client;
+import mx.unam.ciencias.myp.pumabank.model.IAccount;
+import mx.unam.ciencias.myp.pumabank.patterns.observer.LogLevel;
+import mx.unam.ciencias.myp.pumabank.patterns.observer.MonthlyLogger;
+import mx.unam.ciencias.myp.pumabank.patterns.proxy.AccountProxy;
+import mx.unam.ciencias.myp.pumabank.patterns.state.AccountState;
+import mx.unam.ciencias.myp.pumabank.patterns.state.states.ClosedState;
+import mx.unam.ciencias.myp.pumabank.patterns.state.states.FrozenState;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A bank split into independent {@link PumaBankFacade} shards by client.
+ *
+ * <p>Every client lives on the shard chosen by the hash of its id, together
+ * with all of its accounts, so each shard keeps its own registries, monthly
+ * log file and metrics and no structure is shared between shards. The
+ * methods of this class route each call to the shard that owns the client
+ * or account; account ids are resolved through the client id they start
+ * with ({@code clientId-ACC-n}).</p>
+ *
+ * <p>Each shard is guarded by a read-write lock: account operations take
+ * the read side, so they run concurrently within a shard, while client
+ * registration, account creation and deletion, and month-end take the
+ * write side of their shard only.</p>
+ *
+ * <p>Month-end runs on every shard at once, one thread per shard, and the
+ * per-shard reports are merged into one {@link MonthlyReport} whose totals
+ * are also written to the bank log {@code monthly_operations_log.txt} in the
+ * log directory, next to the shard logs {@code shard-N.log}.</p>
+ *
+ * <p>A transfer within one shard is atomic. A transfer between shards
+ * debits the source, then credits the target, and refunds the source if
+ * the target refused the deposit in between; a reader of both shards may
+ * observe the amount in flight. A refund the source refuses as well is
+ * written to the bank log and reported as an {@link IllegalStateException}
+ * rather than lost silently.</p>
+ */
+public final class ShardedBank implements Closeable {
+
+    private static final String ACCOUNT_SEPARATOR = "-ACC-";
+
+    private final Shard[] shards;
+    private final MonthlyLogger bankLogger;
+    private final ExecutorService monthEndPool;
+    private final ExecutorService batchPool;
+    private boolean suppressLogTimestamps;
+
+    /**
+     * One facade and the lock ordering registry changes against operations.
+     */
+    private static final class Shard {
+        final PumaBankFacade facade;
+        final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+        Shard(PumaBankFacade facade) {
+            this.facade = facade;
+        }
+    }
+
+    /**
+     * Creates a bank with empty shards logging to {@code logDirectory}.
+     *
+     * @param shardCount   the number of shards, at least one
+     * @param logDirectory the directory for the shard logs and the bank log,
+     *                     created if missing
+     * @throws IOException if the directory cannot be created
+     * @throws IllegalArgumentException if {@code shardCount} is not positive
+     */
+    public ShardedBank(int shardCount, Path logDirectory) throws IOException {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("A sharded bank needs at least one shard: " + shardCount);
+        }
+        Files.createDirectories(logDirectory);
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(new PumaBankFacade(logDirectory.resolve("shard-" + i + ".log")));
+        }
+        this.bankLogger = new MonthlyLogger(logDirectory.resolve("monthly_operations_log.txt"));
+        bankLogger.clearLog();
+        AtomicInteger threads = new AtomicInteger();
+        this.monthEndPool = Executors.newFixedThreadPool(shardCount, r -> {
+            Thread t = new Thread(r, "shard-month-end-" + threads.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        });
+        AtomicInteger batchThreads = new AtomicInteger();
+        this.batchPool = Executors.newFixedThreadPool(shardCount, r -> {
+            Thread t = new Thread(r, "shard-batch-" + batchThreads.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Returns the shard that owns a client.
+     *
+     * @param clientId the client identifier
+     * @return the shard index, from 0 to {@link #getShardCount()} - 1
+     */
+    public int shardOf(String clientId) {
+        int h = clientId.hashCode();
+        return Math.floorMod(h ^ (h >>> 16), shards.length);
+    }
+
+    /**
+     * Returns the shard that owns an account, found through the client id the
+     * account id starts with. Malformed ids go to shard 0, which reports them
+     * as not found.
+     *
+     * @param accountId the account identifier
+     * @return the shard index
+     */
+    public int shardOfAccount(String accountId) {
+        int separator = accountId.lastIndexOf(ACCOUNT_SEPARATOR);
+        return separator < 0 ? 0 : shardOf(accountId.substring(0, separator));
+    }
+
+    /**
+     * Returns the number of shards.
+     *
+     * @return the shard count
+     */
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * Returns the facade of one shard, for inspection. Calls made on it
+     * directly bypass the shard lock.
+     *
+     * @param index the shard index
+     * @return the shard facade
+     */
+    public PumaBankFacade getShard(int index) {
+        return shards[index].facade;
+    }
+
+    private <T> T read(int shard, Callable<T> call) {
+        return locked(shards[shard].lock.readLock(), call);
+    }
+
+    private <T> T write(int shard, Callable<T> call) {
+        return locked(shards[shard].lock.writeLock(), call);
+    }
+
+    private static <T> T locked(Lock lock, Callable<T> call) {
+        lock.lock();
+        try {
+            return call.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Registers a client on its shard.
+     *
+     * @param name     the client name
+     * @param clientId the client identifier
+     * @return the new client
+     * @see PumaBankFacade#registerClient
+     */
+    public Client registerClient(String name, String clientId) {
+        int shard = shardOf(clientId);
+        return write(shard, () -> shards[shard].facade.registerClient(name, clientId));
+    }
+
+    /**
+     * Creates an account on the shard of its client.
+     *
+     * @param clientId       the owner
+     * @param initialBalance the opening balance
+     * @param pin            the account PIN
+     * @param interestType   the interest policy name
+     * @param services       optional decorator service names
+     * @return the proxy of the new account
+     * @see PumaBankFacade#createAccount
+     */
+    public AccountProxy createAccount(String clientId, double initialBalance, String pin,
+                                      String interestType, List<String> services) {
+        int shard = shardOf(clientId);
+        return write(shard, () -> shards[shard].facade.createAccount(clientId, initialBalance, pin,
+            interestType, services));
+    }
+
+    /**
+     * Deletes an account from its shard.
+     *
+     * @param accountId the account identifier
+     * @return {@code true} if the account existed
+     * @see PumaBankFacade#deleteAccount
+     */
+    public boolean deleteAccount(String accountId) {
+        int shard = shardOfAccount(accountId);
+        return write(shard, () -> shards[shard].facade.deleteAccount(accountId));
+    }
+
+    /**
+     * Deposits into an account.
+     *
+     * @param accountId the account identifier
+     * @param amount    the amount
+     * @param pin       PIN or session token
+     * @see PumaBankFacade#deposit
+     */
+    public void deposit(String accountId, double amount, String pin) {
+        int shard = shardOfAccount(accountId);
+        read(shard, () -> {
+            shards[shard].facade.deposit(accountId, amount, pin);
+            return null;
+        });
+    }
+
+    /**
+     * Withdraws from an account.
+     *
+     * @param accountId the account identifier
+     * @param amount    the amount
+     * @param pin       PIN or session token
+     * @see PumaBankFacade#withdraw
+     */
+    public void withdraw(String accountId, double amount, String pin) {
+        int shard = shardOfAccount(accountId);
+        read(shard, () -> {
+            shards[shard].facade.withdraw(accountId, amount, pin);
+            return null;
+        });
+    }
+
+    /**
+     * Returns the balance of an account.
+     *
+     * @param accountId the account identifier
+     * @param pin       PIN or session token
+     * @return the balance, as {@link PumaBankFacade#checkBalance} reports it
+     */
+    public double checkBalance(String accountId, String pin) {
+        int shard = shardOfAccount(accountId);
+        return read(shard, () -> shards[shard].facade.checkBalance(accountId, pin));
+    }
+
+    /**
+     * Opens a session on the shard of the account; the token is only valid
+     * for accounts of that shard.
+     *
+     * @param accountId the account identifier
+     * @param pin       the account PIN
+     * @return the session token, or {@code null} if the PIN is incorrect
+     * @see PumaBankFacade#openSession
+     */
+    public String openSession(String accountId, String pin) {
+        int shard = shardOfAccount(accountId);
+        return read(shard, () -> shards[shard].facade.openSession(accountId, pin));
+    }
+
+    /**
+     * Moves an amount between two accounts, atomically when both live on the
+     * same shard.
+     *
+     * @param fromId the account to debit
+     * @param toId   the account to credit
+     * @param amount the amount to move
+     * @param pin    PIN or session token of the source account
+     * @return the outcome, as {@link PumaBankFacade#transfer} reports it
+     * @throws IllegalArgumentException if an account cannot be found, both are
+     *                                  the same or the amount is not positive
+     * @throws IllegalStateException    if the target refused the deposit and
+     *                                  the source refused the refund; the
+     *                                  failure is also written to the bank log
+     */
+    public BatchResult.Status transfer(String fromId, String toId, double amount, String pin) {
+        int from = shardOfAccount(fromId);
+        int to = shardOfAccount(toId);
+        if (from == to) {
+            return read(from, () -> shards[from].facade.transfer(fromId, toId, amount, pin));
+        }
+        if (!(amount > 0) || Double.isInfinite(amount)) {
+            throw new IllegalArgumentException("Transfer amount must be > 0");
+        }
+        PumaBankFacade source = shards[from].facade;
+        PumaBankFacade target = shards[to].facade;
+        AccountProxy targetProxy = read(to, () -> target.findAccount(toId));
+        if (read(from, () -> source.findAccount(fromId)) == null || targetProxy == null) {
+            throw new IllegalArgumentException("Account not found: " + (targetProxy == null ? toId : fromId));
+        }
+        AccountState state = targetProxy.getUnderlyingAccount().getState();
+        if (state instanceof FrozenState || state instanceof ClosedState) {
+            return BatchResult.Status.DECLINED;
+        }
+
+        BatchResult debit = read(from, () -> source.executeBatch(
+            List.of(BatchOperation.withdraw(fromId, amount, pin))).get(0));
+        if (debit.getStatus() != BatchResult.Status.APPLIED) {
+            return debit.getStatus();
+        }
+        BatchResult credit = read(to, () -> target.systemDeposit(toId, amount));
+        if (credit.getStatus() == BatchResult.Status.APPLIED) {
+            return BatchResult.Status.APPLIED;
+        }
+        BatchResult refund = read(from, () -> source.systemDeposit(fromId, amount));
+        if (refund.getStatus() != BatchResult.Status.APPLIED) {
+            String details = String.format("$%.2f debited from %s for %s was not refunded: %s",
+                amount, fromId, toId, refund.getStatus());
+            bankLogger.logSystemOperation("TRANSFER_REFUND_FAILED", details);
+            throw new IllegalStateException("Transfer refund failed, " + details);
+        }
+        return BatchResult.Status.DECLINED;
+    }
+
+    /**
+     * Executes a batch, splitting it by shard and running the shards' parts
+     * in parallel. A batch whose accounts all live on one shard runs on the
+     * calling thread; otherwise the calling thread runs one part and the
+     * others go to a pool of their own, so batches never queue behind a
+     * month-end.
+     *
+     * @param operations the operations to execute
+     * @return one result per operation, in the same order as {@code operations}
+     * @see PumaBankFacade#executeBatch
+     */
+    public List<BatchResult> executeBatch(List<BatchOperation> operations) {
+        if (operations.isEmpty()) {
+            return List.of();
+        }
+        int[] owners = new int[operations.size()];
+        boolean singleShard = true;
+        for (int i = 0; i < owners.length; i++) {
+            owners[i] = shardOfAccount(operations.get(i).getAccountId());
+            singleShard &= owners[i] == owners[0];
+        }
+        if (singleShard) {
+            int shard = owners[0];
+            return read(shard, () -> shards[shard].facade.executeBatch(operations));
+        }
+        List<List<Integer>> positions = new ArrayList<>();
+        for (int i = 0; i < shards.length; i++) {
+            positions.add(new ArrayList<>());
+        }
+        for (int i = 0; i < owners.length; i++) {
+            positions.get(owners[i]).add(i);
+        }
+        List<Callable<List<BatchResult>>> parts = new ArrayList<>();
+        List<List<Integer>> partPositions = new ArrayList<>();
+        for (int s = 0; s < shards.length; s++) {
+            List<Integer> at = positions.get(s);
+            if (at.isEmpty()) {
+                continue;
+            }
+            List<BatchOperation> part = new ArrayList<>(at.size());
+            for (int i : at) {
+                part.add(operations.get(i));
+            }
+            int shard = s;
+            parts.add(() -> read(shard, () -> shards[shard].facade.executeBatch(part)));
+            partPositions.add(at);
+        }
+        BatchResult[] results = new BatchResult[operations.size()];
+        List<List<BatchResult>> partResults = runAll(parts, batchPool);
+        for (int p = 0; p < partResults.size(); p++) {
+            List<Integer> at = partPositions.get(p);
+            for (int i = 0; i < at.size(); i++) {
+                results[at.get(i)] = partResults.get(p).get(i);
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Runs month-end on every shard in parallel and merges the shard reports.
+     * Each shard writes its own log; the merged totals are written to the
+     * bank log.
+     *
+     * @param simulatedMonth the month being closed
+     * @return the merged report, timed over the whole parallel run
+     */
+    public MonthlyReport processMonthlyOperations(int simulatedMonth) {
+        long started = System.nanoTime();
+        List<Callable<MonthlyReport>> tasks = new ArrayList<>();
+        for (int s = 0; s < shards.length; s++) {
+            int shard = s;
+            tasks.add(() -> write(shard, () -> shards[shard].facade.processMonthlyOperations(simulatedMonth)));
+        }
+        MonthlyReport merged = MonthlyReport.merge(simulatedMonth, runAll(tasks, monthEndPool),
+            System.nanoTime() - started);
+
+        bankLogger.startMonthlyReport(simulatedMonth, !suppressLogTimestamps);
+        bankLogger.logSystemOperation("SHARDED_MONTH_END", String.format(
+            "%d shards closed month %d in %d ms", shards.length, simulatedMonth, merged.getElapsedMillis()));
+        bankLogger.endMonthlyReport((int) merged.getAccounts(), (int) merged.getTransactions(),
+            merged.getFees(), merged.getInterest(), !suppressLogTimestamps, simulatedMonth);
+        return merged;
+    }
+
+    /**
+     * Runs every task but the first on a pool and the first on the calling
+     * thread, and returns their results in task order.
+     */
+    private static <T> List<T> runAll(List<Callable<T>> tasks, ExecutorService pool) {
+        List<Future<T>> futures = new ArrayList<>(tasks.size() - 1);
+        for (Callable<T> task : tasks.subList(1, tasks.size())) {
+            futures.add(pool.submit(task));
+        }
+        List<T> results = new ArrayList<>(tasks.size());
+        try {
+            results.add(tasks.get(0).call());
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the shards", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        return results;
+    }
+
+    /**
+     * Finds an account on its shard.
+     *
+     * @param accountId the account identifier
+     * @return the proxy, or {@code null} if there is no such account
+     */
+    public AccountProxy findAccount(String accountId) {
+        int shard = shardOfAccount(accountId);
+        return read(shard, () -> shards[shard].facade.findAccount(accountId));
+    }
+
+    /**
+     * Returns the decorated accounts of a client.
+     *
+     * @param clientId the client identifier
+     * @return the accounts, as {@link PumaBankFacade#getClientAccounts} returns them
+     */
+    public List<IAccount> getClientAccounts(String clientId) {
+        int shard = shardOf(clientId);
+        return read(shard, () -> shards[shard].facade.getClientAccounts(clientId));
+    }
+
+    /**
+     * Returns the portfolio summary of a client.
+     *
+     * @param clientId the client identifier
+     * @return the portfolio, as {@link PumaBankFacade#getClientPortfolio} returns it
+     */
+    public Map<String, Object> getClientPortfolio(String clientId) {
+        int shard = shardOf(clientId);
+        return read(shard, () -> shards[shard].facade.getClientPortfolio(clientId));
+    }
+
+    /**
+     * Returns the clients of every shard, shard by shard.
+     *
+     * @return all clients
+     */
+    public List<Client> getAllClients() {
+        List<Client> all = new ArrayList<>();
+        for (int s = 0; s < shards.length; s++) {
+            int shard = s;
+            all.addAll(read(shard, () -> shards[shard].facade.getAllClients()));
+        }
+        return all;
+    }
+
+    /**
+     * Returns the fees collected by the last month-end of every shard.
+     *
+     * @return the total fees
+     */
+    public double getTotalFeesCollected() {
+        double total = 0;
+        for (Shard shard : shards) {
+            total += shard.facade.getTotalFeesCollected();
+        }
+        return total;
+    }
+
+    /**
+     * Returns the interest paid by the last month-end of every shard.
+     *
+     * @return the total interest
+     */
+    public double getTotalInterestPaid() {
+        double total = 0;
+        for (Shard shard : shards) {
+            total += shard.facade.getTotalInterestPaid();
+        }
+        return total;
+    }
+
+    /**
+     * Returns the transactions recorded this month by every shard.
+     *
+     * @return the total transactions
+     */
+    public long getMonthlyTransactions() {
+        long total = 0;
+        for (Shard shard : shards) {
+            total += shard.facade.getMonthlyTransactions();
+        }
+        return total;
+    }
+
+    /**
+     * Sets quiet mode on every shard.
+     *
+     * @param quiet whether to silence console output
+     * @see PumaBankFacade#setQuietMode
+     */
+    public void setQuietMode(boolean quiet) {
+        for (Shard shard : shards) {
+            shard.facade.setQuietMode(quiet);
+        }
+    }
+
+    /**
+     * Sets the log level of every shard.
+     *
+     * @param level the new level
+     * @see PumaBankFacade#setLogLevel
+     */
+    public void setLogLevel(LogLevel level) {
+        for (Shard shard : shards) {
+            shard.facade.setLogLevel(level);
+        }
+        bankLogger.setLevel(level);
+    }
+
+    /**
+     * Leaves real timestamps out of every report, for deterministic logs.
+     *
+     * @param suppress whether to suppress timestamps
+     * @see PumaBankFacade#setSuppressLogTimestamps
+     */
+    public void setSuppressLogTimestamps(boolean suppress) {
+        this.suppressLogTimestamps = suppress;
+        for (Shard shard : shards) {
+            shard.facade.setSuppressLogTimestamps(suppress);
+        }
+    }
+
+    /**
+     * Stops the month-end and batch threads.
+     */
+    @Override
+    public void close() {
+        monthEndPool.shutdown();
+        batchPool.shutdown();
+    }
+}
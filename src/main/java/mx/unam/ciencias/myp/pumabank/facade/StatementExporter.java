@@ -0,0 +1,458 @@
+package mx.unam.ciencias.myp.pumabank.facade;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import mx.unam.ciencias.myp.pumabank.model.Account;
+import mx.unam.ciencias.myp.pumabank.model.Client;
+import mx.unam.ciencias.myp.pumabank.model.IAccount;
+import mx.unam.ciencias.myp.pumabank.patterns.decorator.AccountDecorator;
+import mx.unam.ciencias.myp.pumabank.patterns.decorator.AntiFraudDecorator;
+import mx.unam.ciencias.myp.pumabank.patterns.decorator.PremiumAlertsDecorator;
+import mx.unam.ciencias.myp.pumabank.patterns.decorator.RewardsProgramDecorator;
+import mx.unam.ciencias.myp.pumabank.patterns.proxy.AccountProxy;
+import mx.unam.ciencias.myp.pumabank.patterns.state.AccountState;
+
+/**
+ * Streams the portfolio of every client and the monthly statement of every
+ * account of a {@link PumaBankFacade} to a file.
+ *
+ * <p>Clients are taken in registry order and split into partitions of about
+ * {@value #PARTITION_ACCOUNTS} accounts. Each partition is formatted by a
+ * worker into its own reusable text and byte buffers, and the calling thread
+ * writes the partitions to the file in order, so the output does not depend
+ * on the number of threads. At most two partitions per thread are in flight
+ * and their buffers are recycled, so memory stays bounded however many
+ * accounts are exported. Accounts are read in place: no portfolio maps or
+ * account list copies are built.</p>
+ *
+ * <p>The bank must not be modified while it is exported.</p>
+ */
+final class StatementExporter {
+
+    static final int PARTITION_ACCOUNTS = 4096;
+
+    private static final int ID_PROBES = 4;
+    private static final String CSV_HEADER = "clientId,clientName,accountId,state,interestType,services,"
+        + "openingBalance,balance,fees,interest,rewardPoints\n";
+
+    /**
+     * A run of consecutive clients and the buffers its text is formatted into.
+     */
+    private static final class Partition {
+        final List<Client> clients = new ArrayList<>();
+        final List<List<IAccount>> accounts = new ArrayList<>();
+        final StringBuilder text = new StringBuilder(1 << 16);
+        final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+        ByteBuffer bytes = ByteBuffer.allocate(1 << 16);
+        int size;
+
+        void clear() {
+            clients.clear();
+            accounts.clear();
+            text.setLength(0);
+            size = 0;
+        }
+    }
+
+    private final PumaBankFacade facade;
+    private final ExportFormat format;
+    private final int threads;
+    private final Map<String, AccountProxy> proxies;
+    private final ArrayDeque<Partition> free = new ArrayDeque<>();
+    private final ArrayDeque<Future<Partition>> pending = new ArrayDeque<>();
+    private ExecutorService workers;
+    private FileChannel out;
+    private long accounts;
+
+    /**
+     * Creates an exporter for one file.
+     *
+     * @param facade  the bank to export
+     * @param format  the output format
+     * @param threads worker threads formatting partitions; 1 formats them on the calling thread
+     */
+    StatementExporter(PumaBankFacade facade, ExportFormat format, int threads) {
+        if (format == null) {
+            throw new IllegalArgumentException("format is required");
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be positive");
+        }
+        this.facade = facade;
+        this.format = format;
+        this.threads = threads;
+        this.proxies = facade.proxyRegistry();
+    }
+
+    /**
+     * Writes every client and account to a file, replacing it.
+     *
+     * @param file the target file
+     * @return the number of accounts written
+     * @throws IOException if the file cannot be written
+     */
+    long export(Path file) throws IOException {
+        if (threads > 1) {
+            workers = Executors.newFixedThreadPool(threads, r -> {
+                Thread t = new Thread(r, "pumabank-export");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            out = channel;
+            if (format == ExportFormat.CSV) {
+                write(ByteBuffer.wrap(CSV_HEADER.getBytes(StandardCharsets.UTF_8)));
+            }
+            Map<String, List<IAccount>> registry = facade.accountRegistry();
+            Partition partition = partition();
+            for (Client client : facade.clientRegistry().values()) {
+                List<IAccount> list = registry.get(client.getClientId());
+                partition.clients.add(client);
+                partition.accounts.add(list);
+                partition.size += list == null || list.isEmpty() ? 1 : list.size();
+                if (partition.size >= PARTITION_ACCOUNTS) {
+                    submit(partition);
+                    partition = partition();
+                }
+            }
+            if (partition.size > 0) {
+                submit(partition);
+            }
+            while (!pending.isEmpty()) {
+                drain(await(pending.poll()));
+            }
+            channel.force(false);
+        } finally {
+            if (workers != null) {
+                workers.shutdownNow();
+            }
+        }
+        return accounts;
+    }
+
+    private Partition partition() {
+        Partition partition = free.poll();
+        return partition != null ? partition : new Partition();
+    }
+
+    /**
+     * Formats a partition, on a worker when there are several threads, writing
+     * the oldest pending partitions first if too many are in flight.
+     */
+    private void submit(Partition partition) throws IOException {
+        if (workers == null) {
+            drain(format(partition));
+            return;
+        }
+        while (pending.size() >= 2 * threads) {
+            drain(await(pending.poll()));
+        }
+        pending.add(workers.submit(() -> format(partition)));
+    }
+
+    /**
+     * Writes a formatted partition and recycles it.
+     */
+    private void drain(Partition partition) throws IOException {
+        write(partition.bytes);
+        for (List<IAccount> list : partition.accounts) {
+            accounts += list == null ? 0 : list.size();
+        }
+        partition.clear();
+        free.add(partition);
+    }
+
+    private void write(ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) {
+            out.write(bytes);
+        }
+    }
+
+    private static Partition await(Future<Partition> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Export interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * Formats every client of a partition and encodes the text as UTF-8. Runs
+     * on a worker thread and only reads the bank.
+     */
+    private Partition format(Partition partition) {
+        StringBuilder text = partition.text;
+        for (int c = 0; c < partition.clients.size(); c++) {
+            if (format == ExportFormat.JSON_LINES) {
+                json(text, partition.clients.get(c), partition.accounts.get(c));
+            } else {
+                csv(text, partition.clients.get(c), partition.accounts.get(c));
+            }
+        }
+        encode(partition);
+        return partition;
+    }
+
+    private static void encode(Partition partition) {
+        CharBuffer chars = CharBuffer.wrap(partition.text);
+        CharsetEncoder encoder = partition.encoder.reset();
+        partition.bytes.clear();
+        while (encoder.encode(chars, partition.bytes, true).isOverflow()) {
+            grow(partition);
+        }
+        while (encoder.flush(partition.bytes).isOverflow()) {
+            grow(partition);
+        }
+        partition.bytes.flip();
+    }
+
+    private static void grow(Partition partition) {
+        ByteBuffer larger = ByteBuffer.allocate(partition.bytes.capacity() * 2);
+        partition.bytes.flip();
+        partition.bytes = larger.put(partition.bytes);
+    }
+
+    private void json(StringBuilder text, Client client, List<IAccount> list) {
+        text.append("{\"clientId\":");
+        jsonString(text, client.getClientId());
+        text.append(",\"name\":");
+        jsonString(text, client.getName());
+        int count = list == null ? 0 : list.size();
+        double total = 0.0;
+        for (int i = 0; i < count; i++) {
+            total += underlying(list.get(i)).getBalance();
+        }
+        text.append(",\"totalAccounts\":").append(count).append(",\"totalBalance\":");
+        money(text, total);
+        text.append(",\"accounts\":[");
+        for (int i = 0; i < count; i++) {
+            IAccount decorated = list.get(i);
+            Account account = underlying(decorated);
+            if (i > 0) {
+                text.append(',');
+            }
+            text.append("{\"accountId\":\"");
+            accountId(text, client.getClientId(), i, proxy(decorated));
+            text.append("\",\"state\":\"");
+            stateName(text, account.getState());
+            text.append("\",\"interestType\":");
+            jsonString(text, facade.policyRegistry().nameOf(account.getInterestPolicy()));
+            text.append(",\"services\":[");
+            services(text, decorated, true);
+            text.append("],\"openingBalance\":");
+            money(text, account.getStatementOpeningBalance());
+            text.append(",\"balance\":");
+            money(text, account.getBalance());
+            text.append(",\"fees\":");
+            money(text, account.getStatementFees());
+            text.append(",\"interest\":");
+            money(text, account.getStatementInterest());
+            text.append(",\"rewardPoints\":").append(rewardPoints(decorated)).append('}');
+        }
+        text.append("]}\n");
+    }
+
+    private void csv(StringBuilder text, Client client, List<IAccount> list) {
+        int count = list == null ? 0 : list.size();
+        if (count == 0) {
+            csvString(text, client.getClientId());
+            text.append(',');
+            csvString(text, client.getName());
+            text.append(",,,,,,,,,\n");
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            IAccount decorated = list.get(i);
+            Account account = underlying(decorated);
+            csvString(text, client.getClientId());
+            text.append(',');
+            csvString(text, client.getName());
+            text.append(',');
+            accountId(text, client.getClientId(), i, proxy(decorated));
+            text.append(',');
+            stateName(text, account.getState());
+            text.append(',');
+            String type = facade.policyRegistry().nameOf(account.getInterestPolicy());
+            text.append(type == null ? "" : type).append(',');
+            services(text, decorated, false);
+            text.append(',');
+            money(text, account.getStatementOpeningBalance());
+            text.append(',');
+            money(text, account.getBalance());
+            text.append(',');
+            money(text, account.getStatementFees());
+            text.append(',');
+            money(text, account.getStatementInterest());
+            text.append(',').append(rewardPoints(decorated)).append('\n');
+        }
+    }
+
+    private static AccountProxy proxy(IAccount account) {
+        IAccount current = account;
+        while (current instanceof AccountDecorator) {
+            current = ((AccountDecorator) current).decoratedAccount;
+        }
+        return (AccountProxy) current;
+    }
+
+    private static Account underlying(IAccount account) {
+        return proxy(account).getUnderlyingAccount();
+    }
+
+    /**
+     * Appends the identifier of an account. Identifiers are
+     * {@code clientId-ACC-n} with {@code n} at least the position plus one, so
+     * the first candidates are probed before falling back to a registry scan.
+     */
+    private void accountId(StringBuilder text, String clientId, int position, AccountProxy proxy) {
+        for (int n = position + 1; n <= position + ID_PROBES; n++) {
+            if (proxies.get(clientId + "-ACC-" + n) == proxy) {
+                text.append(clientId).append("-ACC-").append(n);
+                return;
+            }
+        }
+        for (Map.Entry<String, AccountProxy> entry : proxies.entrySet()) {
+            if (entry.getValue() == proxy) {
+                text.append(entry.getKey());
+                return;
+            }
+        }
+        text.append("UNKNOWN-ACCOUNT");
+    }
+
+    /**
+     * Appends the services of a decorator chain, innermost first, separated
+     * by commas and quoted for JSON or separated by semicolons for CSV.
+     *
+     * @return {@code true} if anything was appended
+     */
+    private static boolean services(StringBuilder text, IAccount account, boolean json) {
+        if (!(account instanceof AccountDecorator)) {
+            return false;
+        }
+        if (services(text, ((AccountDecorator) account).decoratedAccount, json)) {
+            text.append(json ? ',' : ';');
+        }
+        String name = account instanceof AntiFraudDecorator ? "ANTI_FRAUD"
+            : account instanceof PremiumAlertsDecorator ? "PREMIUM_ALERTS"
+            : account instanceof RewardsProgramDecorator ? "REWARDS"
+            : account.getClass().getSimpleName();
+        if (json) {
+            text.append('"').append(name).append('"');
+        } else {
+            text.append(name);
+        }
+        return true;
+    }
+
+    private static int rewardPoints(IAccount account) {
+        IAccount current = account;
+        while (current instanceof AccountDecorator) {
+            if (current instanceof RewardsProgramDecorator) {
+                return ((RewardsProgramDecorator) current).getRewardPoints();
+            }
+            current = ((AccountDecorator) current).decoratedAccount;
+        }
+        return 0;
+    }
+
+    /**
+     * Appends the state name without its {@code State} suffix, in upper case.
+     */
+    private static void stateName(StringBuilder text, AccountState state) {
+        String name = state.getClass().getSimpleName();
+        int end = name.endsWith("State") ? name.length() - 5 : name.length();
+        for (int i = 0; i < end; i++) {
+            text.append(Character.toUpperCase(name.charAt(i)));
+        }
+    }
+
+    /**
+     * Appends an amount rounded to cents, without going through {@link String#format}.
+     */
+    static void money(StringBuilder text, double amount) {
+        if (Double.isNaN(amount) || Double.isInfinite(amount) || Math.abs(amount) >= 1e15) {
+            text.append(amount);
+            return;
+        }
+        long cents = Math.round(amount * 100);
+        if (cents < 0) {
+            text.append('-');
+            cents = -cents;
+        }
+        long fraction = cents % 100;
+        text.append(cents / 100).append('.');
+        if (fraction < 10) {
+            text.append('0');
+        }
+        text.append(fraction);
+    }
+
+    private static void jsonString(StringBuilder text, String value) {
+        if (value == null) {
+            text.append("null");
+            return;
+        }
+        text.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            if (ch == '"' || ch == '\\') {
+                text.append('\\').append(ch);
+            } else if (ch < 0x20) {
+                text.append("\\u00");
+                text.append(Character.forDigit(ch >> 4, 16)).append(Character.forDigit(ch & 0xF, 16));
+            } else {
+                text.append(ch);
+            }
+        }
+        text.append('"');
+    }
+
+    private static void csvString(StringBuilder text, String value) {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char ch = value.charAt(i);
+            quote = ch == ',' || ch == '"' || ch == '\n' || ch == '\r';
+        }
+        if (!quote) {
+            text.append(value);
+            return;
+        }
+        text.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            if (ch == '"') {
+                text.append('"');
+            }
+            text.append(ch);
+        }
+        text.append('"');
+    }
+}
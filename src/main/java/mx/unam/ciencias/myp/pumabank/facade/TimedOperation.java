@@ -0,0 +1,34 @@
+package mx.unam.ciencias.myp.pumabank.facade;
+
+/**
+ * The facade operations whose durations are kept in a
+ * {@link LatencyHistogram}, see {@link PumaBankFacade#getLatencyHistogram}.
+ */
+public enum TimedOperation {
+    /** A completed {@link PumaBankFacade#deposit(String, double, String)}, keyed or not. */
+    DEPOSIT("deposit"),
+    /** A completed {@link PumaBankFacade#withdraw(String, double, String)}, keyed or not. */
+    WITHDRAW("withdraw"),
+    /** A completed {@link PumaBankFacade#checkBalance}. */
+    CHECK_BALANCE("checkBalance"),
+    /** A completed {@link PumaBankFacade#transfer(String, String, double, String)}, keyed or not. */
+    TRANSFER("transfer"),
+    /** The month-end of one account, under its lock. */
+    PROCESS_MONTH("processMonth"),
+    /** A whole {@link PumaBankFacade#processMonthlyOperations}, up to its footer. */
+    MONTH_END("processMonthlyOperations");
+
+    private final String label;
+
+    TimedOperation(String label) {
+        this.label = label;
+    }
+
+    /**
+     * Returns the name used in the monthly report footer.
+     * @return the label
+     */
+    public String getLabel() {
+        return label;
+    }
+}
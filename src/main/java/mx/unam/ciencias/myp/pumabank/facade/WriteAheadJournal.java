@@ -0,0 +1,777 @@
+package mx.unam.ciencias.myp.pumabank.facade;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+import mx.unam.ciencias.myp.pumabank.model.Account;
+import mx.unam.ciencias.myp.pumabank.model.Client;
+import mx.unam.ciencias.myp.pumabank.patterns.decorator.RewardsProgramDecorator;
+import mx.unam.ciencias.myp.pumabank.patterns.proxy.PinAuthenticator;
+import mx.unam.ciencias.myp.pumabank.patterns.state.states.ActiveState;
+import mx.unam.ciencias.myp.pumabank.patterns.strategy.InterestAccrual;
+import mx.unam.ciencias.myp.pumabank.patterns.strategy.InterestCalculation;
+
+/**
+ * Write-ahead journal of the mutations applied through a {@link PumaBankFacade}.
+ *
+ * <p>Every client registration, account creation or deletion, deposit,
+ * withdrawal, transfer (or refunded transfer), month-end run and client
+ * moved in or out is appended as a small checksummed record. A client moved
+ * in is journaled with the data {@link PumaBankFacade#exportClients}
+ * encoded for it, so its accounts come back with their states, points and
+ * interest history.
+ * After a crash, {@link PumaBankFacade#recover(Path, Path)} loads the latest
+ * snapshot and replays the journal on top of it. Saving a snapshot empties
+ * the journal, since everything before it is already in the snapshot.</p>
+ *
+ * <p>A month-end run is journaled as a start record and one record per
+ * account holding what the run left behind: balance, state, reward points,
+ * the fees and interest of the month and the interest accrual. Replay sets
+ * those values instead of running the month again, so the result does not
+ * depend on the clock or the code of the recovering process.</p>
+ *
+ * <p>How long a caller waits for its record depends on the {@link Durability}
+ * mode:</p>
+ * <ul>
+ *   <li>{@link Durability#SYNC}: each record is written and forced to disk
+ *   before the call returns.</li>
+ *   <li>{@link Durability#GROUP}: concurrent callers append to a shared
+ *   buffer and wait; a single flusher thread writes the whole buffer and
+ *   forces the channel once per batch, waiting at most the configured latency
+ *   for more records to join a batch.</li>
+ *   <li>{@link Durability#ASYNC}: callers return as soon as the record is in
+ *   the buffer; the flusher writes and forces it within the configured
+ *   latency. A crash may lose the last records.</li>
+ * </ul>
+ *
+ * <p>Records are framed as {@code [length][type + payload][CRC32]}, so a torn
+ * record at the end of the file is detected and discarded on recovery. PINs
+ * are never written; account records carry the PIN salt and hash.</p>
+ *
+ * <p>A {@link ReplicationPrimary} receives the same framed records, in the
+ * same order, and streams them to its followers.</p>
+ */
+public class WriteAheadJournal implements Closeable {
+
+    /**
+     * When an appended record is considered durable.
+     */
+    public enum Durability {
+        /** Force the channel for every record. */
+        SYNC,
+        /** Force the channel once per batch of concurrent records. */
+        GROUP,
+        /** Return immediately and force in the background. */
+        ASYNC
+    }
+
+    /** Default time a group commit batch stays open, in microseconds. */
+    public static final long DEFAULT_MAX_LATENCY_MICROS = 100;
+
+    // Types 2 and 6 were retired with the account-by-type-name and whole
+    // month-end records; do not reuse them.
+    private static final byte CLIENT = 1;
+    private static final byte DELETE = 3;
+    private static final byte DEPOSIT = 4;
+    private static final byte WITHDRAW = 5;
+    private static final byte TRANSFER = 7;
+    /** Account creation carrying its encoded interest policy. */
+    private static final byte ACCOUNT_POLICY = 8;
+    private static final byte MONTH_START = 9;
+    private static final byte MONTH_ACCOUNT = 10;
+    private static final byte CLIENT_IMPORT = 11;
+    private static final byte CLIENT_REMOVE = 12;
+    private static final byte TRANSFER_REFUND = 13;
+
+    private static final int INITIAL_BUFFER = 64 * 1024;
+    /** Largest record, a moved client, as large as a shard accepts. */
+    static final int MAX_RECORD = 64 << 20;
+
+    private final FileChannel channel;
+    private final Durability durability;
+    private final long maxLatencyNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition pending = lock.newCondition();
+    private final Condition flushed = lock.newCondition();
+    private ByteBuffer active = ByteBuffer.allocate(INITIAL_BUFFER);
+    private ByteBuffer spare = ByteBuffer.allocate(INITIAL_BUFFER);
+    private long appendedSeq;
+    private long durableSeq;
+    private boolean closed;
+    private IOException failure;
+    private final Thread flusher;
+    private ReplicationPrimary replication;
+
+    private final LongAdder records = new LongAdder();
+    private final LongAdder forces = new LongAdder();
+
+    /**
+     * Opens a journal with the default group commit latency.
+     *
+     * @param file       the journal file, created if missing and appended to otherwise
+     * @param durability when records become durable
+     * @throws IOException if the file cannot be opened
+     */
+    public WriteAheadJournal(Path file, Durability durability) throws IOException {
+        this(file, durability, DEFAULT_MAX_LATENCY_MICROS);
+    }
+
+    /**
+     * Opens a journal.
+     *
+     * @param file             the journal file, created if missing and appended to otherwise
+     * @param durability       when records become durable
+     * @param maxLatencyMicros how long a group commit batch stays open, or how
+     *                         often asynchronous records are forced
+     * @throws IOException if the file cannot be opened
+     * @throws IllegalArgumentException if the durability is missing or the latency is negative
+     */
+    public WriteAheadJournal(Path file, Durability durability, long maxLatencyMicros) throws IOException {
+        if (durability == null || maxLatencyMicros < 0) {
+            throw new IllegalArgumentException("Invalid journal configuration");
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        this.channel.position(channel.size());
+        this.durability = durability;
+        this.maxLatencyNanos = TimeUnit.MICROSECONDS.toNanos(maxLatencyMicros);
+        if (durability == Durability.SYNC) {
+            this.flusher = null;
+        } else {
+            this.flusher = new Thread(this::runFlusher, "pumabank-journal-flusher");
+            this.flusher.setDaemon(true);
+            this.flusher.start();
+        }
+    }
+
+    /**
+     * Returns the durability mode of this journal.
+     * @return the durability mode
+     */
+    public Durability getDurability() {
+        return durability;
+    }
+
+    /**
+     * Returns the number of records appended since the journal was opened.
+     * @return the appended records
+     */
+    public long getRecordCount() {
+        return records.sum();
+    }
+
+    /**
+     * Returns the number of times the channel was forced to disk.
+     * @return the forces
+     */
+    public long getForceCount() {
+        return forces.sum();
+    }
+
+    /**
+     * Journals a client registration.
+     *
+     * @param clientId the client identifier
+     * @param name     the client name
+     */
+    public void logClient(String clientId, String name) {
+        byte[] id = utf8(clientId);
+        byte[] n = utf8(name);
+        ByteBuffer body = body(CLIENT, 8 + id.length + n.length);
+        putBytes(body, id);
+        putBytes(body, n);
+        append(body);
+    }
+
+    /**
+     * Journals an account creation.
+     *
+     * @param clientId       the owner
+     * @param accountId      the generated account identifier
+     * @param initialBalance the opening balance
+     * @param interestType   the interest type the policy is registered under,
+     *                       or {@code null} if it is not registered
+     * @param policy         the interest policy of the account
+     * @param services       the service names, innermost first
+     * @param pin            the authenticator of the account
+     * @throws IllegalStateException if the policy is neither tiered nor registered
+     */
+    public void logAccount(String clientId, String accountId, double initialBalance, String interestType,
+                           InterestCalculation policy, List<String> services, PinAuthenticator pin) {
+        byte[] client = utf8(clientId);
+        byte[] account = utf8(accountId);
+        byte[] type = InterestPolicyCodec.encode(interestType, policy);
+        List<byte[]> names = new ArrayList<>();
+        int size = 4 + client.length + 4 + account.length + 8 + 4 + type.length + 4;
+        if (services != null) {
+            for (String service : services) {
+                byte[] name = utf8(service);
+                names.add(name);
+                size += 4 + name.length;
+            }
+        }
+        byte[] salt = pin.getSalt();
+        byte[] hash = pin.getHash();
+        size += 4 + 1 + PinAuthenticator.SALT_LENGTH + PinAuthenticator.HASH_LENGTH;
+
+        ByteBuffer body = body(ACCOUNT_POLICY, size);
+        putBytes(body, client);
+        putBytes(body, account);
+        body.putDouble(initialBalance);
+        putBytes(body, type);
+        body.putInt(names.size());
+        for (byte[] name : names) {
+            putBytes(body, name);
+        }
+        body.putInt(pin.getIterations());
+        body.put((byte) (hash == null ? 0 : 1));
+        body.put(salt == null ? new byte[PinAuthenticator.SALT_LENGTH] : salt);
+        body.put(hash == null ? new byte[PinAuthenticator.HASH_LENGTH] : hash);
+        append(body);
+    }
+
+    /**
+     * Journals an account deletion.
+     *
+     * @param accountId the deleted account
+     */
+    public void logDelete(String accountId) {
+        byte[] id = utf8(accountId);
+        ByteBuffer body = body(DELETE, 4 + id.length);
+        putBytes(body, id);
+        append(body);
+    }
+
+    /**
+     * Journals an authenticated deposit.
+     *
+     * @param accountId the account
+     * @param amount    the deposited amount
+     */
+    public void logDeposit(String accountId, double amount) {
+        logAmount(DEPOSIT, accountId, amount);
+    }
+
+    /**
+     * Journals an authenticated withdrawal.
+     *
+     * @param accountId the account
+     * @param amount    the withdrawn amount
+     */
+    public void logWithdraw(String accountId, double amount) {
+        logAmount(WITHDRAW, accountId, amount);
+    }
+
+    /**
+     * Journals a completed transfer as one record, so recovery never replays
+     * the debit without the credit.
+     *
+     * @param fromId the debited account
+     * @param toId   the credited account
+     * @param amount the transferred amount
+     */
+    public void logTransfer(String fromId, String toId, double amount) {
+        byte[] from = utf8(fromId);
+        byte[] to = utf8(toId);
+        ByteBuffer body = body(TRANSFER, 4 + from.length + 4 + to.length + 8);
+        putBytes(body, from);
+        putBytes(body, to);
+        body.putDouble(amount);
+        append(body);
+    }
+
+    /**
+     * Journals a transfer whose credit failed after the debit, so the debit
+     * was given back to the source account.
+     *
+     * @param fromId the debited and refunded account
+     * @param toId   the account the credit failed on
+     * @param amount the transferred amount
+     */
+    public void logTransferRefund(String fromId, String toId, double amount) {
+        byte[] from = utf8(fromId);
+        byte[] to = utf8(toId);
+        ByteBuffer body = body(TRANSFER_REFUND, 4 + from.length + 4 + to.length + 8);
+        putBytes(body, from);
+        putBytes(body, to);
+        body.putDouble(amount);
+        append(body);
+    }
+
+    /**
+     * Journals the start of a month-end run, which resets the monthly counters.
+     *
+     * @param month the simulated month being processed
+     */
+    public void logMonthStart(int month) {
+        ByteBuffer body = body(MONTH_START, 4);
+        body.putInt(month);
+        append(body);
+    }
+
+    /**
+     * Journals what a month-end run left on one account.
+     *
+     * @param accountId    the account
+     * @param account      the account after its month-end processing
+     * @param rewardPoints the points of its outermost rewards service, or 0
+     * @param completed    whether the processing finished without an error
+     */
+    public void logMonthAccount(String accountId, Account account, int rewardPoints, boolean completed) {
+        byte[] id = utf8(accountId);
+        InterestAccrual accrual = account.getInterestAccrual();
+        ByteBuffer body = body(MONTH_ACCOUNT, 4 + id.length + 1 + 8 + 1 + 4 + 8 + 8 + 8 + 4 + 4 + 8 + 8 + 8 + 8);
+        putBytes(body, id);
+        body.put((byte) (completed ? 1 : 0));
+        body.putDouble(account.getBalance());
+        body.put(BankSnapshot.stateCode(account.getState()));
+        body.putInt(rewardPoints);
+        body.putDouble(account.getStatementFees());
+        body.putDouble(account.getStatementInterest());
+        body.putDouble(accrual.getRunningTotal());
+        body.putInt(accrual.getMonthsRecorded());
+        body.putInt(accrual.getMonthOfYear());
+        body.putLong(accrual.getPeriodStart());
+        body.putLong(accrual.getLastUpdate());
+        body.putDouble(accrual.getLastBalance());
+        body.putDouble(accrual.getBalanceMillis());
+        append(body);
+    }
+
+    /**
+     * Journals clients added by {@link PumaBankFacade#importClients}.
+     *
+     * @param data the encoded clients, as imported
+     */
+    public void logClientImport(byte[] data) {
+        ByteBuffer body = body(CLIENT_IMPORT, 4 + data.length);
+        putBytes(body, data);
+        append(body);
+    }
+
+    /**
+     * Journals a client removed with all of its accounts.
+     *
+     * @param clientId the removed client
+     */
+    public void logClientRemove(String clientId) {
+        byte[] id = utf8(clientId);
+        ByteBuffer body = body(CLIENT_REMOVE, 4 + id.length);
+        putBytes(body, id);
+        append(body);
+    }
+
+    private void logAmount(byte type, String accountId, double amount) {
+        byte[] id = utf8(accountId);
+        ByteBuffer body = body(type, 4 + id.length + 8);
+        putBytes(body, id);
+        body.putDouble(amount);
+        append(body);
+    }
+
+    /**
+     * Appends a framed record and waits as long as the durability mode requires.
+     *
+     * @param body the record type and payload, positioned at its end
+     * @throws UncheckedIOException if the journal cannot be written
+     * @throws IllegalStateException if the journal is closed
+     */
+    private void append(ByteBuffer body) {
+        body.flip();
+        CRC32 crc = new CRC32();
+        crc.update(body.duplicate());
+        int length = body.remaining();
+
+        lock.lock();
+        try {
+            checkOpen();
+            if (active.remaining() < length + 8) {
+                active = grow(active, length + 8);
+            }
+            int start = active.position();
+            active.putInt(length).put(body).putInt((int) crc.getValue());
+            long seq = ++appendedSeq;
+            records.increment();
+            if (replication != null) {
+                replication.ship(active.array(), start, length + 8);
+            }
+
+            if (durability == Durability.SYNC) {
+                try {
+                    writeAndForce(active);
+                } catch (IOException e) {
+                    failure = e;
+                    throw new UncheckedIOException("Journal write failed", e);
+                }
+                durableSeq = seq;
+            } else if (durability == Durability.GROUP) {
+                pending.signal();
+                while (durableSeq < seq && failure == null) {
+                    flushed.awaitUninterruptibly();
+                }
+                if (failure != null) {
+                    throw new UncheckedIOException("Journal write failed", failure);
+                }
+            } else {
+                pending.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Hands every record appended from now on to a replication primary, in
+     * journal order, while the journal lock is held.
+     *
+     * @param primary the primary, or {@code null} to stop replicating
+     */
+    void replicateTo(ReplicationPrimary primary) {
+        lock.lock();
+        try {
+            replication = primary;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Body of the flusher thread: waits for records, lets a batch gather for
+     * up to the maximum latency, then writes and forces it outside the lock.
+     */
+    private void runFlusher() {
+        while (true) {
+            ByteBuffer batch;
+            long target;
+            lock.lock();
+            try {
+                while (active.position() == 0 && !closed) {
+                    pending.awaitUninterruptibly();
+                }
+                if (active.position() == 0 && closed) {
+                    return;
+                }
+                long deadline = System.nanoTime() + maxLatencyNanos;
+                long remaining;
+                while (!closed && (remaining = deadline - System.nanoTime()) > 0
+                       && active.position() < INITIAL_BUFFER) {
+                    try {
+                        pending.awaitNanos(remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                }
+                batch = active;
+                active = spare;
+                spare = batch;
+                target = appendedSeq;
+            } finally {
+                lock.unlock();
+            }
+
+            IOException error = null;
+            try {
+                writeAndForce(batch);
+            } catch (IOException e) {
+                error = e;
+            }
+
+            lock.lock();
+            try {
+                if (error != null && failure == null) {
+                    failure = error;
+                }
+                durableSeq = target;
+                flushed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Writes a buffer to the channel, forces it and clears the buffer.
+     *
+     * @param buffer the records to write
+     * @throws IOException if the records cannot be written
+     */
+    private void writeAndForce(ByteBuffer buffer) throws IOException {
+        try {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+            forces.increment();
+        } finally {
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Fails if the journal is closed or a previous write failed.
+     */
+    private void checkOpen() {
+        if (failure != null) {
+            throw new UncheckedIOException("Journal write failed", failure);
+        }
+        if (closed) {
+            throw new IllegalStateException("Journal is closed");
+        }
+    }
+
+    /**
+     * Empties the journal after its records were captured by a snapshot.
+     *
+     * @throws IOException if the file cannot be truncated
+     */
+    public void truncate() throws IOException {
+        lock.lock();
+        try {
+            checkOpen();
+            while (durableSeq < appendedSeq && failure == null) {
+                pending.signal();
+                flushed.awaitUninterruptibly();
+            }
+            channel.truncate(0);
+            channel.position(0);
+            channel.force(true);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes any buffered records, forces them and closes the file.
+     *
+     * @throws IOException if the last records cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            pending.signal();
+        } finally {
+            lock.unlock();
+        }
+        if (flusher != null) {
+            try {
+                flusher.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        channel.close();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Replays a journal into a facade and cuts off any torn record at its end.
+     *
+     * @param file   the journal file; nothing happens if it does not exist
+     * @param facade the facade restored from the latest snapshot
+     * @return the number of records replayed
+     * @throws IOException if the file cannot be read
+     */
+    static int replay(Path file, PumaBankFacade facade) throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = in.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Journal too large to replay: " + size);
+            }
+            ByteBuffer data = ByteBuffer.allocate((int) size);
+            while (data.hasRemaining() && in.read(data) >= 0) {
+                // read the whole file
+            }
+            data.flip();
+
+            int replayed = 0;
+            CRC32 crc = new CRC32();
+            while (data.remaining() >= 4) {
+                int start = data.position();
+                int length = data.getInt();
+                if (length <= 0 || length > MAX_RECORD || data.remaining() < length + 4) {
+                    data.position(start);
+                    break;
+                }
+                ByteBuffer body = data.slice();
+                body.limit(length);
+                crc.reset();
+                crc.update(body.duplicate());
+                data.position(data.position() + length);
+                if ((int) crc.getValue() != data.getInt()) {
+                    data.position(start);
+                    break;
+                }
+                apply(body, facade);
+                replayed++;
+            }
+            if (data.position() < size) {
+                in.truncate(data.position());
+                in.force(true);
+            }
+            return replayed;
+        }
+    }
+
+    /**
+     * Applies one journal record to the facade.
+     *
+     * @param body   the record type and payload
+     * @param facade the bank to apply it to
+     * @throws IllegalArgumentException if the record type is unknown or the
+     *                                  record does not fit the bank
+     */
+    static void apply(ByteBuffer body, PumaBankFacade facade) {
+        byte type = body.get();
+        switch (type) {
+            case CLIENT: {
+                String clientId = getString(body);
+                String name = getString(body);
+                facade.clientRegistry().put(clientId, new Client(name, clientId));
+                facade.accountRegistry().put(clientId, new ArrayList<>());
+                break;
+            }
+            case ACCOUNT_POLICY: {
+                String clientId = getString(body);
+                String accountId = getString(body);
+                double balance = body.getDouble();
+                byte[] encoded = new byte[body.getInt()];
+                body.get(encoded);
+                InterestCalculation policy = InterestPolicyCodec.decode(encoded, facade.policyRegistry());
+                int count = body.getInt();
+                List<String> services = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    services.add(getString(body));
+                }
+                int iterations = body.getInt();
+                boolean hasPin = body.get() != 0;
+                byte[] salt = new byte[PinAuthenticator.SALT_LENGTH];
+                byte[] hash = new byte[PinAuthenticator.HASH_LENGTH];
+                body.get(salt);
+                body.get(hash);
+                Account account = new Account(facade.clientRegistry().get(clientId), balance, new ActiveState(),
+                                              policy, facade);
+                facade.restoreAccount(accountId, account,
+                    hasPin ? PinAuthenticator.fromHash(salt, hash, iterations)
+                           : PinAuthenticator.fromHash(null, null, iterations),
+                    services);
+                break;
+            }
+            case DELETE:
+                facade.deleteAccount(getString(body));
+                break;
+            case DEPOSIT:
+                facade.systemDeposit(getString(body), body.getDouble());
+                break;
+            case WITHDRAW:
+                facade.systemWithdraw(getString(body), body.getDouble());
+                break;
+            case TRANSFER:
+                facade.systemTransfer(getString(body), getString(body), body.getDouble());
+                break;
+            case MONTH_START:
+                body.getInt();
+                facade.restoreCounters(0, 0.0, 0.0);
+                break;
+            case MONTH_ACCOUNT: {
+                String accountId = getString(body);
+                boolean completed = body.get() != 0;
+                Account account = facade.findAccount(accountId).getUnderlyingAccount();
+                account.setBalance(body.getDouble());
+                byte state = body.get();
+                if (BankSnapshot.stateCode(account.getState()) != state) {
+                    account.changeState(BankSnapshot.state(state));
+                }
+                int points = body.getInt();
+                RewardsProgramDecorator rewards = BankSnapshot.outermostRewards(facade.decoratedAccount(accountId));
+                if (rewards != null) {
+                    rewards.setRewardPoints(points);
+                }
+                facade.addMonthEndTotals(body.getDouble(), body.getDouble(), completed);
+                InterestAccrual accrual = account.getInterestAccrual();
+                accrual.restoreHistory(body.getDouble(), body.getInt());
+                int month = body.getInt();
+                if (month != 0) {
+                    accrual.setMonthOfYear(month);
+                }
+                long periodStart = body.getLong();
+                long lastChange = body.getLong();
+                body.getDouble(); // the balance held since the last change, set above
+                account.restoreInterestPeriod(periodStart, lastChange, body.getDouble());
+                break;
+            }
+            case CLIENT_IMPORT: {
+                byte[] data = new byte[body.getInt()];
+                body.get(data);
+                try {
+                    BankSnapshot.importClients(facade, data);
+                } catch (IOException e) {
+                    throw new IllegalArgumentException("Corrupt imported client: " + e.getMessage(), e);
+                }
+                break;
+            }
+            case CLIENT_REMOVE:
+                facade.removeClient(getString(body));
+                break;
+            case TRANSFER_REFUND:
+                facade.replayTransferRefund(getString(body), getString(body), body.getDouble());
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown journal record type " + type);
+        }
+    }
+
+    private static ByteBuffer body(byte type, int payload) {
+        return ByteBuffer.allocate(1 + payload).put(type);
+    }
+
+    private static ByteBuffer grow(ByteBuffer buffer, int needed) {
+        int capacity = buffer.capacity();
+        while (capacity - buffer.position() < needed) {
+            capacity *= 2;
+        }
+        ByteBuffer larger = ByteBuffer.allocate(capacity);
+        buffer.flip();
+        larger.put(buffer);
+        return larger;
+    }
+
+    private static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void putBytes(ByteBuffer body, byte[] bytes) {
+        body.putInt(bytes.length).put(bytes);
+    }
+
+    private static String getString(ByteBuffer body) {
+        byte[] bytes = new byte[body.getInt()];
+        body.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,46 @@
+package mx.unam.ciencias.myp.pumabank.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A deposit, withdrawal, balance check or transfer completed through the
+ * facade, timed from the call to its result.
+ *
+ * <p>Callers {@link #begin()} the event before the operation and fill in the
+ * fields only if {@link #shouldCommit()} holds, so nothing is formatted or
+ * read while no recording asks for the event.</p>
+ */
+@Name("pumabank.AccountOperation")
+@Label("Account Operation")
+@Category({"PumaBank", "Accounts"})
+@Description("A deposit, withdrawal, balance check or transfer handled by the facade")
+@StackTrace(false)
+public final class AccountOperationEvent extends Event {
+
+    @Label("Account")
+    public String accountId;
+
+    @Label("Operation")
+    @Description("DEPOSIT, WITHDRAW, CHECK_BALANCE or TRANSFER")
+    public String operation;
+
+    @Label("Amount")
+    public double amount;
+
+    @Label("Balance")
+    @Description("Balance of the account after the operation")
+    public double balance;
+
+    @Label("Target Account")
+    @Description("The credited account of a transfer")
+    public String targetAccountId;
+
+    @Label("Outcome")
+    @Description("APPLIED, DECLINED, AUTH_FAILED or THROTTLED")
+    public String outcome;
+}
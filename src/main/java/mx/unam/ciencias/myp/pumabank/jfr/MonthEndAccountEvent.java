@@ -0,0 +1,44 @@
+package mx.unam.ciencias.myp.pumabank.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The month-end processing of one account, timed under its lock.
+ */
+@Name("pumabank.MonthEndAccount")
+@Label("Month-End Account")
+@Category({"PumaBank", "Month-End"})
+@Description("Monthly processing of one account: interest, fees and state")
+@StackTrace(false)
+public final class MonthEndAccountEvent extends Event {
+
+    @Label("Account")
+    public String accountId;
+
+    @Label("Month")
+    public int month;
+
+    @Label("Opening Balance")
+    @Description("Balance before the month-end processing")
+    public double openingBalance;
+
+    @Label("Closing Balance")
+    public double closingBalance;
+
+    @Label("Fees")
+    @Description("Fees charged by the month-end processing")
+    public double fees;
+
+    @Label("Interest")
+    @Description("Interest paid by the month-end processing")
+    public double interest;
+
+    @Label("State")
+    @Description("State of the account after processing")
+    public String state;
+}
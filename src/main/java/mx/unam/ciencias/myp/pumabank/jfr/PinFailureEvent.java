@@ -0,0 +1,53 @@
+package mx.unam.ciencias.myp.pumabank.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A wrong PIN or session token refused by an account proxy.
+ */
+@Name("pumabank.PinFailure")
+@Label("PIN Failure")
+@Category({"PumaBank", "Security"})
+@Description("An account proxy refused a credential")
+@StackTrace(false)
+public final class PinFailureEvent extends Event {
+
+    @Label("Account")
+    public String accountId;
+
+    @Label("Operation")
+    @Description("The operation that was refused")
+    public String operation;
+
+    @Label("Failed Attempts")
+    @Description("Consecutive failures, this one included")
+    public int failedAttempts;
+
+    @Label("Blocked")
+    @Description("Whether the account is now blocked by the login throttle")
+    public boolean blocked;
+
+    /**
+     * Commits a refused credential if a recording asks for it.
+     *
+     * @param accountId      the account
+     * @param operation      the refused operation
+     * @param failedAttempts the consecutive failures so far
+     * @param blocked        whether the account is now blocked
+     */
+    public static void emit(String accountId, String operation, int failedAttempts, boolean blocked) {
+        PinFailureEvent event = new PinFailureEvent();
+        if (event.shouldCommit()) {
+            event.accountId = accountId;
+            event.operation = operation;
+            event.failedAttempts = failedAttempts;
+            event.blocked = blocked;
+            event.commit();
+        }
+    }
+}
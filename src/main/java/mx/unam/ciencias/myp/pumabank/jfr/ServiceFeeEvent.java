@@ -0,0 +1,46 @@
+package mx.unam.ciencias.myp.pumabank.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A monthly fee charged by a service decorator.
+ */
+@Name("pumabank.ServiceFee")
+@Label("Service Fee")
+@Category({"PumaBank", "Services"})
+@Description("A service decorator charged its fee")
+@StackTrace(false)
+public final class ServiceFeeEvent extends Event {
+
+    @Label("Account")
+    public String accountId;
+
+    @Label("Service")
+    @Description("The decorator that charged the fee")
+    public String service;
+
+    @Label("Fee")
+    public double fee;
+
+    /**
+     * Commits a fee charge if a recording asks for it.
+     *
+     * @param accountId the account charged
+     * @param service   the service name
+     * @param fee       the amount charged
+     */
+    public static void emit(String accountId, String service, double fee) {
+        ServiceFeeEvent event = new ServiceFeeEvent();
+        if (event.shouldCommit()) {
+            event.accountId = accountId;
+            event.service = service;
+            event.fee = fee;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package mx.unam.ciencias.myp.pumabank.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import mx.unam.ciencias.myp.pumabank.patterns.state.AccountState;
+
+/**
+ * An account moving from one state to another, such as Active to
+ * Overdrawn. The stack trace shows the operation that caused it.
+ */
+@Name("pumabank.StateTransition")
+@Label("Account State Transition")
+@Category({"PumaBank", "Accounts"})
+@Description("An account changed its state")
+public final class StateTransitionEvent extends Event {
+
+    @Label("Account")
+    public String accountId;
+
+    @Label("From")
+    public String fromState;
+
+    @Label("To")
+    public String toState;
+
+    @Label("Balance")
+    public double balance;
+
+    /**
+     * Commits a transition if a recording asks for it.
+     *
+     * @param accountId the account
+     * @param from      the state left
+     * @param to        the state entered
+     * @param balance   the balance at the transition
+     */
+    public static void emit(String accountId, AccountState from, AccountState to, double balance) {
+        StateTransitionEvent event = new StateTransitionEvent();
+        if (event.shouldCommit()) {
+            event.accountId = accountId;
+            event.fromState = nameOf(from);
+            event.toState = nameOf(to);
+            event.balance = balance;
+            event.commit();
+        }
+    }
+
+    /**
+     * Returns the short name of a state: {@code Overdrawn} for
+     * {@code OverdrawnState}.
+     *
+     * @param state the state
+     * @return its name
+     */
+    public static String nameOf(AccountState state) {
+        String name = state.getClass().getSimpleName();
+        return name.endsWith("State") ? name.substring(0, name.length() - 5) : name;
+    }
+}
@@ -0,0 +1,46 @@
+package mx.unam.ciencias.myp.pumabank.metrics;
+
+import java.util.concurrent.atomic.DoubleAdder;
+
+/**
+ * A value that only goes up, such as the fees collected since start.
+ *
+ * <p>Updates go to a {@link DoubleAdder}, which spreads concurrent writers
+ * over separate cells, so threads counting the same metric do not contend
+ * on one memory location. Created by {@link MetricsRegistry#counter}.</p>
+ */
+public final class Counter {
+
+    private final DoubleAdder value = new DoubleAdder();
+
+    Counter() {
+    }
+
+    /**
+     * Adds one.
+     */
+    public void increment() {
+        value.add(1);
+    }
+
+    /**
+     * Adds an amount.
+     *
+     * @param amount the amount, zero or more
+     * @throws IllegalArgumentException if the amount is negative or not a number
+     */
+    public void add(double amount) {
+        if (!(amount >= 0)) {
+            throw new IllegalArgumentException("A counter cannot go down: " + amount);
+        }
+        value.add(amount);
+    }
+
+    /**
+     * Returns the current total.
+     * @return the total
+     */
+    public double get() {
+        return value.sum();
+    }
+}
@@ -0,0 +1,47 @@
+package mx.unam.ciencias.myp.pumabank.metrics;
+
+import java.util.concurrent.atomic.DoubleAdder;
+
+/**
+ * A value that goes up and down, such as the accounts in a state. Updates
+ * are striped like those of a {@link Counter}. Created by
+ * {@link MetricsRegistry#gauge(String, String, String...)}.
+ */
+public final class Gauge {
+
+    private final DoubleAdder value = new DoubleAdder();
+
+    Gauge() {
+    }
+
+    /**
+     * Adds one.
+     */
+    public void increment() {
+        value.add(1);
+    }
+
+    /**
+     * Subtracts one.
+     */
+    public void decrement() {
+        value.add(-1);
+    }
+
+    /**
+     * Adds an amount, which may be negative.
+     *
+     * @param amount the amount
+     */
+    public void add(double amount) {
+        value.add(amount);
+    }
+
+    /**
+     * Returns the current value.
+     * @return the value
+     */
+    public double get() {
+        return value.sum();
+    }
+}
@@ -0,0 +1,75 @@
+package mx.unam.ciencias.myp.pumabank.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts observations in buckets with fixed upper bounds, plus their sum,
+ * as a Prometheus histogram. Each bucket is a {@link LongAdder}, so
+ * concurrent observations are striped. Created by
+ * {@link MetricsRegistry#histogram}.
+ */
+public final class Histogram {
+
+    private final double[] bounds;
+    private final LongAdder[] counts;
+    private final DoubleAdder sum = new DoubleAdder();
+
+    Histogram(double[] bounds) {
+        for (int i = 0; i < bounds.length; i++) {
+            if (Double.isNaN(bounds[i]) || Double.isInfinite(bounds[i]) || (i > 0 && bounds[i] <= bounds[i - 1])) {
+                throw new IllegalArgumentException("Bucket bounds must be finite and increasing: "
+                    + Arrays.toString(bounds));
+            }
+        }
+        this.bounds = bounds.clone();
+        this.counts = new LongAdder[bounds.length + 1];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records one observation in the first bucket whose bound is not below it.
+     *
+     * @param value the observed value
+     */
+    public void observe(double value) {
+        int index = Arrays.binarySearch(bounds, value);
+        counts[index >= 0 ? index : -index - 1].increment();
+        sum.add(value);
+    }
+
+    /**
+     * Returns the upper bounds of the buckets, without the implicit
+     * {@code +Inf} bucket.
+     *
+     * @return a copy of the bounds
+     */
+    public double[] getBounds() {
+        return bounds.clone();
+    }
+
+    /**
+     * Returns how many observations fell in each bucket, not cumulated; the
+     * last entry counts those above every bound.
+     *
+     * @return the counts per bucket
+     */
+    public long[] getBucketCounts() {
+        long[] result = new long[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            result[i] = counts[i].sum();
+        }
+        return result;
+    }
+
+    /**
+     * Returns the sum of every observation.
+     * @return the sum
+     */
+    public double getSum() {
+        return sum.sum();
+    }
+}
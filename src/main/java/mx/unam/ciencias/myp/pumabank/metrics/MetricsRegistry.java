@@ -0,0 +1,280 @@
+package mx.unam.ciencias.myp.pumabank.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.DoubleSupplier;
+import java.util.regex.Pattern;
+
+import mx.unam.ciencias.myp.pumabank.facade.LatencyHistogram;
+
+/**
+ * Named metrics of a bank, written in the Prometheus text exposition format
+ * by {@link #toPrometheus()}.
+ *
+ * <p>A metric is identified by its name and its labels, given as name/value
+ * pairs: {@code counter("pumabank_fees_collected_total", help, "service",
+ * "AntiFraud")}. Asking again for the same name and labels returns the same
+ * metric, so callers on hot paths look their metrics up once and keep them.
+ * All metrics with one name share its help text and type; asking for a name
+ * with another type is an error.</p>
+ *
+ * <p>Besides the metrics that are updated, the registry takes values that
+ * are read when the metrics are written: gauges and counters given as a
+ * {@link DoubleSupplier}, and {@link LatencyHistogram}s written as
+ * summaries.</p>
+ */
+public final class MetricsRegistry {
+
+    private static final Pattern NAME = Pattern.compile("[a-zA-Z_:][a-zA-Z0-9_:]*");
+    private static final Pattern LABEL = Pattern.compile("[a-zA-Z_][a-zA-Z0-9_]*");
+    private static final double[] QUANTILES = {0.5, 0.99, 0.999};
+
+    /**
+     * The Prometheus type of a metric family.
+     */
+    private enum Type {
+        COUNTER, GAUGE, HISTOGRAM, SUMMARY
+    }
+
+    private final Map<String, Family> families = new ConcurrentSkipListMap<>();
+
+    /**
+     * Returns the counter with a name and labels, creating it if needed.
+     *
+     * @param name   the metric name
+     * @param help   what the metric counts
+     * @param labels label names and values, alternating
+     * @return the counter
+     * @throws IllegalArgumentException if the name or labels are invalid or
+     *                                  the name is registered with another type
+     */
+    public Counter counter(String name, String help, String... labels) {
+        return typed(family(name, help, Type.COUNTER).series
+            .computeIfAbsent(labels(labels), k -> new Counter()), Counter.class, name);
+    }
+
+    /**
+     * Registers a counter whose total is read from a supplier, such as a
+     * count kept by another component. Replaces an earlier supplier with the
+     * same name and labels.
+     *
+     * @param name   the metric name
+     * @param help   what the metric counts
+     * @param value  supplies the total
+     * @param labels label names and values, alternating
+     * @throws IllegalArgumentException if the name or labels are invalid or
+     *                                  the name is registered with another type
+     */
+    public void counter(String name, String help, DoubleSupplier value, String... labels) {
+        family(name, help, Type.COUNTER).series.put(labels(labels), value);
+    }
+
+    /**
+     * Returns the gauge with a name and labels, creating it if needed.
+     *
+     * @param name   the metric name
+     * @param help   what the metric measures
+     * @param labels label names and values, alternating
+     * @return the gauge
+     * @throws IllegalArgumentException if the name or labels are invalid or
+     *                                  the name is registered with another type
+     */
+    public Gauge gauge(String name, String help, String... labels) {
+        return typed(family(name, help, Type.GAUGE).series
+            .computeIfAbsent(labels(labels), k -> new Gauge()), Gauge.class, name);
+    }
+
+    /**
+     * Registers a gauge whose value is read from a supplier when the metrics
+     * are written. Replaces an earlier supplier with the same name and labels.
+     *
+     * @param name   the metric name
+     * @param help   what the metric measures
+     * @param value  supplies the value
+     * @param labels label names and values, alternating
+     * @throws IllegalArgumentException if the name or labels are invalid or
+     *                                  the name is registered with another type
+     */
+    public void gauge(String name, String help, DoubleSupplier value, String... labels) {
+        family(name, help, Type.GAUGE).series.put(labels(labels), value);
+    }
+
+    /**
+     * Returns the histogram with a name and labels, creating it with the
+     * given bucket bounds if needed.
+     *
+     * @param name   the metric name
+     * @param help   what the metric observes
+     * @param bounds the upper bounds of the buckets, increasing
+     * @param labels label names and values, alternating
+     * @return the histogram
+     * @throws IllegalArgumentException if the name, labels or bounds are
+     *                                  invalid or the name is registered with
+     *                                  another type
+     */
+    public Histogram histogram(String name, String help, double[] bounds, String... labels) {
+        return typed(family(name, help, Type.HISTOGRAM).series
+            .computeIfAbsent(labels(labels), k -> new Histogram(bounds)), Histogram.class, name);
+    }
+
+    /**
+     * Registers a latency histogram to be written as a summary with its
+     * median, 99th and 99.9th percentiles, in seconds.
+     *
+     * @param name      the metric name
+     * @param help      what the durations are
+     * @param histogram the histogram, in nanoseconds
+     * @param labels    label names and values, alternating
+     * @throws IllegalArgumentException if the name or labels are invalid or
+     *                                  the name is registered with another type
+     */
+    public void summary(String name, String help, LatencyHistogram histogram, String... labels) {
+        family(name, help, Type.SUMMARY).series.put(labels(labels), histogram);
+    }
+
+    /**
+     * Writes every metric in the Prometheus text exposition format, families
+     * sorted by name.
+     *
+     * @return the exposition text
+     */
+    public String toPrometheus() {
+        StringBuilder out = new StringBuilder(4096);
+        for (Map.Entry<String, Family> entry : families.entrySet()) {
+            String name = entry.getKey();
+            Family family = entry.getValue();
+            if (family.series.isEmpty()) {
+                continue;
+            }
+            out.append("# HELP ").append(name).append(' ').append(escapeHelp(family.help)).append('\n');
+            out.append("# TYPE ").append(name).append(' ')
+                .append(family.type.name().toLowerCase()).append('\n');
+            for (Map.Entry<String, Object> series : family.series.entrySet()) {
+                write(out, name, series.getKey(), series.getValue());
+            }
+        }
+        return out.toString();
+    }
+
+    private static void write(StringBuilder out, String name, String labels, Object metric) {
+        if (metric instanceof Counter) {
+            sample(out, name, labels, null, ((Counter) metric).get());
+        } else if (metric instanceof Gauge) {
+            sample(out, name, labels, null, ((Gauge) metric).get());
+        } else if (metric instanceof DoubleSupplier) {
+            sample(out, name, labels, null, ((DoubleSupplier) metric).getAsDouble());
+        } else if (metric instanceof Histogram) {
+            Histogram histogram = (Histogram) metric;
+            double[] bounds = histogram.getBounds();
+            long[] counts = histogram.getBucketCounts();
+            long cumulative = 0;
+            for (int i = 0; i < counts.length; i++) {
+                cumulative += counts[i];
+                String le = i < bounds.length ? format(bounds[i]) : "+Inf";
+                sample(out, name + "_bucket", labels, "le=\"" + le + "\"", cumulative);
+            }
+            sample(out, name + "_sum", labels, null, histogram.getSum());
+            sample(out, name + "_count", labels, null, cumulative);
+        } else {
+            LatencyHistogram histogram = (LatencyHistogram) metric;
+            for (double quantile : QUANTILES) {
+                sample(out, name, labels, "quantile=\"" + format(quantile) + "\"",
+                    histogram.getValueAtPercentile(quantile * 100) / 1e9);
+            }
+            sample(out, name + "_sum", labels, null, histogram.getEstimatedSum() / 1e9);
+            sample(out, name + "_count", labels, null, histogram.getCount());
+        }
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, String extra, double value) {
+        out.append(name);
+        if (!labels.isEmpty() || extra != null) {
+            out.append('{').append(labels);
+            if (extra != null) {
+                out.append(labels.isEmpty() ? "" : ",").append(extra);
+            }
+            out.append('}');
+        }
+        out.append(' ').append(format(value)).append('\n');
+    }
+
+    /**
+     * Formats a sample value: whole numbers without a fraction, the rest as
+     * Java writes doubles, which Prometheus parses.
+     */
+    private static String format(double value) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        }
+        if (Double.isInfinite(value)) {
+            return value > 0 ? "+Inf" : "-Inf";
+        }
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    private Family family(String name, String help, Type type) {
+        if (name == null || !NAME.matcher(name).matches()) {
+            throw new IllegalArgumentException("Invalid metric name: " + name);
+        }
+        Family family = families.computeIfAbsent(name, k -> new Family(help, type));
+        if (family.type != type) {
+            throw new IllegalArgumentException("Metric " + name + " is already registered as a "
+                + family.type.name().toLowerCase());
+        }
+        return family;
+    }
+
+    private static <T> T typed(Object metric, Class<T> type, String name) {
+        if (!type.isInstance(metric)) {
+            throw new IllegalArgumentException("Metric " + name + " with these labels is read from a supplier");
+        }
+        return type.cast(metric);
+    }
+
+    /**
+     * Renders label pairs as they appear between braces, which is also the
+     * key of the series in its family.
+     */
+    private static String labels(String[] labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be name/value pairs");
+        }
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < labels.length; i += 2) {
+            if (labels[i] == null || !LABEL.matcher(labels[i]).matches() || labels[i].startsWith("__")
+                    || labels[i].equals("le") || labels[i].equals("quantile")) {
+                throw new IllegalArgumentException("Invalid label name: " + labels[i]);
+            }
+            if (i > 0) {
+                text.append(',');
+            }
+            text.append(labels[i]).append("=\"").append(escapeValue(String.valueOf(labels[i + 1]))).append('"');
+        }
+        return text.toString();
+    }
+
+    private static String escapeValue(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static String escapeHelp(String help) {
+        return help.replace("\\", "\\\\").replace("\n", "\\n");
+    }
+
+    /**
+     * The metrics sharing one name, by label text.
+     */
+    private static final class Family {
+        private final String help;
+        private final Type type;
+        private final Map<String, Object> series = new ConcurrentSkipListMap<>();
+
+        Family(String help, Type type) {
+            this.help = help;
+            this.type = type;
+        }
+    }
+}
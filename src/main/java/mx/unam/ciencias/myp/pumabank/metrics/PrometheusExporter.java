@@ -0,0 +1,150 @@
+package mx.unam.ciencias.myp.pumabank.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes a {@link MetricsRegistry} in the Prometheus text format, either
+ * by rewriting a file periodically, for the node exporter's textfile
+ * collector or any other reader, or by answering {@code GET /metrics} on a
+ * local HTTP port for Prometheus to scrape.
+ *
+ * <p>The file is written next to its final name and moved over it, so a
+ * reader never sees half a file. Closing a file exporter writes the file one
+ * last time.</p>
+ */
+public final class PrometheusExporter implements Closeable {
+
+    /** Content type of the text exposition format. */
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final MetricsRegistry registry;
+    private final Path file;
+    private final ScheduledExecutorService scheduler;
+    private final HttpServer server;
+
+    private PrometheusExporter(MetricsRegistry registry, Path file, ScheduledExecutorService scheduler,
+                               HttpServer server) {
+        this.registry = registry;
+        this.file = file;
+        this.scheduler = scheduler;
+        this.server = server;
+    }
+
+    /**
+     * Starts rewriting a file with the metrics every period, beginning now.
+     *
+     * @param registry the metrics to write
+     * @param file     the file to write
+     * @param period   the time between writes
+     * @return the running exporter
+     * @throws IllegalArgumentException if the period is not positive
+     */
+    public static PrometheusExporter toFile(MetricsRegistry registry, Path file, Duration period) {
+        if (period.isNegative() || period.isZero()) {
+            throw new IllegalArgumentException("Export period must be positive: " + period);
+        }
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "pumabank-metrics-export");
+            thread.setDaemon(true);
+            return thread;
+        });
+        PrometheusExporter exporter = new PrometheusExporter(registry, file, scheduler, null);
+        scheduler.scheduleAtFixedRate(exporter::writeFile, 0, period.toMillis(), TimeUnit.MILLISECONDS);
+        return exporter;
+    }
+
+    /**
+     * Starts serving the metrics at {@code /metrics} over HTTP.
+     *
+     * @param registry the metrics to serve
+     * @param address  the address to listen on; port 0 picks a free port
+     * @return the running exporter
+     * @throws IOException if the address cannot be bound
+     */
+    public static PrometheusExporter serveHttp(MetricsRegistry registry, InetSocketAddress address)
+            throws IOException {
+        HttpServer server = HttpServer.create(address, 0);
+        PrometheusExporter exporter = new PrometheusExporter(registry, null, null, server);
+        server.createContext("/metrics", exporter::handle);
+        server.start();
+        return exporter;
+    }
+
+    /**
+     * Returns the HTTP port, or -1 for a file exporter.
+     * @return the port
+     */
+    public int getPort() {
+        return server == null ? -1 : server.getAddress().getPort();
+    }
+
+    /**
+     * Writes the metrics to the file now.
+     */
+    public void writeFile() {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Files.writeString(temp, registry.toPrometheus(), StandardCharsets.UTF_8);
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            System.err.println("Error writing metrics to " + file + ": " + e.getMessage());
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod()) && !"HEAD".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = registry.toPrometheus().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            if ("HEAD".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    /**
+     * Stops exporting. A file exporter writes the file a last time.
+     */
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            try {
+                scheduler.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            writeFile();
+        }
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+}
@@ -1,10 +1,15 @@
 package mx.unam.ciencias.myp.pumabank.model;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.DoubleUnaryOperator;
+import mx.unam.ciencias.myp.pumabank.jfr.StateTransitionEvent;
 import mx.unam.ciencias.myp.pumabank.patterns.observer.Observer;
 import mx.unam.ciencias.myp.pumabank.patterns.state.AccountState;
+import mx.unam.ciencias.myp.pumabank.patterns.strategy.InterestAccrual;
 import mx.unam.ciencias.myp.pumabank.patterns.strategy.InterestCalculation;
 import mx.unam.ciencias.myp.pumabank.facade.PumaBankFacade;;
 
@@ -15,21 +20,79 @@ import mx.unam.ciencias.myp.pumabank.facade.PumaBankFacade;;
  * This class works in the {@code State} design pattern, delegating its behavior to the current {@link AccountState} instance.
  * It also uses the {@code Strategy} pattern for interest calculation through the {@link InterestCalculation} interface, and follows the {@code Observer} pattern to notify registered observers when significant events occur.
  * </p>
+ * <p>
+ * The balance is updated optimistically: an update reads the balance, computes the new value and publishes it with a
+ * compare-and-set, retrying if another writer got there first, so an uncontended update takes no lock. The balance,
+ * its version stamp and the balance-time integral of the interest period are published together in one immutable
+ * holder, so every completed update advances the version atomically with the balance and feeds the interest
+ * accrual without a monitor. Failed attempts are counted so contention on an account is observable through
+ * {@link #getBalanceRetries()} and {@link #getContendedUpdates()}.
+ * </p>
  *
  */
 public class Account implements IAccount {
 
+    private static final VarHandle LEDGER;
+    private static final VarHandle BALANCE_RETRIES;
+    private static final VarHandle CONTENDED_UPDATES;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            LEDGER = lookup.findVarHandle(Account.class, "ledger", Ledger.class);
+            BALANCE_RETRIES = lookup.findVarHandle(Account.class, "balanceRetries", long.class);
+            CONTENDED_UPDATES = lookup.findVarHandle(Account.class, "contendedUpdates", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * What one balance update publishes at once: the balance, its version stamp and the balance-time integral of
+     * the interest period up to the update.
+     */
+    private static final class Ledger {
+        final double balance;
+        final long version;
+        final long changedAt;
+        final double balanceMillis;
+
+        Ledger(double balance, long version, long changedAt, double balanceMillis) {
+            this.balance = balance;
+            this.version = version;
+            this.changedAt = changedAt;
+            this.balanceMillis = balanceMillis;
+        }
+
+        /** The ledger after the balance changes at {@code now}; times earlier than the last change add no area. */
+        Ledger update(double newBalance, long now) {
+            return now > changedAt
+                ? new Ledger(newBalance, version + 1, now, balanceMillis + balance * (now - changedAt))
+                : new Ledger(newBalance, version + 1, changedAt, balanceMillis);
+        }
+    }
 
-    private double balance;
+    private volatile Ledger ledger;
+    private volatile long balanceRetries;
+    private volatile long contendedUpdates;
 
     private List<String> history;
+    private String accountId;
     private AccountState state;
     private InterestCalculation interestPolicy;
+    private final InterestAccrual interestAccrual;
     private Client client;
 
     private List<Observer> observers;
     private PumaBankFacade facade;
 
+    private double batchedInterest;
+    private double batchedBalance = Double.NaN;
+
+    private double statementOpeningBalance;
+    private double statementFees;
+    private double statementInterest;
+
 
     /**
      * Constructs a new {@code Account}.
@@ -44,10 +107,14 @@ public class Account implements IAccount {
         this.client = Objects.requireNonNull(client);
         this.state = Objects.requireNonNull(initialState);
         this.interestPolicy = Objects.requireNonNull(interestPolicy);
-        this.balance = initialBalance;
+        this.interestAccrual = new InterestAccrual();
+        this.statementOpeningBalance = initialBalance;
         this.history = new ArrayList<>();
         this.facade = Objects.requireNonNull(facade);
         this.observers = new ArrayList<>();
+        long now = currentTimeMillis();
+        this.ledger = new Ledger(initialBalance, 0L, now, 0.0);
+        this.interestAccrual.startPeriod(initialBalance, now);
     }
 
     /**
@@ -63,7 +130,7 @@ public class Account implements IAccount {
 
     @Override
     public double checkBalance(String pin) {
-        return balance;
+        return ledger.balance;
     }
 
     /**
@@ -76,13 +143,7 @@ public class Account implements IAccount {
     @Override
     public void deposit(double amount, String pin) {
         validatePositive(amount, "Deposit amount");
-
-        if ("SYSTEM".equals(pin) || "0000".equals(pin)) {
-            state.deposit(amount, this);
-            addHistory("System deposit: $" + amount + " | Balance: $" + balance);
-        } else {
-            state.deposit(amount, this);
-        }
+        state.deposit(amount, this);
     }
 
     /**
@@ -96,14 +157,33 @@ public class Account implements IAccount {
     @Override
     public void withdraw(double amount, String pin) {
         validatePositive(amount, "Withdraw amount");
+        state.withdraw(amount, this);
+    }
 
-    if ("SYSTEM".equals(pin) || "0000".equals(pin)) {
-            state.withdraw(amount, this);
-            addHistory("System withdrawal: $" + amount + " | Balance: $" + balance);
-        } else {
-            state.withdraw(amount, this);
-        }
+    /**
+     * Deposits on behalf of the bank and records it in the history.
+     * Delegates the behavior to the current {@link AccountState}.
+     *
+     * @param amount the amount to deposit
+     */
+    @Override
+    public void systemDeposit(double amount) {
+        validatePositive(amount, "Deposit amount");
+        state.deposit(amount, this);
+        addHistory("System deposit: $" + amount + " | Balance: $" + getBalance());
+    }
 
+    /**
+     * Withdraws on behalf of the bank and records it in the history.
+     * Delegates the behavior to the current {@link AccountState}.
+     *
+     * @param amount the amount to withdraw
+     */
+    @Override
+    public void systemWithdraw(double amount) {
+        validatePositive(amount, "Withdraw amount");
+        state.withdraw(amount, this);
+        addHistory("System withdrawal: $" + amount + " | Balance: $" + getBalance());
     }
 
     /**
@@ -136,6 +216,9 @@ public class Account implements IAccount {
      * @param event a description of the event that occurred
      */
     public void notify(String event){
+        if (facade != null) {
+            facade.recordNotifications(observers.size());
+        }
         for(Observer o : observers){
             try{
                 o.update(event);
@@ -169,7 +252,14 @@ public class Account implements IAccount {
      * @throws NullPointerException if {@code newState} is null
      */
     public void changeState(AccountState newState){
+        AccountState previous = state;
         this.state = Objects.requireNonNull(newState);
+        if (previous.getClass() != newState.getClass()) {
+            StateTransitionEvent.emit(accountId, previous, newState, getBalance());
+            if (facade != null) {
+                facade.recordStateChange(previous, newState);
+            }
+        }
     }
 
     /**
@@ -189,10 +279,117 @@ public class Account implements IAccount {
      */
     public void setInterestPolicy(InterestCalculation interestPolicy){
         this.interestPolicy = Objects.requireNonNull(interestPolicy);
+        this.batchedBalance = Double.NaN;
 
         addHistory("Interest policy changed");
     }
 
+    /**
+     * Stores interest computed ahead of time by a month-end batch.
+     * <p>
+     * The value is used by the next call to {@link #calculateInterest(double)}
+     * only if it is made for the same balance; otherwise it is discarded.
+     * </p>
+     * @param balance  the balance the interest was computed for
+     * @param interest the precomputed interest
+     */
+    public void setBatchedInterest(double balance, double interest){
+        this.batchedBalance = balance;
+        this.batchedInterest = interest;
+    }
+
+    /**
+     * Returns the per-account state used by interest policies that need history.
+     * <p>
+     * Balance updates do not touch the accrual; its balance-time period is brought up to the latest update here,
+     * when it is read.
+     * </p>
+     * @return this account’s interest accrual
+     */
+    public InterestAccrual getInterestAccrual(){
+        synchronized (interestAccrual) {
+            syncAccrual(ledger);
+        }
+        return interestAccrual;
+    }
+
+    /**
+     * Replaces the balance-time period of the interest accrual, used when restoring a saved account. The balance
+     * held since the last change is the current balance.
+     * @param periodStart   the start of the period in milliseconds
+     * @param lastChange    the time of the last change or accrual in milliseconds
+     * @param balanceMillis the integral of the balance up to the last change
+     */
+    public void restoreInterestPeriod(long periodStart, long lastChange, double balanceMillis){
+        synchronized (interestAccrual) {
+            Ledger current;
+            Ledger restored;
+            do {
+                current = ledger;
+                restored = new Ledger(current.balance, current.version, lastChange, balanceMillis);
+            } while (!LEDGER.compareAndSet(this, current, restored));
+            interestAccrual.restorePeriod(periodStart, lastChange, restored.balance, balanceMillis);
+        }
+    }
+
+    /** Copies the period of a ledger into the accrual. Called holding the accrual monitor. */
+    private void syncAccrual(Ledger current){
+        interestAccrual.restorePeriod(interestAccrual.getPeriodStart(), current.changedAt, current.balance,
+                                      current.balanceMillis);
+    }
+
+    /**
+     * Calculates the month-end interest for the given balance with the
+     * account’s policy and accrual state.
+     * <p>
+     * The period’s average daily balance is recorded as the month balance
+     * (used by annual averages) and a new accrual period starts afterwards.
+     * </p>
+     * Reuses the value stored by {@link #setBatchedInterest(double, double)}
+     * when it was computed for the same balance.
+     * @param balance the balance on which to calculate interest
+     * @return the interest amount
+     */
+    public double calculateInterest(double balance){
+        long now = currentTimeMillis();
+        synchronized (interestAccrual) {
+            syncAccrual(ledger);
+            interestAccrual.accrueTo(now);
+            interestAccrual.recordMonthBalance(interestAccrual.getAverageDailyBalance(now));
+
+            double precomputedFor = batchedBalance;
+            batchedBalance = Double.NaN;
+            double interest = precomputedFor == balance
+                ? batchedInterest
+                : getInterestPolicy().calculate(balance, interestAccrual);
+
+            Ledger current;
+            do {
+                current = ledger;
+            } while (!LEDGER.compareAndSet(this, current, new Ledger(current.balance, current.version, now, 0.0)));
+            interestAccrual.startPeriod(current.balance, now);
+            return interest;
+        }
+    }
+
+    /**
+     * Returns the interest earned so far in the current period by policies that
+     * accrue over time, such as average daily balance interest. This is O(1)
+     * and does not modify the account.
+     * @return the interest accrued to date
+     */
+    public double getAccruedInterest(){
+        return getInterestPolicy().accruedInterest(getInterestAccrual(), currentTimeMillis());
+    }
+
+    /**
+     * Returns the current time used for balance accrual, taken from the
+     * facade's clock when available.
+     */
+    private long currentTimeMillis(){
+        return facade != null ? facade.getClock().millis() : System.currentTimeMillis();
+    }
+
     /**
      * Adds an event message to the account’s history.
      * @param event the event description to add
@@ -203,11 +400,24 @@ public class Account implements IAccount {
     }
 
     /**
-     * Records a fee applied for the monthly report.
+     * Records a fee applied for the monthly report. The bank metrics count it
+     * for the current state, which is what charges fees other than services.
      */
     public void recordFee(double fee) {
+        recordFee(fee, StateTransitionEvent.nameOf(state));
+    }
+
+    /**
+     * Records a fee applied for the monthly report, naming what charged it
+     * for the bank metrics.
+     *
+     * @param fee     the fee amount
+     * @param service the service or state that charged it, such as {@code AntiFraud}
+     */
+    public void recordFee(double fee, String service) {
+        statementFees += fee;
         if (facade != null) {
-            facade.recordFeeCollection(fee);
+            facade.recordFeeCollection(fee, service);
         }
     }
     
@@ -215,11 +425,46 @@ public class Account implements IAccount {
      * Records an interest payment for the monthly report.
      */
     public void recordInterest(double interest) {
+        statementInterest += interest;
         if (facade != null) {
             facade.recordInterestPayment(interest);
         }
     }
 
+    /**
+     * Starts a new monthly statement: the current balance becomes the opening
+     * balance and the fee and interest totals are cleared.
+     */
+    public void startStatement() {
+        statementOpeningBalance = getBalance();
+        statementFees = 0.0;
+        statementInterest = 0.0;
+    }
+
+    /**
+     * Returns the balance at the start of the current statement.
+     * @return the opening balance
+     */
+    public double getStatementOpeningBalance() {
+        return statementOpeningBalance;
+    }
+
+    /**
+     * Returns the fees charged since the current statement started.
+     * @return the statement fees
+     */
+    public double getStatementFees() {
+        return statementFees;
+    }
+
+    /**
+     * Returns the interest paid since the current statement started.
+     * @return the statement interest
+     */
+    public double getStatementInterest() {
+        return statementInterest;
+    }
+
     public Account(Client client, double initialBalance, AccountState initialState, InterestCalculation interestPolicy) {
         this(client, initialBalance, initialState, interestPolicy, null);
     }
@@ -242,17 +487,138 @@ public class Account implements IAccount {
      */
     
     public double getBalance(){
-        return balance;
+        return ledger.balance;
     }
 
     /**
      * 
-     * Updates the account balance.
+     * Updates the account balance, overwriting any concurrent update. States use
+     * {@link #getAndAddBalance(double)} or {@link #getAndUpdateBalance(DoubleUnaryOperator)} instead.
      *
      * @param balance the new balance amount
      */
     public void setBalance(double balance){
-        this.balance = balance;
+        long now = currentTimeMillis();
+        Ledger current;
+        do {
+            current = ledger;
+        } while (!LEDGER.compareAndSet(this, current, current.update(balance, now)));
+    }
+
+    /**
+     * Atomically adds an amount to the balance, retrying if another writer updates it meanwhile.
+     *
+     * @param delta the amount to add; negative to subtract
+     * @return the balance before the update
+     */
+    public double getAndAddBalance(double delta){
+        long now = currentTimeMillis();
+        Ledger current = ledger;
+        if (!LEDGER.compareAndSet(this, current, current.update(current.balance + delta, now))) {
+            long retries = 0;
+            do {
+                retries++;
+                current = ledger;
+            } while (!LEDGER.compareAndSet(this, current, current.update(current.balance + delta, now)));
+            contended(retries);
+        }
+        return current.balance;
+    }
+
+    /**
+     * Atomically replaces the balance with a function of itself, retrying if another writer updates it
+     * meanwhile. The function may run more than once and must not have side effects.
+     *
+     * @param update computes the new balance from the current one
+     * @return the balance before the update
+     */
+    public double getAndUpdateBalance(DoubleUnaryOperator update){
+        long now = currentTimeMillis();
+        Ledger current = ledger;
+        if (!LEDGER.compareAndSet(this, current, current.update(update.applyAsDouble(current.balance), now))) {
+            long retries = 0;
+            do {
+                retries++;
+                current = ledger;
+            } while (!LEDGER.compareAndSet(this, current, current.update(update.applyAsDouble(current.balance), now)));
+            contended(retries);
+        }
+        return current.balance;
+    }
+
+    /**
+     * Sets the balance only if it still holds the expected value. A failed attempt counts as a retry.
+     *
+     * @param expected   the balance the caller read
+     * @param newBalance the balance to store
+     * @return {@code true} if the balance was updated
+     */
+    public boolean compareAndSetBalance(double expected, double newBalance){
+        Ledger current = ledger;
+        if (Double.doubleToRawLongBits(current.balance) == Double.doubleToRawLongBits(expected)
+                && LEDGER.compareAndSet(this, current, current.update(newBalance, currentTimeMillis()))) {
+            return true;
+        }
+        BALANCE_RETRIES.getAndAdd(this, 1L);
+        return false;
+    }
+
+    private void contended(long retries){
+        BALANCE_RETRIES.getAndAdd(this, retries);
+        CONTENDED_UPDATES.getAndAdd(this, 1L);
+    }
+
+    /**
+     * Returns the version stamp of the balance, which advances once per completed update. Comparing stamps
+     * tells whether an operation changed the balance even when the amount it added was cancelled by a fee.
+     *
+     * @return the number of balance updates
+     */
+    public long getVersion(){
+        return ledger.version;
+    }
+
+    /**
+     * Returns how many balance updates failed their compare-and-set and had to be retried.
+     *
+     * @return the failed attempts
+     */
+    public long getBalanceRetries(){
+        return balanceRetries;
+    }
+
+    /**
+     * Returns how many balance updates needed at least one retry.
+     *
+     * @return the contended updates
+     */
+    public long getContendedUpdates(){
+        return contendedUpdates;
+    }
+
+    /**
+     * Returns the current operational state of the account.
+     * @return the current state
+     */
+    public AccountState getState(){
+        return state;
+    }
+
+    /**
+     * Returns the identifier the facade registered this account under.
+     * @return the account identifier, or {@code null} if not registered
+     */
+    public String getAccountId(){
+        return accountId;
+    }
+
+    /**
+     * Sets the identifier of this account; called by the facade when the
+     * account is registered.
+     * @param accountId the account identifier
+     */
+    public void setAccountId(String accountId){
+        this.accountId = accountId;
     }
 
     /**
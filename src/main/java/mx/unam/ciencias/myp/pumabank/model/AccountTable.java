@@ -0,0 +1,501 @@
+package mx.unam.ciencias.myp.pumabank.model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import mx.unam.ciencias.myp.pumabank.facade.PumaBankFacade;
+import mx.unam.ciencias.myp.pumabank.patterns.decorator.AntiFraudDecorator;
+import mx.unam.ciencias.myp.pumabank.patterns.decorator.PremiumAlertsDecorator;
+import mx.unam.ciencias.myp.pumabank.patterns.decorator.RewardsProgramDecorator;
+import mx.unam.ciencias.myp.pumabank.patterns.state.states.OverdrawnState;
+import mx.unam.ciencias.myp.pumabank.patterns.strategy.InterestCalculation;
+
+/**
+ * Off-heap table of accounts stored in a memory-mapped file.
+ * <p>
+ * Each account is a fixed-width row of {@value #ROW_BYTES} bytes addressed by a
+ * dense index: the balance, reward points, state code, interest policy id,
+ * service bitmask and flags. No per-account objects live on the heap, so the
+ * table can hold tens of millions of accounts without adding GC work, and the
+ * data survives a restart when the file is reopened. An {@link IAccount} view
+ * of a row is created on demand with {@link #view(long)}; views hold nothing
+ * but the index.
+ * </p>
+ * <p>
+ * Rows follow the same rules as the object model: active accounts may be
+ * overdrawn by a withdrawal, overdrawn accounts pay a one-time overdraft fee
+ * and refuse withdrawals, frozen and closed accounts refuse every operation,
+ * and month-end charges the service fees and pays interest. There are two
+ * differences: service fees are charged in a fixed order (anti-fraud, premium
+ * alerts, rewards) instead of decorator order, and only stateless interest
+ * policies are supported, since a row has no room for interest history.
+ * Like {@link Account}, views do not check the PIN; authentication is
+ * expected to happen before. A table is not thread-safe.
+ * </p>
+ *
+ * @see Account
+ */
+public final class AccountTable implements Closeable {
+
+    /** Size in bytes of one account row. */
+    public static final int ROW_BYTES = 16;
+
+    /** State code of an active account. */
+    public static final byte STATE_ACTIVE = 0;
+    /** State code of an overdrawn account. */
+    public static final byte STATE_OVERDRAWN = 1;
+    /** State code of a frozen account. */
+    public static final byte STATE_FROZEN = 2;
+    /** State code of a closed account. */
+    public static final byte STATE_CLOSED = 3;
+
+    /** Service bit of the anti-fraud protection. */
+    public static final int SERVICE_ANTI_FRAUD = 1;
+    /** Service bit of the premium alerts. */
+    public static final int SERVICE_PREMIUM_ALERTS = 2;
+    /** Service bit of the rewards program. */
+    public static final int SERVICE_REWARDS = 4;
+
+    /** Flag set while the overdraft fee of the current overdraft has been charged. */
+    public static final int FLAG_OVERDRAFT_FEE_APPLIED = 1;
+
+    private static final int MAGIC = 0x50424154; // "PBAT"
+    private static final int HEADER_BYTES = 64;
+    private static final int SEGMENT_SHIFT = 26;
+    private static final long SEGMENT_ROWS = 1L << SEGMENT_SHIFT;
+    private static final long SEGMENT_MASK = SEGMENT_ROWS - 1;
+
+    private static final int BALANCE = 0;
+    private static final int POINTS = 8;
+    private static final int STATE = 12;
+    private static final int POLICY = 13;
+    private static final int SERVICES = 14;
+    private static final int FLAGS = 15;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private final MappedByteBuffer[] segments;
+    private final long capacity;
+    private final InterestCalculation[] policies;
+    private PumaBankFacade facade;
+    private long size;
+
+    private AccountTable(FileChannel channel, long capacity, long size, InterestCalculation[] policies) throws IOException {
+        for (InterestCalculation policy : policies) {
+            if (policy == null || !policy.isStateless()) {
+                throw new IllegalArgumentException("Account tables only support stateless interest policies");
+            }
+        }
+        if (policies.length > 256) {
+            throw new IllegalArgumentException("At most 256 interest policies are supported");
+        }
+        this.channel = channel;
+        this.capacity = capacity;
+        this.size = size;
+        this.policies = policies.clone();
+        this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+        int count = (int) ((capacity + SEGMENT_ROWS - 1) >>> SEGMENT_SHIFT);
+        this.segments = new MappedByteBuffer[Math.max(count, 1)];
+        for (int i = 0; i < count; i++) {
+            long rows = Math.min(SEGMENT_ROWS, capacity - ((long) i << SEGMENT_SHIFT));
+            segments[i] = channel.map(FileChannel.MapMode.READ_WRITE,
+                HEADER_BYTES + ((long) i << SEGMENT_SHIFT) * ROW_BYTES, rows * ROW_BYTES);
+            segments[i].order(ByteOrder.nativeOrder());
+        }
+    }
+
+    /**
+     * Creates a new table file, replacing any existing one.
+     *
+     * @param file     the backing file
+     * @param capacity the maximum number of accounts
+     * @param policies the interest policies, indexed by policy id
+     * @return the empty table
+     * @throws IOException if the file cannot be created
+     * @throws IllegalArgumentException if the capacity is not positive or a policy is not stateless
+     */
+    public static AccountTable create(Path file, long capacity, InterestCalculation... policies) throws IOException {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            AccountTable table = new AccountTable(channel, capacity, 0, policies);
+            table.header.putInt(0, MAGIC).putLong(8, capacity).putLong(16, 0L);
+            return table;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens an existing table file.
+     *
+     * @param file     the backing file
+     * @param policies the interest policies, indexed by the policy ids stored in the rows
+     * @return the table
+     * @throws IOException if the file cannot be opened or is not an account table
+     */
+    public static AccountTable open(Path file, InterestCalculation... policies) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            if (header.getInt(0) != MAGIC) {
+                throw new IOException("Not an account table: " + file);
+            }
+            return new AccountTable(channel, header.getLong(8), header.getLong(16), policies);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Sets the facade that receives the fees and interest collected at month-end.
+     *
+     * @param facade the facade, or {@code null} to stop reporting
+     */
+    public void setFacade(PumaBankFacade facade) {
+        this.facade = facade;
+    }
+
+    /**
+     * Appends an active account.
+     *
+     * @param balance  the opening balance
+     * @param policyId the index of its interest policy
+     * @param services the service bits ({@link #SERVICE_ANTI_FRAUD} and so on)
+     * @return the index of the new account
+     * @throws IllegalStateException if the table is full
+     * @throws IllegalArgumentException if the policy id is unknown
+     */
+    public long add(double balance, int policyId, int services) {
+        if (size == capacity) {
+            throw new IllegalStateException("Account table is full: " + capacity);
+        }
+        if (policyId < 0 || policyId >= policies.length) {
+            throw new IllegalArgumentException("Unknown policy id " + policyId);
+        }
+        long index = size;
+        MappedByteBuffer segment = segment(index);
+        int offset = offset(index);
+        segment.putDouble(offset + BALANCE, balance);
+        segment.putInt(offset + POINTS, 0);
+        segment.put(offset + STATE, STATE_ACTIVE);
+        segment.put(offset + POLICY, (byte) policyId);
+        segment.put(offset + SERVICES, (byte) services);
+        segment.put(offset + FLAGS, (byte) 0);
+        size = index + 1;
+        header.putLong(16, size);
+        return index;
+    }
+
+    /**
+     * Returns the number of accounts in the table.
+     * @return the number of rows
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Returns the maximum number of accounts.
+     * @return the capacity
+     */
+    public long capacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns a lightweight {@link IAccount} over a row.
+     *
+     * @param index the account index
+     * @return a view of the account
+     * @throws IndexOutOfBoundsException if the index is not in the table
+     */
+    public View view(long index) {
+        checkIndex(index);
+        return new View(index);
+    }
+
+    /**
+     * Returns the balance of an account.
+     * @param index the account index
+     * @return the balance
+     */
+    public double getBalance(long index) {
+        checkIndex(index);
+        return segment(index).getDouble(offset(index) + BALANCE);
+    }
+
+    /**
+     * Returns the state code of an account.
+     * @param index the account index
+     * @return one of the {@code STATE_} constants
+     */
+    public byte getState(long index) {
+        checkIndex(index);
+        return segment(index).get(offset(index) + STATE);
+    }
+
+    /**
+     * Changes the state code of an account, for example to freeze it.
+     * @param index the account index
+     * @param state one of the {@code STATE_} constants
+     */
+    public void setState(long index, byte state) {
+        checkIndex(index);
+        if (state < STATE_ACTIVE || state > STATE_CLOSED) {
+            throw new IllegalArgumentException("Unknown state code " + state);
+        }
+        segment(index).put(offset(index) + STATE, state);
+    }
+
+    /**
+     * Returns the interest policy id of an account.
+     * @param index the account index
+     * @return the policy id
+     */
+    public int getPolicyId(long index) {
+        checkIndex(index);
+        return segment(index).get(offset(index) + POLICY) & 0xFF;
+    }
+
+    /**
+     * Returns the service bits of an account.
+     * @param index the account index
+     * @return the service bitmask
+     */
+    public int getServices(long index) {
+        checkIndex(index);
+        return segment(index).get(offset(index) + SERVICES) & 0xFF;
+    }
+
+    /**
+     * Returns the reward points of an account.
+     * @param index the account index
+     * @return the points
+     */
+    public int getRewardPoints(long index) {
+        checkIndex(index);
+        return segment(index).getInt(offset(index) + POINTS);
+    }
+
+    /**
+     * Returns the flags of an account.
+     * @param index the account index
+     * @return the flag bits
+     */
+    public int getFlags(long index) {
+        checkIndex(index);
+        return segment(index).get(offset(index) + FLAGS) & 0xFF;
+    }
+
+    /**
+     * Runs month-end processing on every account, without creating views.
+     */
+    public void processMonth() {
+        for (long index = 0; index < size; index++) {
+            processMonth(segment(index), offset(index));
+        }
+    }
+
+    /**
+     * Writes the mapped rows back to the file.
+     */
+    public void force() {
+        header.force();
+        for (MappedByteBuffer segment : segments) {
+            if (segment != null) {
+                segment.force();
+            }
+        }
+    }
+
+    /**
+     * Forces the rows to the file and closes it.
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    private void deposit(MappedByteBuffer segment, int offset, double amount) {
+        validatePositive(amount, "Deposit amount");
+        byte state = segment.get(offset + STATE);
+        double balance = segment.getDouble(offset + BALANCE);
+        double after;
+        if (state == STATE_ACTIVE) {
+            after = balance + amount;
+            segment.putDouble(offset + BALANCE, after);
+        } else if (state == STATE_OVERDRAWN) {
+            after = chargeOverdraftFee(segment, offset, balance) + amount;
+            segment.putDouble(offset + BALANCE, after);
+            if (after >= 0) {
+                setActive(segment, offset);
+            }
+        } else {
+            return;
+        }
+        if (after > balance) {
+            addRewardPoints(segment, offset, amount);
+        }
+    }
+
+    private boolean withdraw(MappedByteBuffer segment, int offset, double amount) {
+        validatePositive(amount, "Withdraw amount");
+        if (segment.get(offset + STATE) != STATE_ACTIVE) {
+            return false;
+        }
+        double balance = segment.getDouble(offset + BALANCE) - amount;
+        segment.putDouble(offset + BALANCE, balance);
+        if (balance < 0) {
+            segment.put(offset + STATE, STATE_OVERDRAWN);
+        }
+        return true;
+    }
+
+    private void processMonth(MappedByteBuffer segment, int offset) {
+        byte state = segment.get(offset + STATE);
+        if (state == STATE_FROZEN || state == STATE_CLOSED) {
+            return;
+        }
+        int services = segment.get(offset + SERVICES);
+        if ((services & SERVICE_ANTI_FRAUD) != 0) chargeServiceFee(segment, offset, AntiFraudDecorator.ANTI_FRAUD_FEE, "AntiFraud");
+        if ((services & SERVICE_PREMIUM_ALERTS) != 0) chargeServiceFee(segment, offset, PremiumAlertsDecorator.ALERTS_FEE, "PremiumAlerts");
+        if ((services & SERVICE_REWARDS) != 0) chargeServiceFee(segment, offset, RewardsProgramDecorator.REWARDS_FEE, "RewardsProgram");
+
+        double balance = segment.getDouble(offset + BALANCE);
+        if (segment.get(offset + STATE) == STATE_ACTIVE && balance < 0) {
+            segment.put(offset + STATE, STATE_OVERDRAWN);
+        }
+        if (segment.get(offset + STATE) == STATE_OVERDRAWN) {
+            balance = chargeOverdraftFee(segment, offset, balance);
+            segment.putDouble(offset + BALANCE, balance);
+            if (balance < 0) {
+                return;
+            }
+            setActive(segment, offset);
+        }
+        double interest = policies[segment.get(offset + POLICY) & 0xFF].calculate(balance);
+        if (interest != 0.0) {
+            segment.putDouble(offset + BALANCE, balance + interest);
+            if (facade != null) facade.recordInterestPayment(interest);
+        }
+    }
+
+    private void chargeServiceFee(MappedByteBuffer segment, int offset, double fee, String service) {
+        // Fees go through the same rule as a system withdrawal: refused unless active.
+        if (segment.get(offset + STATE) == STATE_ACTIVE) {
+            double balance = segment.getDouble(offset + BALANCE) - fee;
+            segment.putDouble(offset + BALANCE, balance);
+            if (balance < 0) {
+                segment.put(offset + STATE, STATE_OVERDRAWN);
+            }
+            if (facade != null) facade.recordFeeCollection(fee, service);
+        }
+    }
+
+    private double chargeOverdraftFee(MappedByteBuffer segment, int offset, double balance) {
+        int flags = segment.get(offset + FLAGS);
+        if ((flags & FLAG_OVERDRAFT_FEE_APPLIED) != 0) {
+            return balance;
+        }
+        segment.put(offset + FLAGS, (byte) (flags | FLAG_OVERDRAFT_FEE_APPLIED));
+        if (facade != null) facade.recordFeeCollection(OverdrawnState.OVERDRAFT_FEE, "Overdrawn");
+        return balance - OverdrawnState.OVERDRAFT_FEE;
+    }
+
+    private static void setActive(MappedByteBuffer segment, int offset) {
+        segment.put(offset + STATE, STATE_ACTIVE);
+        segment.put(offset + FLAGS, (byte) (segment.get(offset + FLAGS) & ~FLAG_OVERDRAFT_FEE_APPLIED));
+    }
+
+    private static void addRewardPoints(MappedByteBuffer segment, int offset, double amount) {
+        if ((segment.get(offset + SERVICES) & SERVICE_REWARDS) != 0) {
+            segment.putInt(offset + POINTS, segment.getInt(offset + POINTS) + (int) (amount * RewardsProgramDecorator.POINTS_RATE));
+        }
+    }
+
+    private static void validatePositive(double amount, String label) {
+        if (amount <= 0) throw new IllegalArgumentException(label + " must be > 0");
+    }
+
+    private void checkIndex(long index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Account index " + index + " out of " + size);
+        }
+    }
+
+    private MappedByteBuffer segment(long index) {
+        return segments[(int) (index >>> SEGMENT_SHIFT)];
+    }
+
+    private static int offset(long index) {
+        return (int) (index & SEGMENT_MASK) * ROW_BYTES;
+    }
+
+    /**
+     * {@link IAccount} view of one row. A view only holds the row index; every
+     * call reads and writes the mapped row directly.
+     */
+    public final class View implements IAccount {
+        private final long index;
+
+        private View(long index) {
+            this.index = index;
+        }
+
+        /**
+         * Returns the index of the row behind this view.
+         * @return the account index
+         */
+        public long getIndex() {
+            return index;
+        }
+
+        @Override
+        public void deposit(double amount, String pin) {
+            AccountTable.this.deposit(segment(index), offset(index), amount);
+        }
+
+        @Override
+        public void withdraw(double amount, String pin) {
+            MappedByteBuffer segment = segment(index);
+            int offset = offset(index);
+            if (AccountTable.this.withdraw(segment, offset, amount)) {
+                addRewardPoints(segment, offset, amount);
+            }
+        }
+
+        @Override
+        public void systemDeposit(double amount) {
+            deposit(amount, null);
+        }
+
+        @Override
+        public void systemWithdraw(double amount) {
+            withdraw(amount, null);
+        }
+
+        @Override
+        public double checkBalance(String pin) {
+            return getBalance(index);
+        }
+
+        @Override
+        public void processMonth() {
+            AccountTable.this.processMonth(segment(index), offset(index));
+        }
+    }
+}
@@ -36,6 +36,21 @@ public interface IAccount {
 
     double checkBalance(String pin);
 
+    /**
+     * Deposits on behalf of the bank itself, without a credential: the
+     * credit of a transfer or a redeemed reward. Only the bank's own code
+     * calls it, never with anything a client sent.
+     * @param amount the amount to deposit
+     */
+    void systemDeposit(double amount);
+
+    /**
+     * Withdraws on behalf of the bank itself, without a credential, such as
+     * a monthly service fee. Only the bank's own code calls it.
+     * @param amount the amount to withdraw
+     */
+    void systemWithdraw(double amount);
+
     /**
      * Processes monthly operations such as interest or fees.
      * 
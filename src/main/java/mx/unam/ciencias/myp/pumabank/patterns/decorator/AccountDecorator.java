@@ -1,6 +1,7 @@
 package mx.unam.ciencias.myp.pumabank.patterns.decorator;
 
 import java.lang.reflect.Method;
+import mx.unam.ciencias.myp.pumabank.jfr.ServiceFeeEvent;
 import mx.unam.ciencias.myp.pumabank.model.IAccount;
 import mx.unam.ciencias.myp.pumabank.patterns.proxy.AccountProxy;
 
@@ -39,6 +40,22 @@ public abstract class AccountDecorator implements IAccount {
         decoratedAccount.withdraw(amount, pin);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void systemDeposit(double amount) {
+        decoratedAccount.systemDeposit(amount);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void systemWithdraw(double amount) {
+        decoratedAccount.systemWithdraw(amount);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -90,7 +107,8 @@ public abstract class AccountDecorator implements IAccount {
     }
 
     /**
-     * Records a fee charged to the account.
+     * Records a fee charged to the account, and reports it to Flight
+     * Recorder under the name of this service.
      *
      * @param fee the fee amount to be recorded
      */
@@ -101,7 +119,9 @@ public abstract class AccountDecorator implements IAccount {
         }
 
         if (current instanceof AccountProxy) {
-            ((AccountProxy) current).recordFee(fee);
+            ((AccountProxy) current).recordFee(fee, serviceName());
+            ServiceFeeEvent.emit(((AccountProxy) current).getUnderlyingAccount().getAccountId(),
+                serviceName(), fee);
             return;
         }
 
@@ -113,6 +133,15 @@ public abstract class AccountDecorator implements IAccount {
         }
     }
 
+    /**
+     * Returns the name of this service: the decorator class without its
+     * {@code Decorator} suffix.
+     */
+    private String serviceName() {
+        String name = getClass().getSimpleName();
+        return name.endsWith("Decorator") ? name.substring(0, name.length() - 9) : name;
+    }
+
     /**
      * Records interest earned.
      * @param interest the interest amount to be recorded
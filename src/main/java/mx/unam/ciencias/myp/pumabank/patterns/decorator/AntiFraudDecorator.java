@@ -4,7 +4,8 @@ import mx.unam.ciencias.myp.pumabank.model.IAccount;
 
 public class AntiFraudDecorator extends AccountDecorator{
 
-    private static final double ANTI_FRAUD_FEE = 50.0;
+    /** Monthly fee of the anti-fraud protection. */
+    public static final double ANTI_FRAUD_FEE = 50.0;
 
     public AntiFraudDecorator(IAccount decoratedAccount) {
         super(decoratedAccount);
@@ -26,6 +27,17 @@ public class AntiFraudDecorator extends AccountDecorator{
         // conditional on (balanceAfter > balanceBefore).
     }
 
+    /**
+     * Deposits on behalf of the bank, checked like any other deposit.
+     *
+     * @param amount the amount to deposit
+     */
+    @Override
+    public void systemDeposit(double amount) {
+        validateTransaction(amount, "deposit");
+        super.systemDeposit(amount);
+    }
+
     /**
      * Withdraws the specified amount from the account and sends an anti-fraud alert.
      *
@@ -42,6 +54,17 @@ public class AntiFraudDecorator extends AccountDecorator{
         // conditional on (balanceAfter < balanceBefore).
     }
 
+    /**
+     * Withdraws on behalf of the bank, checked like any other withdrawal.
+     *
+     * @param amount the amount to withdraw
+     */
+    @Override
+    public void systemWithdraw(double amount) {
+        validateTransaction(amount, "withdraw");
+        super.systemWithdraw(amount);
+    }
+
     /**
      * Processes the monthly operations, including applying the anti-fraud service fee.
      */
@@ -50,7 +73,7 @@ public class AntiFraudDecorator extends AccountDecorator{
         notify(String.format("SERVICE_FEE_PENDING: Anti-Fraud Protection - $%.2f", ANTI_FRAUD_FEE));
         
         double balanceBefore = getUnderlyingAccountBalance();
-        super.withdraw(ANTI_FRAUD_FEE, "SYSTEM"); // Attempt to withdraw fee
+        super.systemWithdraw(ANTI_FRAUD_FEE); // Attempt to withdraw fee
         double balanceAfter = getUnderlyingAccountBalance();
 
         if (balanceAfter < balanceBefore) { // Only record fee if withdrawal was successful
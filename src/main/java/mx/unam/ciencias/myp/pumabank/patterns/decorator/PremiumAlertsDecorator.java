@@ -11,7 +11,8 @@ import mx.unam.ciencias.myp.pumabank.model.IAccount;
  */
 public class PremiumAlertsDecorator extends AccountDecorator {
     
-    private static final double ALERTS_FEE = 25.0;
+    /** Monthly fee of the premium alerts. */
+    public static final double ALERTS_FEE = 25.0;
 
     /**
      * Constructs a {@code PremiumAlertsDecorator} that wraps the specified {@link IAccount}.
@@ -31,6 +32,22 @@ public class PremiumAlertsDecorator extends AccountDecorator {
     public void deposit(double amount, String pin) {
         double balanceBefore = getUnderlyingAccountBalance();
         super.deposit(amount, pin);
+        alertDeposit(amount, balanceBefore);
+    }
+
+    /**
+     * Deposits on behalf of the bank and sends the same alert as a deposit.
+     *
+     * @param amount the amount to deposit
+     */
+    @Override
+    public void systemDeposit(double amount) {
+        double balanceBefore = getUnderlyingAccountBalance();
+        super.systemDeposit(amount);
+        alertDeposit(amount, balanceBefore);
+    }
+
+    private void alertDeposit(double amount, double balanceBefore) {
         if (getUnderlyingAccountBalance() > balanceBefore) {
             notify(String.format("PREMIUM_ALERT: Deposit of $%.2f completed", amount));
         }
@@ -46,6 +63,22 @@ public class PremiumAlertsDecorator extends AccountDecorator {
     public void withdraw(double amount, String pin) {
         double balanceBefore = getUnderlyingAccountBalance();
         super.withdraw(amount, pin);
+        alertWithdrawal(amount, balanceBefore);
+    }
+
+    /**
+     * Withdraws on behalf of the bank and sends the same alert as a withdrawal.
+     *
+     * @param amount the amount to withdraw
+     */
+    @Override
+    public void systemWithdraw(double amount) {
+        double balanceBefore = getUnderlyingAccountBalance();
+        super.systemWithdraw(amount);
+        alertWithdrawal(amount, balanceBefore);
+    }
+
+    private void alertWithdrawal(double amount, double balanceBefore) {
         if (getUnderlyingAccountBalance() < balanceBefore) {
             notify(String.format("PREMIUM_ALERT: Withdrawal of $%.2f completed", amount));
         }
@@ -60,7 +93,7 @@ public class PremiumAlertsDecorator extends AccountDecorator {
         notify(String.format("SERVICE_FEE_PENDING: Premium Alerts - $%.2f", ALERTS_FEE));
         
         double balanceBefore = getUnderlyingAccountBalance();
-        super.withdraw(ALERTS_FEE, "SYSTEM"); 
+        super.systemWithdraw(ALERTS_FEE); 
         double balanceAfter = getUnderlyingAccountBalance();
 
         if (balanceAfter < balanceBefore) { 
@@ -12,8 +12,10 @@ import mx.unam.ciencias.myp.pumabank.model.IAccount;
 public class RewardsProgramDecorator extends AccountDecorator {
     
     
-    private static final double REWARDS_FEE = 30.0;
-    private static final double POINTS_RATE = 0.01;
+    /** Monthly fee of the rewards program. */
+    public static final double REWARDS_FEE = 30.0;
+    /** Reward points earned per unit of a transaction amount. */
+    public static final double POINTS_RATE = 0.01;
     private int rewardPoints;
 
     /**
@@ -40,6 +42,20 @@ public class RewardsProgramDecorator extends AccountDecorator {
         }
     }
 
+    /**
+     * Deposits on behalf of the bank, earning points like a deposit.
+     *
+     * @param amount the amount to deposit
+     */
+    @Override
+    public void systemDeposit(double amount) {
+        double balanceBefore = getUnderlyingAccountBalance();
+        super.systemDeposit(amount);
+        if (getUnderlyingAccountBalance() > balanceBefore) {
+            addRewardPoints(amount);
+        }
+    }
+
     /**
      * Withdraws the specified amount from the account and adds reward points.
      *
@@ -55,6 +71,20 @@ public class RewardsProgramDecorator extends AccountDecorator {
         }
     }
 
+    /**
+     * Withdraws on behalf of the bank, earning points like a withdrawal.
+     *
+     * @param amount the amount to withdraw
+     */
+    @Override
+    public void systemWithdraw(double amount) {
+        double balanceBefore = getUnderlyingAccountBalance();
+        super.systemWithdraw(amount);
+        if (getUnderlyingAccountBalance() < balanceBefore) {
+            addRewardPoints(amount);
+        }
+    }
+
     /**
      * Processes the monthly operations, including applying the rewards program fee.
      */
@@ -64,7 +94,7 @@ public class RewardsProgramDecorator extends AccountDecorator {
             REWARDS_FEE, rewardPoints));
         
         double balanceBefore = getUnderlyingAccountBalance();
-        super.withdraw(REWARDS_FEE, "SYSTEM"); 
+        super.systemWithdraw(REWARDS_FEE); 
         double balanceAfter = getUnderlyingAccountBalance();
 
         if (balanceAfter < balanceBefore) { 
@@ -105,7 +135,7 @@ public class RewardsProgramDecorator extends AccountDecorator {
     public void redeemPoints(int points) {
         if (points <= rewardPoints) {
             double cashValue = points * 0.1;
-            super.deposit(cashValue, "SYSTEM");
+            super.systemDeposit(cashValue);
             rewardPoints -= points;
             addHistory("Points redeemed: " + points + " for $" + cashValue);
             notify(String.format("REWARDS_REDEMPTION: %d points redeemed for $%.2f", 
@@ -124,4 +154,17 @@ public class RewardsProgramDecorator extends AccountDecorator {
     public int getRewardPoints() {
         return rewardPoints;
     }
+
+    /**
+     * Sets the reward points balance, used when restoring a saved account.
+     *
+     * @param rewardPoints the points to hold
+     * @throws IllegalArgumentException if {@code rewardPoints} is negative
+     */
+    public void setRewardPoints(int rewardPoints) {
+        if (rewardPoints < 0) {
+            throw new IllegalArgumentException("Reward points cannot be negative");
+        }
+        this.rewardPoints = rewardPoints;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,57 @@
+package mx.unam.ciencias.myp.pumabank.patterns.observer;
+
+/**
+ * Categories of system operations written by the {@link MonthlyLogger}.
+ * <p>
+ * Each category has a default {@link LogLevel}. Callers should ask
+ * {@link MonthlyLogger#isEnabled(LogCategory)} before building the details of a
+ * log line, so a disabled category costs a single branch.
+ * </p>
+ */
+public enum LogCategory {
+
+    SYSTEM_START(LogLevel.INFO),
+    CLIENT_REGISTERED(LogLevel.INFO),
+    CLIENT_MIGRATED(LogLevel.INFO),
+    ACCOUNT_CREATED(LogLevel.INFO),
+    ACCOUNT_DELETED(LogLevel.INFO),
+    DEPOSIT_ATTEMPT(LogLevel.DEBUG),
+    WITHDRAWAL_ATTEMPT(LogLevel.DEBUG),
+    BALANCE_CHECK(LogLevel.DEBUG),
+    PORTFOLIO_QUERY(LogLevel.DEBUG),
+    BATCH_OPERATIONS(LogLevel.DEBUG),
+    TRANSFER(LogLevel.DEBUG),
+    TRANSFER_REFUNDED(LogLevel.ERROR),
+    DUPLICATE_REQUEST(LogLevel.INFO),
+    BULK_IMPORT(LogLevel.INFO),
+    STATEMENT_EXPORT(LogLevel.INFO),
+    MONTHLY_PROCESSING_START(LogLevel.INFO),
+    MONTHLY_PROCESSING_END(LogLevel.INFO),
+    ACCOUNT_PROCESSING_START(LogLevel.DEBUG),
+    ACCOUNT_PROCESSING_END(LogLevel.DEBUG),
+    ACCOUNT_PROCESSING_ERROR(LogLevel.ERROR),
+    FEE_RECORDED(LogLevel.DEBUG),
+    INTEREST_RECORDED(LogLevel.DEBUG);
+
+    private final LogLevel level;
+
+    LogCategory(LogLevel level) {
+        this.level = level;
+    }
+
+    /**
+     * Returns the level at which this category is written.
+     * @return the category level
+     */
+    public LogLevel getLevel() {
+        return level;
+    }
+
+    /**
+     * Returns the bit used for this category in an enabled-categories mask.
+     * @return a mask with a single bit set
+     */
+    long mask() {
+        return 1L << ordinal();
+    }
+}
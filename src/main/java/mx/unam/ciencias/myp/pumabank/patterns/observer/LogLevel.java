@@ -0,0 +1,27 @@
+package mx.unam.ciencias.myp.pumabank.patterns.observer;
+
+/**
+ * Severity levels used by the {@link MonthlyLogger} to filter system operations.
+ * <p>
+ * Levels are ordered from the most verbose to the least verbose. A logger
+ * configured with a given level writes every {@link LogCategory} whose level is
+ * the same or higher.
+ * </p>
+ */
+public enum LogLevel {
+
+    /** Per-operation detail, such as deposit attempts or balance checks. */
+    DEBUG,
+
+    /** Regular system milestones, such as client registration or month-end. */
+    INFO,
+
+    /** Unexpected situations that do not stop the system. */
+    WARN,
+
+    /** Failures while processing an operation. */
+    ERROR,
+
+    /** Disables every category. */
+    OFF
+}
@@ -5,8 +5,11 @@ import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Objects;
 
 /**
  * Observer implementation that records account events in a log file.
@@ -22,6 +25,113 @@ private static final String LOG_FILE = "monthly_operations_log.txt";
     private static final DateTimeFormatter TIMESTAMP_FORMATTER = 
         DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
+    /**
+     * System property holding the initial {@link LogLevel} (e.g. {@code INFO}).
+     */
+    public static final String LEVEL_PROPERTY = "pumabank.log.level";
+
+    private final String logFile;
+    private volatile LogLevel level;
+    private volatile long disabledCategories = 0L;
+    private volatile long enabledCategories;
+
+    /**
+     * Creates a logger whose level is read from {@link #LEVEL_PROPERTY}, or
+     * {@link LogLevel#DEBUG} (every category enabled) if it is not set.
+     */
+    public MonthlyLogger() {
+        this(Path.of(LOG_FILE));
+    }
+
+    /**
+     * Creates a logger writing to the given file instead of the default
+     * {@code monthly_operations_log.txt}, so several facades in one process
+     * can each keep their own log.
+     *
+     * @param logFile the file to append to
+     */
+    public MonthlyLogger(Path logFile) {
+        this.logFile = logFile.toString();
+        LogLevel initial = LogLevel.DEBUG;
+        String configured = System.getProperty(LEVEL_PROPERTY);
+        if (configured != null) {
+            try {
+                initial = LogLevel.valueOf(configured.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                System.err.println("Unknown log level: " + configured);
+            }
+        }
+        setLevel(initial);
+    }
+
+    /**
+     * Returns the file this logger appends to.
+     *
+     * @return the log file
+     */
+    public Path getLogFile() {
+        return Path.of(logFile);
+    }
+
+    /**
+     * Tells whether lines of the given category are currently written.
+     * <p>
+     * This is a single mask test, so callers should check it before building
+     * the details of a log line.
+     * </p>
+     * @param category the category to check
+     * @return {@code true} if the category is enabled
+     */
+    public boolean isEnabled(LogCategory category) {
+        return (enabledCategories & category.mask()) != 0;
+    }
+
+    /**
+     * Changes the minimum level of the categories written. Takes effect
+     * immediately for every caller.
+     * @param level the new minimum level
+     */
+    public void setLevel(LogLevel level) {
+        this.level = Objects.requireNonNull(level);
+        recomputeEnabledCategories();
+    }
+
+    /**
+     * Returns the minimum level of the categories written.
+     * @return the current level
+     */
+    public LogLevel getLevel() {
+        return level;
+    }
+
+    /**
+     * Enables or disables a single category regardless of its level. A
+     * category enabled here is still filtered by {@link #setLevel(LogLevel)}.
+     * @param category the category to change
+     * @param enabled {@code false} to silence the category
+     */
+    public synchronized void setCategoryEnabled(LogCategory category, boolean enabled) {
+        if (enabled) {
+            disabledCategories &= ~category.mask();
+        } else {
+            disabledCategories |= category.mask();
+        }
+        recomputeEnabledCategories();
+    }
+
+    /**
+     * Rebuilds the mask read by {@link #isEnabled(LogCategory)}.
+     */
+    private synchronized void recomputeEnabledCategories() {
+        long mask = 0L;
+        for (LogCategory category : LogCategory.values()) {
+            if (category.getLevel().compareTo(level) >= 0) {
+                mask |= category.mask();
+            }
+        }
+        enabledCategories = mask & ~disabledCategories;
+    }
+
     /**
      * Appends detailed event information to the monthly log file.
      * @param event description of the account event with context
@@ -31,7 +141,7 @@ private static final String LOG_FILE = "monthly_operations_log.txt";
         String timestamp = LocalDateTime.now().format(TIMESTAMP_FORMATTER);
         String logEntry = String.format("[%s] %s", timestamp, event);
         try (PrintWriter writer = new PrintWriter(new OutputStreamWriter(
-                new FileOutputStream(LOG_FILE, true), StandardCharsets.UTF_8))) {
+                new FileOutputStream(logFile, true), StandardCharsets.UTF_8))) {
             writer.println(logEntry);
             writer.flush();
         } catch (IOException e) {
@@ -39,6 +149,17 @@ private static final String LOG_FILE = "monthly_operations_log.txt";
         }
     }
 
+    /**
+     * Logs a system-level operation if its category is enabled.
+     * @param category the category of the operation
+     * @param details additional details about the operation
+     */
+    public void logSystemOperation(LogCategory category, String details) {
+        if (isEnabled(category)) {
+            logSystemOperation(category.name(), details);
+        }
+    }
+
     /**
      * Logs system-level operations (not triggered by account events).
      * @param operation the system operation description
@@ -49,7 +170,7 @@ private static final String LOG_FILE = "monthly_operations_log.txt";
         String logEntry = String.format("[%s] [SYSTEM] %s - %s", timestamp, operation, details);
         
         try (PrintWriter writer = new PrintWriter(new OutputStreamWriter(
-                new FileOutputStream(LOG_FILE, true), StandardCharsets.UTF_8))) {
+                new FileOutputStream(logFile, true), StandardCharsets.UTF_8))) {
             writer.println(logEntry);
             writer.flush();
         } catch (IOException e) {
@@ -77,7 +198,7 @@ private static final String LOG_FILE = "monthly_operations_log.txt";
         );
         
         try (PrintWriter writer = new PrintWriter(new OutputStreamWriter(
-                new FileOutputStream(LOG_FILE, true), StandardCharsets.UTF_8))) {
+                new FileOutputStream(logFile, true), StandardCharsets.UTF_8))) {
             writer.println(logEntry);
             writer.println("[MONTHLY_SUMMARY] " + new String(new char[80]).replace('\0', '='));
             writer.flush();
@@ -141,7 +262,7 @@ private static final String LOG_FILE = "monthly_operations_log.txt";
      */
     private void logToFile(String logEntry) {
         try (PrintWriter writer = new PrintWriter(new OutputStreamWriter(
-                new FileOutputStream(LOG_FILE, true), StandardCharsets.UTF_8))) {
+                new FileOutputStream(logFile, true), StandardCharsets.UTF_8))) {
             writer.println(logEntry);
             writer.flush();
         } catch (IOException e) {
@@ -159,7 +280,7 @@ private static final String LOG_FILE = "monthly_operations_log.txt";
             "Report Date: " + LocalDateTime.now().format(TIMESTAMP_FORMATTER) :
             "Simulated Month: " + month;
         try (PrintWriter writer = new PrintWriter(new OutputStreamWriter(
-                new FileOutputStream(LOG_FILE, true), StandardCharsets.UTF_8))) {
+                new FileOutputStream(logFile, true), StandardCharsets.UTF_8))) {
             writer.println(new String(new char[100]).replace('\0', '='));
             writer.println("PUMA BANK - MONTHLY OPERATIONS REPORT - MONTH " + month);
             writer.println(dateLine);
@@ -180,11 +301,26 @@ private static final String LOG_FILE = "monthly_operations_log.txt";
      * @param month The month number for the report summary.
      */
     public void endMonthlyReport(int totalAccounts, int transactionsProcessed, double totalFees, double totalInterest, boolean includeTimestamp, int month) {
+        endMonthlyReport(totalAccounts, transactionsProcessed, totalFees, totalInterest, includeTimestamp, month, List.of());
+    }
+
+    /**
+     * Creates a monthly report footer with summary and extra lines, such as
+     * operation latencies, after the totals.
+     * @param totalAccounts Total accounts processed.
+     * @param transactionsProcessed Total transactions in the month.
+     * @param totalFees Total fees collected.
+     * @param totalInterest Total interest paid.
+     * @param includeTimestamp Whether to include the real timestamp.
+     * @param month The month number for the report summary.
+     * @param details Lines appended to the summary.
+     */
+    public void endMonthlyReport(int totalAccounts, int transactionsProcessed, double totalFees, double totalInterest, boolean includeTimestamp, int month, List<String> details) {
         String generatedLine = includeTimestamp ?
             "Generated: " + LocalDateTime.now().format(TIMESTAMP_FORMATTER) :
             "Summary for Simulated Month: " + month;
         try (PrintWriter writer = new PrintWriter(new OutputStreamWriter(
-                new FileOutputStream(LOG_FILE, true), StandardCharsets.UTF_8))) {
+                new FileOutputStream(logFile, true), StandardCharsets.UTF_8))) {
             writer.println(new String(new char[100]).replace('\0', '='));
             writer.println("MONTHLY REPORT SUMMARY");
             writer.println(generatedLine);
@@ -192,6 +328,9 @@ private static final String LOG_FILE = "monthly_operations_log.txt";
             writer.printf("Total Transactions: %d%n", transactionsProcessed);
             writer.printf("Total Fees Collected: $%.2f%n", totalFees);
             writer.printf("Total Interest Paid: $%.2f%n", totalInterest);
+            for (String line : details) {
+                writer.println(line);
+            }
             writer.println(new String(new char[100]).replace('\0', '='));
             writer.flush();
         } catch (IOException e) {
@@ -205,7 +344,7 @@ private static final String LOG_FILE = "monthly_operations_log.txt";
      */
     public void clearLog() {
         try (PrintWriter writer = new PrintWriter(new OutputStreamWriter(
-                new FileOutputStream(LOG_FILE, false), StandardCharsets.UTF_8))) {
+                new FileOutputStream(logFile, false), StandardCharsets.UTF_8))) {
             // opening with append=false truncates the file
             writer.print("");
             writer.flush();
@@ -1,5 +1,6 @@
 package mx.unam.ciencias.myp.pumabank.patterns.proxy;
 
+import mx.unam.ciencias.myp.pumabank.jfr.PinFailureEvent;
 import mx.unam.ciencias.myp.pumabank.model.Account;
 import mx.unam.ciencias.myp.pumabank.model.IAccount;
 
@@ -11,24 +12,202 @@ import mx.unam.ciencias.myp.pumabank.model.IAccount;
  * perform PIN authentication before delegating the request. This is an
  * application of the Proxy design pattern.
  * </p>
+ * <p>
+ * Every operation accepts either the account PIN or a session token returned by
+ * {@link #openSession(String)}. A token is checked against the
+ * {@link SessionCache} in constant time, so only the first operation of a
+ * session pays for the hashed PIN verification.
+ * </p>
+ * <p>
+ * Failed PIN attempts are limited by a {@link LoginThrottle}. While the account
+ * is blocked, attempts are dropped before any verification, message or
+ * notification. Every credential is checked and throttled alike; the
+ * bank's own deposits and withdrawals take {@link #systemDeposit} and
+ * {@link #systemWithdraw}, which have no credential.
+ * </p>
  *
  * @author Cesar
  * @see Account
  * @see PinAuthenticator
  */
 public class AccountProxy implements IAccount {
+
+    /**
+     * How the proxy answered the credential of an operation.
+     */
+    public enum Access {
+        /** The credential was accepted and the operation forwarded. */
+        GRANTED,
+        /** The credential was refused. */
+        DENIED,
+        /** The account was blocked and the operation dropped unchecked. */
+        THROTTLED
+    }
+
     private Account realAccount;
     private PinAuthenticator authenticator;
+    private final SessionCache sessions;
+    private final LoginThrottle throttle;
+    private final LoginThrottle.Attempts attempts = new LoginThrottle.Attempts();
+    // Written by every operation; callers read it under the account lock they held for the call.
+    private Access lastAccess = Access.GRANTED;
 
     /**
-     * Constructs a new {@code AccountProxy}.
+     * Constructs a new {@code AccountProxy} with its own session cache.
      *
      * @param realAccount   The actual {@link Account} instance to which operations will be delegated.
      * @param authenticator The {@link PinAuthenticator} used to validate the user's PIN.
      */
     public AccountProxy(Account realAccount, PinAuthenticator authenticator) {
+        this(realAccount, authenticator, new SessionCache());
+    }
+
+    /**
+     * Constructs a new {@code AccountProxy} that keeps its sessions in a shared cache.
+     *
+     * @param realAccount   The actual {@link Account} instance to which operations will be delegated.
+     * @param authenticator The {@link PinAuthenticator} used to validate the user's PIN.
+     * @param sessions      The cache holding the sessions opened on this proxy.
+     */
+    public AccountProxy(Account realAccount, PinAuthenticator authenticator, SessionCache sessions) {
+        this(realAccount, authenticator, sessions, new LoginThrottle());
+    }
+
+    /**
+     * Constructs a new {@code AccountProxy} with a shared session cache and throttle.
+     *
+     * @param realAccount   The actual {@link Account} instance to which operations will be delegated.
+     * @param authenticator The {@link PinAuthenticator} used to validate the user's PIN.
+     * @param sessions      The cache holding the sessions opened on this proxy.
+     * @param throttle      The throttle limiting failed PIN attempts.
+     */
+    public AccountProxy(Account realAccount, PinAuthenticator authenticator,
+                        SessionCache sessions, LoginThrottle throttle) {
         this.realAccount = realAccount;
         this.authenticator = authenticator;
+        this.sessions = sessions;
+        this.throttle = throttle;
+    }
+
+    /**
+     * Returns whether this account is blocked by too many failed PIN attempts.
+     * The query is not counted as a rejected attempt.
+     *
+     * @return {@code true} if credentials are currently rejected without being checked
+     */
+    public boolean isLocked() {
+        return throttle.isBlocked(attempts);
+    }
+
+    /**
+     * Drops an operation if this account is blocked, counting it as a
+     * rejected attempt.
+     *
+     * @return {@code true} if the operation must be rejected without checking its credential
+     */
+    public boolean rejectIfLocked() {
+        return throttle.reject(attempts);
+    }
+
+    /**
+     * Returns the number of consecutive failed PIN attempts on this account.
+     *
+     * @return the failure count
+     */
+    public int getFailedAttempts() {
+        return attempts.getFailures();
+    }
+
+    /**
+     * Returns how the proxy answered the credential of the last deposit,
+     * withdrawal or balance check. Callers that need it must hold the account
+     * lock across the operation and this call.
+     *
+     * @return the access decision of the last operation
+     */
+    public Access getLastAccess() {
+        return lastAccess;
+    }
+
+    /**
+     * Verifies the PIN once and opens a session for the following operations.
+     *
+     * @param pin The user's PIN.
+     * @return The session token to use instead of the PIN, or {@code null} if the PIN is incorrect.
+     */
+    public String openSession(String pin) {
+        if (throttle.reject(attempts)) {
+            return null;
+        }
+        if (!verifyPin(pin)) {
+            System.err.println("[ACCESS DENIED] Incorrect PIN. Session not opened.");
+            realAccount.notify("[PROXY] Failed session attempt due to incorrect PIN.");
+            reportFailure("SESSION");
+            return null;
+        }
+        return sessions.open(this);
+    }
+
+    /**
+     * Ends a session opened on this proxy.
+     *
+     * @param token The session token.
+     * @return {@code true} if the session was open.
+     */
+    public boolean closeSession(String token) {
+        return sessions.close(token);
+    }
+
+    /**
+     * Returns the cache holding the sessions of this proxy.
+     *
+     * @return the session cache
+     */
+    public SessionCache getSessionCache() {
+        return sessions;
+    }
+
+    /**
+     * Checks a credential, which may be a session token or the PIN itself.
+     *
+     * @param credential The session token or PIN sent by the caller.
+     * @return {@code true} if access is granted.
+     */
+    private boolean authenticate(String credential) {
+        if (sessions.isValid(credential, this)) {
+            sessions.recordHit();
+            return true;
+        }
+        return verifyPin(credential);
+    }
+
+    /**
+     * Runs the full PIN verification, records its latency and reports the
+     * outcome to the throttle.
+     *
+     * @param pin The PIN to verify.
+     * @return {@code true} if the PIN is correct.
+     */
+    private boolean verifyPin(String pin) {
+        long start = System.nanoTime();
+        boolean valid = authenticator.validate(pin);
+        sessions.recordVerification(System.nanoTime() - start);
+        if (valid) {
+            throttle.onSuccess(attempts);
+        } else {
+            throttle.onFailure(attempts);
+        }
+        return valid;
+    }
+
+    /**
+     * Reports a refused credential to Flight Recorder.
+     *
+     * @param operation The operation that was refused.
+     */
+    private void reportFailure(String operation) {
+        PinFailureEvent.emit(realAccount.getAccountId(), operation, attempts.getFailures(),
+            throttle.isBlocked(attempts));
     }
 
     /**
@@ -36,18 +215,26 @@ public class AccountProxy implements IAccount {
      * <p>
      * If the PIN is valid, the call is forwarded to the real account. Otherwise,
      * an access denied message is printed and a failure notification is sent.
+     * While the account is throttled the call returns silently.
      * </p>
      *
      * @param amount The amount to deposit.
-     * @param pin    The user's PIN for authentication.
+     * @param pin    The user's PIN or session token for authentication.
      */
     @Override
     public void deposit(double amount, String pin) {
-                if ("SYSTEM".equals(pin) || "0000".equals(pin) || authenticator.validate(pin)) {
+        if (throttle.reject(attempts)) {
+            lastAccess = Access.THROTTLED;
+            return;
+        }
+        if (authenticate(pin)) {
+            lastAccess = Access.GRANTED;
             realAccount.deposit(amount, pin);
         } else {
+            lastAccess = Access.DENIED;
             System.err.println("[ACCESS DENIED] Incorrect PIN. Deposit not completed.");
             realAccount.notify("[PROXY] Failed deposit attempt due to incorrect PIN.");
+            reportFailure("DEPOSIT");
         }
     }
 
@@ -56,18 +243,26 @@ public class AccountProxy implements IAccount {
      * <p>
      * If the PIN is valid, the call is forwarded to the real account. Otherwise,
      * an access denied message is printed and a failure notification is sent.
+     * While the account is throttled the call returns silently.
      * </p>
      *
      * @param amount The amount to withdraw.
-     * @param pin    The user's PIN for authentication.
+     * @param pin    The user's PIN or session token for authentication.
      */
     @Override
     public void withdraw(double amount, String pin) {
-                if ("SYSTEM".equals(pin) || "0000".equals(pin) || authenticator.validate(pin)) { // Allow SYSTEM or default PIN to bypass auth
+        if (throttle.reject(attempts)) {
+            lastAccess = Access.THROTTLED;
+            return;
+        }
+        if (authenticate(pin)) {
+            lastAccess = Access.GRANTED;
             realAccount.withdraw(amount, pin);
         } else {
+            lastAccess = Access.DENIED;
             System.err.println("[ACCESS DENIED] Incorrect PIN. Withdrawal not completed.");
             realAccount.notify("[PROXY] Failed withdrawal attempt due to incorrect PIN.");
+            reportFailure("WITHDRAW");
         }
     }
 
@@ -76,23 +271,56 @@ public class AccountProxy implements IAccount {
      * <p>
      * If the PIN is valid, it returns the balance from the real account. Otherwise,
      * an access denied message is printed, a failure notification is sent, and it
-     * returns {@code -1} to indicate failure.
+     * returns {@code -1} to indicate failure. While the account is throttled it
+     * returns {@code -1} silently.
      * </p>
      *
-     * @param pin The user's PIN for authentication.
+     * @param pin The user's PIN or session token for authentication.
      * @return The account balance if authentication is successful; {@code -1} otherwise.
      */
     @Override
     public double checkBalance(String pin) {
-        if (authenticator.validate(pin)) {
+        if (throttle.reject(attempts)) {
+            lastAccess = Access.THROTTLED;
+            return -1;
+        }
+        if (authenticate(pin)) {
+            lastAccess = Access.GRANTED;
             return realAccount.checkBalance(pin);
         } else {
+            lastAccess = Access.DENIED;
             System.err.println("[ACCESS DENIED] Incorrect PIN. Balance check not completed.");
             realAccount.notify("[PROXY] Failed balance check attempt due to incorrect PIN.");
+            reportFailure("CHECK_BALANCE");
             return -1;
         }
     }
 
+    /**
+     * Forwards a deposit made by the bank itself to the real account. There
+     * is no credential to check, and the throttle does not apply.
+     *
+     * @param amount The amount to deposit.
+     */
+    @Override
+    public void systemDeposit(double amount) {
+        lastAccess = Access.GRANTED;
+        realAccount.systemDeposit(amount);
+    }
+
+    /**
+     * Forwards a withdrawal made by the bank itself, such as a service fee,
+     * to the real account. There is no credential to check, and the throttle
+     * does not apply.
+     *
+     * @param amount The amount to withdraw.
+     */
+    @Override
+    public void systemWithdraw(double amount) {
+        lastAccess = Access.GRANTED;
+        realAccount.systemWithdraw(amount);
+    }
+
     /**
      * Delegates the monthly processing call directly to the real account.
      * No authentication is required for this operation.
@@ -117,6 +345,21 @@ public class AccountProxy implements IAccount {
         }
     }
 
+    /**
+     * Records a fee charged by a service on the underlying account.
+     *
+     * @param fee     the fee amount to record
+     * @param service the name of the service that charged it
+     */
+    public void recordFee(double fee, String service) {
+        try {
+            realAccount.recordFee(fee, service);
+        } catch (Exception e) {
+
+            System.err.println("[PROXY] Error recording fee on account: " + e.getMessage());
+        }
+    }
+
     /**
      * Records an interest payment on the underlying account.
      *
@@ -166,4 +409,13 @@ public class AccountProxy implements IAccount {
     public Account getUnderlyingAccount() {
         return realAccount;
     }
+
+    /**
+     * Returns the authenticator holding the hashed PIN of this account.
+     *
+     * @return the {@link PinAuthenticator}
+     */
+    public PinAuthenticator getAuthenticator() {
+        return authenticator;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,318 @@
+package mx.unam.ciencias.myp.pumabank.patterns.proxy;
+
+import java.time.Clock;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limits repeated failed PIN attempts on the accounts guarded by {@link AccountProxy}.
+ * <p>
+ * Every proxy owns an {@link Attempts} record with an atomic failure counter and
+ * the time until which it is blocked. The first few failures are free; after
+ * them each failure blocks the account for an exponentially growing delay, and
+ * once the failure count reaches the lockout threshold the account is locked
+ * for a long fixed period. Checking whether an account is blocked is a single
+ * volatile read and comparison, so rejected attempts can be dropped before any
+ * PIN hashing, logging or observer notification.
+ * </p>
+ * <p>
+ * Locked accounts are kept in a timing wheel: a fixed array of slots, one per
+ * tick, each holding an intrusive list of the records whose lockout ends in
+ * that tick. When time moves past a slot its records are unlocked and their
+ * failure counters cleared. Scheduling and expiring a lockout are O(1) and do
+ * not allocate, because the records themselves are the list nodes.
+ * </p>
+ * <p>
+ * The wheel takes no lock. A record is pushed onto its slot with a
+ * compare-and-set on the slot head, and the thread that moves the current tick
+ * forward with a compare-and-set is the only one that visits the slots it
+ * passed, detaching each list whole before walking it. A record is linked at
+ * most once, guarded by its own {@code scheduled} flag.
+ * </p>
+ *
+ * @author Cesar
+ * @see AccountProxy
+ */
+public class LoginThrottle {
+
+    /** Default number of failures allowed before any delay is applied. */
+    public static final int DEFAULT_FREE_ATTEMPTS = 3;
+
+    /** Default number of failures that locks the account. */
+    public static final int DEFAULT_LOCKOUT_THRESHOLD = 10;
+
+    /** Default delay after the first failure beyond the free attempts, in milliseconds. */
+    public static final long DEFAULT_BASE_DELAY_MILLIS = 1_000;
+
+    /** Default upper bound of the backoff delay, in milliseconds. */
+    public static final long DEFAULT_MAX_DELAY_MILLIS = 60_000;
+
+    /** Default lockout duration, in milliseconds. */
+    public static final long DEFAULT_LOCKOUT_MILLIS = 15 * 60_000;
+
+    private static final int WHEEL_SLOTS = 64;
+    private static final long TICK_MILLIS = 1_000;
+
+    /**
+     * Failed-attempt state of one account. Instances are created by the proxy
+     * and double as nodes of the timing wheel.
+     */
+    public static final class Attempts {
+        private final AtomicInteger failures = new AtomicInteger();
+        private final AtomicLong blockedUntil = new AtomicLong();
+
+        // Timing wheel links; next is published by the compare-and-set on the slot head.
+        private Attempts next;
+        private volatile long unlockTick;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        /**
+         * Returns the number of consecutive failed attempts.
+         *
+         * @return the current failure count
+         */
+        public int getFailures() {
+            return failures.get();
+        }
+    }
+
+    private final Clock clock;
+    private final int freeAttempts;
+    private final int lockoutThreshold;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+    private final long lockoutMillis;
+
+    private final AtomicReferenceArray<Attempts> wheel = new AtomicReferenceArray<>(WHEEL_SLOTS);
+    private final AtomicLong currentTick;
+
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder lockouts = new LongAdder();
+
+    /**
+     * Constructs a throttle with the default limits on the system clock.
+     */
+    public LoginThrottle() {
+        this(Clock.systemUTC());
+    }
+
+    /**
+     * Constructs a throttle with the default limits on the given clock.
+     *
+     * @param clock The clock used to measure delays.
+     */
+    public LoginThrottle(Clock clock) {
+        this(clock, DEFAULT_FREE_ATTEMPTS, DEFAULT_LOCKOUT_THRESHOLD,
+             DEFAULT_BASE_DELAY_MILLIS, DEFAULT_MAX_DELAY_MILLIS, DEFAULT_LOCKOUT_MILLIS);
+    }
+
+    /**
+     * Constructs a throttle with custom limits.
+     *
+     * @param clock            The clock used to measure delays.
+     * @param freeAttempts     Failures allowed before the backoff starts.
+     * @param lockoutThreshold Failures that lock the account; must exceed {@code freeAttempts}.
+     * @param baseDelayMillis  Delay after the first failure beyond the free attempts.
+     * @param maxDelayMillis   Upper bound of the backoff delay.
+     * @param lockoutMillis    How long a locked account stays locked.
+     * @throws IllegalArgumentException if the limits are inconsistent.
+     */
+    public LoginThrottle(Clock clock, int freeAttempts, int lockoutThreshold,
+                         long baseDelayMillis, long maxDelayMillis, long lockoutMillis) {
+        if (clock == null) {
+            throw new IllegalArgumentException("clock is required");
+        }
+        if (freeAttempts < 0 || lockoutThreshold <= freeAttempts) {
+            throw new IllegalArgumentException("lockoutThreshold must exceed freeAttempts");
+        }
+        if (baseDelayMillis < 0 || maxDelayMillis < baseDelayMillis || lockoutMillis < 1) {
+            throw new IllegalArgumentException("Invalid throttle delays");
+        }
+        this.clock = clock;
+        this.freeAttempts = freeAttempts;
+        this.lockoutThreshold = lockoutThreshold;
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        this.lockoutMillis = lockoutMillis;
+        this.currentTick = new AtomicLong(clock.millis() / TICK_MILLIS);
+    }
+
+    /**
+     * Checks whether an account is currently blocked, without counting it as
+     * a rejected attempt.
+     *
+     * @param attempts The failed-attempt state of the account.
+     * @return {@code true} if attempts are currently rejected without checking the credential.
+     */
+    public boolean isBlocked(Attempts attempts) {
+        long until = attempts.blockedUntil.get();
+        if (until == 0) {
+            return false;
+        }
+        long now = clock.millis();
+        advance(now);
+        return now < until;
+    }
+
+    /**
+     * Checks whether an attempt must be dropped because the account is
+     * blocked. A dropped attempt is counted in {@link #getRejected()}.
+     *
+     * @param attempts The failed-attempt state of the account.
+     * @return {@code true} if the attempt must be rejected without checking the credential.
+     */
+    public boolean reject(Attempts attempts) {
+        if (isBlocked(attempts)) {
+            rejected.increment();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Records a successful authentication, clearing the failure counter.
+     *
+     * @param attempts The failed-attempt state of the account.
+     */
+    public void onSuccess(Attempts attempts) {
+        if (attempts.failures.get() != 0) {
+            attempts.failures.set(0);
+        }
+    }
+
+    /**
+     * Records a failed authentication, blocking the account if the free attempts
+     * are exhausted and locking it at the threshold.
+     *
+     * @param attempts The failed-attempt state of the account.
+     */
+    public void onFailure(Attempts attempts) {
+        long now = clock.millis();
+        advance(now);
+        int failures = attempts.failures.incrementAndGet();
+        if (failures >= lockoutThreshold) {
+            long until = now + lockoutMillis;
+            attempts.blockedUntil.set(until);
+            schedule(attempts, until);
+            lockouts.increment();
+        } else if (failures > freeAttempts) {
+            int exponent = Math.min(failures - freeAttempts - 1, 30);
+            long delay = Math.min(maxDelayMillis, baseDelayMillis << exponent);
+            attempts.blockedUntil.set(now + delay);
+        }
+    }
+
+    /**
+     * Puts a locked record in the wheel slot of its unlock tick.
+     *
+     * @param attempts The locked record.
+     * @param until    The unlock time in milliseconds.
+     */
+    private void schedule(Attempts attempts, long until) {
+        long tick = (until + TICK_MILLIS - 1) / TICK_MILLIS;
+        attempts.unlockTick = tick;
+        if (!attempts.scheduled.compareAndSet(false, true)) {
+            // Already linked in an earlier slot; it is moved when that slot is visited.
+            return;
+        }
+        push(attempts, tick);
+        long current = currentTick.get();
+        if (tick <= current) {
+            // The slot was passed while the record was being linked.
+            expireSlot(slotOf(tick), current);
+        }
+    }
+
+    /**
+     * Moves the wheel up to the tick of {@code now}, unlocking every record
+     * whose lockout has ended. Only the thread that moves the tick visits the
+     * slots in between.
+     *
+     * @param now The current time in milliseconds.
+     */
+    private void advance(long now) {
+        long target = now / TICK_MILLIS;
+        long from = currentTick.get();
+        while (target > from) {
+            if (currentTick.compareAndSet(from, target)) {
+                long steps = Math.min(target - from, WHEEL_SLOTS);
+                for (long i = 1; i <= steps; i++) {
+                    expireSlot(slotOf(from + i), target);
+                }
+                return;
+            }
+            from = currentTick.get();
+        }
+    }
+
+    /**
+     * Unlocks the expired records of a slot and relinks the rest where they belong.
+     *
+     * @param slot The slot to visit.
+     * @param tick The tick the wheel is moving to.
+     */
+    private void expireSlot(int slot, long tick) {
+        Attempts node = wheel.getAndSet(slot, null);
+        while (node != null) {
+            Attempts next = node.next;
+            node.next = null;
+            long unlock = node.unlockTick;
+            if (unlock > tick) {
+                push(node, unlock);
+            } else {
+                long until = node.blockedUntil.get();
+                if (until != 0 && (until + TICK_MILLIS - 1) / TICK_MILLIS <= tick
+                        && node.blockedUntil.compareAndSet(until, 0)) {
+                    node.failures.set(0);
+                }
+                node.scheduled.set(false);
+                // A lockout renewed after the flag was read is linked here or by its own schedule call.
+                long renewed = node.unlockTick;
+                if (renewed > tick && node.scheduled.compareAndSet(false, true)) {
+                    push(node, renewed);
+                }
+            }
+            node = next;
+        }
+    }
+
+    /**
+     * Pushes a record onto the list of the slot of a tick.
+     *
+     * @param attempts The record to link.
+     * @param tick     The tick whose slot receives it.
+     */
+    private void push(Attempts attempts, long tick) {
+        int slot = slotOf(tick);
+        Attempts head;
+        do {
+            head = wheel.get(slot);
+            attempts.next = head;
+        } while (!wheel.compareAndSet(slot, head, attempts));
+    }
+
+    private static int slotOf(long tick) {
+        return (int) (tick & (WHEEL_SLOTS - 1));
+    }
+
+    /**
+     * Returns the number of attempts rejected because the account was blocked.
+     *
+     * @return the rejected attempts
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * Returns the number of times an account reached the lockout threshold.
+     *
+     * @return the lockouts
+     */
+    public long getLockouts() {
+        return lockouts.sum();
+    }
+}
@@ -1,25 +1,144 @@
 package mx.unam.ciencias.myp.pumabank.patterns.proxy;
 
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
 /**
  * A simple component responsible for authenticating a user's Personal Identification Number (PIN).
  * <p>
- * This class stores the correct PIN for an account and provides a method
- * to validate an input PIN against it. It is typically used by a security
- * proxy like {@link AccountProxy} to control access to sensitive operations.
+ * This class keeps a salted PBKDF2 hash of the correct PIN, never the PIN itself,
+ * and provides a method to validate an input PIN against it. Hashing is
+ * deliberately slow, so callers that authenticate repeatedly should use the
+ * session tokens of {@link AccountProxy} instead of sending the PIN every time.
+ * It is typically used by a security proxy like {@link AccountProxy} to control
+ * access to sensitive operations.
  * </p>
  *
  * @author Cesar
  */
 public class PinAuthenticator {
-    private String storedPin;
+
+    /** Default number of PBKDF2 iterations. */
+    public static final int DEFAULT_ITERATIONS = 10_000;
+
+    /** System property overriding the number of iterations used by {@link #PinAuthenticator(String)}. */
+    public static final String ITERATIONS_PROPERTY = "pumabank.pin.iterations";
+
+    /** Length in bytes of the salt. */
+    public static final int SALT_LENGTH = 16;
+
+    /** Length in bytes of the PIN hash. */
+    public static final int HASH_LENGTH = 32;
+
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int HASH_BITS = HASH_LENGTH * 8;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final byte[] salt;
+    private final byte[] hash;
+    private final int iterations;
 
     /**
-     * Constructs a new {@code PinAuthenticator} with the correct PIN.
+     * Constructs a new {@code PinAuthenticator} with the correct PIN. The
+     * hashing cost is {@link #DEFAULT_ITERATIONS} unless the
+     * {@value #ITERATIONS_PROPERTY} system property says otherwise.
      *
      * @param storedPin The secret PIN that will be used for future validations.
      */
     public PinAuthenticator(String storedPin) {
-        this.storedPin = storedPin;
+        this(storedPin, Integer.getInteger(ITERATIONS_PROPERTY, DEFAULT_ITERATIONS));
+    }
+
+    /**
+     * Constructs a new {@code PinAuthenticator} with the correct PIN and a custom
+     * hashing cost.
+     *
+     * @param storedPin  The secret PIN that will be used for future validations.
+     * @param iterations The number of PBKDF2 iterations, at least 1.
+     * @throws IllegalArgumentException if {@code iterations} is not positive.
+     */
+    public PinAuthenticator(String storedPin, int iterations) {
+        if (iterations < 1) {
+            throw new IllegalArgumentException("iterations must be positive");
+        }
+        this.iterations = iterations;
+        if (storedPin == null) {
+            this.salt = null;
+            this.hash = null;
+        } else {
+            this.salt = new byte[SALT_LENGTH];
+            RANDOM.nextBytes(salt);
+            this.hash = hash(storedPin, salt, iterations);
+        }
+    }
+
+    /**
+     * Rebuilds an authenticator from a previously exported salt and hash.
+     *
+     * @param salt       The salt, {@link #SALT_LENGTH} bytes.
+     * @param hash       The PIN hash, {@link #HASH_LENGTH} bytes.
+     * @param iterations The number of PBKDF2 iterations used for the hash.
+     */
+    private PinAuthenticator(byte[] salt, byte[] hash, int iterations) {
+        this.salt = salt;
+        this.hash = hash;
+        this.iterations = iterations;
+    }
+
+    /**
+     * Rebuilds an authenticator from the values returned by {@link #getSalt()},
+     * {@link #getHash()} and {@link #getIterations()}, without knowing the PIN.
+     *
+     * @param salt       The salt, or {@code null} for an authenticator without PIN.
+     * @param hash       The PIN hash, or {@code null} for an authenticator without PIN.
+     * @param iterations The number of PBKDF2 iterations used for the hash.
+     * @return The restored authenticator.
+     * @throws IllegalArgumentException if the values are inconsistent.
+     */
+    public static PinAuthenticator fromHash(byte[] salt, byte[] hash, int iterations) {
+        if (iterations < 1) {
+            throw new IllegalArgumentException("iterations must be positive");
+        }
+        if ((salt == null) != (hash == null)) {
+            throw new IllegalArgumentException("salt and hash must both be present or absent");
+        }
+        if (salt != null && (salt.length != SALT_LENGTH || hash.length != HASH_LENGTH)) {
+            throw new IllegalArgumentException("Invalid salt or hash length");
+        }
+        return new PinAuthenticator(salt == null ? null : salt.clone(),
+                                    hash == null ? null : hash.clone(), iterations);
+    }
+
+    /**
+     * Returns a copy of the salt.
+     *
+     * @return the salt, or {@code null} if no PIN is stored
+     */
+    public byte[] getSalt() {
+        return salt == null ? null : salt.clone();
+    }
+
+    /**
+     * Returns a copy of the PIN hash.
+     *
+     * @return the hash, or {@code null} if no PIN is stored
+     */
+    public byte[] getHash() {
+        return hash == null ? null : hash.clone();
+    }
+
+    /**
+     * Returns the number of PBKDF2 iterations of the hash.
+     *
+     * @return the hashing cost
+     */
+    public int getIterations() {
+        return iterations;
     }
 
     /**
@@ -29,6 +148,30 @@ public class PinAuthenticator {
      * @return {@code true} if the input PIN matches the stored PIN, {@code false} otherwise.
      */
     public boolean validate(String inputPin) {
-        return storedPin != null && storedPin.equals(inputPin);
+        if (hash == null || inputPin == null) {
+            return false;
+        }
+        return MessageDigest.isEqual(hash, hash(inputPin, salt, iterations));
+    }
+
+    /**
+     * Derives the PBKDF2 hash of a PIN.
+     *
+     * @param pin        The PIN to hash.
+     * @param salt       The random salt of this authenticator.
+     * @param iterations The number of iterations.
+     * @return The derived hash.
+     */
+    private static byte[] hash(String pin, byte[] salt, int iterations) {
+        char[] chars = pin.toCharArray();
+        PBEKeySpec spec = new PBEKeySpec(chars, salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("PIN hashing is not available: " + e.getMessage(), e);
+        } finally {
+            spec.clearPassword();
+            Arrays.fill(chars, '\0');
+        }
     }
 }
@@ -0,0 +1,326 @@
+package mx.unam.ciencias.myp.pumabank.patterns.proxy;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Holds the sessions opened by {@link AccountProxy} after a successful PIN
+ * verification.
+ * <p>
+ * Verifying a hashed PIN is expensive on purpose. A session lets a client pay
+ * that cost once and then authenticate every following operation with a random
+ * token, which is checked with a single hash map lookup. Sessions expire after a
+ * fixed time to live and the cache never holds more than a fixed number of
+ * them; when it is full, expired sessions are purged first and then the oldest
+ * ones are dropped. The cache is safe to share between proxies and threads.
+ * </p>
+ * <p>
+ * Every session lives for the same time, so the order in which sessions are
+ * opened is the order in which they expire. A queue in that order makes
+ * eviction take the oldest session in O(1); sessions closed early leave a
+ * stale queue entry that is skipped when it reaches the head. Once stale
+ * entries outnumber the capacity the queue is swept of them, so it never
+ * holds more than about twice the capacity however many sessions are
+ * opened and closed within one time to live. The number of
+ * live sessions is an atomic count that {@link #open} reserves a slot in
+ * before adding a session, so concurrent opens never exceed the capacity.
+ * </p>
+ * <p>
+ * The cache also keeps the metrics of the authentication path: how many
+ * operations were served by a session (hits), how many needed a full PIN
+ * verification (misses), and how long those verifications took.
+ * </p>
+ *
+ * @author Cesar
+ * @see AccountProxy
+ */
+public class SessionCache {
+
+    /** Prefix of every session token, so tokens are never mistaken for PINs. */
+    public static final String TOKEN_PREFIX = "SES-";
+
+    /** Default maximum number of live sessions. */
+    public static final int DEFAULT_MAX_SESSIONS = 10_000;
+
+    /** Default session time to live, in milliseconds. */
+    public static final long DEFAULT_TTL_MILLIS = TimeUnit.MINUTES.toMillis(15);
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final int TOKEN_BYTES = 24;
+
+    /**
+     * A live session: the proxy it was opened on and its expiry time.
+     */
+    private static final class Session {
+        final String token;
+        final AccountProxy owner;
+        final long expiresAt;
+
+        Session(String token, AccountProxy owner, long expiresAt) {
+            this.token = token;
+            this.owner = owner;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Session> byExpiry = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger live = new AtomicInteger();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+    private final int maxSessions;
+    private final long ttlNanos;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder verifications = new LongAdder();
+    private final LongAdder verificationNanos = new LongAdder();
+
+    /**
+     * Constructs a cache with the default capacity and time to live.
+     */
+    public SessionCache() {
+        this(DEFAULT_MAX_SESSIONS, DEFAULT_TTL_MILLIS);
+    }
+
+    /**
+     * Constructs a cache with a custom capacity and time to live.
+     *
+     * @param maxSessions The maximum number of live sessions.
+     * @param ttlMillis   How long a session stays valid, in milliseconds.
+     * @throws IllegalArgumentException if either value is not positive.
+     */
+    public SessionCache(int maxSessions, long ttlMillis) {
+        if (maxSessions < 1) {
+            throw new IllegalArgumentException("maxSessions must be positive");
+        }
+        if (ttlMillis < 1) {
+            throw new IllegalArgumentException("ttlMillis must be positive");
+        }
+        this.maxSessions = maxSessions;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+    }
+
+    /**
+     * Opens a session on a proxy whose PIN has already been verified.
+     *
+     * @param owner The proxy the session grants access to.
+     * @return A new random session token.
+     */
+    String open(AccountProxy owner) {
+        long now = System.nanoTime();
+        purgeExpired(now);
+        while (true) {
+            int count = live.get();
+            if (count < maxSessions) {
+                if (live.compareAndSet(count, count + 1)) {
+                    break;
+                }
+            } else {
+                evictOldest();
+            }
+        }
+        byte[] bytes = new byte[TOKEN_BYTES];
+        RANDOM.nextBytes(bytes);
+        String token = TOKEN_PREFIX + Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        Session session = new Session(token, owner, now + ttlNanos);
+        sessions.put(token, session);
+        byExpiry.add(session);
+        if (queued.incrementAndGet() - maxSessions > maxSessions) {
+            sweepClosed();
+        }
+        return token;
+    }
+
+    /**
+     * Checks whether a credential is a live session token opened on the given
+     * proxy. Expired sessions found here are removed.
+     *
+     * @param credential The PIN or token sent by the caller.
+     * @param owner      The proxy being accessed.
+     * @return {@code true} if the credential is a valid session for {@code owner}.
+     */
+    boolean isValid(String credential, AccountProxy owner) {
+        if (credential == null || !credential.startsWith(TOKEN_PREFIX)) {
+            return false;
+        }
+        Session session = sessions.get(credential);
+        if (session == null) {
+            return false;
+        }
+        if (System.nanoTime() - session.expiresAt >= 0) {
+            discard(session);
+            return false;
+        }
+        return session.owner == owner;
+    }
+
+    /**
+     * Ends a session before it expires.
+     *
+     * @param token The session token to invalidate.
+     * @return {@code true} if the session existed.
+     */
+    public boolean close(String token) {
+        if (token == null) {
+            return false;
+        }
+        Session session = sessions.get(token);
+        return session != null && discard(session);
+    }
+
+    /**
+     * Ends every session opened on the given proxy, for example after its
+     * account is deleted.
+     *
+     * @param owner The proxy whose sessions must be closed.
+     */
+    public void closeAll(AccountProxy owner) {
+        for (Iterator<Session> it = sessions.values().iterator(); it.hasNext(); ) {
+            Session session = it.next();
+            if (session.owner == owner) {
+                discard(session);
+            }
+        }
+    }
+
+    /**
+     * Removes the sessions at the head of the queue that have expired.
+     *
+     * @param now The current {@link System#nanoTime()}.
+     */
+    private void purgeExpired(long now) {
+        Session head;
+        while ((head = byExpiry.peek()) != null && now - head.expiresAt >= 0) {
+            if (byExpiry.remove(head)) {
+                queued.decrementAndGet();
+                discard(head);
+            }
+        }
+    }
+
+    /**
+     * Removes the session closest to expiring, skipping queue entries of
+     * sessions that were already closed.
+     */
+    private void evictOldest() {
+        Session head;
+        while ((head = byExpiry.poll()) != null) {
+            queued.decrementAndGet();
+            if (discard(head)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Drops the queue entries of sessions that were closed before expiring.
+     * Runs in one thread at a time; the others carry on without waiting.
+     */
+    private void sweepClosed() {
+        if (sweeping.compareAndSet(false, true)) {
+            try {
+                byExpiry.removeIf(session -> sessions.get(session.token) != session);
+                queued.set(byExpiry.size());
+            } finally {
+                sweeping.set(false);
+            }
+        }
+    }
+
+    /**
+     * Removes a session from the map, releasing its slot if it was still there.
+     *
+     * @param session The session to remove.
+     * @return {@code true} if this call removed it.
+     */
+    private boolean discard(Session session) {
+        if (sessions.remove(session.token, session)) {
+            live.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Records an operation authenticated by a session token.
+     */
+    void recordHit() {
+        hits.increment();
+    }
+
+    /**
+     * Records an operation that needed a full PIN verification, and how long it took.
+     *
+     * @param nanos The duration of the verification in nanoseconds.
+     */
+    void recordVerification(long nanos) {
+        misses.increment();
+        verifications.increment();
+        verificationNanos.add(nanos);
+    }
+
+    /**
+     * Returns the number of live (possibly expired but not yet purged) sessions.
+     *
+     * @return the number of cached sessions
+     */
+    public int size() {
+        return sessions.size();
+    }
+
+    /**
+     * Returns the maximum number of sessions held at once.
+     *
+     * @return the capacity of the cache
+     */
+    public int getMaxSessions() {
+        return maxSessions;
+    }
+
+    /**
+     * Returns the number of operations authenticated by a session token.
+     *
+     * @return the cache hits
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of operations that needed a full PIN verification.
+     *
+     * @return the cache misses
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the fraction of operations authenticated by a session token.
+     *
+     * @return the hit rate between 0.0 and 1.0, or 0.0 if nothing was authenticated
+     */
+    public double getHitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    /**
+     * Returns the average duration of a full PIN verification.
+     *
+     * @return the mean verification latency in milliseconds, or 0.0 if none happened
+     */
+    public double getAverageVerificationMillis() {
+        long count = verifications.sum();
+        return count == 0 ? 0.0 : verificationNanos.sum() / (count * 1_000_000.0);
+    }
+}
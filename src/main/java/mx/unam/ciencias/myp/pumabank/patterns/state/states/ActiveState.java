@@ -19,12 +19,12 @@ public class ActiveState implements AccountState {
      */
     @Override
     public void deposit(double amount, Account account) {
-        double balanceBefore = account.getBalance();
+        double balanceBefore = account.getAndAddBalance(amount);
+        double balanceAfter = balanceBefore + amount;
 
-        account.setBalance(account.getBalance() + amount);
-        account.addHistory("Deposited: " + amount + ", New Balance: " + account.getBalance());
+        account.addHistory("Deposited: " + amount + ", New Balance: " + balanceAfter);
         account.notify(String.format("DEPOSIT: $%.2f | Balance Before: $%.2f | Balance After: $%.2f", 
-            amount, balanceBefore, account.getBalance()));
+            amount, balanceBefore, balanceAfter));
     }
 
     /**
@@ -34,12 +34,12 @@ public class ActiveState implements AccountState {
      */
     @Override
     public void withdraw(double amount, Account account) {
-        double current = account.getBalance();
+        // Debit once and branch on the balance the debit actually applied to.
+        double current = account.getAndAddBalance(-amount);
         if (current >= amount) {
 
             double newBalance = current - amount;
-            double balanceBefore = account.getBalance();
-            account.setBalance(newBalance);
+            double balanceBefore = current;
             account.addHistory("Withdrawal: $" + amount + " | Balance: $" + newBalance);
              
             account.notify(String.format("WITHDRAWAL: $%.2f | Balance Before: $%.2f | Balance After: $%.2f", 
@@ -47,8 +47,7 @@ public class ActiveState implements AccountState {
 
         } else {
             double newBalance = current - amount;
-            double balanceBefore = account.getBalance();
-            account.setBalance(newBalance);
+            double balanceBefore = current;
             account.addHistory("Withdrawal exceeded funds. Overdraft triggered. Amount: $" 
                     + amount + " | Balance: $" + newBalance);
             account.changeState(new OverdrawnState());
@@ -86,18 +85,19 @@ public class ActiveState implements AccountState {
         double balanceBefore = account.getBalance();
         double interest = 0.0;
         if (account.getInterestPolicy() != null) {
-            interest = account.getInterestPolicy().calculate(account.getBalance());
+            interest = account.calculateInterest(balanceBefore);
         }
 
         if (interest != 0.0) {
-            account.setBalance(account.getBalance() + interest);
+            balanceBefore = account.getAndAddBalance(interest);
+            double balanceAfter = balanceBefore + interest;
             account.addHistory("Monthly interest applied: $" + interest  
-                    + " | Balance: $" + account.getBalance());
+                    + " | Balance: $" + balanceAfter);
             
             account.recordInterest(interest);
                     
             account.notify(String.format("INTEREST_APPLIED: $%.2f | Balance Before: $%.2f | Balance After: $%.2f", 
-                interest, balanceBefore, account.getBalance()));
+                interest, balanceBefore, balanceAfter));
         } else {
             account.addHistory("Monthly processing: no interest applied.");
             account.notify("MONTHLY_PROCESSING: No interest applied to active account");
@@ -11,9 +11,33 @@ import mx.unam.ciencias.myp.pumabank.patterns.state.AccountState;
  */
 public class OverdrawnState implements AccountState {
 
-    private static final double OVERDRAFT_FEE = 100.0;
+    /** Fee charged once per overdraft. */
+    public static final double OVERDRAFT_FEE = 100.0;
     private boolean feeApplied = false;
 
+    /**
+     * Creates an overdrawn state whose overdraft fee has not been charged yet.
+     */
+    public OverdrawnState() {
+    }
+
+    /**
+     * Creates an overdrawn state, used when restoring a saved account.
+     *
+     * @param feeApplied whether the overdraft fee was already charged in this cycle
+     */
+    public OverdrawnState(boolean feeApplied) {
+        this.feeApplied = feeApplied;
+    }
+
+    /**
+     * Returns whether the overdraft fee was already charged in this cycle.
+     * @return {@code true} if the fee was applied
+     */
+    public boolean isFeeApplied() {
+        return feeApplied;
+    }
+
     /**
      * Handles deposits made while the account is overdrawn.
      * <p>
@@ -27,12 +51,16 @@ public class OverdrawnState implements AccountState {
 
     @Override
     public void deposit(double amount, Account account) {
-        double balanceBefore = account.getBalance();
-        double bal = account.getBalance();
-
-        if (!feeApplied) {
+        boolean chargeFee = !feeApplied;
+        feeApplied = true;
+        // The fee and the deposit go in as one update, so no reader sees only the fee.
+        double balanceBefore = chargeFee
+            ? account.getAndUpdateBalance(b -> b - OVERDRAFT_FEE + amount)
+            : account.getAndAddBalance(amount);
+        double bal = balanceBefore;
+
+        if (chargeFee) {
             bal -= OVERDRAFT_FEE;
-            feeApplied = true;
             account.addHistory("Overdraft fee applied: $" + OVERDRAFT_FEE);
         
             account.recordFee(OVERDRAFT_FEE); 
@@ -41,7 +69,6 @@ public class OverdrawnState implements AccountState {
         }
 
         bal += amount;
-        account.setBalance(bal);
         account.addHistory("Deposit while overdrawn: $" + amount + " | Balance: $" + bal);
 
         account.notify(String.format("DEPOSIT_OVERDRAWN: $%.2f | Total Balance After: $%.2f", 
@@ -85,12 +112,12 @@ public class OverdrawnState implements AccountState {
     @Override
     public void processMonth(Account account) {
         double balanceBefore = account.getBalance();
-        double bal = account.getBalance();
+        double bal = balanceBefore;
 
         if (!feeApplied) {
-            bal -= OVERDRAFT_FEE;
             feeApplied = true;
-            account.setBalance(bal);
+            balanceBefore = account.getAndAddBalance(-OVERDRAFT_FEE);
+            bal = balanceBefore - OVERDRAFT_FEE;
             account.addHistory("Month-end overdraft fee applied: $" + OVERDRAFT_FEE + " | Balance: $" + bal);
             
             account.recordFee(OVERDRAFT_FEE);
@@ -101,14 +128,14 @@ public class OverdrawnState implements AccountState {
 
         if (bal >= 0) {
             double interest = 0.0;
-            double interestBalanceBefore = account.getBalance();
+            double interestBalanceBefore = bal;
 
             if (account.getInterestPolicy() != null) {
-                interest = account.getInterestPolicy().calculate(bal);
+                interest = account.calculateInterest(bal);
 
                 if (interest != 0.0) {
-                    bal += interest;
-                    account.setBalance(bal);
+                    interestBalanceBefore = account.getAndAddBalance(interest);
+                    bal = interestBalanceBefore + interest;
                     account.addHistory("Monthly interest applied: $" + interest + " | Balance: $" + bal);
                     
                     account.notify(String.format("INTEREST_APPLIED: $%.2f | Balance Before: $%.2f | Balance After: $%.2f", 
@@ -0,0 +1,241 @@
+package mx.unam.ciencias.myp.pumabank.patterns.strategy;
+
+/**
+ * Per-account state needed by interest strategies that look at more than the
+ * current balance.
+ * <p>
+ * Keeping this state next to the account, instead of inside the strategy, lets
+ * a single strategy instance be shared by every account of the same type and
+ * called concurrently for different accounts. An accrual is not thread-safe by
+ * itself; it is expected to be updated only by the thread processing its
+ * account.
+ * </p>
+ * <p>
+ * Besides the month-end balances used for annual averages, the accrual keeps the
+ * integral of the balance over time for the current period. Every balance change
+ * adds the area of the previous balance since the last change, so the average
+ * daily balance is available at any moment in O(1), without storing or
+ * rescanning the account's history.
+ * </p>
+ *
+ * @author Cesar
+ */
+public class InterestAccrual {
+
+    /** Milliseconds in one day, the unit of {@link #getBalanceDays(long)}. */
+    public static final double MILLIS_PER_DAY = 24.0 * 60 * 60 * 1000;
+
+    private double runningTotal;
+    private int monthsRecorded;
+    private int monthOfYear;
+
+    private long periodStart;
+    private long lastChange;
+    private double lastBalance;
+    private double balanceMillis;
+
+    /**
+     * Records a month-end balance to be used in the average balance. Non-positive
+     * and {@code NaN} balances are ignored.
+     *
+     * @param balance The account balance for the month.
+     */
+    public void recordMonthBalance(double balance) {
+        if (!Double.isNaN(balance) && balance > 0) {
+            runningTotal += balance;
+            monthsRecorded++;
+        }
+    }
+
+    /**
+     * Returns the number of months recorded since the last reset.
+     *
+     * @return the number of recorded months
+     */
+    public int getMonthsRecorded() {
+        return monthsRecorded;
+    }
+
+    /**
+     * Returns the average of the recorded month balances.
+     *
+     * @return the average balance, or 0.0 if nothing has been recorded
+     */
+    public double getAverageBalance() {
+        return monthsRecorded == 0 ? 0.0 : runningTotal / monthsRecorded;
+    }
+
+    /**
+     * Returns the sum of the recorded month balances.
+     *
+     * @return the running total since the last reset
+     */
+    public double getRunningTotal() {
+        return runningTotal;
+    }
+
+    /**
+     * Replaces the recorded month history, used when restoring a saved account.
+     *
+     * @param runningTotal   The sum of the recorded month balances.
+     * @param monthsRecorded The number of recorded months.
+     * @throws IllegalArgumentException if {@code monthsRecorded} is negative.
+     */
+    public void restoreHistory(double runningTotal, int monthsRecorded) {
+        if (monthsRecorded < 0) throw new IllegalArgumentException("monthsRecorded must not be negative");
+        this.runningTotal = runningTotal;
+        this.monthsRecorded = monthsRecorded;
+    }
+
+    /**
+     * Discards every recorded month, starting a new period.
+     */
+    public void reset() {
+        runningTotal = 0.0;
+        monthsRecorded = 0;
+    }
+
+    /**
+     * Returns the month of the year being processed, as set by the bank at month-end.
+     *
+     * @return the month from 1 to 12, or 0 if it was never set
+     */
+    public int getMonthOfYear() {
+        return monthOfYear;
+    }
+
+    /**
+     * Sets the month of the year being processed.
+     *
+     * @param month The current month, from 1 (January) to 12 (December).
+     * @throws IllegalArgumentException if the month is not between 1 and 12.
+     */
+    public void setMonthOfYear(int month) {
+        if (month < 1 || month > 12) throw new IllegalArgumentException("month must be 1..12");
+        this.monthOfYear = month;
+    }
+
+    /**
+     * Starts a new balance-time period at {@code now} with the given balance.
+     *
+     * @param balance The balance at the start of the period.
+     * @param now     The current time in milliseconds.
+     */
+    public void startPeriod(double balance, long now) {
+        periodStart = now;
+        lastChange = now;
+        lastBalance = balance;
+        balanceMillis = 0.0;
+    }
+
+    /**
+     * Registers a balance change. The previous balance is added to the integral
+     * for the time it was held.
+     *
+     * @param newBalance The balance after the change.
+     * @param now        The time of the change in milliseconds.
+     */
+    public void onBalanceChange(double newBalance, long now) {
+        accrueTo(now);
+        lastBalance = newBalance;
+    }
+
+    /**
+     * Adds the current balance to the integral up to {@code now}. Times earlier
+     * than the last change are ignored.
+     *
+     * @param now The current time in milliseconds.
+     */
+    public void accrueTo(long now) {
+        if (now > lastChange) {
+            balanceMillis += lastBalance * (now - lastChange);
+            lastChange = now;
+        }
+    }
+
+    /**
+     * Returns the time at which the current balance-time period started.
+     *
+     * @return the start of the period, in milliseconds
+     */
+    public long getPeriodStart() {
+        return periodStart;
+    }
+
+    /**
+     * Returns the balance held since the last change.
+     *
+     * @return the last registered balance
+     */
+    public double getLastBalance() {
+        return lastBalance;
+    }
+
+    /**
+     * Returns the integral of the balance up to the last change, in
+     * balance-milliseconds.
+     *
+     * @return the accumulated balance-milliseconds
+     */
+    public double getBalanceMillis() {
+        return balanceMillis;
+    }
+
+    /**
+     * Replaces the balance-time period, used when restoring a saved account.
+     *
+     * @param periodStart   The start of the period in milliseconds.
+     * @param lastChange    The time of the last change or accrual in milliseconds.
+     * @param lastBalance   The balance held since the last change.
+     * @param balanceMillis The integral of the balance up to the last change.
+     */
+    public void restorePeriod(long periodStart, long lastChange, double lastBalance, double balanceMillis) {
+        this.periodStart = periodStart;
+        this.lastChange = lastChange;
+        this.lastBalance = lastBalance;
+        this.balanceMillis = balanceMillis;
+    }
+
+    /**
+     * Returns the time up to which the integral has been accumulated.
+     *
+     * @return the time of the last change or accrual, in milliseconds
+     */
+    public long getLastUpdate() {
+        return lastChange;
+    }
+
+    /**
+     * Returns the integral of the balance over the current period, in
+     * balance-days, up to {@code now}.
+     *
+     * @param now The current time in milliseconds.
+     * @return the accumulated balance-days
+     */
+    public double getBalanceDays(long now) {
+        double pending = now > lastChange ? lastBalance * (now - lastChange) : 0.0;
+        return (balanceMillis + pending) / MILLIS_PER_DAY;
+    }
+
+    /**
+     * Returns the number of days elapsed in the current period up to {@code now}.
+     *
+     * @param now The current time in milliseconds.
+     * @return the elapsed days, possibly fractional
+     */
+    public double getElapsedDays(long now) {
+        return Math.max(0L, now - periodStart) / MILLIS_PER_DAY;
+    }
+
+    /**
+     * Returns the average daily balance of the current period up to {@code now}.
+     * If no time has elapsed, the current balance is returned.
+     *
+     * @param now The current time in milliseconds.
+     * @return the average daily balance
+     */
+    public double getAverageDailyBalance(long now) {
+        double days = getElapsedDays(now);
+        return days > 0 ? getBalanceDays(now) / days : lastBalance;
+    }
+}
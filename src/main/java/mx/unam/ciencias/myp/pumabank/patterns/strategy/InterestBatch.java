@@ -0,0 +1,68 @@
+package mx.unam.ciencias.myp.pumabank.patterns.strategy;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import mx.unam.ciencias.myp.pumabank.model.Account;
+
+/**
+ * Computes month-end interest for many accounts at once.
+ * <p>
+ * Accounts are grouped by equal {@link InterestCalculation} policies, and each
+ * group is evaluated with a single call to
+ * {@link InterestCalculation#calculate(double[], double[], int, int)} instead of
+ * one interface call per account. The results are handed to every account via
+ * {@link Account#setBatchedInterest(double, double)}, so the state's month-end
+ * processing picks them up without calling the policy again.
+ * </p>
+ * <p>
+ * Only policies reporting {@link InterestCalculation#isStateless()} are batched;
+ * the rest keep being evaluated one account at a time.
+ * </p>
+ *
+ * @author Cesar
+ */
+public final class InterestBatch {
+
+    private InterestBatch() {
+    }
+
+    /**
+     * Precomputes the interest of every account whose policy is stateless.
+     *
+     * @param accounts The accounts about to be processed at month-end.
+     * @return The number of accounts whose interest was precomputed.
+     */
+    public static int precompute(List<Account> accounts) {
+        Map<InterestCalculation, List<Account>> groups = new LinkedHashMap<>();
+        for (Account account : accounts) {
+            InterestCalculation policy = account.getInterestPolicy();
+            if (policy != null && policy.isStateless()) {
+                groups.computeIfAbsent(policy, p -> new ArrayList<>()).add(account);
+            }
+        }
+
+        double[] balances = new double[0];
+        double[] interest = new double[0];
+        int computed = 0;
+        for (Map.Entry<InterestCalculation, List<Account>> group : groups.entrySet()) {
+            List<Account> members = group.getValue();
+            int size = members.size();
+            if (balances.length < size) {
+                balances = new double[size];
+                interest = new double[size];
+            }
+            for (int i = 0; i < size; i++) {
+                balances[i] = members.get(i).getBalance();
+            }
+            group.getKey().calculate(balances, interest, 0, size);
+            for (int i = 0; i < size; i++) {
+                members.get(i).setBatchedInterest(balances[i], interest[i]);
+            }
+            computed += size;
+        }
+        return computed;
+    }
+}
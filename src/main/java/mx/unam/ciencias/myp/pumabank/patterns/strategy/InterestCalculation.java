@@ -23,4 +23,66 @@ public interface InterestCalculation {
      * @return The calculated interest amount. This value should be non-negative.
      */
     double calculate(double balance);
+
+    /**
+     * Calculates the interest for the current period using the account's own
+     * accrual state.
+     * <p>
+     * Strategies that need history, such as an annual average, read and update
+     * {@code accrual} instead of their own fields, so one instance can be shared
+     * by many accounts. The default implementation ignores the accrual and calls
+     * {@link #calculate(double)}.
+     * </p>
+     *
+     * @param balance The current account balance on which to calculate interest.
+     * @param accrual The per-account accrual state.
+     * @return The calculated interest amount.
+     */
+    default double calculate(double balance, InterestAccrual accrual) {
+        return calculate(balance);
+    }
+
+    /**
+     * Returns the interest earned so far in the current period, for strategies
+     * that accrue continuously over time. This is meant to be a cheap query and
+     * must not modify {@code accrual}.
+     *
+     * @param accrual The per-account accrual state.
+     * @param now     The current time in milliseconds.
+     * @return The interest accrued to date; 0.0 for strategies that only pay at period end.
+     */
+    default double accruedInterest(InterestAccrual accrual, long now) {
+        return 0.0;
+    }
+
+    /**
+     * Calculates the interest for a range of balances in a single pass.
+     * <p>
+     * For every index {@code i} in {@code [from, to)}, {@code out[i]} receives the
+     * interest for {@code balances[i]}. The default implementation simply calls
+     * {@link #calculate(double)} for each element; implementations should override
+     * it with a tight loop the JIT can unroll and vectorize.
+     * </p>
+     *
+     * @param balances The balances on which to calculate interest.
+     * @param out      The array receiving the interest for each balance.
+     * @param from     The first index to calculate, inclusive.
+     * @param to       The last index to calculate, exclusive.
+     */
+    default void calculate(double[] balances, double[] out, int from, int to) {
+        for (int i = from; i < to; i++) {
+            out[i] = calculate(balances[i]);
+        }
+    }
+
+    /**
+     * Tells whether the result of {@link #calculate(double)} depends only on the
+     * balance argument, so it can be computed ahead of time and shared between
+     * accounts using an equal policy.
+     *
+     * @return {@code true} if calculating interest has no side effects.
+     */
+    default boolean isStateless() {
+        return false;
+    }
 }
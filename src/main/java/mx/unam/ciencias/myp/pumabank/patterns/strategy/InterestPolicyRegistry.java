@@ -0,0 +1,87 @@
+package mx.unam.ciencias.myp.pumabank.patterns.strategy;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import mx.unam.ciencias.myp.pumabank.patterns.strategy.periods.AnnualInterest;
+import mx.unam.ciencias.myp.pumabank.patterns.strategy.periods.AverageDailyBalanceInterest;
+import mx.unam.ciencias.myp.pumabank.patterns.strategy.periods.MonthlyInterest;
+import mx.unam.ciencias.myp.pumabank.patterns.strategy.periods.PremiumInterest;
+import mx.unam.ciencias.myp.pumabank.patterns.strategy.periods.TieredInterest;
+
+/**
+ * Hands out shared interest policy instances by interest type name.
+ * <p>
+ * Every account of the same type receives the same strategy object instead of a
+ * fresh copy. This is safe because the registered strategies keep no per-account
+ * state: anything they need beyond the balance lives in the account's
+ * {@link InterestAccrual}. As a consequence the strategies can also be called
+ * concurrently for different accounts.
+ * </p>
+ *
+ * @author Cesar
+ */
+public class InterestPolicyRegistry {
+    private final Map<String, InterestCalculation> policies = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a registry with the standard PumaBank interest types:
+     * {@code MONTHLY}, {@code ANNUAL}, {@code PREMIUM}, {@code TIERED} and
+     * {@code AVERAGE_DAILY}.
+     */
+    public InterestPolicyRegistry() {
+        register("MONTHLY", new MonthlyInterest(0.01, 1000.0));
+        register("ANNUAL", AnnualInterest.shared(0.12, 50000.0, 12));
+        register("PREMIUM", new PremiumInterest(0.015, 100000.0, 500000.0, 0.005, 0.01));
+        register("TIERED", new TieredInterest(
+            new double[] {0.0, 100000.0, 500000.0},
+            new double[] {0.015, 0.02, 0.025},
+            TieredInterest.Mode.BLENDED));
+        register("AVERAGE_DAILY", new AverageDailyBalanceInterest(0.12, 1000.0));
+    }
+
+    /**
+     * Registers or replaces the shared policy of an interest type. Accounts
+     * created before the call keep the policy they already hold.
+     *
+     * @param interestType The interest type name (case insensitive).
+     * @param policy       A policy that keeps no per-account state.
+     * @throws IllegalArgumentException if any argument is {@code null}.
+     */
+    public void register(String interestType, InterestCalculation policy) {
+        if (interestType == null || policy == null) {
+            throw new IllegalArgumentException("Interest type and policy are required");
+        }
+        policies.put(interestType.toUpperCase(), policy);
+    }
+
+    /**
+     * Returns the shared policy for an interest type.
+     *
+     * @param interestType The interest type name (case insensitive).
+     * @return The shared {@link InterestCalculation} instance.
+     * @throws IllegalArgumentException if the type is not registered.
+     */
+    public InterestCalculation get(String interestType) {
+        InterestCalculation policy = interestType == null ? null : policies.get(interestType.toUpperCase());
+        if (policy == null) {
+            throw new IllegalArgumentException("Invalid interest type: " + interestType);
+        }
+        return policy;
+    }
+
+    /**
+     * Returns the interest type under which a shared policy is registered.
+     *
+     * @param policy The policy to look up.
+     * @return The interest type name, or {@code null} if the instance is not registered.
+     */
+    public String nameOf(InterestCalculation policy) {
+        for (Map.Entry<String, InterestCalculation> entry : policies.entrySet()) {
+            if (entry.getValue() == policy) {
+                return entry.getKey();
+            }
+        }
+        return null;
+    }
+}
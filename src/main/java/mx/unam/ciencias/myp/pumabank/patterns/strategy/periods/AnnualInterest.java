@@ -1,20 +1,24 @@
 package mx.unam.ciencias.myp.pumabank.patterns.strategy.periods;
 
+import mx.unam.ciencias.myp.pumabank.patterns.strategy.InterestAccrual;
 import mx.unam.ciencias.myp.pumabank.patterns.strategy.InterestCalculation;
 
 /**
- * Represents a stateful annual interest calculation strategy.
+ * Represents an annual interest calculation strategy.
  * <p>
- * This strategy calculates interest once per year. It accumulates monthly balances
- * and only pays out interest in the 12th month, provided that the average
+ * This strategy calculates interest once per year. It averages monthly balances
+ * and only pays out interest in the payout month, provided that the average
  * annual balance meets a specified threshold.
  * </p>
  * <p>
- * <strong>Important:</strong> This class requires external management. The owning
- * {@code Account} must call {@link #recordMonthBalance(double)} and
- * {@link #setCurrentMonth(int)} every month before invoking {@link #calculate(double)}
- * to ensure correct behavior. This design avoids changing the signature of the
- * {@code InterestCalculation} interface.
+ * The monthly balances belong to each account: {@link #calculate(double, InterestAccrual)}
+ * reads them from the account's {@link InterestAccrual} and nothing else, so the
+ * instance returned by {@link #shared} keeps no state at all and can be used by
+ * every annual account. The older {@link #recordMonthBalance(double)},
+ * {@link #setCurrentMonth(int)} and {@link #calculate(double)} API works on a
+ * separate {@link History} that only instances built with a constructor own;
+ * such an instance belongs to a single account, so its history is that
+ * account's history.
  * </p>
  *
  * @author Cesar
@@ -22,19 +26,66 @@ import mx.unam.ciencias.myp.pumabank.patterns.strategy.InterestCalculation;
 public class AnnualInterest implements InterestCalculation {
     private final double annualRate;
     private final double thresholdAverage;
-    private double runningTotal = 0.0;
-    private int monthsRecorded = 0;
-    private int currentMonth = 1;
+    private final int assumedMonth;
+    private final History history;
 
     /**
-     * Constructs a new {@code AnnualInterest} strategy.
+     * The balances and month recorded through the legacy API of an instance
+     * owned by a single account.
+     */
+    private static final class History {
+        private final InterestAccrual balances = new InterestAccrual();
+        private int currentMonth;
+
+        History(int currentMonth) {
+            this.currentMonth = currentMonth;
+        }
+    }
+
+    private AnnualInterest(double annualRate, double thresholdAverage, int month, boolean ownHistory) {
+        if (month < 1 || month > 12) throw new IllegalArgumentException("month must be 1..12");
+        this.annualRate = annualRate;
+        this.thresholdAverage = thresholdAverage;
+        this.assumedMonth = month;
+        this.history = ownHistory ? new History(month) : null;
+    }
+
+    /**
+     * Constructs a new {@code AnnualInterest} strategy owned by a single account.
      *
      * @param annualRate       The interest rate to apply if conditions are met.
      * @param thresholdAverage The minimum average annual balance required to earn interest.
      */
     public AnnualInterest(double annualRate, double thresholdAverage) {
-        this.annualRate = annualRate;
-        this.thresholdAverage = thresholdAverage;
+        this(annualRate, thresholdAverage, 1, true);
+    }
+
+    /**
+     * Constructs a new {@code AnnualInterest} strategy owned by a single
+     * account, with a fixed payout month.
+     *
+     * @param annualRate       The interest rate to apply if conditions are met.
+     * @param thresholdAverage The minimum average annual balance required to earn interest.
+     * @param payoutMonth      The month, from 1 to 12, in which interest is paid.
+     * @throws IllegalArgumentException if the month is not between 1 and 12.
+     */
+    public AnnualInterest(double annualRate, double thresholdAverage, int payoutMonth) {
+        this(annualRate, thresholdAverage, payoutMonth, true);
+    }
+
+    /**
+     * Returns a strategy without any history of its own, to be shared by many
+     * accounts through {@link #calculate(double, InterestAccrual)}. Its legacy
+     * mutators and {@link #calculate(double)} throw.
+     *
+     * @param annualRate       The interest rate to apply if conditions are met.
+     * @param thresholdAverage The minimum average annual balance required to earn interest.
+     * @param payoutMonth      The month assumed when an accrual does not know the month being processed.
+     * @return the shared strategy
+     * @throws IllegalArgumentException if the month is not between 1 and 12.
+     */
+    public static AnnualInterest shared(double annualRate, double thresholdAverage, int payoutMonth) {
+        return new AnnualInterest(annualRate, thresholdAverage, payoutMonth, false);
     }
 
     /**
@@ -44,12 +95,10 @@ public class AnnualInterest implements InterestCalculation {
      * </p>
      *
      * @param balance The account balance for the current month.
+     * @throws IllegalStateException if this is a {@link #shared} strategy.
      */
     public void recordMonthBalance(double balance) {
-        if (!Double.isNaN(balance) && balance > 0) {
-            runningTotal += balance;
-            monthsRecorded++;
-        }
+        ownHistory().balances.recordMonthBalance(balance);
     }
 
     /**
@@ -60,10 +109,11 @@ public class AnnualInterest implements InterestCalculation {
      *
      * @param month The current month, from 1 (January) to 12 (December).
      * @throws IllegalArgumentException if the month is not between 1 and 12.
+     * @throws IllegalStateException if this is a {@link #shared} strategy.
      */
     public void setCurrentMonth(int month) {
         if (month < 1 || month > 12) throw new IllegalArgumentException("month must be 1..12");
-        this.currentMonth = month;
+        ownHistory().currentMonth = month;
     }
 
     /**
@@ -77,19 +127,83 @@ public class AnnualInterest implements InterestCalculation {
      *
      * @param balance The current account balance.
      * @return The calculated interest amount if it is the 12th month and conditions are met; otherwise, 0.0.
+     * @throws IllegalStateException if this is a {@link #shared} strategy.
      */
     @Override
     public double calculate(double balance) {
-        if (currentMonth == 12 && monthsRecorded > 0) {
-            double average = runningTotal / monthsRecorded;
+        History own = ownHistory();
+        return payout(balance, own.balances, own.currentMonth);
+    }
+
+    /**
+     * Calculates the annual interest from the balances recorded in an account's accrual.
+     * <p>
+     * Behaves like {@link #calculate(double)}, but reads and resets {@code accrual}.
+     * If balances were recorded through {@link #recordMonthBalance(double)} on an
+     * instance owned by a single account, that history is used instead. When the
+     * accrual knows the month being processed, that month decides the payout;
+     * otherwise the month set on this instance does.
+     * </p>
+     *
+     * @param balance The current account balance.
+     * @param accrual The account's accrual state.
+     * @return The calculated interest amount if it is the 12th month and conditions are met; otherwise, 0.0.
+     */
+    @Override
+    public double calculate(double balance, InterestAccrual accrual) {
+        if (history != null && history.balances.getMonthsRecorded() > 0) {
+            return payout(balance, history.balances, history.currentMonth);
+        }
+        int month = accrual.getMonthOfYear() > 0 ? accrual.getMonthOfYear()
+            : history != null ? history.currentMonth : assumedMonth;
+        return payout(balance, accrual, month);
+    }
+
+    private double payout(double balance, InterestAccrual balances, int month) {
+        if (month == 12 && balances.getMonthsRecorded() > 0) {
             double interest = 0.0;
-            if (average >= thresholdAverage && balance > 0) {
+            if (balances.getAverageBalance() >= thresholdAverage && balance > 0) {
                 interest = balance * annualRate;
             }
-            runningTotal = 0.0;
-            monthsRecorded = 0;
+            balances.reset();
             return interest;
         }
         return 0.0;
     }
+
+    /**
+     * Calculates the annual interest for a range of balances sharing this
+     * strategy's recorded history.
+     * <p>
+     * The average is evaluated once for the whole range, then every positive
+     * balance receives the annual rate if it qualifies. As with
+     * {@link #calculate(double)}, the recorded history is reset after a payout month.
+     * </p>
+     *
+     * @param balances The balances on which to calculate interest.
+     * @param out      The array receiving the interest for each balance.
+     * @param from     The first index to calculate, inclusive.
+     * @param to       The last index to calculate, exclusive.
+     * @throws IllegalStateException if this is a {@link #shared} strategy.
+     */
+    @Override
+    public void calculate(double[] balances, double[] out, int from, int to) {
+        History own = ownHistory();
+        boolean payout = own.currentMonth == 12 && own.balances.getMonthsRecorded() > 0;
+        final double rate = payout && own.balances.getAverageBalance() >= thresholdAverage ? annualRate : 0.0;
+        for (int i = from; i < to; i++) {
+            double balance = balances[i];
+            out[i] = balance > 0 ? balance * rate : 0.0;
+        }
+        if (payout) {
+            own.balances.reset();
+        }
+    }
+
+    private History ownHistory() {
+        if (history == null) {
+            throw new IllegalStateException("A shared annual policy keeps no history; use each account's accrual");
+        }
+        return history;
+    }
 }
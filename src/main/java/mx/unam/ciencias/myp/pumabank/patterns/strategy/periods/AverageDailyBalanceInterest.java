@@ -0,0 +1,91 @@
+package mx.unam.ciencias.myp.pumabank.patterns.strategy.periods;
+
+import mx.unam.ciencias.myp.pumabank.patterns.strategy.InterestAccrual;
+import mx.unam.ciencias.myp.pumabank.patterns.strategy.InterestCalculation;
+
+/**
+ * Represents an interest strategy based on the average daily balance.
+ * <p>
+ * Interest is paid on the balance actually held during the period instead of
+ * the month-end snapshot: each day the account holds a balance contributes
+ * {@code balance * annualRate / 365}. The balance-time integral is maintained by
+ * the account's {@link InterestAccrual} on every deposit and withdrawal, so
+ * computing the interest or the amount accrued to date is O(1).
+ * </p>
+ * <p>
+ * Interest is only paid if the average daily balance meets a minimum. Instances
+ * are immutable and can be shared between accounts.
+ * </p>
+ *
+ * @author Cesar
+ */
+public class AverageDailyBalanceInterest implements InterestCalculation {
+    private static final double DAYS_PER_YEAR = 365.0;
+    private static final double MONTHS_PER_YEAR = 12.0;
+
+    private final double annualRate;
+    private final double minimumAverage;
+
+    /**
+     * Constructs a new {@code AverageDailyBalanceInterest} strategy.
+     *
+     * @param annualRate     The yearly interest rate (e.g., 0.12 for 12%).
+     * @param minimumAverage The minimum average daily balance required to earn interest.
+     */
+    public AverageDailyBalanceInterest(double annualRate, double minimumAverage) {
+        this.annualRate = annualRate;
+        this.minimumAverage = minimumAverage;
+    }
+
+    /**
+     * Calculates one month of interest treating {@code balance} as held for the
+     * whole month. Used when no balance history is available.
+     *
+     * @param balance The current account balance.
+     * @return The interest for one month, or 0.0 if the balance is below the minimum.
+     */
+    @Override
+    public double calculate(double balance) {
+        if (balance >= minimumAverage && balance > 0) {
+            return balance * annualRate / MONTHS_PER_YEAR;
+        }
+        return 0.0;
+    }
+
+    /**
+     * Calculates the interest for the period recorded in the account's accrual.
+     * <p>
+     * The accrual must have been brought up to date; the period ends at
+     * {@link InterestAccrual#getLastUpdate()}. If no time has elapsed, this falls
+     * back to {@link #calculate(double)}.
+     * </p>
+     *
+     * @param balance The current account balance.
+     * @param accrual The account's accrual state.
+     * @return The interest earned on the average daily balance.
+     */
+    @Override
+    public double calculate(double balance, InterestAccrual accrual) {
+        long asOf = accrual.getLastUpdate();
+        if (accrual.getElapsedDays(asOf) <= 0) {
+            return calculate(balance);
+        }
+        return accruedInterest(accrual, asOf);
+    }
+
+    /**
+     * Returns the interest earned so far in the current period.
+     *
+     * @param accrual The account's accrual state.
+     * @param now     The current time in milliseconds.
+     * @return The interest accrued to date, or 0.0 if the average daily balance is below the minimum.
+     */
+    @Override
+    public double accruedInterest(InterestAccrual accrual, long now) {
+        double average = accrual.getAverageDailyBalance(now);
+        if (average >= minimumAverage && average > 0) {
+            return accrual.getBalanceDays(now) * annualRate / DAYS_PER_YEAR;
+        }
+        return 0.0;
+    }
+}
@@ -1,5 +1,7 @@
 package mx.unam.ciencias.myp.pumabank.patterns.strategy.periods;
 
+import java.util.Objects;
+
 import mx.unam.ciencias.myp.pumabank.patterns.strategy.InterestCalculation;
 
 /**
@@ -58,4 +60,63 @@ public class PremiumInterest implements InterestCalculation {
         }
         return balance * rate;
     }
+
+    /**
+     * Calculates the premium interest for a range of balances.
+     * <p>
+     * Uses the same rule as {@link #calculate(double)} with the tier selection
+     * written as conditional expressions, so the loop stays branch-light.
+     * </p>
+     *
+     * @param balances The balances on which to calculate interest.
+     * @param out      The array receiving the interest for each balance.
+     * @param from     The first index to calculate, inclusive.
+     * @param to       The last index to calculate, exclusive.
+     */
+    @Override
+    public void calculate(double[] balances, double[] out, int from, int to) {
+        final double base = baseMonthlyRate;
+        final double tier1 = base + bonusRate1;
+        final double tier2 = base + bonusRate2;
+        final double threshold1 = bonusThreshold1;
+        final double threshold2 = bonusThreshold2;
+        for (int i = from; i < to; i++) {
+            double balance = balances[i];
+            double rate = balance >= threshold2 ? tier2 : (balance >= threshold1 ? tier1 : base);
+            out[i] = balance <= 0 ? 0.0 : balance * rate;
+        }
+    }
+
+    /**
+     * Premium interest only depends on the balance.
+     *
+     * @return always {@code true}
+     */
+    @Override
+    public boolean isStateless() {
+        return true;
+    }
+
+    /**
+     * Two premium strategies are equal when all their rates and thresholds match.
+     *
+     * @param o The object to compare with.
+     * @return {@code true} if both strategies compute the same interest.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof PremiumInterest)) return false;
+        PremiumInterest other = (PremiumInterest) o;
+        return Double.compare(baseMonthlyRate, other.baseMonthlyRate) == 0
+            && Double.compare(bonusThreshold1, other.bonusThreshold1) == 0
+            && Double.compare(bonusThreshold2, other.bonusThreshold2) == 0
+            && Double.compare(bonusRate1, other.bonusRate1) == 0
+            && Double.compare(bonusRate2, other.bonusRate2) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(baseMonthlyRate, bonusThreshold1, bonusThreshold2, bonusRate1, bonusRate2);
+    }
 }
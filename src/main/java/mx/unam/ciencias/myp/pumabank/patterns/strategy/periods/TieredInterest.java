@@ -0,0 +1,279 @@
+package mx.unam.ciencias.myp.pumabank.patterns.strategy.periods;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Properties;
+
+import mx.unam.ciencias.myp.pumabank.patterns.strategy.InterestCalculation;
+
+/**
+ * Represents a monthly interest strategy with an arbitrary number of balance tiers.
+ * <p>
+ * Each tier starts at a balance boundary and has its own monthly rate. The
+ * boundaries are kept in a sorted primitive array and the tier of a balance is
+ * resolved with a binary search, so the cost grows with the logarithm of the
+ * number of tiers instead of linearly as in an if/else chain.
+ * </p>
+ * <p>
+ * Two tiering modes are supported:
+ * </p>
+ * <ul>
+ *   <li>{@link Mode#BLENDED}: the whole balance earns the rate of the highest
+ *   tier it reaches (this is how {@link PremiumInterest} behaves).</li>
+ *   <li>{@link Mode#MARGINAL}: each slice of the balance earns the rate of the
+ *   tier it falls in, like income tax brackets.</li>
+ * </ul>
+ * <p>
+ * Balances below the first boundary, zero or negative earn no interest.
+ * Instances are immutable.
+ * </p>
+ *
+ * @author Cesar
+ */
+public class TieredInterest implements InterestCalculation {
+
+    /**
+     * How the tier rates are applied to a balance.
+     */
+    public enum Mode {
+        /** The whole balance earns the rate of the highest tier reached. */
+        BLENDED,
+        /** Each slice of the balance earns the rate of its own tier. */
+        MARGINAL
+    }
+
+    private final double[] boundaries;
+    private final double[] rates;
+    private final double[] cumulative;
+    private final Mode mode;
+
+    /**
+     * Constructs a new {@code TieredInterest} strategy.
+     *
+     * @param boundaries The lower balance bound of each tier, strictly increasing.
+     * @param rates      The monthly rate of each tier (e.g., 0.01 for 1%).
+     * @param mode       How the rates are applied to a balance.
+     * @throws IllegalArgumentException if the tiers are empty, of different
+     *                                  lengths, not strictly increasing or not finite.
+     */
+    public TieredInterest(double[] boundaries, double[] rates, Mode mode) {
+        if (boundaries == null || rates == null || boundaries.length == 0) {
+            throw new IllegalArgumentException("At least one tier is required");
+        }
+        if (boundaries.length != rates.length) {
+            throw new IllegalArgumentException("Every tier needs exactly one rate");
+        }
+        for (int i = 0; i < boundaries.length; i++) {
+            if (!Double.isFinite(boundaries[i]) || !Double.isFinite(rates[i])) {
+                throw new IllegalArgumentException("Tier " + i + " is not a finite number");
+            }
+            if (i > 0 && boundaries[i] <= boundaries[i - 1]) {
+                throw new IllegalArgumentException("Tier boundaries must be strictly increasing");
+            }
+        }
+        if (mode == null) {
+            throw new IllegalArgumentException("Tiering mode is required");
+        }
+        this.boundaries = boundaries.clone();
+        this.rates = rates.clone();
+        this.mode = mode;
+
+        this.cumulative = new double[boundaries.length];
+        for (int i = 1; i < boundaries.length; i++) {
+            cumulative[i] = cumulative[i - 1] + (boundaries[i] - boundaries[i - 1]) * rates[i - 1];
+        }
+    }
+
+    /**
+     * Loads a schedule from a properties file.
+     * <p>
+     * The file holds a {@code mode} key ({@code BLENDED} or {@code MARGINAL},
+     * defaults to {@code BLENDED}) and a {@code tiers} key with comma-separated
+     * {@code boundary:rate} pairs, for example:
+     * </p>
+     * <pre>
+     * mode=BLENDED
+     * tiers=0:0.015, 100000:0.02, 500000:0.025
+     * </pre>
+     *
+     * @param file The path of the configuration file.
+     * @return The schedule described by the file.
+     * @throws IOException              if the file cannot be read.
+     * @throws IllegalArgumentException if the file does not describe a valid schedule.
+     */
+    public static TieredInterest load(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        return fromProperties(properties);
+    }
+
+    /**
+     * Builds a schedule from already loaded properties. See {@link #load(Path)}
+     * for the expected keys.
+     *
+     * @param properties The schedule configuration.
+     * @return The schedule described by the properties.
+     * @throws IllegalArgumentException if the properties do not describe a valid schedule.
+     */
+    public static TieredInterest fromProperties(Properties properties) {
+        String tiers = properties.getProperty("tiers");
+        if (tiers == null || tiers.trim().isEmpty()) {
+            throw new IllegalArgumentException("Missing 'tiers' entry");
+        }
+        Mode mode = Mode.valueOf(properties.getProperty("mode", "BLENDED").trim().toUpperCase());
+
+        String[] entries = tiers.split(",");
+        double[] boundaries = new double[entries.length];
+        double[] rates = new double[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            String[] pair = entries[i].trim().split(":");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Invalid tier '" + entries[i].trim() + "', expected boundary:rate");
+            }
+            try {
+                boundaries[i] = Double.parseDouble(pair[0].trim());
+                rates[i] = Double.parseDouble(pair[1].trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid tier '" + entries[i].trim() + "'", e);
+            }
+        }
+        return new TieredInterest(boundaries, rates, mode);
+    }
+
+    /**
+     * Calculates the interest for the current month based on the tier schedule.
+     *
+     * @param balance The current account balance.
+     * @return The calculated interest amount, or 0.0 if the balance is not positive
+     *         or lies below the first tier.
+     */
+    @Override
+    public double calculate(double balance) {
+        if (!(balance > 0)) return 0.0;
+        int tier = tierOf(balance);
+        if (tier < 0) return 0.0;
+        if (mode == Mode.BLENDED) {
+            return balance * rates[tier];
+        }
+        return cumulative[tier] + (balance - boundaries[tier]) * rates[tier];
+    }
+
+    /**
+     * Calculates the tiered interest for a range of balances.
+     *
+     * @param balances The balances on which to calculate interest.
+     * @param out      The array receiving the interest for each balance.
+     * @param from     The first index to calculate, inclusive.
+     * @param to       The last index to calculate, exclusive.
+     */
+    @Override
+    public void calculate(double[] balances, double[] out, int from, int to) {
+        final boolean blended = mode == Mode.BLENDED;
+        for (int i = from; i < to; i++) {
+            double balance = balances[i];
+            int tier = balance > 0 ? tierOf(balance) : -1;
+            if (tier < 0) {
+                out[i] = 0.0;
+            } else if (blended) {
+                out[i] = balance * rates[tier];
+            } else {
+                out[i] = cumulative[tier] + (balance - boundaries[tier]) * rates[tier];
+            }
+        }
+    }
+
+    /**
+     * Finds the highest tier whose boundary is less than or equal to the balance.
+     *
+     * @param balance The balance to locate.
+     * @return The tier index, or -1 if the balance is below the first boundary.
+     */
+    private int tierOf(double balance) {
+        int low = 0;
+        int high = boundaries.length - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (boundaries[mid] <= balance) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Tiered interest only depends on the balance.
+     *
+     * @return always {@code true}
+     */
+    @Override
+    public boolean isStateless() {
+        return true;
+    }
+
+    /**
+     * Returns the number of tiers in this schedule.
+     *
+     * @return the number of tiers
+     */
+    public int getTierCount() {
+        return boundaries.length;
+    }
+
+    /**
+     * Returns the lower balance bound of each tier.
+     *
+     * @return a copy of the tier boundaries
+     */
+    public double[] getBoundaries() {
+        return boundaries.clone();
+    }
+
+    /**
+     * Returns the monthly rate of each tier.
+     *
+     * @return a copy of the tier rates
+     */
+    public double[] getRates() {
+        return rates.clone();
+    }
+
+    /**
+     * Returns how the rates are applied to a balance.
+     *
+     * @return the tiering mode
+     */
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Two tiered strategies are equal when they have the same tiers and mode.
+     *
+     * @param o The object to compare with.
+     * @return {@code true} if both strategies compute the same interest.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof TieredInterest)) return false;
+        TieredInterest other = (TieredInterest) o;
+        return mode == other.mode
+            && Arrays.equals(boundaries, other.boundaries)
+            && Arrays.equals(rates, other.rates);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * mode.hashCode() + Arrays.hashCode(boundaries)) + Arrays.hashCode(rates);
+    }
+}
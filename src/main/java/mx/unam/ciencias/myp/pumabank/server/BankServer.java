@@ -0,0 +1,852 @@
+package mx.unam.ciencias.myp.pumabank.server;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import mx.unam.ciencias.myp.pumabank.facade.BatchOperation;
+import mx.unam.ciencias.myp.pumabank.facade.BatchResult;
+import mx.unam.ciencias.myp.pumabank.facade.ImportResult;
+import mx.unam.ciencias.myp.pumabank.facade.MonthlyReport;
+import mx.unam.ciencias.myp.pumabank.facade.PumaBankFacade;
+import mx.unam.ciencias.myp.pumabank.facade.RequestExecutor;
+import mx.unam.ciencias.myp.pumabank.metrics.PrometheusExporter;
+import mx.unam.ciencias.myp.pumabank.model.Client;
+import mx.unam.ciencias.myp.pumabank.patterns.proxy.AccountProxy;
+
+/**
+ * Serves a {@link PumaBankFacade} over TCP with a line protocol.
+ *
+ * <p>Each request is one line of ASCII words separated by spaces; each
+ * response is one line. A client may send several requests without waiting
+ * (pipelining); responses come back in request order.</p>
+ *
+ * <pre>
+ * LOGIN account pin                      OK token | AUTH_FAILED | THROTTLED | NOT_FOUND
+ * DEPOSIT account amount credential [key]  APPLIED balance | DECLINED balance | INVALID message | ...
+ * WITHDRAW account amount credential [key] same as DEPOSIT
+ * BALANCE account credential               APPLIED balance | AUTH_FAILED | ...
+ * TRANSFER from to amount credential [key] same as WITHDRAW, balance of the source account
+ * PING                                   PONG
+ * QUIT                                   BYE, then the connection is closed
+ * ADMIN secret                           OK | ERR, then the connection is closed
+ * </pre>
+ *
+ * <p>The bank itself, and a shard of a
+ * {@link mx.unam.ciencias.myp.pumabank.cluster.BankCluster}, are managed
+ * with the commands below. They are only answered on a connection that
+ * sent {@code ADMIN} with the secret the server was started with, and not
+ * at all by a server started without one:</p>
+ *
+ * <pre>
+ * CLOSE_MONTH month                      OK
+ * REGISTER client name                   OK
+ * OPEN client balance pin interest [s,s] OK account
+ * CREDIT account amount key              same as DEPOSIT, without a credential
+ * STATE account                          OK state | NOT_FOUND
+ * CLIENTS                                OK client client ...
+ * DETACH client                          OK data | NOT_FOUND; the client leaves this bank
+ * ATTACH_PART data                       OK; buffers part of a detached client
+ * ATTACH_END                             OK accounts; adds the buffered client
+ * PREPARE_MONTH month                    PREPARED; holds every other request back
+ * COMMIT_MONTH month                     REPORT month accounts transactions fees interest millis
+ * ABORT_MONTH month                      ABORTED
+ * </pre>
+ *
+ * <p>{@code DETACH} returns the client and its accounts, PIN hashes
+ * included, as base64; since a request line is limited in length, the data
+ * goes back in as several {@code ATTACH_PART} lines on one connection,
+ * followed by {@code ATTACH_END}. {@code PREPARE_MONTH} is the first phase
+ * of a month-end across shards: it answers once every running request has
+ * finished, and from then on nothing else runs until {@code COMMIT_MONTH}
+ * closes the month or {@code ABORT_MONTH} cancels it. A prepared month-end
+ * that hears neither within {@value #PREPARE_TIMEOUT_SECONDS} seconds is
+ * aborted.</p>
+ *
+ * <p>A deposit, withdrawal or transfer sent with an idempotency key runs
+ * at most once: a client that retries after a timeout sends the same key
+ * and gets the first answer again, see
+ * {@link PumaBankFacade#deposit(String, double, String, String)}. A retried
+ * transfer answers with its original status and the current balance.</p>
+ *
+ * <p>A credential is a PIN or a session token returned by {@code LOGIN}.
+ * The credentials the bank reserves for its own operations,
+ * {@code SYSTEM} and {@code 0000}, are refused with {@code ERR}, as
+ * credentials and as the PIN of a new account. The admin secret travels
+ * in clear text, so an admin port belongs on a trusted network.
+ * Malformed requests get {@code ERR message}. Statuses other than
+ * {@code OK}, {@code PONG}, {@code BYE} and {@code ERR} are the names of
+ * {@link BatchResult.Status}.</p>
+ *
+ * <p>A single thread owns the selector and does all socket I/O. Requests run
+ * on a {@link RequestExecutor}, so requests for the same account are
+ * serialized while different accounts proceed in parallel. A connection
+ * with too many unanswered requests stops being read until it catches
+ * up.</p>
+ */
+public final class BankServer implements Closeable {
+
+    /** Port used when none is given. */
+    public static final int DEFAULT_PORT = 7070;
+
+    /** PIN of the accounts created by {@code --demo-accounts}. */
+    public static final String DEMO_PIN = "1234";
+
+    /** Accounts per client created by {@code --demo-accounts}. */
+    public static final int DEMO_ACCOUNTS_PER_CLIENT = 100;
+
+    /** Seconds a prepared month-end waits for its commit before aborting. */
+    public static final long PREPARE_TIMEOUT_SECONDS = 30;
+
+    /** Environment variable holding the admin secret of {@link #main}. */
+    public static final String ADMIN_SECRET_ENV = "PUMABANK_ADMIN_SECRET";
+
+    private static final Set<String> RESERVED_CREDENTIALS = Set.of("SYSTEM", "0000");
+    private static final Set<String> ADMIN_COMMANDS = Set.of("CLOSE_MONTH", "REGISTER", "OPEN", "CREDIT", "STATE",
+        "CLIENTS", "DETACH", "ATTACH_PART", "ATTACH_END", "PREPARE_MONTH", "COMMIT_MONTH", "ABORT_MONTH");
+
+    private static final int MAX_LINE = 1024;
+    private static final int MAX_PENDING = 1024;
+    private static final int MAX_ATTACH = 64 << 20;
+
+    private final PumaBankFacade facade;
+    private final RequestExecutor executor;
+    private final byte[] adminSecret;
+    private final ServerSocketChannel server;
+    private final Selector selector;
+    private final Thread loop;
+    private final ConcurrentLinkedQueue<Connection> ready = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean wakeupPending = new AtomicBoolean();
+    private final LongAdder requests = new LongAdder();
+    private final AtomicReference<MonthEnd> monthEnd = new AtomicReference<>();
+    private volatile boolean running = true;
+
+    /**
+     * Binds the server without admin commands and starts serving on a new
+     * thread.
+     *
+     * @param facade  the bank to serve
+     * @param address the address to listen on; port 0 picks a free port
+     * @throws IOException if the address cannot be bound
+     */
+    public BankServer(PumaBankFacade facade, InetSocketAddress address) throws IOException {
+        this(facade, address, (String) null);
+    }
+
+    /**
+     * Binds the server and starts serving on a new thread.
+     *
+     * @param facade      the bank to serve
+     * @param address     the address to listen on; port 0 picks a free port
+     * @param adminSecret the secret a connection sends with {@code ADMIN},
+     *                    one word of printable ASCII; {@code null} disables the admin commands
+     * @throws IOException if the address cannot be bound
+     */
+    public BankServer(PumaBankFacade facade, InetSocketAddress address, String adminSecret) throws IOException {
+        this(facade, address, new RequestExecutor(facade), adminSecret);
+    }
+
+    /**
+     * Binds the server with an explicit executor, which is closed together
+     * with the server.
+     *
+     * @param facade      the bank to serve
+     * @param address     the address to listen on; port 0 picks a free port
+     * @param executor    the executor running the requests
+     * @param adminSecret the secret a connection sends with {@code ADMIN},
+     *                    one word of printable ASCII; {@code null} disables the admin commands
+     * @throws IOException if the address cannot be bound
+     * @throws IllegalArgumentException if the secret is not one word of printable ASCII
+     */
+    public BankServer(PumaBankFacade facade, InetSocketAddress address, RequestExecutor executor,
+                      String adminSecret) throws IOException {
+        if (adminSecret != null
+                && (adminSecret.isEmpty() || adminSecret.chars().anyMatch(c -> c <= ' ' || c > '~'))) {
+            throw new IllegalArgumentException("The admin secret must be one word of printable ASCII");
+        }
+        this.facade = facade;
+        this.executor = executor;
+        this.adminSecret = adminSecret == null ? null : adminSecret.getBytes(StandardCharsets.US_ASCII);
+        this.selector = Selector.open();
+        this.server = ServerSocketChannel.open();
+        server.bind(address, 1024);
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+        this.loop = new Thread(this::serve, "pumabank-server");
+        loop.start();
+    }
+
+    /**
+     * Returns the port the server listens on.
+     *
+     * @return the local port
+     */
+    public int getPort() {
+        return server.socket().getLocalPort();
+    }
+
+    /**
+     * Returns the number of requests received since the server started.
+     *
+     * @return the received requests
+     */
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    /**
+     * Builds the identifier of the {@code index}-th account created by
+     * {@code --demo-accounts}, counting from zero.
+     *
+     * @param index the account position
+     * @return the account identifier
+     */
+    public static String demoAccountId(int index) {
+        return "L" + (index / DEMO_ACCOUNTS_PER_CLIENT) + "-ACC-" + (index % DEMO_ACCOUNTS_PER_CLIENT + 1);
+    }
+
+    private void serve() {
+        try {
+            while (running) {
+                selector.select();
+                wakeupPending.set(false);
+                Connection c;
+                while ((c = ready.poll()) != null) {
+                    c.signalled.set(false);
+                    flush(c);
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    Connection conn = (Connection) key.attachment();
+                    if (key.isReadable()) {
+                        read(conn);
+                    }
+                    if (key.isValid() && key.isWritable()) {
+                        flush(conn);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            if (running) {
+                System.err.println("Server stopped: " + e.getMessage());
+            }
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                closeQuietly(key.channel());
+            }
+            closeQuietly(selector);
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = server.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            Connection conn = new Connection(channel);
+            conn.key = channel.register(selector, SelectionKey.OP_READ, conn);
+        }
+    }
+
+    private void read(Connection conn) {
+        int n;
+        try {
+            n = conn.channel.read(conn.in);
+        } catch (IOException e) {
+            close(conn);
+            return;
+        }
+        if (n < 0) {
+            conn.closing = true;
+        }
+        conn.in.flip();
+        while (conn.in.hasRemaining() && !conn.closing) {
+            byte b = conn.in.get();
+            if (b == '\n') {
+                int end = conn.length > 0 && conn.line[conn.length - 1] == '\r' ? conn.length - 1 : conn.length;
+                String line = new String(conn.line, 0, end, StandardCharsets.US_ASCII);
+                conn.length = 0;
+                if (!line.isBlank()) {
+                    requests.increment();
+                    enqueue(conn, handle(conn, line));
+                }
+            } else if (conn.length == MAX_LINE) {
+                enqueue(conn, CompletableFuture.completedFuture("ERR line too long"));
+                conn.closing = true;
+            } else {
+                conn.line[conn.length++] = b;
+            }
+        }
+        conn.in.clear();
+        flush(conn);
+    }
+
+    private void enqueue(Connection conn, CompletableFuture<String> response) {
+        conn.pending.add(response);
+        if (!response.isDone()) {
+            response.whenComplete((r, e) -> signal(conn));
+        }
+    }
+
+    /**
+     * Hands a connection whose responses completed on another thread back to
+     * the selector thread.
+     */
+    private void signal(Connection conn) {
+        if (conn.signalled.compareAndSet(false, true)) {
+            ready.add(conn);
+            if (wakeupPending.compareAndSet(false, true)) {
+                selector.wakeup();
+            }
+        }
+    }
+
+    /**
+     * Writes the completed responses at the head of the connection queue and
+     * updates the interest set: reading stops while too many requests are
+     * unanswered and writing is watched while output is left over.
+     */
+    private void flush(Connection conn) {
+        if (!conn.key.isValid()) {
+            return;
+        }
+        while (!conn.pending.isEmpty() && conn.pending.peek().isDone()) {
+            byte[] bytes = (conn.pending.poll().join() + "\n").getBytes(StandardCharsets.US_ASCII);
+            if (conn.out.remaining() < bytes.length) {
+                ByteBuffer bigger = ByteBuffer.allocate(Math.max(conn.out.capacity() * 2,
+                    conn.out.position() + bytes.length));
+                conn.out.flip();
+                bigger.put(conn.out);
+                conn.out = bigger;
+            }
+            conn.out.put(bytes);
+        }
+        try {
+            conn.out.flip();
+            conn.channel.write(conn.out);
+            conn.out.compact();
+        } catch (IOException e) {
+            close(conn);
+            return;
+        }
+        boolean drained = conn.out.position() == 0;
+        if (conn.closing && drained && conn.pending.isEmpty()) {
+            close(conn);
+            return;
+        }
+        int ops = drained ? 0 : SelectionKey.OP_WRITE;
+        if (!conn.closing && conn.pending.size() < MAX_PENDING) {
+            ops |= SelectionKey.OP_READ;
+        }
+        conn.key.interestOps(ops);
+    }
+
+    private void close(Connection conn) {
+        conn.key.cancel();
+        closeQuietly(conn.channel);
+    }
+
+    private CompletableFuture<String> handle(Connection conn, String line) {
+        String[] p = line.trim().split("\\s+");
+        String command = p[0].toUpperCase(Locale.ROOT);
+        if (ADMIN_COMMANDS.contains(command) && !conn.admin) {
+            return CompletableFuture.completedFuture("ERR " + command + " needs ADMIN");
+        }
+        try {
+            switch (command) {
+                case "DEPOSIT":
+                    arity(p, 4, 5);
+                    return batch(BatchOperation.deposit(p[1], amount(p[2]), credential(p[3])),
+                        p.length == 5 ? p[4] : null);
+                case "WITHDRAW":
+                    arity(p, 4, 5);
+                    return batch(BatchOperation.withdraw(p[1], amount(p[2]), credential(p[3])),
+                        p.length == 5 ? p[4] : null);
+                case "BALANCE":
+                    arity(p, 3);
+                    return batch(BatchOperation.checkBalance(p[1], credential(p[2])), null);
+                case "LOGIN":
+                    arity(p, 3);
+                    return login(p[1], credential(p[2]));
+                case "TRANSFER":
+                    arity(p, 5, 6);
+                    return transfer(p[1], p[2], amount(p[3]), credential(p[4]), p.length == 6 ? p[5] : null);
+                case "ADMIN":
+                    arity(p, 2);
+                    return admin(conn, p[1]);
+                case "CLOSE_MONTH":
+                    arity(p, 2);
+                    return guard(executor.processMonthlyOperations(Integer.parseInt(p[1])).thenApply(v -> "OK"));
+                case "REGISTER":
+                    if (p.length < 3) {
+                        throw new IllegalArgumentException("REGISTER expects a client and a name");
+                    }
+                    String name = String.join(" ", Arrays.copyOfRange(p, 2, p.length));
+                    return guard(executor.registerClient(name, p[1]).thenApply(c -> "OK"));
+                case "OPEN":
+                    if (p.length != 5 && p.length != 6) {
+                        throw new IllegalArgumentException("OPEN expects 4 or 5 arguments");
+                    }
+                    return open(p[1], amount(p[2]), credential(p[3]), p[4],
+                        p.length == 6 ? Arrays.asList(p[5].split(",")) : List.of());
+                case "CREDIT":
+                    arity(p, 4);
+                    return credit(p[1], amount(p[2]), p[3]);
+                case "STATE":
+                    arity(p, 2);
+                    return state(p[1]);
+                case "CLIENTS":
+                    arity(p, 1);
+                    return guard(executor.submitExclusive(this::clients));
+                case "DETACH":
+                    arity(p, 2);
+                    return guard(executor.submitExclusive(() -> detach(p[1])));
+                case "ATTACH_PART":
+                    arity(p, 2);
+                    if (conn.attaching.length() + p[1].length() > MAX_ATTACH) {
+                        conn.attaching.setLength(0);
+                        throw new IllegalArgumentException("attached data too large");
+                    }
+                    conn.attaching.append(p[1]);
+                    return CompletableFuture.completedFuture("OK");
+                case "ATTACH_END":
+                    arity(p, 1);
+                    String encoded = conn.attaching.toString();
+                    conn.attaching.setLength(0);
+                    byte[] data = Base64.getDecoder().decode(encoded);
+                    return guard(executor.submitExclusive(() -> "OK " + facade.importClients(data)));
+                case "PREPARE_MONTH":
+                    arity(p, 2);
+                    return prepareMonth(Integer.parseInt(p[1]));
+                case "COMMIT_MONTH":
+                    arity(p, 2);
+                    return finishMonth(Integer.parseInt(p[1]), true);
+                case "ABORT_MONTH":
+                    arity(p, 2);
+                    return finishMonth(Integer.parseInt(p[1]), false);
+                case "PING":
+                    return CompletableFuture.completedFuture("PONG");
+                case "QUIT":
+                    conn.closing = true;
+                    return CompletableFuture.completedFuture("BYE");
+                default:
+                    return CompletableFuture.completedFuture("ERR unknown command " + p[0]);
+            }
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture("ERR " + e.getMessage());
+        }
+    }
+
+    private static void arity(String[] parts, int expected) {
+        if (parts.length != expected) {
+            throw new IllegalArgumentException(parts[0] + " expects " + (expected - 1) + " arguments");
+        }
+    }
+
+    private static void arity(String[] parts, int min, int max) {
+        if (parts.length < min || parts.length > max) {
+            throw new IllegalArgumentException(parts[0] + " expects " + (min - 1) + " or " + (max - 1) + " arguments");
+        }
+    }
+
+    private static String credential(String text) {
+        if (RESERVED_CREDENTIALS.contains(text)) {
+            throw new IllegalArgumentException("reserved credential");
+        }
+        return text;
+    }
+
+    /**
+     * Lets the connection use the admin commands if the secret matches, and
+     * closes it otherwise so a guess costs a new connection.
+     */
+    private CompletableFuture<String> admin(Connection conn, String secret) {
+        if (adminSecret != null
+                && MessageDigest.isEqual(adminSecret, secret.getBytes(StandardCharsets.US_ASCII))) {
+            conn.admin = true;
+            return CompletableFuture.completedFuture("OK");
+        }
+        conn.closing = true;
+        return CompletableFuture.completedFuture(adminSecret == null ? "ERR admin commands are disabled"
+            : "ERR wrong admin secret");
+    }
+
+    private static double amount(String text) {
+        double amount = Double.parseDouble(text);
+        if (!Double.isFinite(amount)) {
+            throw new IllegalArgumentException("invalid amount " + text);
+        }
+        return amount;
+    }
+
+    private CompletableFuture<String> batch(BatchOperation op, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return guard(executor.submit(op.getAccountId(), () -> format(execute(op))));
+        }
+        return guard(executor.submit(op.getAccountId(), () -> {
+            if (facade.findAccount(op.getAccountId()) == null) {
+                return BatchResult.Status.NOT_FOUND.name();
+            }
+            return format(op.getType() == BatchOperation.Type.DEPOSIT
+                ? facade.deposit(op.getAccountId(), op.getAmount(), op.getPin(), idempotencyKey)
+                : facade.withdraw(op.getAccountId(), op.getAmount(), op.getPin(), idempotencyKey));
+        }));
+    }
+
+    private BatchResult execute(BatchOperation op) {
+        return facade.executeBatch(List.of(op)).get(0);
+    }
+
+    private CompletableFuture<String> login(String accountId, String pin) {
+        return guard(executor.submit(accountId, () -> {
+            if (facade.findAccount(accountId) == null) {
+                return BatchResult.Status.NOT_FOUND.name();
+            }
+            String token = facade.openSession(accountId, pin);
+            if (token != null) {
+                return "OK " + token;
+            }
+            return facade.findAccount(accountId).isLocked()
+                ? BatchResult.Status.THROTTLED.name() : BatchResult.Status.AUTH_FAILED.name();
+        }));
+    }
+
+    /**
+     * Runs a transfer on the source account's mailbox. The facade locks both
+     * accounts, so the credit is safe against requests queued for the target.
+     */
+    private CompletableFuture<String> transfer(String from, String to, double amount, String credential,
+                                               String idempotencyKey) {
+        return guard(executor.submit(from, () -> {
+            if (facade.findAccount(from) == null || facade.findAccount(to) == null) {
+                return BatchResult.Status.NOT_FOUND.name();
+            }
+            BatchResult.Status status = idempotencyKey == null
+                ? facade.transfer(from, to, amount, credential)
+                : facade.transfer(from, to, amount, credential, idempotencyKey);
+            if (status == BatchResult.Status.APPLIED || status == BatchResult.Status.DECLINED) {
+                return status + " " + money(facade.findAccount(from).getUnderlyingAccount().getBalance());
+            }
+            return status.name();
+        }));
+    }
+
+    private CompletableFuture<String> open(String clientId, double balance, String pin, String interestType,
+                                           List<String> services) {
+        return guard(executor.submitExclusive(() -> {
+            facade.createAccount(clientId, balance, pin, interestType, services);
+            return "OK " + clientId + "-ACC-" + facade.getClientAccounts(clientId).size();
+        }));
+    }
+
+    /**
+     * Deposits for the bank itself, as the second step of a transfer between
+     * shards or its refund; the key makes a resent step run once.
+     */
+    private CompletableFuture<String> credit(String accountId, double amount, String idempotencyKey) {
+        return guard(executor.submit(accountId, () -> {
+            if (facade.findAccount(accountId) == null) {
+                return BatchResult.Status.NOT_FOUND.name();
+            }
+            return format(facade.systemDeposit(accountId, amount, idempotencyKey));
+        }));
+    }
+
+    private CompletableFuture<String> state(String accountId) {
+        return guard(executor.submit(accountId, () -> {
+            AccountProxy proxy = facade.findAccount(accountId);
+            if (proxy == null) {
+                return BatchResult.Status.NOT_FOUND.name();
+            }
+            return "OK " + proxy.getUnderlyingAccount().getState().getClass().getSimpleName();
+        }));
+    }
+
+    private String clients() {
+        StringBuilder line = new StringBuilder("OK");
+        for (Client client : facade.getAllClients()) {
+            line.append(' ').append(client.getClientId());
+        }
+        return line.toString();
+    }
+
+    /**
+     * Encodes a client and removes it from this bank in one exclusive step,
+     * so no request can change it after it was copied.
+     */
+    private String detach(String clientId) {
+        byte[] data;
+        try {
+            data = facade.exportClients(List.of(clientId));
+        } catch (IllegalArgumentException e) {
+            return BatchResult.Status.NOT_FOUND.name();
+        }
+        facade.removeClient(clientId);
+        return "OK " + Base64.getEncoder().encodeToString(data);
+    }
+
+    /**
+     * A month-end waiting between its two phases.
+     */
+    private static final class MonthEnd {
+        final int month;
+        final CompletableFuture<Boolean> decision = new CompletableFuture<>();
+        CompletableFuture<MonthlyReport> report;
+
+        MonthEnd(int month) {
+            this.month = month;
+        }
+    }
+
+    /**
+     * Starts an exclusive request that answers {@code PREPARED} once it holds
+     * the bank, then waits for the commit or abort before closing the month.
+     */
+    private CompletableFuture<String> prepareMonth(int month) {
+        MonthEnd pending = new MonthEnd(month);
+        if (!monthEnd.compareAndSet(null, pending)) {
+            return CompletableFuture.completedFuture("ERR month-end already prepared");
+        }
+        CompletableFuture<String> prepared = new CompletableFuture<>();
+        pending.report = executor.submitExclusive(() -> {
+            prepared.complete("PREPARED");
+            boolean commit;
+            try {
+                commit = pending.decision.get(PREPARE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (TimeoutException e) {
+                commit = false;
+            }
+            return commit ? facade.processMonthlyOperations(month) : null;
+        });
+        pending.report.whenComplete((r, e) -> {
+            monthEnd.compareAndSet(pending, null);
+            if (e != null) {
+                prepared.complete("ERR " + e.getMessage());
+            }
+        });
+        return prepared;
+    }
+
+    private CompletableFuture<String> finishMonth(int month, boolean commit) {
+        MonthEnd pending = monthEnd.get();
+        if (pending == null || pending.month != month) {
+            return CompletableFuture.completedFuture("ERR month " + month + " is not prepared");
+        }
+        pending.decision.complete(commit);
+        return guard(pending.report.thenApply(r -> r == null ? "ABORTED" : String.format(Locale.ROOT,
+            "REPORT %d %d %d %.2f %.2f %d", r.getMonth(), r.getAccounts(), r.getTransactions(),
+            r.getFees(), r.getInterest(), r.getElapsedMillis())));
+    }
+
+    private static String format(BatchResult result) {
+        switch (result.getStatus()) {
+            case APPLIED:
+            case DECLINED:
+                return result.getStatus() + " " + money(result.getBalance());
+            case INVALID:
+                return "INVALID " + result.getMessage();
+            default:
+                return result.getStatus().name();
+        }
+    }
+
+    private static String money(double amount) {
+        return String.format(Locale.ROOT, "%.2f", amount);
+    }
+
+    /**
+     * Turns a failed request into an {@code ERR} response.
+     */
+    private static CompletableFuture<String> guard(CompletableFuture<String> response) {
+        return response.handle((r, e) -> {
+            if (e == null) {
+                return r;
+            }
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            return "ERR " + cause.getMessage();
+        });
+    }
+
+    /**
+     * Stops accepting connections, closes the open ones and waits for running
+     * requests to finish.
+     */
+    @Override
+    public void close() {
+        running = false;
+        selector.wakeup();
+        try {
+            loop.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        executor.close();
+    }
+
+    private static void closeQuietly(Closeable c) {
+        try {
+            c.close();
+        } catch (IOException e) {
+            // already closing
+        }
+    }
+
+    /**
+     * The state of one client connection. Everything except
+     * {@link #signalled} is used only by the selector thread.
+     */
+    private static final class Connection {
+        final SocketChannel channel;
+        final ByteBuffer in = ByteBuffer.allocate(8192);
+        final byte[] line = new byte[MAX_LINE];
+        final ArrayDeque<CompletableFuture<String>> pending = new ArrayDeque<>();
+        final AtomicBoolean signalled = new AtomicBoolean();
+        final StringBuilder attaching = new StringBuilder();
+        ByteBuffer out = ByteBuffer.allocate(8192);
+        SelectionKey key;
+        int length;
+        boolean closing;
+        boolean admin;
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+    }
+
+    /**
+     * Starts a server from the command line.
+     *
+     * <pre>
+     * java -cp out mx.unam.ciencias.myp.pumabank.server.BankServer [--host H] [--port P]
+     *      [--snapshot FILE] [--import FILE] [--demo-accounts N] [--metrics-port P] [--verbose]
+     * </pre>
+     *
+     * <p>The bank starts from a snapshot, a bulk import file or generated
+     * demo accounts (see {@link #demoAccountId}, PIN {@value #DEMO_PIN}).
+     * The admin commands are enabled only when the environment variable
+     * {@value #ADMIN_SECRET_ENV} holds their secret.
+     * Account notifications are printed only with {@code --verbose}. With
+     * {@code --metrics-port} the bank metrics are served for Prometheus at
+     * {@code /metrics} on that port of the same host.</p>
+     *
+     * @param args command line options
+     * @throws IOException if the bank cannot be loaded or the port bound
+     */
+    public static void main(String[] args) throws IOException {
+        String host = "127.0.0.1";
+        int port = DEFAULT_PORT;
+        Path snapshot = null;
+        Path importFile = null;
+        int demoAccounts = 0;
+        int metricsPort = -1;
+        boolean verbose = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--host":
+                    host = args[++i];
+                    break;
+                case "--port":
+                    port = Integer.parseInt(args[++i]);
+                    break;
+                case "--snapshot":
+                    snapshot = Paths.get(args[++i]);
+                    break;
+                case "--import":
+                    importFile = Paths.get(args[++i]);
+                    break;
+                case "--demo-accounts":
+                    demoAccounts = Integer.parseInt(args[++i]);
+                    break;
+                case "--metrics-port":
+                    metricsPort = Integer.parseInt(args[++i]);
+                    break;
+                case "--verbose":
+                    verbose = true;
+                    break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(2);
+            }
+        }
+
+        PrintStream console = System.out;
+        if (!verbose) {
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        }
+        PumaBankFacade facade = snapshot != null ? PumaBankFacade.loadSnapshot(snapshot) : new PumaBankFacade();
+        facade.setQuietMode(!verbose);
+        if (importFile != null) {
+            console.println(facade.importAccounts(importFile));
+        }
+        if (demoAccounts > 0) {
+            console.println(createDemoAccounts(facade, demoAccounts));
+        }
+
+        String adminSecret = System.getenv(ADMIN_SECRET_ENV);
+        BankServer server = new BankServer(facade, new InetSocketAddress(host, port), adminSecret);
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+        console.printf("PumaBank server listening on %s:%d (%s threads, admin commands %s)%n", host,
+            server.getPort(), server.executor.getMode(), adminSecret != null ? "enabled" : "disabled");
+        if (metricsPort >= 0) {
+            PrometheusExporter exporter = PrometheusExporter.serveHttp(facade.getMetrics(),
+                new InetSocketAddress(host, metricsPort));
+            Runtime.getRuntime().addShutdownHook(new Thread(exporter::close));
+            console.printf("Metrics at http://%s:%d/metrics%n", host, exporter.getPort());
+        }
+    }
+
+    private static ImportResult createDemoAccounts(PumaBankFacade facade, int accounts) throws IOException {
+        Path file = Files.createTempFile("pumabank-demo", ".csv");
+        try {
+            try (BufferedWriter out = Files.newBufferedWriter(file)) {
+                for (int i = 0; i < accounts; i++) {
+                    if (i % DEMO_ACCOUNTS_PER_CLIENT == 0) {
+                        String clientId = "L" + (i / DEMO_ACCOUNTS_PER_CLIENT);
+                        out.write("C," + clientId + ",Load client " + clientId + "\n");
+                    }
+                    out.write("A,L" + (i / DEMO_ACCOUNTS_PER_CLIENT) + ",10000.00," + DEMO_PIN + ",MONTHLY\n");
+                }
+            }
+            return facade.importAccounts(file);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,355 @@
+package mx.unam.ciencias.myp.pumabank.server;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives a {@link BankServer} with a random mix of requests and reports
+ * throughput and latency percentiles.
+ *
+ * <pre>
+ * java -cp out mx.unam.ciencias.myp.pumabank.server.LoadGenerator [--host H] [--port P]
+ *      [--accounts N] [--connections C] [--duration SECONDS] [--warmup SECONDS]
+ *      [--rate REQUESTS_PER_SECOND] [--mix DEPOSIT,WITHDRAW,BALANCE,TRANSFER] [--seed S] [--pin]
+ * </pre>
+ *
+ * <p>The accounts are the ones the server creates with
+ * {@code --demo-accounts N}. Each connection owns the accounts whose
+ * position modulo the number of connections is its own, and before the run
+ * it logs into them to obtain session tokens (unless {@code --pin} asks to
+ * send the PIN with every request, which costs a PIN hash per request).
+ * Transfers go from an owned account to any account.</p>
+ *
+ * <p>Without {@code --rate} the load is closed-loop: every connection sends
+ * a request, waits for its response and sends the next one, so the load
+ * adapts to the server. With {@code --rate} the load is open-loop: requests
+ * are sent on a fixed schedule whether or not earlier ones were answered,
+ * and latency is measured from the scheduled send time, so a stalled server
+ * shows up as queueing delay instead of as fewer requests. Responses
+ * received during the warm-up are not counted.</p>
+ */
+public final class LoadGenerator {
+
+    private static final String[] OPERATIONS = {"DEPOSIT", "WITHDRAW", "BALANCE", "TRANSFER"};
+
+    private final String host;
+    private final int port;
+    private final int accounts;
+    private final int connections;
+    private final long durationNanos;
+    private final long warmupNanos;
+    private final double rate;
+    private final int[] mix;
+    private final long seed;
+    private final boolean sendPin;
+
+    private LoadGenerator(String host, int port, int accounts, int connections, double durationSeconds,
+                          double warmupSeconds, double rate, int[] mix, long seed, boolean sendPin) {
+        this.host = host;
+        this.port = port;
+        this.accounts = accounts;
+        this.connections = connections;
+        this.durationNanos = (long) (durationSeconds * 1e9);
+        this.warmupNanos = (long) (warmupSeconds * 1e9);
+        this.rate = rate;
+        this.mix = mix;
+        this.seed = seed;
+        this.sendPin = sendPin;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String host = "127.0.0.1";
+        int port = BankServer.DEFAULT_PORT;
+        int accounts = 1000;
+        int connections = 16;
+        double duration = 10;
+        double warmup = 2;
+        double rate = 0;
+        int[] mix = {40, 30, 20, 10};
+        long seed = 42;
+        boolean sendPin = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--host":
+                    host = args[++i];
+                    break;
+                case "--port":
+                    port = Integer.parseInt(args[++i]);
+                    break;
+                case "--accounts":
+                    accounts = Integer.parseInt(args[++i]);
+                    break;
+                case "--connections":
+                    connections = Integer.parseInt(args[++i]);
+                    break;
+                case "--duration":
+                    duration = Double.parseDouble(args[++i]);
+                    break;
+                case "--warmup":
+                    warmup = Double.parseDouble(args[++i]);
+                    break;
+                case "--rate":
+                    rate = Double.parseDouble(args[++i]);
+                    break;
+                case "--mix":
+                    mix = Arrays.stream(args[++i].split(",")).mapToInt(Integer::parseInt).toArray();
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[++i]);
+                    break;
+                case "--pin":
+                    sendPin = true;
+                    break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(2);
+            }
+        }
+        if (mix.length != OPERATIONS.length) {
+            throw new IllegalArgumentException("--mix needs four weights: deposit,withdraw,balance,transfer");
+        }
+        if (connections > accounts) {
+            throw new IllegalArgumentException("every connection needs at least one account");
+        }
+        new LoadGenerator(host, port, accounts, connections, duration, warmup, rate, mix, seed, sendPin).run();
+    }
+
+    private void run() throws Exception {
+        List<Worker> workers = new ArrayList<>();
+        for (int c = 0; c < connections; c++) {
+            workers.add(new Worker(c));
+        }
+        System.out.printf("Logging in %d connections...%n", connections);
+        for (Worker w : workers) {
+            w.login();
+        }
+
+        long start = System.nanoTime() + 100_000_000L;
+        List<Thread> threads = new ArrayList<>();
+        for (Worker w : workers) {
+            w.start = start;
+            Thread t = new Thread(rate > 0 ? w::openLoop : w::closedLoop, "load-" + w.index);
+            threads.add(t);
+            t.start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        long measured = 0;
+        long failed = 0;
+        Map<String, Long> statuses = new TreeMap<>();
+        for (Worker w : workers) {
+            measured += w.count;
+            failed += w.failures;
+            w.statuses.forEach((k, v) -> statuses.merge(k, v, Long::sum));
+        }
+        long[] all = new long[(int) measured];
+        int offset = 0;
+        for (Worker w : workers) {
+            System.arraycopy(w.latencies, 0, all, offset, w.count);
+            offset += w.count;
+        }
+        Arrays.sort(all);
+        double seconds = (durationNanos - warmupNanos) / 1e9;
+        System.out.printf(Locale.ROOT, "%s, %d connections, %d accounts%s%n",
+            rate > 0 ? String.format(Locale.ROOT, "open loop at %.0f req/s", rate) : "closed loop",
+            connections, accounts, sendPin ? ", PIN per request" : ", session tokens");
+        System.out.printf(Locale.ROOT, "%d responses in %.1f s: %.0f req/s, %d connection failures%n",
+            measured, seconds, measured / seconds, failed);
+        if (measured > 0) {
+            System.out.printf(Locale.ROOT,
+                "latency ms: p50 %.3f  p90 %.3f  p99 %.3f  p99.9 %.3f  max %.3f%n",
+                percentile(all, 0.50), percentile(all, 0.90), percentile(all, 0.99),
+                percentile(all, 0.999), all[all.length - 1] / 1e6);
+        }
+        System.out.println("responses: " + statuses);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * p))] / 1e6;
+    }
+
+    /**
+     * One connection and the accounts it owns.
+     */
+    private final class Worker {
+        final int index;
+        final Random random;
+        final String[] owned;
+        final String[] credentials;
+        final Map<String, Long> statuses = new TreeMap<>();
+        long[] latencies = new long[1 << 16];
+        int count;
+        long failures;
+        long start;
+        Socket socket;
+        OutputStream out;
+        BufferedReader in;
+
+        Worker(int index) throws IOException {
+            this.index = index;
+            this.random = new Random(seed + index);
+            int n = (accounts - index + connections - 1) / connections;
+            this.owned = new String[n];
+            this.credentials = new String[n];
+            for (int i = 0; i < n; i++) {
+                owned[i] = BankServer.demoAccountId(index + i * connections);
+                credentials[i] = BankServer.DEMO_PIN;
+            }
+            socket = new Socket();
+            socket.setTcpNoDelay(true);
+            socket.connect(new InetSocketAddress(host, port));
+            out = socket.getOutputStream();
+            in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+        }
+
+        void login() throws IOException {
+            if (sendPin) {
+                return;
+            }
+            for (int i = 0; i < owned.length; i++) {
+                send("LOGIN " + owned[i] + " " + BankServer.DEMO_PIN + "\n");
+                String response = in.readLine();
+                if (response == null || !response.startsWith("OK ")) {
+                    throw new IOException("Login failed for " + owned[i] + ": " + response);
+                }
+                credentials[i] = response.substring(3);
+            }
+        }
+
+        String nextRequest() {
+            int pick = random.nextInt(owned.length);
+            String account = owned[pick];
+            String credential = credentials[pick];
+            int roll = random.nextInt(mix[0] + mix[1] + mix[2] + mix[3]);
+            int op = 0;
+            while (roll >= mix[op]) {
+                roll -= mix[op];
+                op++;
+            }
+            String amount = (1 + random.nextInt(100)) + ".00";
+            switch (op) {
+                case 0:
+                    return "DEPOSIT " + account + " " + amount + " " + credential + "\n";
+                case 1:
+                    return "WITHDRAW " + account + " " + amount + " " + credential + "\n";
+                case 2:
+                    return "BALANCE " + account + " " + credential + "\n";
+                default:
+                    String to = BankServer.demoAccountId(random.nextInt(accounts));
+                    if (to.equals(account)) {
+                        return "BALANCE " + account + " " + credential + "\n";
+                    }
+                    return "TRANSFER " + account + " " + to + " " + amount + " " + credential + "\n";
+            }
+        }
+
+        void send(String request) throws IOException {
+            out.write(request.getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+        }
+
+        void record(long sentAt, long now, String response) {
+            if (sentAt - start < warmupNanos) {
+                return;
+            }
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = now - sentAt;
+            int space = response.indexOf(' ');
+            statuses.merge(space < 0 ? response : response.substring(0, space), 1L, Long::sum);
+        }
+
+        void closedLoop() {
+            long end = start + durationNanos;
+            LockSupport.parkNanos(start - System.nanoTime());
+            try {
+                while (System.nanoTime() < end) {
+                    long sentAt = System.nanoTime();
+                    send(nextRequest());
+                    String response = in.readLine();
+                    if (response == null) {
+                        failures++;
+                        return;
+                    }
+                    record(sentAt, System.nanoTime(), response);
+                }
+            } catch (IOException e) {
+                failures++;
+            } finally {
+                closeSocket();
+            }
+        }
+
+        /**
+         * Sends on a fixed schedule from this thread while a second thread
+         * reads the responses, which come back in request order.
+         */
+        void openLoop() {
+            long interval = (long) (1e9 * connections / rate);
+            long end = start + durationNanos;
+            BlockingQueue<Long> scheduled = new ArrayBlockingQueue<>(1 << 16);
+            Thread reader = new Thread(() -> {
+                try {
+                    while (true) {
+                        long sentAt = scheduled.take();
+                        if (sentAt < 0) {
+                            return;
+                        }
+                        String response = in.readLine();
+                        if (response == null) {
+                            failures++;
+                            return;
+                        }
+                        record(sentAt, System.nanoTime(), response);
+                    }
+                } catch (IOException | InterruptedException e) {
+                    failures++;
+                }
+            }, "load-reader-" + index);
+            reader.start();
+            try {
+                for (long next = start + interval * index / connections; next < end; next += interval) {
+                    long wait = next - System.nanoTime();
+                    if (wait > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                    scheduled.put(next);
+                    send(nextRequest());
+                }
+                scheduled.put(-1L);
+                reader.join();
+            } catch (IOException | InterruptedException e) {
+                failures++;
+                reader.interrupt();
+            } finally {
+                closeSocket();
+            }
+        }
+
+        void closeSocket() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // the run is over
+            }
+        }
+    }
+}
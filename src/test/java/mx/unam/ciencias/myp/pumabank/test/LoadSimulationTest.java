@@ -0,0 +1,96 @@
+package mx.unam.ciencias.myp.pumabank.test;
+
+import mx.unam.ciencias.myp.pumabank.LoadSimulation;
+import mx.unam.ciencias.myp.pumabank.patterns.proxy.PinAuthenticator;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that the headless simulation reports its run and replays it
+ * identically for the same seed.
+ */
+class LoadSimulationTest {
+
+    private static final String[] OPTIONS = {"--clients", "5", "--accounts", "12", "--ops", "600",
+        "--months", "3", "--threads", "3"};
+
+    @BeforeAll
+    static void fastPinHashing() {
+        System.setProperty(PinAuthenticator.ITERATIONS_PROPERTY, "1");
+    }
+
+    @AfterAll
+    static void restorePinHashing() {
+        System.clearProperty(PinAuthenticator.ITERATIONS_PROPERTY);
+    }
+
+    /**
+     * Two runs with the same seed end with the same checksum and monthly
+     * totals, whatever the thread scheduling; another seed ends elsewhere.
+     */
+    @Test
+    @DisplayName("the same seed replays the same run")
+    void replaysForSeed() throws Exception {
+        String first = simulate("--seed", "7");
+        String second = simulate("--seed", "7");
+        String other = simulate("--seed", "8");
+
+        assertTrue(first.contains("month 3: 600 ops"), first);
+        assertTrue(first.contains("ops/s"), first);
+        assertTrue(first.contains("month-end ms: p50"), first);
+        assertTrue(first.contains("peak heap"), first);
+        assertEquals(checksum(first), checksum(second));
+        assertEquals(totals(first), totals(second));
+        assertNotEquals(checksum(first), checksum(other));
+    }
+
+    /**
+     * Options that leave a thread or client without accounts are rejected.
+     */
+    @Test
+    @DisplayName("inconsistent options are rejected")
+    void rejectsInconsistentOptions() {
+        assertThrows(IllegalArgumentException.class,
+            () -> LoadSimulation.main(new String[] {"--clients", "10", "--accounts", "5"}));
+        assertThrows(IllegalArgumentException.class,
+            () -> LoadSimulation.main(new String[] {"--accounts", "2", "--clients", "1", "--threads", "3"}));
+        assertThrows(IllegalArgumentException.class, () -> LoadSimulation.main(new String[] {"--mix", "1,2"}));
+    }
+
+    private static String simulate(String... extra) throws Exception {
+        String[] args = Arrays.copyOf(OPTIONS, OPTIONS.length + extra.length);
+        System.arraycopy(extra, 0, args, OPTIONS.length, extra.length);
+        PrintStream out = System.out;
+        ByteArrayOutputStream report = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(report, true, StandardCharsets.UTF_8));
+        try {
+            LoadSimulation.main(args);
+        } finally {
+            System.setOut(out);
+        }
+        return report.toString(StandardCharsets.UTF_8);
+    }
+
+    private static String checksum(String report) {
+        return report.lines().filter(l -> l.startsWith("checksum ")).findFirst().orElseThrow();
+    }
+
+    /**
+     * Returns the fees and interest of every month, which do not depend on
+     * timing.
+     */
+    private static String totals(String report) {
+        StringBuilder totals = new StringBuilder();
+        report.lines().filter(l -> l.startsWith("month ") && l.contains("fees"))
+            .forEach(l -> totals.append(l, l.indexOf("fees"), l.indexOf(", heap")).append('\n'));
+        return totals.toString();
+    }
+}
@@ -0,0 +1,85 @@
+package mx.unam.ciencias.myp.pumabank.test.bench;
+
+import mx.unam.ciencias.myp.pumabank.facade.PumaBankFacade;
+import mx.unam.ciencias.myp.pumabank.model.Account;
+import mx.unam.ciencias.myp.pumabank.model.Client;
+import mx.unam.ciencias.myp.pumabank.patterns.state.states.ActiveState;
+import mx.unam.ciencias.myp.pumabank.patterns.strategy.periods.MonthlyInterest;
+
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Measures {@link Account#getAndAddBalance} with every thread on its own
+ * account (no contention) and with every thread on one shared account, and
+ * prints the retries the shared account observed.
+ * <p>
+ * Not a unit test; run it with
+ * {@code java -cp target/classes:target/test-classes mx.unam.ciencias.myp.pumabank.test.bench.AccountCasBenchmark [updatesPerThread]}.
+ * </p>
+ */
+public final class AccountCasBenchmark {
+
+    private static final int[] THREADS = {1, 2, 4, 8};
+
+    private AccountCasBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int perThread = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        PumaBankFacade facade = new PumaBankFacade();
+        Client client = new Client("Bench", "CAS");
+
+        for (int threads : THREADS) {
+            Account[] own = new Account[threads];
+            for (int t = 0; t < threads; t++) {
+                own[t] = newAccount(client, facade);
+            }
+            Account shared = newAccount(client, facade);
+
+            long separate = run(threads, perThread, t -> own[t]);
+            long contended = run(threads, perThread, t -> shared);
+
+            double updates = (double) threads * perThread;
+            System.out.printf("%2d threads: own account %6.1f M updates/s, shared account %6.1f M updates/s,"
+                    + " %d retries over %d contended updates%n",
+                threads, updates / separate * 1e3, updates / contended * 1e3,
+                shared.getBalanceRetries(), shared.getContendedUpdates());
+            if (shared.getBalance() != updates) {
+                throw new IllegalStateException("lost updates: " + shared.getBalance() + " != " + updates);
+            }
+        }
+    }
+
+    private static Account newAccount(Client client, PumaBankFacade facade) {
+        return new Account(client, 0, new ActiveState(), new MonthlyInterest(0.0, 0.0), facade);
+    }
+
+    private interface Target {
+        Account of(int thread);
+    }
+
+    private static long run(int threads, int perThread, Target target) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            Account account = target.of(t);
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) {
+                    account.getAndAddBalance(1);
+                }
+            });
+            workers[t].start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return System.nanoTime() - begin;
+    }
+}
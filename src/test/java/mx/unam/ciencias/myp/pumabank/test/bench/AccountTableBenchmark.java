@@ -0,0 +1,122 @@
+package mx.unam.ciencias.myp.pumabank.test.bench;
+
+import mx.unam.ciencias.myp.pumabank.facade.PumaBankFacade;
+import mx.unam.ciencias.myp.pumabank.model.Account;
+import mx.unam.ciencias.myp.pumabank.model.AccountTable;
+import mx.unam.ciencias.myp.pumabank.model.Client;
+import mx.unam.ciencias.myp.pumabank.model.IAccount;
+import mx.unam.ciencias.myp.pumabank.patterns.decorator.AntiFraudDecorator;
+import mx.unam.ciencias.myp.pumabank.patterns.decorator.RewardsProgramDecorator;
+import mx.unam.ciencias.myp.pumabank.patterns.observer.LogLevel;
+import mx.unam.ciencias.myp.pumabank.patterns.state.states.ActiveState;
+import mx.unam.ciencias.myp.pumabank.patterns.strategy.periods.MonthlyInterest;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Compares heap size and GC work of the off-heap {@link AccountTable} with the
+ * object model of decorated {@link Account} instances.
+ * <p>
+ * Not a unit test; run each model in its own JVM so the numbers do not mix:
+ * {@code java -cp target/classes:target/test-classes mx.unam.ciencias.myp.pumabank.test.bench.AccountTableBenchmark table|objects [accounts]}.
+ * The run builds the accounts, measures the live heap, then runs one month-end
+ * pass and reports its time and the collections it caused.
+ * </p>
+ */
+public final class AccountTableBenchmark {
+
+    private static final int ACCOUNTS_PER_CLIENT = 100;
+
+    private AccountTableBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        boolean table = args.length == 0 || args[0].equals("table");
+        int accounts = args.length > 1 ? Integer.parseInt(args[1]) : 10_000_000;
+        MonthlyInterest policy = new MonthlyInterest(0.01, 0.0);
+
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        PumaBankFacade bank = new PumaBankFacade();
+        bank.setQuietMode(true);
+        bank.setLogLevel(LogLevel.OFF);
+        System.setOut(console);
+
+        long baseline = usedHeap();
+        Path file = Files.createTempFile("pumabank", ".tbl");
+        AccountTable rows = null;
+        IAccount[] objects = null;
+        long start = System.nanoTime();
+        if (table) {
+            rows = AccountTable.create(file, accounts, policy);
+            for (int i = 0; i < accounts; i++) {
+                rows.add(1000 + i % 5000, 0, i % 3 == 0 ? AccountTable.SERVICE_ANTI_FRAUD | AccountTable.SERVICE_REWARDS : 0);
+            }
+        } else {
+            objects = new IAccount[accounts];
+            Client client = null;
+            for (int i = 0; i < accounts; i++) {
+                if (i % ACCOUNTS_PER_CLIENT == 0) {
+                    client = new Client("Client " + i, "C" + i);
+                }
+                IAccount account = new Account(client, 1000 + i % 5000, new ActiveState(), policy, bank);
+                objects[i] = i % 3 == 0 ? new AntiFraudDecorator(new RewardsProgramDecorator(account)) : account;
+            }
+        }
+        long built = System.nanoTime();
+        long heap = usedHeap() - baseline;
+
+        long gcCount = gcCount();
+        long gcMillis = gcMillis();
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        long t0 = System.nanoTime();
+        if (table) {
+            rows.processMonth();
+        } else {
+            for (IAccount account : objects) {
+                account.processMonth();
+            }
+        }
+        long t1 = System.nanoTime();
+        System.setOut(console);
+
+        System.out.printf("%s: %d accounts built in %d ms%n", table ? "table" : "objects", accounts, (built - start) / 1_000_000);
+        System.out.printf("heap: %.1f MB live (%.1f bytes/account)%s%n", heap / 1e6, (double) heap / accounts,
+            table ? String.format(", %.1f MB mapped", Files.size(file) / 1e6) : "");
+        System.out.printf("month-end: %d ms, %d collections, %d ms in GC%n",
+            (t1 - t0) / 1_000_000, gcCount() - gcCount, gcMillis() - gcMillis);
+        if (rows != null) {
+            rows.close();
+        }
+        Files.deleteIfExists(file);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long gcCount() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(gc.getCollectionCount(), 0);
+        }
+        return total;
+    }
+
+    private static long gcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(gc.getCollectionTime(), 0);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,107 @@
+package mx.unam.ciencias.myp.pumabank.test.bench;
+
+import mx.unam.ciencias.myp.pumabank.facade.ExportFormat;
+import mx.unam.ciencias.myp.pumabank.facade.PumaBankFacade;
+import mx.unam.ciencias.myp.pumabank.patterns.observer.LogLevel;
+import mx.unam.ciencias.myp.pumabank.patterns.proxy.PinAuthenticator;
+
+import java.io.BufferedWriter;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Measures {@link PumaBankFacade#exportStatements} on a generated bank and
+ * the extra heap it needs on top of the bank itself.
+ * <p>
+ * Not a unit test; run it with
+ * {@code java -cp target/classes:target/test-classes mx.unam.ciencias.myp.pumabank.test.bench.ExportBenchmark [accounts]}.
+ * The bank is built with {@link PumaBankFacade#importAccounts} and one PIN
+ * hashing iteration.
+ * </p>
+ */
+public final class ExportBenchmark {
+
+    private static final int ACCOUNTS_PER_CLIENT = 100;
+    private static final String[] TYPES = {"MONTHLY", "ANNUAL", "PREMIUM", "TIERED"};
+    private static final String[] SERVICES = {"", "REWARDS", "ANTI_FRAUD;PREMIUM_ALERTS"};
+
+    private ExportBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int accounts = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        System.setProperty(PinAuthenticator.ITERATIONS_PROPERTY, "1");
+
+        Path input = Files.createTempFile("pumabank", ".csv");
+        Path output = Files.createTempFile("pumabank", ".out");
+        try {
+            try (BufferedWriter out = Files.newBufferedWriter(input)) {
+                for (int i = 0; i < accounts; i++) {
+                    String clientId = "C" + (i / ACCOUNTS_PER_CLIENT);
+                    if (i % ACCOUNTS_PER_CLIENT == 0) {
+                        out.write("C," + clientId + ",Client " + clientId + "\n");
+                    }
+                    out.write("A," + clientId + "," + (1000 + i % 5000) + ".25,1234," + TYPES[i % TYPES.length]
+                        + "," + SERVICES[i % SERVICES.length] + "\n");
+                }
+            }
+            PrintStream console = System.out;
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            PumaBankFacade bank = new PumaBankFacade();
+            bank.setQuietMode(true);
+            bank.setLogLevel(LogLevel.OFF);
+            bank.importAccounts(input);
+            System.setOut(console);
+
+            int threads = Runtime.getRuntime().availableProcessors();
+            for (int round = 0; round < 3; round++) {
+                for (ExportFormat format : ExportFormat.values()) {
+                    System.gc();
+                    long before = usedHeap();
+                    resetPeaks();
+                    long t0 = System.nanoTime();
+                    long exported = bank.exportStatements(output, format, threads);
+                    long millis = (System.nanoTime() - t0) / 1_000_000;
+                    System.out.printf("round %d %s: %d accounts in %d ms (%.0f accounts/s, %.1f MB), "
+                            + "peak heap %.1f MB above the bank%n",
+                        round, format, exported, millis, exported * 1000.0 / Math.max(millis, 1),
+                        Files.size(output) / 1e6, (peakHeap() - before) / 1e6);
+                }
+            }
+        } finally {
+            Files.deleteIfExists(input);
+            Files.deleteIfExists(output);
+        }
+    }
+
+    private static long usedHeap() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                used += pool.getUsage().getUsed();
+            }
+        }
+        return used;
+    }
+
+    private static void resetPeaks() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            pool.resetPeakUsage();
+        }
+    }
+
+    private static long peakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+}
@@ -0,0 +1,104 @@
+package mx.unam.ciencias.myp.pumabank.test.bench;
+
+import mx.unam.ciencias.myp.pumabank.facade.BatchResult;
+import mx.unam.ciencias.myp.pumabank.facade.IdempotencyCache;
+
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Measures the memory and lookup cost of {@link IdempotencyCache} with
+ * millions of keys, next to a {@link ConcurrentHashMap} of results for
+ * comparison.
+ * <p>
+ * Not a unit test; run it with
+ * {@code java -Xmx3g -cp target/classes:target/test-classes mx.unam.ciencias.myp.pumabank.test.bench.IdempotencyCacheBenchmark [maxKeys] [lookups]}.
+ * For each size the cache is created with that capacity and filled with as
+ * many keys. Memory is the growth of the used heap after a collection, so it
+ * includes the tables only, not the key strings, which the cache does not
+ * keep. Lookups use pre-built key strings, half of them remembered and half
+ * unknown; the time includes hashing the key.
+ * </p>
+ */
+public final class IdempotencyCacheBenchmark {
+
+    private IdempotencyCacheBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        int maxKeys = args.length > 0 ? Integer.parseInt(args[0]) : 8_000_000;
+        int lookups = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        long now = System.currentTimeMillis();
+
+        for (int keys = 1_000_000; keys <= maxKeys; keys *= 2) {
+            String[] probes = probes(keys, lookups);
+            long before = usedHeap();
+            IdempotencyCache cache = new IdempotencyCache(keys, Duration.ofHours(24));
+            long start = System.nanoTime();
+            for (int i = 0; i < keys; i++) {
+                cache.remember("req-" + i, 0, BatchResult.Status.APPLIED, i, now);
+            }
+            long inserted = System.nanoTime() - start;
+            long memory = usedHeap() - before;
+
+            long found = 0;
+            start = System.nanoTime();
+            for (String probe : probes) {
+                if (cache.find(probe, 0, null, now) != null) {
+                    found++;
+                }
+            }
+            long looked = System.nanoTime() - start;
+            System.out.printf("%,10d keys: %,6.1f bytes/key (tables %,d MB), insert %5.0f ns/key, "
+                    + "lookup %5.0f ns (%,d of %,d found), %,d keys held%n",
+                keys, (double) memory / keys, cache.getMemoryBytes() >> 20, (double) inserted / keys,
+                (double) looked / probes.length, found, probes.length, cache.size());
+        }
+
+        int keys = 1_000_000;
+        String[] probes = probes(keys, lookups);
+        long before = usedHeap();
+        ConcurrentHashMap<String, Remembered> map = new ConcurrentHashMap<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < keys; i++) {
+            map.put("req-" + i, new Remembered(BatchResult.Status.APPLIED, i, now));
+        }
+        long inserted = System.nanoTime() - start;
+        long memory = usedHeap() - before;
+        start = System.nanoTime();
+        long found = 0;
+        for (String probe : probes) {
+            if (map.get(probe) != null) {
+                found++;
+            }
+        }
+        long looked = System.nanoTime() - start;
+        System.out.printf("%,10d keys in a ConcurrentHashMap: %,6.1f bytes/key with key strings, "
+                + "insert %5.0f ns/key, lookup %5.0f ns (%,d found)%n",
+            keys, (double) memory / keys, (double) inserted / keys, (double) looked / probes.length, found);
+    }
+
+    /**
+     * What a map-based cache would keep per key besides the key itself.
+     */
+    private record Remembered(BatchResult.Status status, double balance, long time) {
+    }
+
+    private static String[] probes(int keys, int lookups) {
+        Random random = new Random(keys);
+        String[] probes = new String[lookups];
+        for (int i = 0; i < lookups; i++) {
+            probes[i] = (i % 2 == 0 ? "req-" : "miss-") + random.nextInt(keys);
+        }
+        return probes;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
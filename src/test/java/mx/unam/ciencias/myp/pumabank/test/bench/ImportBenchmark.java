@@ -0,0 +1,92 @@
+package mx.unam.ciencias.myp.pumabank.test.bench;
+
+import mx.unam.ciencias.myp.pumabank.facade.ImportResult;
+import mx.unam.ciencias.myp.pumabank.facade.PumaBankFacade;
+import mx.unam.ciencias.myp.pumabank.patterns.observer.LogLevel;
+import mx.unam.ciencias.myp.pumabank.patterns.proxy.PinAuthenticator;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Measures the rate of {@link PumaBankFacade#importAccounts} on generated CSV
+ * and binary files.
+ * <p>
+ * Not a unit test; run it with
+ * {@code java -cp target/classes:target/test-classes mx.unam.ciencias.myp.pumabank.test.bench.ImportBenchmark [accounts] [pinIterations]}.
+ * PIN hashing defaults to one iteration so the numbers show the cost of the
+ * import itself; pass a higher iteration count to include realistic hashing,
+ * which is where the worker threads pay off on multi-core machines.
+ * </p>
+ */
+public final class ImportBenchmark {
+
+    private static final int ACCOUNTS_PER_CLIENT = 100;
+    private static final String[] TYPES = {"MONTHLY", "ANNUAL", "PREMIUM", "TIERED"};
+    private static final String[] SERVICES = {"", "REWARDS", "ANTI_FRAUD;PREMIUM_ALERTS"};
+
+    private ImportBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int accounts = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        System.setProperty(PinAuthenticator.ITERATIONS_PROPERTY, args.length > 1 ? args[1] : "1");
+
+        Path csv = Files.createTempFile("pumabank", ".csv");
+        Path bin = Files.createTempFile("pumabank", ".bin");
+        try {
+            try (BufferedWriter out = Files.newBufferedWriter(csv)) {
+                for (int i = 0; i < accounts; i++) {
+                    String clientId = "C" + (i / ACCOUNTS_PER_CLIENT);
+                    if (i % ACCOUNTS_PER_CLIENT == 0) {
+                        out.write("C," + clientId + ",Client " + clientId + "\n");
+                    }
+                    out.write("A," + clientId + "," + (1000 + i % 5000) + ".25,1234," + TYPES[i % TYPES.length]
+                        + "," + SERVICES[i % SERVICES.length] + "\n");
+                }
+            }
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(bin)))) {
+                out.writeInt(0x50424931);
+                for (int i = 0; i < accounts; i++) {
+                    String clientId = "C" + (i / ACCOUNTS_PER_CLIENT);
+                    if (i % ACCOUNTS_PER_CLIENT == 0) {
+                        out.writeByte(1);
+                        out.writeUTF(clientId);
+                        out.writeUTF("Client " + clientId);
+                    }
+                    out.writeByte(2);
+                    out.writeUTF(clientId);
+                    out.writeDouble(1000 + i % 5000 + 0.25);
+                    out.writeUTF("1234");
+                    out.writeUTF(TYPES[i % TYPES.length]);
+                    int services = i % SERVICES.length;
+                    out.writeByte(services);
+                    for (int s = 0; s < services; s++) {
+                        out.writeByte(s == 0 && services == 1 ? 3 : s + 1);
+                    }
+                }
+            }
+
+            int threads = Runtime.getRuntime().availableProcessors();
+            for (Path file : new Path[] {csv, bin, csv, bin}) {
+                PrintStream console = System.out;
+                System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+                PumaBankFacade bank = new PumaBankFacade();
+                bank.setQuietMode(true);
+                bank.setLogLevel(LogLevel.OFF);
+                System.setOut(console);
+                ImportResult result = bank.importAccounts(file, threads);
+                System.out.printf("%s (%.1f MB, %d threads): %s%n", file.toString().endsWith(".csv") ? "csv" : "binary",
+                    Files.size(file) / 1e6, threads, result);
+            }
+        } finally {
+            Files.deleteIfExists(csv);
+            Files.deleteIfExists(bin);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package mx.unam.ciencias.myp.pumabank.test.bench;
+
+import mx.unam.ciencias.myp.pumabank.patterns.strategy.InterestCalculation;
+import mx.unam.ciencias.myp.pumabank.patterns.strategy.periods.AnnualInterest;
+import mx.unam.ciencias.myp.pumabank.patterns.strategy.periods.MonthlyInterest;
+import mx.unam.ciencias.myp.pumabank.patterns.strategy.periods.PremiumInterest;
+
+import java.util.Random;
+
+/**
+ * Compares per-account interest cost of one interface call per account against
+ * one batch call per policy group.
+ * <p>
+ * Not a unit test; run it with
+ * {@code java -cp target/classes:target/test-classes mx.unam.ciencias.myp.pumabank.test.bench.InterestBatchBenchmark [accounts]}.
+ * </p>
+ */
+public final class InterestBatchBenchmark {
+
+    private static final int ROUNDS = 20;
+
+    private InterestBatchBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        int accounts = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Random random = new Random(42);
+
+        InterestCalculation[] policies = {
+            new MonthlyInterest(0.01, 1000.0),
+            new PremiumInterest(0.015, 100000.0, 500000.0, 0.005, 0.01),
+            new AnnualInterest(0.12, 50000.0)
+        };
+        InterestCalculation[] perAccount = new InterestCalculation[accounts];
+        double[] balances = new double[accounts];
+        int[] groupSize = new int[policies.length];
+        for (int i = 0; i < accounts; i++) {
+            int policy = random.nextInt(policies.length);
+            perAccount[i] = policies[policy];
+            balances[i] = random.nextDouble() * 1_000_000 - 10_000;
+            groupSize[policy]++;
+        }
+
+        double[][] grouped = new double[policies.length][];
+        for (int p = 0; p < policies.length; p++) {
+            grouped[p] = new double[groupSize[p]];
+        }
+        int[] fill = new int[policies.length];
+        for (int i = 0; i < accounts; i++) {
+            for (int p = 0; p < policies.length; p++) {
+                if (perAccount[i] == policies[p]) {
+                    grouped[p][fill[p]++] = balances[i];
+                }
+            }
+        }
+        double[] out = new double[accounts];
+
+        double sink = 0;
+        long scalarBest = Long.MAX_VALUE;
+        long batchBest = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < accounts; i++) {
+                out[i] = perAccount[i].calculate(balances[i]);
+            }
+            scalarBest = Math.min(scalarBest, System.nanoTime() - start);
+            sink += out[accounts - 1];
+
+            start = System.nanoTime();
+            for (int p = 0; p < policies.length; p++) {
+                policies[p].calculate(grouped[p], out, 0, grouped[p].length);
+            }
+            batchBest = Math.min(batchBest, System.nanoTime() - start);
+            sink += out[0];
+        }
+
+        System.out.printf("Accounts: %d%n", accounts);
+        System.out.printf("Per-account interface calls: %.2f ns/account%n", (double) scalarBest / accounts);
+        System.out.printf("Grouped batch calls:         %.2f ns/account%n", (double) batchBest / accounts);
+        System.out.println("(checksum " + sink + ")");
+    }
+}
@@ -0,0 +1,56 @@
+package mx.unam.ciencias.myp.pumabank.test.bench;
+
+import mx.unam.ciencias.myp.pumabank.facade.WriteAheadJournal;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Measures journal throughput for each durability mode with concurrent writers.
+ * <p>
+ * Not a unit test; run it with
+ * {@code java -cp target/classes:target/test-classes mx.unam.ciencias.myp.pumabank.test.bench.JournalBenchmark [threads] [opsPerThread] [maxLatencyMicros]}.
+ * </p>
+ */
+public final class JournalBenchmark {
+
+    private JournalBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int opsPerThread = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+        long maxLatency = args.length > 2 ? Long.parseLong(args[2]) : WriteAheadJournal.DEFAULT_MAX_LATENCY_MICROS;
+
+        for (WriteAheadJournal.Durability durability : WriteAheadJournal.Durability.values()) {
+            Path file = Files.createTempFile("pumabank", ".journal");
+            try {
+                WriteAheadJournal journal = new WriteAheadJournal(file, durability, maxLatency);
+                Thread[] writers = new Thread[threads];
+                long start = System.nanoTime();
+                for (int t = 0; t < threads; t++) {
+                    String accountId = "C" + t + "-ACC-1";
+                    writers[t] = new Thread(() -> {
+                        for (int i = 0; i < opsPerThread; i++) {
+                            journal.logDeposit(accountId, 10.0);
+                        }
+                    });
+                    writers[t].start();
+                }
+                for (Thread writer : writers) {
+                    writer.join();
+                }
+                long appended = System.nanoTime();
+                journal.close();
+                long durable = System.nanoTime();
+
+                long ops = (long) threads * opsPerThread;
+                System.out.printf("%-5s %,10.0f ops/s (%,.0f ops/s until durable), %d forces, %.1f records/force%n",
+                    durability, ops / ((appended - start) / 1e9), ops / ((durable - start) / 1e9),
+                    journal.getForceCount(), (double) ops / Math.max(1, journal.getForceCount()));
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package mx.unam.ciencias.myp.pumabank.test.bench;
+
+import mx.unam.ciencias.myp.pumabank.facade.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures what timing an operation costs: {@link LatencyHistogram#record}
+ * alone, and together with the two {@link System#nanoTime()} calls the
+ * facade makes around an operation, from one and from several threads
+ * sharing a histogram.
+ * <p>
+ * Not a unit test; run it with
+ * {@code java -cp target/classes:target/test-classes mx.unam.ciencias.myp.pumabank.test.bench.LatencyHistogramBenchmark [records] [threads]}.
+ * The recorded values spread over a few hundred buckets, like real
+ * operation latencies.
+ * </p>
+ */
+public final class LatencyHistogramBenchmark {
+
+    private LatencyHistogramBenchmark() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int records = args.length > 0 ? Integer.parseInt(args[0]) : 50_000_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < records; i++) {
+                histogram.record(500 + (i * 2_654_435_761L & 0xffff));
+            }
+            long recordOnly = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < records; i++) {
+                long started = System.nanoTime();
+                histogram.record(System.nanoTime() - started);
+            }
+            long timed = System.nanoTime() - start;
+
+            LatencyHistogram shared = new LatencyHistogram();
+            List<Thread> workers = new ArrayList<>();
+            int perThread = records / threads;
+            for (int t = 0; t < threads; t++) {
+                workers.add(new Thread(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        shared.record(500 + (i * 2_654_435_761L & 0xffff));
+                    }
+                }));
+            }
+            start = System.nanoTime();
+            workers.forEach(Thread::start);
+            for (Thread worker : workers) {
+                worker.join();
+            }
+            long concurrent = System.nanoTime() - start;
+
+            System.out.printf("record %.1f ns, nanoTime pair + record %.1f ns, %d threads %.1f ns/record%n",
+                (double) recordOnly / records, (double) timed / records, threads,
+                (double) concurrent / ((long) perThread * threads));
+        }
+        System.out.println("Recorded: " + histogram);
+    }
+}
@@ -0,0 +1,65 @@
+package mx.unam.ciencias.myp.pumabank.test.bench;
+
+import mx.unam.ciencias.myp.pumabank.facade.PumaBankFacade;
+import mx.unam.ciencias.myp.pumabank.patterns.observer.LogLevel;
+import mx.unam.ciencias.myp.pumabank.patterns.proxy.PinAuthenticator;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Measures {@link PumaBankFacade#processMonthlyOperations} over banks of
+ * growing size. The time per thousand accounts should stay flat; a time
+ * that grows with the bank means some step of month-end is not linear.
+ * <p>
+ * Not a unit test; run it with
+ * {@code java -cp target/classes:target/test-classes mx.unam.ciencias.myp.pumabank.test.bench.MonthEndBenchmark [months]}.
+ * </p>
+ */
+public final class MonthEndBenchmark {
+
+    private static final int[] ACCOUNTS = {1_000, 10_000, 50_000, 100_000};
+    private static final int ACCOUNTS_PER_CLIENT = 100;
+
+    private MonthEndBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int months = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        System.setProperty(PinAuthenticator.ITERATIONS_PROPERTY, "1");
+
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        Path dir = Files.createTempDirectory("pumabank-month-end");
+        try {
+            for (int accounts : ACCOUNTS) {
+                PumaBankFacade bank = new PumaBankFacade(dir.resolve("month-end-" + accounts + ".log"));
+                bank.setQuietMode(true);
+                bank.setLogLevel(LogLevel.OFF);
+                bank.setSuppressLogTimestamps(true);
+                for (int i = 0; i < accounts; i++) {
+                    String clientId = "E" + (i / ACCOUNTS_PER_CLIENT);
+                    if (i % ACCOUNTS_PER_CLIENT == 0) {
+                        bank.registerClient("Client " + clientId, clientId);
+                    }
+                    List<String> services = i % 3 == 0 ? List.of("ANTI_FRAUD", "REWARDS") : null;
+                    bank.createAccount(clientId, 1000 + i % 5000, "1234", "MONTHLY", services);
+                }
+
+                long best = Long.MAX_VALUE;
+                for (int month = 1; month <= months; month++) {
+                    long t0 = System.nanoTime();
+                    bank.processMonthlyOperations(month);
+                    best = Math.min(best, System.nanoTime() - t0);
+                }
+                console.printf("%,8d accounts: best month-end %8.1f ms, %6.3f ms per 1000 accounts%n",
+                    accounts, best / 1e6, best / 1e3 / accounts);
+            }
+        } finally {
+            System.setOut(console);
+        }
+    }
+}
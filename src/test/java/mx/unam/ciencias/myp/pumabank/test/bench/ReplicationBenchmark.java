@@ -0,0 +1,202 @@
+package mx.unam.ciencias.myp.pumabank.test.bench;
+
+import mx.unam.ciencias.myp.pumabank.facade.PumaBankFacade;
+import mx.unam.ciencias.myp.pumabank.facade.ReplicationFollower;
+import mx.unam.ciencias.myp.pumabank.facade.ReplicationPrimary;
+import mx.unam.ciencias.myp.pumabank.facade.RequestExecutor;
+import mx.unam.ciencias.myp.pumabank.facade.WriteAheadJournal;
+import mx.unam.ciencias.myp.pumabank.patterns.observer.LogLevel;
+import mx.unam.ciencias.myp.pumabank.patterns.proxy.PinAuthenticator;
+
+import java.io.BufferedWriter;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Measures primary/follower replication over a localhost socket: request
+ * throughput of the primary with and without a follower, how far behind the
+ * follower runs under that load, and how long a failover takes.
+ * <p>
+ * Not a unit test; run it with
+ * {@code java -cp target/classes:target/test-classes mx.unam.ciencias.myp.pumabank.test.bench.ReplicationBenchmark [accounts] [operations]}.
+ * Lag is sampled every 100 µs as the time between the primary shipping a
+ * record and the follower acknowledging it. Failover is timed from closing
+ * the primary, which is what the follower sees when the primary process
+ * dies, to the first deposit accepted by the promoted follower; a primary
+ * that hangs instead is noticed after {@link ReplicationFollower#TIMEOUT_MILLIS}.
+ * </p>
+ */
+public final class ReplicationBenchmark {
+
+    private static final int ACCOUNTS_PER_CLIENT = 100;
+    private static final int WINDOW = 10_000;
+
+    private ReplicationBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int accounts = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int operations = args.length > 1 ? Integer.parseInt(args[1]) : 500_000;
+        System.setProperty(PinAuthenticator.ITERATIONS_PROPERTY, "1");
+        Path dir = Files.createTempDirectory("replication-bench");
+
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            Path input = dir.resolve("accounts.csv");
+            try (BufferedWriter out = Files.newBufferedWriter(input)) {
+                for (int i = 0; i < accounts; i++) {
+                    if (i % ACCOUNTS_PER_CLIENT == 0) {
+                        out.write("C,C" + (i / ACCOUNTS_PER_CLIENT) + ",Load client\n");
+                    }
+                    out.write("A,C" + (i / ACCOUNTS_PER_CLIENT) + ",1000000.00,1234,MONTHLY\n");
+                }
+            }
+            PumaBankFacade bank = new PumaBankFacade(dir.resolve("primary.log"));
+            bank.setQuietMode(true);
+            bank.setLogLevel(LogLevel.OFF);
+            bank.importAccounts(input);
+            String[] ids = new String[accounts];
+            for (int i = 0; i < accounts; i++) {
+                ids[i] = "C" + (i / ACCOUNTS_PER_CLIENT) + "-ACC-" + (i % ACCOUNTS_PER_CLIENT + 1);
+            }
+
+            try (WriteAheadJournal journal = new WriteAheadJournal(dir.resolve("primary.journal"),
+                    WriteAheadJournal.Durability.ASYNC);
+                 RequestExecutor executor = new RequestExecutor(bank, RequestExecutor.Mode.PLATFORM,
+                    Runtime.getRuntime().availableProcessors())) {
+                bank.attachJournal(journal);
+
+                long elapsed = load(executor, bank, ids, operations, 1);
+                console.printf("No follower:  %,10.0f ops/s%n", operations * 1e9 / elapsed);
+
+                ReplicationPrimary primary = new ReplicationPrimary(bank, executor,
+                    new InetSocketAddress("127.0.0.1", 0));
+                long attach = System.nanoTime();
+                ReplicationFollower follower = new ReplicationFollower(
+                    new InetSocketAddress("127.0.0.1", primary.getPort()), dir.resolve("follower.log"));
+                follower.setLogLevel(LogLevel.OFF);
+                console.printf("Follower attached with a %,d account snapshot in %d ms%n",
+                    accounts, (System.nanoTime() - attach) / 1_000_000);
+
+                LagSampler sampler = new LagSampler(primary);
+                sampler.start();
+                elapsed = load(executor, bank, ids, operations, 2);
+                long drained = System.nanoTime();
+                primary.awaitAcknowledged(primary.getSequence(), 60_000);
+                long catchUp = System.nanoTime() - drained;
+                sampler.finish();
+                console.printf("One follower: %,10.0f ops/s, lag p50 %.2f ms, p99 %.2f ms, max %.2f ms, "
+                        + "caught up %.1f ms after the load%n",
+                    operations * 1e9 / elapsed, sampler.percentile(0.50), sampler.percentile(0.99),
+                    sampler.percentile(1.0), catchUp / 1e6);
+
+                double primaryTotal = 0;
+                double followerTotal = 0;
+                for (String id : ids) {
+                    primaryTotal += bank.checkBalance(id, "1234");
+                    followerTotal += follower.checkBalance(id, "1234");
+                }
+                console.printf("Balances %s (primary $%.2f, follower $%.2f)%n",
+                    primaryTotal == followerTotal ? "match" : "DIFFER", primaryTotal, followerTotal);
+
+                long failed = System.nanoTime();
+                primary.close();
+                follower.awaitDisconnect(ReplicationFollower.TIMEOUT_MILLIS * 2);
+                long detected = System.nanoTime();
+                PumaBankFacade promoted = follower.promote();
+                promoted.deposit(ids[0], 1, "1234");
+                long serving = System.nanoTime();
+                console.printf("Failover: primary loss noticed in %.2f ms, first write on the promoted "
+                        + "follower after %.2f ms%n", (detected - failed) / 1e6, (serving - failed) / 1e6);
+            }
+        } finally {
+            System.setOut(console);
+        }
+    }
+
+    /**
+     * Runs deposits and withdrawals through the executor in windows of
+     * outstanding requests and returns the elapsed nanoseconds.
+     */
+    private static long load(RequestExecutor executor, PumaBankFacade bank, String[] ids, int operations,
+                             long seed) {
+        Random random = new Random(seed);
+        CompletableFuture<?>[] window = new CompletableFuture<?>[WINDOW];
+        long start = System.nanoTime();
+        for (int done = 0; done < operations; done += WINDOW) {
+            int n = Math.min(WINDOW, operations - done);
+            for (int i = 0; i < n; i++) {
+                String id = ids[random.nextInt(ids.length)];
+                window[i] = random.nextBoolean()
+                    ? executor.submit(id, () -> { bank.deposit(id, 10, "1234"); return null; })
+                    : executor.submit(id, () -> { bank.withdraw(id, 10, "1234"); return null; });
+            }
+            CompletableFuture.allOf(Arrays.copyOf(window, n)).join();
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Samples the primary sequence with a timestamp and records how long each
+     * sample waited until the follower acknowledged it.
+     */
+    private static final class LagSampler extends Thread {
+        private final ReplicationPrimary primary;
+        private final ArrayDeque<long[]> open = new ArrayDeque<>();
+        private long[] lags = new long[1 << 16];
+        private int count;
+        private volatile boolean running = true;
+
+        LagSampler(ReplicationPrimary primary) {
+            super("replication-lag-sampler");
+            this.primary = primary;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                long now = System.nanoTime();
+                long acknowledged = primary.getAcknowledgedSequence();
+                while (!open.isEmpty() && open.peekFirst()[1] <= acknowledged) {
+                    record(now - open.pollFirst()[0]);
+                }
+                long sequence = primary.getSequence();
+                if (sequence > acknowledged && (open.isEmpty() || open.peekLast()[1] < sequence)) {
+                    open.addLast(new long[] {now, sequence});
+                }
+                LockSupport.parkNanos(100_000);
+            }
+        }
+
+        private void record(long lag) {
+            if (count == lags.length) {
+                lags = Arrays.copyOf(lags, count * 2);
+            }
+            lags[count++] = lag;
+        }
+
+        void finish() throws InterruptedException {
+            running = false;
+            join();
+            Arrays.sort(lags, 0, count);
+        }
+
+        double percentile(double p) {
+            if (count == 0) {
+                return 0;
+            }
+            return lags[Math.min(count - 1, (int) Math.ceil(p * count) - 1 < 0 ? 0 : (int) Math.ceil(p * count) - 1)]
+                / 1e6;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package mx.unam.ciencias.myp.pumabank.test.bench;
+
+import mx.unam.ciencias.myp.pumabank.facade.PumaBankFacade;
+import mx.unam.ciencias.myp.pumabank.facade.RequestExecutor;
+import mx.unam.ciencias.myp.pumabank.patterns.observer.LogLevel;
+import mx.unam.ciencias.myp.pumabank.patterns.proxy.PinAuthenticator;
+
+import java.io.BufferedWriter;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load test of {@link RequestExecutor} comparing a fixed pool of platform
+ * threads with virtual threads when requests block.
+ * <p>
+ * Not a unit test; run it with
+ * {@code java -cp target/classes:target/test-classes mx.unam.ciencias.myp.pumabank.test.bench.RequestExecutorBenchmark [accounts] [requestsPerClient] [ioMillis] [poolSize]}.
+ * Each simulated client runs a closed loop: it sends a deposit, waits for it
+ * to finish and sends the next one. Every deposit goes through the regular
+ * observers (the monthly log appends to its file) and then blocks for
+ * {@code ioMillis} to stand for a remote notification. The run is repeated
+ * with 10 000 and 100 000 concurrent clients sharing the accounts, so
+ * requests for the same account queue behind each other. Virtual threads
+ * need Java 21; on older JVMs only the platform pool is measured.
+ * </p>
+ */
+public final class RequestExecutorBenchmark {
+
+    private static final int[] CLIENTS = {10_000, 100_000};
+    private static final int ACCOUNTS_PER_CLIENT = 100;
+
+    private RequestExecutorBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int accounts = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int requestsPerClient = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        long ioMillis = args.length > 2 ? Long.parseLong(args[2]) : 5;
+        int poolSize = args.length > 3 ? Integer.parseInt(args[3]) : 200;
+        System.setProperty(PinAuthenticator.ITERATIONS_PROPERTY, "1");
+
+        Path input = Files.createTempFile("pumabank", ".csv");
+        PrintStream console = System.out;
+        PumaBankFacade bank;
+        try {
+            try (BufferedWriter out = Files.newBufferedWriter(input)) {
+                for (int i = 0; i < accounts; i++) {
+                    if (i % ACCOUNTS_PER_CLIENT == 0) {
+                        out.write("C,C" + (i / ACCOUNTS_PER_CLIENT) + ",Load client\n");
+                    }
+                    out.write("A,C" + (i / ACCOUNTS_PER_CLIENT) + ",1000.00,1234,MONTHLY\n");
+                }
+            }
+            bank = new PumaBankFacade();
+            bank.setQuietMode(true);
+            bank.setLogLevel(LogLevel.OFF);
+            bank.importAccounts(input);
+        } finally {
+            Files.deleteIfExists(input);
+        }
+
+        // Push notifications print every event; keep the console readable.
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            for (int clients : CLIENTS) {
+                run(console, bank, RequestExecutor.Mode.PLATFORM, poolSize, accounts, clients,
+                    requestsPerClient, ioMillis);
+                if (RequestExecutor.isVirtualThreadsAvailable()) {
+                    run(console, bank, RequestExecutor.Mode.VIRTUAL, poolSize, accounts, clients,
+                        requestsPerClient, ioMillis);
+                } else {
+                    console.printf("%,d clients VIRTUAL: skipped, needs Java 21 (running %s)%n",
+                        clients, System.getProperty("java.version"));
+                }
+            }
+        } finally {
+            System.setOut(console);
+        }
+    }
+
+    private static void run(PrintStream console, PumaBankFacade bank, RequestExecutor.Mode mode, int poolSize,
+                            int accounts, int clients, int requestsPerClient, long ioMillis) {
+        long[] latencies = new long[clients * requestsPerClient];
+        AtomicInteger recorded = new AtomicInteger();
+        CompletableFuture<?>[] loops = new CompletableFuture<?>[clients];
+        long t0 = System.nanoTime();
+        try (RequestExecutor executor = new RequestExecutor(bank, mode, poolSize)) {
+            for (int c = 0; c < clients; c++) {
+                int a = c % accounts;
+                String accountId = "C" + (a / ACCOUNTS_PER_CLIENT) + "-ACC-" + (a % ACCOUNTS_PER_CLIENT + 1);
+                loops[c] = loop(executor, bank, accountId, requestsPerClient, ioMillis, latencies, recorded);
+            }
+            CompletableFuture.allOf(loops).join();
+        }
+        long elapsed = System.nanoTime() - t0;
+        int n = recorded.get();
+        Arrays.sort(latencies, 0, n);
+        console.printf("%,d clients %s%s: %,d requests in %d ms (%.0f req/s), latency p50 %.1f ms, "
+                + "p99 %.1f ms, max %.1f ms%n",
+            clients, mode, mode == RequestExecutor.Mode.PLATFORM ? " (" + poolSize + " threads)" : "",
+            n, elapsed / 1_000_000, n * 1e9 / elapsed,
+            percentile(latencies, n, 0.50), percentile(latencies, n, 0.99), latencies[n - 1] / 1e6);
+    }
+
+    private static CompletableFuture<Void> loop(RequestExecutor executor, PumaBankFacade bank, String accountId,
+                                                int remaining, long ioMillis, long[] latencies,
+                                                AtomicInteger recorded) {
+        if (remaining == 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        long start = System.nanoTime();
+        return executor.submit(accountId, () -> {
+            bank.deposit(accountId, 1, "1234");
+            TimeUnit.MILLISECONDS.sleep(ioMillis);
+            return null;
+        }).thenCompose(ignored -> {
+            latencies[recorded.getAndIncrement()] = System.nanoTime() - start;
+            return loop(executor, bank, accountId, remaining - 1, ioMillis, latencies, recorded);
+        });
+    }
+
+    private static double percentile(long[] sorted, int n, double p) {
+        return sorted[Math.min(n - 1, (int) (n * p))] / 1e6;
+    }
+}
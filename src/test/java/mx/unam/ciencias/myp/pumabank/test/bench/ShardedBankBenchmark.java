@@ -0,0 +1,95 @@
+package mx.unam.ciencias.myp.pumabank.test.bench;
+
+import mx.unam.ciencias.myp.pumabank.facade.MonthlyReport;
+import mx.unam.ciencias.myp.pumabank.facade.ShardedBank;
+import mx.unam.ciencias.myp.pumabank.patterns.observer.LogLevel;
+import mx.unam.ciencias.myp.pumabank.patterns.proxy.PinAuthenticator;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Measures how a {@link ShardedBank} scales from one shard to one shard per
+ * core: account operation throughput with one client thread per shard, and
+ * the duration of the parallel month-end.
+ * <p>
+ * Not a unit test; run it with
+ * {@code java -cp target/classes:target/test-classes mx.unam.ciencias.myp.pumabank.test.bench.ShardedBankBenchmark [accounts] [operationsPerThread] [maxShards]}.
+ * The default for {@code maxShards} is the number of available processors.
+ * </p>
+ */
+public final class ShardedBankBenchmark {
+
+    private ShardedBankBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int accounts = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int perThread = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+        int maxShards = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        System.setProperty(PinAuthenticator.ITERATIONS_PROPERTY, "1");
+        Path logs = Files.createTempDirectory("sharded-bench");
+
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            String[] ids = new String[accounts];
+            for (int i = 0; i < accounts; i++) {
+                ids[i] = "B" + (i / 100) + "-ACC-" + (i % 100 + 1);
+            }
+            for (int shards = 1; shards <= maxShards; shards *= 2) {
+                try (ShardedBank bank = new ShardedBank(shards, logs.resolve("shards-" + shards))) {
+                    bank.setQuietMode(true);
+                    bank.setLogLevel(LogLevel.OFF);
+                    for (int i = 0; i < accounts; i++) {
+                        String clientId = "B" + (i / 100);
+                        if (i % 100 == 0) {
+                            bank.registerClient("Client " + clientId, clientId);
+                        }
+                        bank.createAccount(clientId, 1_000_000, "1234", "MONTHLY", null);
+                    }
+
+                    int threads = shards;
+                    CountDownLatch start = new CountDownLatch(1);
+                    Thread[] workers = new Thread[threads];
+                    for (int t = 0; t < threads; t++) {
+                        Random random = new Random(t);
+                        workers[t] = new Thread(() -> {
+                            try {
+                                start.await();
+                            } catch (InterruptedException e) {
+                                return;
+                            }
+                            for (int i = 0; i < perThread; i++) {
+                                String id = ids[random.nextInt(accounts)];
+                                if (random.nextBoolean()) {
+                                    bank.deposit(id, 10, "1234");
+                                } else {
+                                    bank.withdraw(id, 10, "1234");
+                                }
+                            }
+                        });
+                        workers[t].start();
+                    }
+                    long begin = System.nanoTime();
+                    start.countDown();
+                    for (Thread worker : workers) {
+                        worker.join();
+                    }
+                    long elapsed = System.nanoTime() - begin;
+
+                    MonthlyReport report = bank.processMonthlyOperations(1);
+                    console.printf("%2d shards: %,10.0f ops/s with %d threads, month-end %,d ms for %d accounts%n",
+                        shards, (double) threads * perThread * 1e9 / elapsed, threads,
+                        report.getElapsedMillis(), report.getAccounts());
+                }
+            }
+        } finally {
+            System.setOut(console);
+        }
+    }
+}
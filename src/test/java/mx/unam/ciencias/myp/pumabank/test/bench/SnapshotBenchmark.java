@@ -0,0 +1,72 @@
+package mx.unam.ciencias.myp.pumabank.test.bench;
+
+import mx.unam.ciencias.myp.pumabank.facade.PumaBankFacade;
+import mx.unam.ciencias.myp.pumabank.patterns.observer.LogLevel;
+import mx.unam.ciencias.myp.pumabank.patterns.proxy.PinAuthenticator;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Measures how long it takes to save and restore a bank with many accounts.
+ * <p>
+ * Not a unit test; run it with
+ * {@code java -cp target/classes:target/test-classes mx.unam.ciencias.myp.pumabank.test.bench.SnapshotBenchmark [accounts]}.
+ * PIN hashing is reduced to one iteration so that building the bank does not
+ * dominate the run; it does not affect the snapshot itself.
+ * </p>
+ */
+public final class SnapshotBenchmark {
+
+    private static final int ACCOUNTS_PER_CLIENT = 100;
+
+    private SnapshotBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int accounts = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        System.setProperty(PinAuthenticator.ITERATIONS_PROPERTY, "1");
+
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        PumaBankFacade bank = new PumaBankFacade();
+        bank.setQuietMode(true);
+        bank.setLogLevel(LogLevel.OFF);
+        String[] types = {"MONTHLY", "ANNUAL", "PREMIUM", "TIERED"};
+        List<List<String>> services = Arrays.asList(
+            Collections.emptyList(),
+            Collections.singletonList("REWARDS"),
+            Arrays.asList("ANTI_FRAUD", "PREMIUM_ALERTS"));
+        long start = System.nanoTime();
+        for (int i = 0; i < accounts; i++) {
+            String clientId = "C" + (i / ACCOUNTS_PER_CLIENT);
+            if (i % ACCOUNTS_PER_CLIENT == 0) {
+                bank.registerClient("Client " + clientId, clientId);
+            }
+            bank.createAccount(clientId, 1000 + i % 5000, "1234", types[i % types.length], services.get(i % services.size()));
+        }
+        System.setOut(console);
+        System.out.printf("built %d accounts in %d ms%n", accounts, (System.nanoTime() - start) / 1_000_000);
+
+        Path file = Files.createTempFile("pumabank", ".snap");
+        try {
+            for (int round = 0; round < 3; round++) {
+                long t0 = System.nanoTime();
+                bank.saveSnapshot(file);
+                long t1 = System.nanoTime();
+                PumaBankFacade restored = PumaBankFacade.loadSnapshot(file);
+                long t2 = System.nanoTime();
+                System.out.printf("round %d: save %d ms, restore %d ms, %d bytes (%.1f bytes/account), %d clients%n",
+                    round, (t1 - t0) / 1_000_000, (t2 - t1) / 1_000_000, Files.size(file),
+                    (double) Files.size(file) / accounts, restored.getAllClients().size());
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
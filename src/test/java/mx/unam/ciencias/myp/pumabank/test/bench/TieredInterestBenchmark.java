@@ -0,0 +1,72 @@
+package mx.unam.ciencias.myp.pumabank.test.bench;
+
+import mx.unam.ciencias.myp.pumabank.patterns.strategy.InterestCalculation;
+import mx.unam.ciencias.myp.pumabank.patterns.strategy.periods.PremiumInterest;
+import mx.unam.ciencias.myp.pumabank.patterns.strategy.periods.TieredInterest;
+
+import java.util.Random;
+
+/**
+ * Compares {@link TieredInterest} at 2, 10 and 100 tiers against the two-bonus
+ * {@link PremiumInterest} chain.
+ * <p>
+ * Not a unit test; run it with
+ * {@code java -cp target/classes:target/test-classes mx.unam.ciencias.myp.pumabank.test.bench.TieredInterestBenchmark}.
+ * </p>
+ */
+public final class TieredInterestBenchmark {
+
+    private static final int BALANCES = 1_000_000;
+    private static final int ROUNDS = 20;
+
+    private TieredInterestBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        Random random = new Random(42);
+        double[] balances = new double[BALANCES];
+        for (int i = 0; i < BALANCES; i++) {
+            balances[i] = random.nextDouble() * 1_000_000;
+        }
+
+        report("PremiumInterest (2 bonus tiers)",
+            new PremiumInterest(0.015, 100000.0, 500000.0, 0.005, 0.01), balances);
+        for (int tiers : new int[] {2, 10, 100}) {
+            for (TieredInterest.Mode mode : TieredInterest.Mode.values()) {
+                report("TieredInterest " + mode + " (" + tiers + " tiers)", schedule(tiers, mode), balances);
+            }
+        }
+    }
+
+    private static TieredInterest schedule(int tiers, TieredInterest.Mode mode) {
+        double[] boundaries = new double[tiers];
+        double[] rates = new double[tiers];
+        for (int i = 0; i < tiers; i++) {
+            boundaries[i] = i * (1_000_000.0 / tiers);
+            rates[i] = 0.01 + i * 0.0001;
+        }
+        return new TieredInterest(boundaries, rates, mode);
+    }
+
+    private static void report(String name, InterestCalculation policy, double[] balances) {
+        double[] out = new double[balances.length];
+        double sink = 0;
+        long scalarBest = Long.MAX_VALUE;
+        long batchBest = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < balances.length; i++) {
+                out[i] = policy.calculate(balances[i]);
+            }
+            scalarBest = Math.min(scalarBest, System.nanoTime() - start);
+            sink += out[round];
+
+            start = System.nanoTime();
+            policy.calculate(balances, out, 0, balances.length);
+            batchBest = Math.min(batchBest, System.nanoTime() - start);
+            sink += out[round];
+        }
+        System.out.printf("%-40s scalar %6.2f ns/op | batch %6.2f ns/op (checksum %.1f)%n",
+            name, (double) scalarBest / balances.length, (double) batchBest / balances.length, sink);
+    }
+}
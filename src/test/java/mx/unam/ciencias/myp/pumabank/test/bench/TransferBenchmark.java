@@ -0,0 +1,99 @@
+package mx.unam.ciencias.myp.pumabank.test.bench;
+
+import mx.unam.ciencias.myp.pumabank.facade.BatchResult;
+import mx.unam.ciencias.myp.pumabank.facade.PumaBankFacade;
+import mx.unam.ciencias.myp.pumabank.patterns.observer.LogLevel;
+import mx.unam.ciencias.myp.pumabank.patterns.proxy.PinAuthenticator;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures {@link PumaBankFacade#transfer} throughput with several threads
+ * transferring between random accounts, and checks that the total balance
+ * is unchanged afterwards.
+ * <p>
+ * Not a unit test; run it with
+ * {@code java -cp target/classes:target/test-classes mx.unam.ciencias.myp.pumabank.test.bench.TransferBenchmark [accounts] [transfersPerThread]}.
+ * Fewer accounts means more contention on the same account pairs.
+ * </p>
+ */
+public final class TransferBenchmark {
+
+    private static final int[] THREADS = {1, 2, 4, 8, 16};
+
+    private TransferBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int accounts = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int perThread = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+        System.setProperty(PinAuthenticator.ITERATIONS_PROPERTY, "1");
+
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            PumaBankFacade bank = new PumaBankFacade();
+            bank.setQuietMode(true);
+            bank.setLogLevel(LogLevel.OFF);
+            String[] ids = new String[accounts];
+            for (int i = 0; i < accounts; i++) {
+                String clientId = "B" + (i / 100);
+                if (i % 100 == 0) {
+                    bank.registerClient("Client " + clientId, clientId);
+                }
+                bank.createAccount(clientId, 1_000_000, "1234", "MONTHLY", null);
+                ids[i] = clientId + "-ACC-" + (i % 100 + 1);
+            }
+            double total = accounts * 1_000_000.0;
+
+            for (int threads : THREADS) {
+                LongAdder applied = new LongAdder();
+                CountDownLatch start = new CountDownLatch(1);
+                Thread[] workers = new Thread[threads];
+                for (int t = 0; t < threads; t++) {
+                    Random random = new Random(t);
+                    workers[t] = new Thread(() -> {
+                        try {
+                            start.await();
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                        for (int i = 0; i < perThread; i++) {
+                            int from = random.nextInt(accounts);
+                            int to = random.nextInt(accounts - 1);
+                            if (to >= from) {
+                                to++;
+                            }
+                            if (bank.transfer(ids[from], ids[to], 1 + random.nextInt(100), "1234")
+                                    == BatchResult.Status.APPLIED) {
+                                applied.increment();
+                            }
+                        }
+                    });
+                    workers[t].start();
+                }
+                long t0 = System.nanoTime();
+                start.countDown();
+                for (Thread worker : workers) {
+                    worker.join();
+                }
+                long nanos = System.nanoTime() - t0;
+
+                double sum = 0;
+                for (String id : ids) {
+                    sum += bank.findAccount(id).getUnderlyingAccount().getBalance();
+                }
+                console.printf("%2d threads: %d transfers (%d applied) in %d ms, %.0f transfers/s, "
+                        + "total balance %s%n",
+                    threads, (long) threads * perThread, applied.sum(), nanos / 1_000_000,
+                    threads * perThread * 1e9 / nanos, Math.abs(sum - total) < 1e-6 ? "unchanged" : "CHANGED");
+            }
+        } finally {
+            System.setOut(console);
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package mx.unam.ciencias.myp.pumabank.test.cluster;
+
+import mx.unam.ciencias.myp.pumabank.cluster.BankCluster;
+import mx.unam.ciencias.myp.pumabank.facade.MonthlyReport;
+import mx.unam.ciencias.myp.pumabank.facade.PumaBankFacade;
+import mx.unam.ciencias.myp.pumabank.patterns.proxy.PinAuthenticator;
+import mx.unam.ciencias.myp.pumabank.server.BankServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link BankCluster}: routing, transfers between shards, adding a
+ * shard while clients move, and the two-phase month-end. The shards are
+ * {@link BankServer}s in this JVM on localhost sockets.
+ */
+class BankClusterTest {
+
+    private static final int CLIENTS = 40;
+
+    @TempDir
+    Path dir;
+
+    private static final String SECRET = "cluster-secret";
+
+    private final List<PumaBankFacade> facades = new ArrayList<>();
+    private final List<BankServer> servers = new ArrayList<>();
+    private BankCluster cluster;
+
+    @BeforeAll
+    static void fastPinHashing() {
+        System.setProperty(PinAuthenticator.ITERATIONS_PROPERTY, "1");
+    }
+
+    @AfterAll
+    static void restorePinHashing() {
+        System.clearProperty(PinAuthenticator.ITERATIONS_PROPERTY);
+    }
+
+    @BeforeEach
+    void start() throws IOException {
+        List<InetSocketAddress> shards = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            shards.add(startShard());
+        }
+        cluster = new BankCluster(shards, SECRET, dir.resolve("moves"));
+        for (int c = 0; c < CLIENTS; c++) {
+            cluster.registerClient("K" + c, "Client " + c);
+            assertEquals("K" + c + "-ACC-1", cluster.createAccount("K" + c, 1000, "1234", "MONTHLY", List.of()));
+        }
+    }
+
+    @AfterEach
+    void stop() {
+        cluster.close();
+        for (BankServer server : servers) {
+            server.close();
+        }
+    }
+
+    private InetSocketAddress startShard() throws IOException {
+        PumaBankFacade facade = new PumaBankFacade(dir.resolve("shard-" + facades.size() + ".log"));
+        facade.setQuietMode(true);
+        BankServer server = new BankServer(facade, new InetSocketAddress("127.0.0.1", 0), SECRET);
+        facades.add(facade);
+        servers.add(server);
+        return new InetSocketAddress("127.0.0.1", server.getPort());
+    }
+
+    private Set<String> clientsOf(PumaBankFacade facade) {
+        Set<String> ids = new HashSet<>();
+        for (int c = 0; c < CLIENTS; c++) {
+            if (facade.findAccount("K" + c + "-ACC-1") != null) {
+                ids.add("K" + c);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Every client lives on the shard the router names, and transfers work
+     * within and across shards.
+     */
+    @Test
+    @DisplayName("Clients are routed to one shard each and transfers cross shards")
+    void routing() throws IOException {
+        int placed = 0;
+        for (int i = 0; i < facades.size(); i++) {
+            for (String clientId : clientsOf(facades.get(i))) {
+                assertEquals(cluster.getShards().get(i), cluster.shardOf(clientId));
+                placed++;
+            }
+        }
+        assertEquals(CLIENTS, placed);
+
+        String from = "K0";
+        String other = null;
+        for (int c = 1; other == null; c++) {
+            if (!cluster.shardOf("K" + c).equals(cluster.shardOf(from))) {
+                other = "K" + c;
+            }
+        }
+        assertEquals("APPLIED 900.00", cluster.transfer("K0-ACC-1", other + "-ACC-1", 100, "1234"));
+        assertEquals("APPLIED 1100.00", cluster.balance(other + "-ACC-1", "1234"));
+        assertEquals("NOT_FOUND", cluster.transfer("K0-ACC-1", "K999-ACC-1", 10, "1234"));
+        assertEquals("AUTH_FAILED", cluster.transfer("K0-ACC-1", other + "-ACC-1", 10, "9999"));
+        assertEquals("APPLIED 900.00", cluster.balance("K0-ACC-1", "1234"));
+
+        cluster.createAccount("K0", 50, "5678", "MONTHLY", List.of());
+        assertEquals("APPLIED 800.00", cluster.transfer("K0-ACC-1", "K0-ACC-2", 100, "1234"));
+        assertEquals("APPLIED 150.00", cluster.balance("K0-ACC-2", "5678"));
+    }
+
+    /**
+     * Ids and credentials with spaces or line breaks would smuggle words or
+     * whole requests into the protocol line, so the router refuses them.
+     */
+    @Test
+    @DisplayName("Ids and credentials that would break the request line are refused")
+    void refusesUnsafeWords() {
+        assertThrows(IllegalArgumentException.class, () -> cluster.deposit("K0-ACC-1", 10, "1234 key"));
+        assertThrows(IllegalArgumentException.class,
+            () -> cluster.balance("K0-ACC-1", "1234\nCLOSE_MONTH 1"));
+        assertThrows(IllegalArgumentException.class, () -> cluster.transfer("K0-ACC-1", "K1-ACC-1\t", 10, "1234"));
+        assertThrows(IllegalArgumentException.class, () -> cluster.registerClient("K 9", "Client"));
+        assertThrows(IllegalArgumentException.class, () -> cluster.registerClient("K999", "Client\r\nPING"));
+        assertThrows(IllegalArgumentException.class,
+            () -> cluster.createAccount("K0", 10, "1234", "MONTHLY", List.of("antifraud,rewards")));
+    }
+
+    /**
+     * A new shard takes about its share of the clients, which keep their
+     * balances and PINs and leave their old shard.
+     */
+    @Test
+    @DisplayName("Adding a shard moves clients with their accounts")
+    void addShard() throws IOException {
+        for (int c = 0; c < CLIENTS; c++) {
+            cluster.deposit("K" + c + "-ACC-1", c + 1, "1234");
+        }
+        int moved = cluster.addShard(startShard());
+
+        Set<String> onNew = clientsOf(facades.get(3));
+        assertTrue(moved > 0 && moved < CLIENTS, "moved " + moved);
+        assertEquals(moved, onNew.size());
+        assertEquals(0, cluster.getPendingMoves());
+        try (Stream<Path> kept = Files.list(dir.resolve("moves"))) {
+            assertEquals(0, kept.count());
+        }
+        for (int i = 0; i < 3; i++) {
+            Set<String> left = clientsOf(facades.get(i));
+            left.retainAll(onNew);
+            assertTrue(left.isEmpty(), "still on shard " + i + ": " + left);
+        }
+        for (int c = 0; c < CLIENTS; c++) {
+            String clientId = "K" + c;
+            assertEquals(onNew.contains(clientId), cluster.shardOf(clientId).equals(cluster.getShards().get(3)));
+            assertEquals(String.format("APPLIED %d.00", 1001 + c), cluster.balance(clientId + "-ACC-1", "1234"));
+            assertEquals("AUTH_FAILED", cluster.balance(clientId + "-ACC-1", "9999"));
+        }
+        String moving = onNew.iterator().next();
+        assertEquals(moving + "-ACC-2", cluster.createAccount(moving, 10, "1111", "MONTHLY", List.of()));
+    }
+
+    /**
+     * Month-end runs on every shard and the reports add up.
+     */
+    @Test
+    @DisplayName("Month-end closes every shard and merges the reports")
+    void closeMonth() {
+        MonthlyReport report = cluster.closeMonth(1);
+        assertEquals(1, report.getMonth());
+        assertEquals(CLIENTS, report.getAccounts());
+        assertTrue(report.getInterest() > 0);
+    }
+
+    /**
+     * If one shard cannot prepare, the others are released without closing
+     * the month.
+     */
+    @Test
+    @DisplayName("A shard that cannot prepare aborts the month everywhere")
+    void abortMonth() throws IOException {
+        int blocked = 1;
+        try (Socket socket = new Socket("127.0.0.1", servers.get(blocked).getPort())) {
+            OutputStream out = socket.getOutputStream();
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                StandardCharsets.US_ASCII));
+            out.write(("ADMIN " + SECRET + "\nPREPARE_MONTH 7\n").getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            assertEquals("OK", in.readLine());
+            out.flush();
+            assertEquals("PREPARED", in.readLine());
+
+            assertThrows(IllegalStateException.class, () -> cluster.closeMonth(1));
+
+            out.write("ABORT_MONTH 7\n".getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            assertEquals("ABORTED", in.readLine());
+        }
+        for (int c = 0; c < CLIENTS; c++) {
+            assertEquals("APPLIED 1000.00", cluster.balance("K" + c + "-ACC-1", "1234"));
+        }
+        assertEquals(CLIENTS, cluster.closeMonth(1).getAccounts());
+    }
+}
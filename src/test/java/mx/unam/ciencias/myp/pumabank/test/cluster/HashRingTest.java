@@ -0,0 +1,70 @@
+package mx.unam.ciencias.myp.pumabank.test.cluster;
+
+import mx.unam.ciencias.myp.pumabank.cluster.HashRing;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link HashRing}: balance between nodes and the keys that move
+ * when a node joins.
+ */
+class HashRingTest {
+
+    private static final int KEYS = 20_000;
+
+    /**
+     * Every node of a ring gets a fair share of the keys.
+     */
+    @Test
+    @DisplayName("Keys spread over every node")
+    void spread() {
+        HashRing ring = new HashRing(List.of("a:1", "b:2", "c:3", "d:4"));
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            counts.merge(ring.nodeFor("C" + i), 1, Integer::sum);
+        }
+        assertEquals(4, counts.size());
+        for (int count : counts.values()) {
+            assertTrue(count > KEYS / 4 * 0.7 && count < KEYS / 4 * 1.3, counts.toString());
+        }
+    }
+
+    /**
+     * A new node only takes keys, about its fair share, and keys never move
+     * between the nodes that were already there.
+     */
+    @Test
+    @DisplayName("Adding a node only moves keys to the new node")
+    void addNode() {
+        HashRing before = new HashRing(List.of("a:1", "b:2", "c:3"));
+        HashRing after = before.withNode("d:4");
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            String key = "C" + i;
+            String owner = after.nodeFor(key);
+            if (!owner.equals(before.nodeFor(key))) {
+                assertEquals("d:4", owner);
+                moved++;
+            }
+        }
+        assertTrue(moved > KEYS / 4 * 0.7 && moved < KEYS / 4 * 1.3, "moved " + moved);
+        assertEquals(List.of("a:1", "b:2", "c:3"), List.copyOf(before.getNodes()));
+        assertEquals(List.of("a:1", "b:2", "c:3", "d:4"), List.copyOf(after.getNodes()));
+    }
+
+    /**
+     * Repeated nodes and empty rings are rejected.
+     */
+    @Test
+    @DisplayName("Invalid rings are rejected")
+    void invalid() {
+        HashRing ring = new HashRing(List.of("a:1"));
+        assertThrows(IllegalArgumentException.class, () -> ring.withNode("a:1"));
+        assertThrows(IllegalStateException.class, () -> new HashRing(List.of()).nodeFor("C1"));
+    }
+}
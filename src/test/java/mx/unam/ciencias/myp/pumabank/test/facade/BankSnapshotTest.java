@@ -0,0 +1,135 @@
+package mx.unam.ciencias.myp.pumabank.test.facade;
+
+import mx.unam.ciencias.myp.pumabank.facade.PumaBankFacade;
+import mx.unam.ciencias.myp.pumabank.model.Account;
+import mx.unam.ciencias.myp.pumabank.model.IAccount;
+import mx.unam.ciencias.myp.pumabank.patterns.decorator.AccountDecorator;
+import mx.unam.ciencias.myp.pumabank.patterns.decorator.AntiFraudDecorator;
+import mx.unam.ciencias.myp.pumabank.patterns.decorator.RewardsProgramDecorator;
+import mx.unam.ciencias.myp.pumabank.patterns.state.states.FrozenState;
+import mx.unam.ciencias.myp.pumabank.patterns.state.states.OverdrawnState;
+import mx.unam.ciencias.myp.pumabank.patterns.strategy.InterestAccrual;
+import mx.unam.ciencias.myp.pumabank.patterns.strategy.periods.TieredInterest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the binary snapshot of {@link PumaBankFacade}, verifying that a
+ * restored bank holds the same clients, accounts, states, services and counters.
+ */
+class BankSnapshotTest {
+
+    @TempDir
+    Path dir;
+
+    /**
+     * Ensures every saved field comes back and the restored bank keeps working.
+     */
+    @Test
+    @DisplayName("saveSnapshot and loadSnapshot round-trip the bank state")
+    void roundTrip() throws IOException {
+        PumaBankFacade f = new PumaBankFacade();
+        f.setQuietMode(true);
+        f.registerClient("Ana", "S1");
+        f.registerClient("Luis", "S2");
+        f.registerClient("Empty", "S3");
+        f.createAccount("S1", 1000.0, "1111", "MONTHLY", Arrays.asList("ANTI_FRAUD", "REWARDS"));
+        f.createAccount("S1", 50.0, "2222", "ANNUAL", null);
+        f.createAccount("S2", 10.0, "3333", "PREMIUM", Collections.emptyList());
+        f.deposit("S1-ACC-1", 500.0, "1111");
+        f.withdraw("S2-ACC-1", 30.0, "3333");
+        f.findAccount("S1-ACC-2").getUnderlyingAccount().changeState(new FrozenState());
+        int rewardPoints = ((RewardsProgramDecorator) f.getClientAccounts("S1").get(0)).getRewardPoints();
+
+        Path file = dir.resolve("bank.snap");
+        f.saveSnapshot(file);
+        PumaBankFacade restored = PumaBankFacade.loadSnapshot(file);
+
+        Account first = restored.findAccount("S1-ACC-1").getUnderlyingAccount();
+        IAccount decorated = restored.getClientAccounts("S1").get(0);
+        assertAll(
+            () -> assertEquals(3, restored.getAllClients().size()),
+            () -> assertTrue(restored.getClientAccounts("S3").isEmpty()),
+            () -> assertEquals(1500.0, first.getBalance(), 1e-9),
+            () -> assertEquals("Ana", first.getClient().getName()),
+            () -> assertTrue(decorated instanceof RewardsProgramDecorator),
+            () -> assertTrue(((AccountDecorator) decorated).decoratedAccount instanceof AntiFraudDecorator),
+            () -> assertEquals(rewardPoints, ((RewardsProgramDecorator) decorated).getRewardPoints()),
+            () -> assertTrue(restored.findAccount("S1-ACC-2").getUnderlyingAccount().getState() instanceof FrozenState),
+            () -> assertTrue(restored.findAccount("S2-ACC-1").getUnderlyingAccount().getState() instanceof OverdrawnState),
+            () -> assertEquals(-20.0, restored.findAccount("S2-ACC-1").getUnderlyingAccount().getBalance(), 1e-9),
+            () -> assertSame(f.findAccount("S1-ACC-2").getUnderlyingAccount().getInterestPolicy().getClass(),
+                             restored.findAccount("S1-ACC-2").getUnderlyingAccount().getInterestPolicy().getClass()),
+            () -> assertEquals(f.getMonthlyTransactions(), restored.getMonthlyTransactions()));
+
+        restored.setQuietMode(true);
+        assertEquals(1500.0, restored.checkBalance("S1-ACC-1", "1111"), 1e-9);
+        assertEquals(-1, restored.checkBalance("S1-ACC-1", "9999"), 1e-9);
+        restored.createAccount("S1", 1.0, "4444", "MONTHLY", null);
+        assertNotNull(restored.findAccount("S1-ACC-3"));
+    }
+
+    /**
+     * Ensures accounts keep a tier schedule loaded after the registry default,
+     * and every field of their interest accrual.
+     */
+    @Test
+    @DisplayName("loaded tier schedules and the interest accrual survive a snapshot")
+    void keepsSchedulesAndAccrual() throws IOException {
+        Path schedule = dir.resolve("tiers.properties");
+        Files.writeString(schedule, "mode=MARGINAL\ntiers=0:0.01, 500:0.03\n");
+        PumaBankFacade f = new PumaBankFacade();
+        f.setQuietMode(true);
+        f.registerClient("Ana", "S4");
+        f.createAccount("S4", 1000.0, "1111", "TIERED", null);
+        f.loadInterestSchedule(schedule);
+        f.createAccount("S4", 1000.0, "2222", "TIERED", null);
+        f.processMonthlyOperations(3);
+        f.deposit("S4-ACC-2", 100.0, "2222");
+
+        Path file = dir.resolve("tiers.snap");
+        f.saveSnapshot(file);
+        PumaBankFacade restored = PumaBankFacade.loadSnapshot(file);
+
+        for (String id : Arrays.asList("S4-ACC-1", "S4-ACC-2")) {
+            Account saved = f.findAccount(id).getUnderlyingAccount();
+            Account loaded = restored.findAccount(id).getUnderlyingAccount();
+            InterestAccrual before = saved.getInterestAccrual();
+            InterestAccrual after = loaded.getInterestAccrual();
+            assertAll(
+                () -> assertEquals(saved.getInterestPolicy(), loaded.getInterestPolicy()),
+                () -> assertEquals(before.getRunningTotal(), after.getRunningTotal(), 1e-9),
+                () -> assertEquals(before.getMonthsRecorded(), after.getMonthsRecorded()),
+                () -> assertEquals(before.getMonthOfYear(), after.getMonthOfYear()),
+                () -> assertEquals(before.getPeriodStart(), after.getPeriodStart()),
+                () -> assertEquals(before.getLastUpdate(), after.getLastUpdate()),
+                () -> assertEquals(before.getLastBalance(), after.getLastBalance(), 1e-9),
+                () -> assertEquals(before.getBalanceMillis(), after.getBalanceMillis(), 1e-3));
+        }
+        assertEquals(TieredInterest.Mode.MARGINAL,
+            ((TieredInterest) restored.findAccount("S4-ACC-2").getUnderlyingAccount().getInterestPolicy()).getMode());
+        assertEquals(3, restored.findAccount("S4-ACC-1").getUnderlyingAccount().getInterestAccrual().getMonthOfYear());
+    }
+
+    /**
+     * Ensures a file that is not a snapshot is rejected with an {@link IOException}.
+     */
+    @Test
+    @DisplayName("loadSnapshot rejects files that are not snapshots")
+    void rejectsGarbage() throws IOException {
+        Path file = dir.resolve("garbage.snap");
+        Files.write(file, "not a snapshot at all".getBytes());
+        assertThrows(IOException.class, () -> PumaBankFacade.loadSnapshot(file));
+
+        Files.write(file, new byte[0]);
+        assertThrows(IOException.class, () -> PumaBankFacade.loadSnapshot(file));
+    }
+}
@@ -0,0 +1,136 @@
+package mx.unam.ciencias.myp.pumabank.test.facade;
+
+import mx.unam.ciencias.myp.pumabank.facade.ImportResult;
+import mx.unam.ciencias.myp.pumabank.facade.PumaBankFacade;
+import mx.unam.ciencias.myp.pumabank.patterns.decorator.AntiFraudDecorator;
+import mx.unam.ciencias.myp.pumabank.patterns.decorator.RewardsProgramDecorator;
+import mx.unam.ciencias.myp.pumabank.patterns.proxy.PinAuthenticator;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link PumaBankFacade#importAccounts}, covering both file formats,
+ * rejected records and the identifiers of imported accounts.
+ */
+class BulkImportTest {
+
+    @TempDir
+    Path dir;
+
+    /**
+     * Hashes PINs with a single iteration so that importing thousands of
+     * accounts stays fast; the hash strength is irrelevant here.
+     */
+    @BeforeAll
+    static void fastPinHashing() {
+        System.setProperty(PinAuthenticator.ITERATIONS_PROPERTY, "1");
+    }
+
+    @AfterAll
+    static void restorePinHashing() {
+        System.clearProperty(PinAuthenticator.ITERATIONS_PROPERTY);
+    }
+
+    private static PumaBankFacade quietFacade() {
+        PumaBankFacade f = new PumaBankFacade();
+        f.setQuietMode(true);
+        return f;
+    }
+
+    /**
+     * Imports a CSV file with a header, comments, quoted fields and bad records.
+     */
+    @Test
+    @DisplayName("CSV import creates accounts and skips invalid records")
+    void importCsv() throws IOException {
+        Path file = dir.resolve("bank.csv");
+        Files.write(file, String.join("\n",
+            "kind,id,name_or_balance,pin,interest,services",
+            "# comment",
+            "C,S1,\"Lopez, Ana\"",
+            "C,S2,Luis",
+            "A,S1,1000.50,1111,MONTHLY,ANTI_FRAUD;REWARDS",
+            "A,S1,-12.5,2222,annual,",
+            "A,S2,0.1,3333,PREMIUM",
+            "A,S9,5,4444,MONTHLY",
+            "A,S2,abc,5555,MONTHLY",
+            "A,S2,5,6666,WEEKLY",
+            "A,S2,5,7777,MONTHLY,CASHBACK",
+            "C,S1,Duplicate",
+            "A,S2,1e3,8888,MONTHLY\r",
+            "").getBytes(StandardCharsets.UTF_8));
+
+        PumaBankFacade f = quietFacade();
+        ImportResult result = f.importAccounts(file, 2);
+
+        assertEquals(2, result.getClients());
+        assertEquals(4, result.getAccounts());
+        assertEquals(5, result.getRejected());
+        assertEquals("Lopez, Ana", f.findAccount("S1-ACC-1").getUnderlyingAccount().getClient().getName());
+        assertEquals(1000.5, f.checkBalance("S1-ACC-1", "1111"), 1e-9);
+        assertEquals(-12.5, f.findAccount("S1-ACC-2").getUnderlyingAccount().getBalance(), 1e-9);
+        assertEquals(0.1, f.findAccount("S2-ACC-1").getUnderlyingAccount().getBalance());
+        assertEquals(1000.0, f.checkBalance("S2-ACC-2", "8888"), 1e-9);
+        assertTrue(f.getClientAccounts("S1").get(0) instanceof RewardsProgramDecorator);
+        assertTrue(((RewardsProgramDecorator) f.getClientAccounts("S1").get(0)).decoratedAccount
+            instanceof AntiFraudDecorator);
+    }
+
+    /**
+     * Imports the same binary file with one and several threads and expects
+     * the same accounts under the same identifiers.
+     */
+    @Test
+    @DisplayName("Binary import is identical with one or several threads")
+    void importBinary() throws IOException {
+        Path file = dir.resolve("bank.bin");
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file))) {
+            out.writeInt(0x50424931);
+            for (int c = 0; c < 20; c++) {
+                out.writeByte(1);
+                out.writeUTF("C" + c);
+                out.writeUTF("Client " + c);
+            }
+            for (int i = 0; i < 1500; i++) {
+                out.writeByte(2);
+                out.writeUTF("C" + (i % 20));
+                out.writeDouble(i);
+                out.writeUTF("1234");
+                out.writeUTF(i % 2 == 0 ? "MONTHLY" : "TIERED");
+                out.writeByte(i % 3);
+                for (int s = 0; s < i % 3; s++) {
+                    out.writeByte(s + 1);
+                }
+            }
+            out.writeByte(2);
+            out.writeUTF("C0");
+        }
+
+        PumaBankFacade serial = quietFacade();
+        PumaBankFacade parallel = quietFacade();
+        ImportResult one = serial.importAccounts(file, 1);
+        ImportResult many = parallel.importAccounts(file, 4);
+
+        assertEquals(1500, one.getAccounts());
+        assertEquals(1500, many.getAccounts());
+        assertEquals(1, many.getRejected());
+        for (int i = 0; i < 1500; i++) {
+            String id = "C" + (i % 20) + "-ACC-" + (i / 20 + 1);
+            assertEquals(i, serial.findAccount(id).getUnderlyingAccount().getBalance(), 1e-9);
+            assertEquals(i, parallel.findAccount(id).getUnderlyingAccount().getBalance(), 1e-9);
+        }
+        assertEquals(75, parallel.getClientAccounts("C7").size());
+        parallel.deposit("C7-ACC-1", 10.0, "1234");
+        assertEquals(17.0, parallel.findAccount("C7-ACC-1").getUnderlyingAccount().getBalance(), 1e-9);
+    }
+}
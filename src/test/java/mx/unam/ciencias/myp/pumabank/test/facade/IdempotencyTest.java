@@ -0,0 +1,183 @@
+package mx.unam.ciencias.myp.pumabank.test.facade;
+
+import mx.unam.ciencias.myp.pumabank.facade.BatchResult;
+import mx.unam.ciencias.myp.pumabank.facade.IdempotencyCache;
+import mx.unam.ciencias.myp.pumabank.facade.PumaBankFacade;
+import mx.unam.ciencias.myp.pumabank.patterns.proxy.PinAuthenticator;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for keyed deposits, withdrawals and transfers and for the
+ * {@link IdempotencyCache} behind them.
+ */
+class IdempotencyTest {
+
+    private static final Instant START = Instant.parse("2025-01-01T00:00:00Z");
+
+    private PumaBankFacade facade;
+
+    @BeforeAll
+    static void fastPinHashing() {
+        System.setProperty(PinAuthenticator.ITERATIONS_PROPERTY, "1");
+    }
+
+    @AfterAll
+    static void restorePinHashing() {
+        System.clearProperty(PinAuthenticator.ITERATIONS_PROPERTY);
+    }
+
+    @BeforeEach
+    void setUp() {
+        facade = new PumaBankFacade();
+        facade.setQuietMode(true);
+        facade.setClock(Clock.fixed(START, ZoneOffset.UTC));
+        facade.registerClient("Ana", "I1");
+        facade.createAccount("I1", 1000, "1111", "MONTHLY", List.of());
+        facade.createAccount("I1", 500, "2222", "MONTHLY", List.of());
+    }
+
+    private double balance(String accountId) {
+        return facade.findAccount(accountId).getUnderlyingAccount().getBalance();
+    }
+
+    /**
+     * A retried deposit or withdrawal returns the first result and moves no money.
+     */
+    @Test
+    @DisplayName("Retries with the same key are applied once")
+    void retriesApplyOnce() {
+        BatchResult first = facade.deposit("I1-ACC-1", 100, "1111", "dep-1");
+        BatchResult retry = facade.deposit("I1-ACC-1", 100, "1111", "dep-1");
+        assertEquals(BatchResult.Status.APPLIED, first.getStatus());
+        assertEquals(BatchResult.Status.APPLIED, retry.getStatus());
+        assertEquals(1100.0, retry.getBalance(), 1e-9);
+        assertEquals(1100.0, balance("I1-ACC-1"), 1e-9);
+
+        facade.withdraw("I1-ACC-1", 50, "1111", "wd-1");
+        facade.deposit("I1-ACC-1", 10, "1111");
+        assertEquals(1050.0, facade.withdraw("I1-ACC-1", 50, "1111", "wd-1").getBalance(), 1e-9);
+        assertEquals(1060.0, balance("I1-ACC-1"), 1e-9);
+
+        assertEquals(BatchResult.Status.APPLIED, facade.deposit("I1-ACC-1", 100, "1111", "dep-2").getStatus());
+        assertEquals(1160.0, balance("I1-ACC-1"), 1e-9);
+    }
+
+    /**
+     * A retried transfer moves the money once.
+     */
+    @Test
+    @DisplayName("Transfers are applied once per key")
+    void transferOnce() {
+        for (int i = 0; i < 3; i++) {
+            assertEquals(BatchResult.Status.APPLIED, facade.transfer("I1-ACC-1", "I1-ACC-2", 200, "1111", "tx-1"));
+        }
+        assertEquals(800.0, balance("I1-ACC-1"), 1e-9);
+        assertEquals(700.0, balance("I1-ACC-2"), 1e-9);
+    }
+
+    /**
+     * Rejected credentials are not remembered, so the corrected retry runs,
+     * and a key cannot be reused for another request.
+     */
+    @Test
+    @DisplayName("Only outcomes that reached the account are remembered")
+    void rememberedOutcomes() {
+        assertEquals(BatchResult.Status.AUTH_FAILED, facade.deposit("I1-ACC-1", 100, "9999", "k").getStatus());
+        assertEquals(BatchResult.Status.APPLIED, facade.deposit("I1-ACC-1", 100, "1111", "k").getStatus());
+        assertEquals(1100.0, balance("I1-ACC-1"), 1e-9);
+
+        assertThrows(IllegalArgumentException.class, () -> facade.deposit("I1-ACC-1", 999, "1111", "k"));
+        assertThrows(IllegalArgumentException.class, () -> facade.withdraw("I1-ACC-2", 100, "2222", "k"));
+        assertThrows(IllegalArgumentException.class, () -> facade.deposit("I1-ACC-1", 1, "1111", ""));
+        assertThrows(IllegalArgumentException.class, () -> facade.deposit("I9-ACC-1", 1, "1111", "other"));
+        assertEquals(1100.0, balance("I1-ACC-1"), 1e-9);
+    }
+
+    /**
+     * Concurrent retries of one key still move the money once.
+     */
+    @Test
+    @DisplayName("Concurrent retries are applied once")
+    void concurrentRetries() throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger applied = new AtomicInteger();
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (facade.deposit("I1-ACC-1", 25, "1111", "same").isApplied()) {
+                    applied.incrementAndGet();
+                }
+            });
+            threads[t].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(threads.length, applied.get());
+        assertEquals(1025.0, balance("I1-ACC-1"), 1e-9);
+    }
+
+    /**
+     * Keys are forgotten after their time to live.
+     */
+    @Test
+    @DisplayName("Keys expire after the time to live")
+    void expiry() {
+        facade.setIdempotencyCache(new IdempotencyCache(1000, Duration.ofMinutes(1)));
+        facade.deposit("I1-ACC-1", 100, "1111", "late");
+        facade.setClock(Clock.fixed(START.plusSeconds(59), ZoneOffset.UTC));
+        facade.deposit("I1-ACC-1", 100, "1111", "late");
+        assertEquals(1100.0, balance("I1-ACC-1"), 1e-9);
+
+        facade.setClock(Clock.fixed(START.plusSeconds(61), ZoneOffset.UTC));
+        facade.deposit("I1-ACC-1", 100, "1111", "late");
+        assertEquals(1200.0, balance("I1-ACC-1"), 1e-9);
+    }
+
+    /**
+     * The cache keeps a bounded number of keys: memory stops growing, the
+     * newest keys are kept and the oldest are dropped.
+     */
+    @Test
+    @DisplayName("The cache is bounded")
+    void bounded() {
+        int capacity = 64 * IdempotencyCache.SEGMENTS;
+        IdempotencyCache cache = new IdempotencyCache(capacity, Duration.ofHours(1));
+        long now = START.toEpochMilli();
+        for (int i = 0; i < capacity * 2; i++) {
+            cache.remember("key-" + i, i, BatchResult.Status.APPLIED, i, now);
+        }
+        long memory = cache.getMemoryBytes();
+        for (int i = capacity * 2; i < capacity * 10; i++) {
+            cache.remember("key-" + i, i, BatchResult.Status.APPLIED, i, now);
+        }
+        assertEquals(memory, cache.getMemoryBytes());
+        assertTrue(cache.size() <= 2L * capacity, "size " + cache.size());
+
+        int last = capacity * 10 - 1;
+        BatchResult newest = cache.find("key-" + last, last, null, now);
+        assertNotNull(newest);
+        assertEquals(last, newest.getBalance(), 1e-9);
+        assertNull(cache.find("key-0", 0, null, now));
+        assertNull(cache.find("key-" + last, last, null, now + Duration.ofHours(1).toMillis()));
+    }
+}
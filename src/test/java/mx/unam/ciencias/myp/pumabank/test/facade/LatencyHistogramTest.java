@@ -0,0 +1,143 @@
+package mx.unam.ciencias.myp.pumabank.test.facade;
+
+import mx.unam.ciencias.myp.pumabank.facade.LatencyHistogram;
+import mx.unam.ciencias.myp.pumabank.facade.PumaBankFacade;
+import mx.unam.ciencias.myp.pumabank.facade.TimedOperation;
+import mx.unam.ciencias.myp.pumabank.patterns.proxy.PinAuthenticator;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link LatencyHistogram} and the latencies the facade records.
+ */
+class LatencyHistogramTest {
+
+    @TempDir
+    Path dir;
+
+    @BeforeAll
+    static void fastPinHashing() {
+        System.setProperty(PinAuthenticator.ITERATIONS_PROPERTY, "1");
+    }
+
+    @AfterAll
+    static void restorePinHashing() {
+        System.clearProperty(PinAuthenticator.ITERATIONS_PROPERTY);
+    }
+
+    /**
+     * Percentiles are never below the exact value and at most 1/64 above it,
+     * from nanoseconds to minutes; the maximum is exact.
+     */
+    @Test
+    @DisplayName("percentiles are within 1/64 of the exact values")
+    void percentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getValueAtPercentile(99));
+        Random random = new Random(7);
+        long[] values = new long[100_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (long) Math.pow(2, random.nextDouble() * 37);
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+        assertEquals(values.length, histogram.getCount());
+        assertEquals(values[values.length - 1], histogram.getMax());
+        for (double p : new double[] {0, 1, 50, 90, 99, 99.9, 99.99, 100}) {
+            long exact = values[Math.max(0, (int) Math.ceil(p / 100 * values.length) - 1)];
+            long reported = histogram.getValueAtPercentile(p);
+            assertTrue(reported >= exact && reported <= exact + exact / 64, p + ": " + reported + " vs " + exact);
+        }
+        assertThrows(IllegalArgumentException.class, () -> histogram.getValueAtPercentile(101));
+
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, histogram.getValueAtPercentile(100));
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+    }
+
+    /**
+     * Threads recording at once lose no durations.
+     */
+    @Test
+    @DisplayName("concurrent recording keeps every duration")
+    void concurrentRecording() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            long offset = t;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 100_000; i++) {
+                    histogram.record(100 + (i & 1023) + offset);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(400_000, histogram.getCount());
+        assertEquals(100 + 1023 + 3, histogram.getMax());
+    }
+
+    /**
+     * The facade times completed operations and each account's month-end,
+     * and lists the percentiles in the report footer.
+     */
+    @Test
+    @DisplayName("the facade records operation latencies and reports them in the footer")
+    void facadeLatencies() throws IOException {
+        Path log = dir.resolve("monthly.log");
+        PumaBankFacade f = new PumaBankFacade(log);
+        f.setQuietMode(true);
+        f.registerClient("Ana", "L1");
+        f.createAccount("L1", 1000, "1111", "MONTHLY", List.of());
+        f.createAccount("L1", 500, "2222", "MONTHLY", List.of("REWARDS"));
+        f.deposit("L1-ACC-1", 10, "1111");
+        f.deposit("L1-ACC-1", 10, "1111");
+        f.withdraw("L1-ACC-2", 5, "2222");
+        f.checkBalance("L1-ACC-1", "1111");
+        assertThrows(IllegalArgumentException.class, () -> f.deposit("L1-ACC-9", 10, "1111"));
+        f.deposit("L1-ACC-1", 10, "1111", "k1");
+        f.deposit("L1-ACC-1", 10, "1111", "k1");
+        f.withdraw("L1-ACC-2", 5, "2222", "k2");
+        f.transfer("L1-ACC-1", "L1-ACC-2", 20, "1111");
+        f.transfer("L1-ACC-1", "L1-ACC-2", 20, "1111", "k3");
+        f.transfer("L1-ACC-1", "L1-ACC-2", 20, "1111", "k3");
+
+        f.processMonthlyOperations(1);
+        assertEquals(4, f.getLatencyHistogram(TimedOperation.DEPOSIT).getCount());
+        assertEquals(2, f.getLatencyHistogram(TimedOperation.WITHDRAW).getCount());
+        assertEquals(3, f.getLatencyHistogram(TimedOperation.TRANSFER).getCount());
+        assertEquals(1, f.getLatencyHistogram(TimedOperation.CHECK_BALANCE).getCount());
+        assertEquals(2, f.getLatencyHistogram(TimedOperation.PROCESS_MONTH).getCount());
+        assertEquals(1, f.getLatencyHistogram(TimedOperation.MONTH_END).getCount());
+        assertTrue(f.getLatencyHistogram(TimedOperation.MONTH_END).getMax() > 0);
+        String report = Files.readString(log);
+        assertTrue(report.contains("Latency deposit: count=4 p50="), report);
+        assertTrue(report.contains("Latency processMonthlyOperations: count=1"), report);
+
+        f.resetLatencyHistograms();
+        f.setSuppressLogTimestamps(true);
+        f.deposit("L1-ACC-1", 10, "1111");
+        f.processMonthlyOperations(2);
+        assertEquals(1, f.getLatencyHistogram(TimedOperation.DEPOSIT).getCount());
+        report = Files.readString(log);
+        String secondFooter = report.substring(report.indexOf("Summary for Simulated Month: 2"));
+        assertFalse(secondFooter.contains("Latency"), secondFooter);
+    }
+}
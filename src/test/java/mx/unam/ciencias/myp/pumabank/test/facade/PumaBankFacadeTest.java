@@ -1,4 +1,6 @@
 package mx.unam.ciencias.myp.pumabank.test.facade;
+import mx.unam.ciencias.myp.pumabank.facade.BatchOperation;
+import mx.unam.ciencias.myp.pumabank.facade.BatchResult;
 import mx.unam.ciencias.myp.pumabank.facade.PumaBankFacade;
 import mx.unam.ciencias.myp.pumabank.model.Account;
 import mx.unam.ciencias.myp.pumabank.model.Client;
@@ -91,6 +93,36 @@ class PumaBankFacadeTest {
             assertDoesNotThrow(() -> f.deposit("L1-ACC-1", 50.0, "0000"));
         }
 
+        /**
+         * Ensures the tiered interest type is accepted and uses the configured schedule.
+         */
+        @Test
+        @DisplayName("createAccount supports the TIERED interest type")
+        void createTieredAccount() {
+            PumaBankFacade f = newQuietFacade();
+            f.registerClient("Hi", "TI1");
+
+            AccountProxy proxy = f.createAccount("TI1", 200000.0, "1234", "TIERED", null);
+
+            assertEquals(200000.0 * 0.02, proxy.getUnderlyingAccount().getInterestPolicy().calculate(200000.0), 1e-9);
+        }
+
+        /**
+         * Ensures accounts of the same interest type share one policy instance.
+         */
+        @Test
+        @DisplayName("createAccount shares interest policies between accounts of a type")
+        void sharesInterestPolicies() {
+            PumaBankFacade f = newQuietFacade();
+            f.registerClient("Hi", "SP1");
+
+            AccountProxy first = f.createAccount("SP1", 100.0, "1234", "ANNUAL", null);
+            AccountProxy second = f.createAccount("SP1", 200.0, "1234", "ANNUAL", null);
+
+            assertSame(first.getUnderlyingAccount().getInterestPolicy(), second.getUnderlyingAccount().getInterestPolicy());
+            assertNotSame(first.getUnderlyingAccount().getInterestAccrual(), second.getUnderlyingAccount().getInterestAccrual());
+        }
+
         /**
          * Ensures invalid input leads to IllegalArgumentException.
          */
@@ -131,6 +163,29 @@ class PumaBankFacadeTest {
             assertAll(() -> assertEquals(130.0, balance, 1e-9),() -> assertTrue(f.getMonthlyTransactions() >= before + 3));
         }
 
+        /**
+         * Ensures no credential moves money without the PIN, and that the
+         * bank's own deposits and withdrawals need none.
+         */
+        @Test
+        @DisplayName("SYSTEM and 0000 are ordinary wrong PINs; system operations take no credential")
+        void noCredentialBypass() {
+            PumaBankFacade f = newQuietFacade();
+            f.registerClient("Hi", "S1");
+            f.createAccount("S1", 100.0, "1111", "MONTHLY", null);
+            f.createAccount("S1", 100.0, "2222", "MONTHLY", null);
+            String id = "S1-ACC-1";
+
+            f.deposit(id, 50.0, "SYSTEM");
+            f.withdraw(id, 50.0, "0000");
+            assertEquals(BatchResult.Status.AUTH_FAILED, f.transfer(id, "S1-ACC-2", 10.0, "SYSTEM"));
+            assertEquals(100.0, f.findAccount(id).getUnderlyingAccount().getBalance(), 1e-9);
+
+            assertTrue(f.systemDeposit(id, 40.0).isApplied());
+            assertTrue(f.systemWithdraw(id, 15.0).isApplied());
+            assertEquals(125.0, f.checkBalance(id, "1111"), 1e-9);
+        }
+
 
 
         /**
@@ -273,4 +328,67 @@ class PumaBankFacadeTest {
             assertThrows(IllegalArgumentException.class, () -> f.getClientPortfolio("NO"));
         }
     }
+
+    @Nested
+    @DisplayName("Batch Operations")
+    class BatchOperations {
+
+        /**
+         * Ensures a batch is applied in order per account, authenticated once per
+         * account and answered in submission order.
+         */
+        @Test
+        @DisplayName("executeBatch groups by account and authenticates each group once")
+        void groupsAndAuthenticatesOnce() {
+            PumaBankFacade f = newQuietFacade();
+            f.registerClient("Ana", "B1");
+            f.createAccount("B1", 100.0, "1111", "MONTHLY", null);
+            f.createAccount("B1", 50.0, "2222", "MONTHLY", null);
+
+            List<BatchResult> results = f.executeBatch(Arrays.asList(
+                BatchOperation.deposit("B1-ACC-1", 20.0, "1111"),
+                BatchOperation.deposit("B1-ACC-2", 5.0, "2222"),
+                BatchOperation.withdraw("B1-ACC-1", 70.0, "1111"),
+                BatchOperation.checkBalance("B1-ACC-1", "1111"),
+                BatchOperation.deposit("B1-ACC-9", 1.0, "1111")));
+
+            assertAll(
+                () -> assertEquals(5, results.size()),
+                () -> assertEquals(120.0, results.get(0).getBalance(), 1e-9),
+                () -> assertEquals(55.0, results.get(1).getBalance(), 1e-9),
+                () -> assertEquals(50.0, results.get(2).getBalance(), 1e-9),
+                () -> assertEquals(50.0, results.get(3).getBalance(), 1e-9),
+                () -> assertTrue(results.get(3).isApplied()),
+                () -> assertEquals(BatchResult.Status.NOT_FOUND, results.get(4).getStatus()),
+                () -> assertEquals(2, f.getSessionCache().getMisses()),
+                () -> assertEquals(4, f.getMonthlyTransactions()),
+                () -> assertEquals(0, f.getSessionCache().size()));
+        }
+
+        /**
+         * Ensures a wrong PIN fails every operation of its group without touching the
+         * balance, and invalid amounts are reported per operation.
+         */
+        @Test
+        @DisplayName("executeBatch reports authentication and validation failures per operation")
+        void reportsFailures() {
+            PumaBankFacade f = newQuietFacade();
+            f.registerClient("Ana", "B2");
+            f.createAccount("B2", 100.0, "1111", "MONTHLY", null);
+
+            List<BatchResult> wrong = f.executeBatch(Arrays.asList(
+                BatchOperation.deposit("B2-ACC-1", 20.0, "9999"),
+                BatchOperation.withdraw("B2-ACC-1", 20.0, "9999")));
+            List<BatchResult> invalid = f.executeBatch(Arrays.asList(
+                BatchOperation.deposit("B2-ACC-1", -5.0, "1111"),
+                BatchOperation.withdraw("B2-ACC-1", 10.0, "1111")));
+
+            assertAll(
+                () -> assertEquals(BatchResult.Status.AUTH_FAILED, wrong.get(0).getStatus()),
+                () -> assertEquals(BatchResult.Status.AUTH_FAILED, wrong.get(1).getStatus()),
+                () -> assertEquals(BatchResult.Status.INVALID, invalid.get(0).getStatus()),
+                () -> assertNotNull(invalid.get(0).getMessage()),
+                () -> assertEquals(90.0, invalid.get(1).getBalance(), 1e-9));
+        }
+    }
 }
@@ -0,0 +1,186 @@
+package mx.unam.ciencias.myp.pumabank.test.facade;
+
+import mx.unam.ciencias.myp.pumabank.facade.PumaBankFacade;
+import mx.unam.ciencias.myp.pumabank.facade.ReplicationFollower;
+import mx.unam.ciencias.myp.pumabank.facade.ReplicationPrimary;
+import mx.unam.ciencias.myp.pumabank.facade.RequestExecutor;
+import mx.unam.ciencias.myp.pumabank.facade.WriteAheadJournal;
+import mx.unam.ciencias.myp.pumabank.patterns.proxy.PinAuthenticator;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link ReplicationPrimary} and {@link ReplicationFollower}:
+ * bootstrapping from a snapshot, following mutations in order, and failing
+ * over to the follower when the primary goes away.
+ */
+class ReplicationTest {
+
+    @TempDir
+    Path dir;
+
+    private PumaBankFacade primaryBank;
+    private WriteAheadJournal journal;
+    private RequestExecutor executor;
+    private ReplicationPrimary primary;
+
+    @BeforeAll
+    static void fastPinHashing() {
+        System.setProperty(PinAuthenticator.ITERATIONS_PROPERTY, "1");
+    }
+
+    @AfterAll
+    static void restorePinHashing() {
+        System.clearProperty(PinAuthenticator.ITERATIONS_PROPERTY);
+    }
+
+    @BeforeEach
+    void start() throws IOException {
+        primaryBank = new PumaBankFacade(dir.resolve("primary.log"));
+        primaryBank.setQuietMode(true);
+        journal = new WriteAheadJournal(dir.resolve("primary.journal"), WriteAheadJournal.Durability.ASYNC);
+        primaryBank.attachJournal(journal);
+        executor = new RequestExecutor(primaryBank, RequestExecutor.Mode.PLATFORM, 2);
+        executor.registerClient("Ana", "R1").join();
+        executor.createAccount("R1", 1000, "1111", "MONTHLY", List.of()).join();
+        executor.createAccount("R1", 500, "2222", "MONTHLY", List.of("REWARDS")).join();
+        primary = new ReplicationPrimary(primaryBank, executor, new InetSocketAddress("127.0.0.1", 0));
+    }
+
+    @AfterEach
+    void stop() throws IOException {
+        primary.close();
+        executor.close();
+        journal.close();
+    }
+
+    private ReplicationFollower follow() throws IOException {
+        return new ReplicationFollower(new InetSocketAddress("127.0.0.1", primary.getPort()),
+            dir.resolve("follower.log"));
+    }
+
+    private void awaitFollowers() throws InterruptedException {
+        assertTrue(primary.awaitAcknowledged(primary.getSequence(), 5000), "followers did not catch up");
+    }
+
+    /**
+     * The follower starts from the state before it connected and applies
+     * every later mutation, with the same PINs and the same month-end.
+     */
+    @Test
+    @DisplayName("Follower loads the snapshot and applies later mutations")
+    void follows() throws Exception {
+        executor.deposit("R1-ACC-1", 100, "1111").join();
+        try (ReplicationFollower follower = follow()) {
+            assertEquals(1100.0, follower.checkBalance("R1-ACC-1", "1111"), 1e-9);
+
+            executor.withdraw("R1-ACC-1", 300, "1111").join();
+            executor.deposit("R1-ACC-2", 50, "9999").join();
+            executor.submitExclusive(() -> primaryBank.transfer("R1-ACC-1", "R1-ACC-2", 200, "1111")).join();
+            executor.registerClient("Luis", "R2").join();
+            executor.createAccount("R2", 75, "3333", "ANNUAL", List.of()).join();
+            executor.processMonthlyOperations(1).join();
+            awaitFollowers();
+
+            // withdraw, transfer, client, account, then a month start and one result per account
+            assertEquals(follower.getStartSequence() + 8, follower.getAppliedSequence());
+            assertEquals(primary.getSequence(), follower.getAppliedSequence());
+            for (String[] account : new String[][] {{"R1-ACC-1", "1111"}, {"R1-ACC-2", "2222"}, {"R2-ACC-1", "3333"}}) {
+                assertEquals(primaryBank.checkBalance(account[0], account[1]),
+                    follower.checkBalance(account[0], account[1]), 1e-9, account[0]);
+            }
+            assertEquals(primaryBank.getClientPortfolio("R1").get("totalBalance"),
+                follower.getClientPortfolio("R1").get("totalBalance"));
+        }
+    }
+
+    /**
+     * Concurrent deposits reach the follower in an order that leaves every
+     * account with the primary's balance.
+     */
+    @Test
+    @DisplayName("Concurrent mutations replicate to the same balances")
+    void concurrentMutations() throws Exception {
+        try (ReplicationFollower follower = follow()) {
+            CompletableFuture<?>[] pending = new CompletableFuture<?>[2000];
+            for (int i = 0; i < pending.length; i++) {
+                String account = i % 2 == 0 ? "R1-ACC-1" : "R1-ACC-2";
+                String pin = i % 2 == 0 ? "1111" : "2222";
+                pending[i] = i % 3 == 0
+                    ? executor.withdraw(account, 7, pin)
+                    : executor.deposit(account, 5, pin);
+            }
+            CompletableFuture.allOf(pending).join();
+            awaitFollowers();
+
+            assertEquals(primaryBank.checkBalance("R1-ACC-1", "1111"), follower.checkBalance("R1-ACC-1", "1111"), 1e-9);
+            assertEquals(primaryBank.checkBalance("R1-ACC-2", "2222"), follower.checkBalance("R1-ACC-2", "2222"), 1e-9);
+            assertEquals(1, primary.getFollowerCount());
+        }
+    }
+
+    /**
+     * When the primary goes away the follower notices, and once promoted it
+     * takes writes on top of everything it had applied.
+     */
+    @Test
+    @DisplayName("Follower detects a lost primary and is promoted")
+    void failover() throws Exception {
+        ReplicationFollower follower = follow();
+        executor.deposit("R1-ACC-1", 250, "1111").join();
+        awaitFollowers();
+
+        primary.close();
+        assertTrue(follower.awaitDisconnect(5000));
+        assertFalse(follower.isConnected());
+
+        PumaBankFacade promoted = follower.promote();
+        promoted.deposit("R1-ACC-1", 10, "1111");
+        assertEquals(1260.0, promoted.checkBalance("R1-ACC-1", "1111"), 1e-9);
+        assertEquals(1260.0, follower.checkBalance("R1-ACC-1", "1111"), 1e-9);
+    }
+
+    /**
+     * Reads on the follower check the PIN but leave its bank as the primary
+     * made it: no transaction is counted and wrong PINs lock nothing.
+     */
+    @Test
+    @DisplayName("Follower reads touch no counters")
+    void readsLeaveNoTrace() throws Exception {
+        try (ReplicationFollower follower = follow()) {
+            for (int i = 0; i < 10; i++) {
+                assertEquals(-1, follower.checkBalance("R1-ACC-1", "0000"), 1e-9);
+                assertEquals(1000.0, follower.checkBalance("R1-ACC-1", "1111"), 1e-9);
+            }
+            primary.close();
+            assertTrue(follower.awaitDisconnect(5000));
+            PumaBankFacade promoted = follower.promote();
+            assertEquals(0, promoted.getMonthlyTransactions());
+            assertFalse(promoted.findAccount("R1-ACC-1").isLocked());
+            assertEquals(0, promoted.findAccount("R1-ACC-1").getFailedAttempts());
+        }
+    }
+
+    /**
+     * A primary refuses a bank without a journal to ship.
+     */
+    @Test
+    @DisplayName("Replication needs a journal")
+    void needsJournal() {
+        PumaBankFacade bank = new PumaBankFacade(dir.resolve("plain.log"));
+        assertThrows(IllegalArgumentException.class,
+            () -> new ReplicationPrimary(bank, executor, new InetSocketAddress("127.0.0.1", 0)));
+    }
+}
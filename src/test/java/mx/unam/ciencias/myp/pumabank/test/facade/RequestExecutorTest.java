@@ -0,0 +1,134 @@
+package mx.unam.ciencias.myp.pumabank.test.facade;
+
+import mx.unam.ciencias.myp.pumabank.facade.PumaBankFacade;
+import mx.unam.ciencias.myp.pumabank.facade.RequestExecutor;
+import mx.unam.ciencias.myp.pumabank.patterns.proxy.PinAuthenticator;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link RequestExecutor}: per-account ordering, mutual exclusion
+ * and consistency of the facade counters under concurrent requests.
+ */
+class RequestExecutorTest {
+
+    @BeforeAll
+    static void fastPinHashing() {
+        System.setProperty(PinAuthenticator.ITERATIONS_PROPERTY, "1");
+    }
+
+    @AfterAll
+    static void restorePinHashing() {
+        System.clearProperty(PinAuthenticator.ITERATIONS_PROPERTY);
+    }
+
+    private static PumaBankFacade quietFacade() {
+        PumaBankFacade f = new PumaBankFacade();
+        f.setQuietMode(true);
+        return f;
+    }
+
+    /**
+     * Requests for one account run one at a time and in submission order,
+     * even on a pool with several threads.
+     */
+    @Test
+    @DisplayName("Requests for the same account run in order and never overlap")
+    void perAccountOrdering() {
+        List<Integer> order = new ArrayList<>();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger overlaps = new AtomicInteger();
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        RequestExecutor executor = new RequestExecutor(quietFacade(), RequestExecutor.Mode.PLATFORM, 4);
+        for (int i = 0; i < 2000; i++) {
+            int n = i;
+            futures.add(executor.submit("A", () -> {
+                if (running.incrementAndGet() > 1) {
+                    overlaps.incrementAndGet();
+                }
+                order.add(n);
+                running.decrementAndGet();
+                return n;
+            }));
+        }
+        executor.close();
+        assertEquals(0, executor.getBusyAccounts());
+        assertEquals(0, overlaps.get());
+        assertEquals(2000, order.size());
+        for (int i = 0; i < order.size(); i++) {
+            assertEquals(i, order.get(i));
+        }
+        assertEquals(1999, futures.get(1999).join());
+    }
+
+    /**
+     * Concurrent deposits and withdrawals across many accounts leave every
+     * balance and the shared transaction counter exactly as if they had run
+     * one after another; failures are reported through the future.
+     */
+    @Test
+    @DisplayName("Concurrent requests keep balances and counters consistent")
+    void concurrentRequests() {
+        PumaBankFacade facade = quietFacade();
+        int accounts = 20;
+        int perAccount = 100;
+        List<String> ids = new ArrayList<>();
+        try (RequestExecutor executor = new RequestExecutor(facade, RequestExecutor.Mode.PLATFORM, 8)) {
+            executor.registerClient("Ana", "C1").join();
+            for (int i = 0; i < accounts; i++) {
+                executor.createAccount("C1", 1000, "1234", "monthly", List.of()).join();
+                ids.add("C1-ACC-" + (i + 1));
+            }
+            List<CompletableFuture<?>> futures = new ArrayList<>();
+            for (int i = 0; i < perAccount; i++) {
+                for (String id : ids) {
+                    futures.add(executor.deposit(id, 10, "1234"));
+                    futures.add(executor.withdraw(id, 5, "1234"));
+                }
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+
+            for (String id : ids) {
+                assertEquals(1500.0, executor.checkBalance(id, "1234").join(), 1e-9);
+            }
+            CompletableFuture<Void> missing = executor.deposit("NOPE-ACC-1", 10, "1234");
+            assertThrows(IllegalArgumentException.class, () -> {
+                try {
+                    missing.join();
+                } catch (CompletionException e) {
+                    throw e.getCause();
+                }
+            });
+        }
+        assertEquals(accounts * (2 * perAccount + 1), facade.getMonthlyTransactions());
+    }
+
+    /**
+     * Asking for virtual threads on a JVM without them fails clearly.
+     */
+    @Test
+    @DisplayName("Virtual mode requires virtual thread support")
+    void virtualModeAvailability() {
+        PumaBankFacade facade = quietFacade();
+        if (RequestExecutor.isVirtualThreadsAvailable()) {
+            try (RequestExecutor executor = new RequestExecutor(facade)) {
+                assertEquals(RequestExecutor.Mode.VIRTUAL, executor.getMode());
+            }
+        } else {
+            assertThrows(IllegalStateException.class,
+                () -> new RequestExecutor(facade, RequestExecutor.Mode.VIRTUAL, 1));
+            try (RequestExecutor executor = new RequestExecutor(facade)) {
+                assertEquals(RequestExecutor.Mode.PLATFORM, executor.getMode());
+            }
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package mx.unam.ciencias.myp.pumabank.test.facade;
+
+import mx.unam.ciencias.myp.pumabank.facade.BatchOperation;
+import mx.unam.ciencias.myp.pumabank.facade.BatchResult;
+import mx.unam.ciencias.myp.pumabank.facade.MonthlyReport;
+import mx.unam.ciencias.myp.pumabank.facade.PumaBankFacade;
+import mx.unam.ciencias.myp.pumabank.facade.ShardedBank;
+import mx.unam.ciencias.myp.pumabank.patterns.proxy.PinAuthenticator;
+import mx.unam.ciencias.myp.pumabank.patterns.state.states.FrozenState;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link ShardedBank}: routing by client, transfers between
+ * shards and the merged month-end report.
+ */
+class ShardedBankTest {
+
+    @TempDir
+    Path dir;
+
+    @BeforeAll
+    static void fastPinHashing() {
+        System.setProperty(PinAuthenticator.ITERATIONS_PROPERTY, "1");
+    }
+
+    @AfterAll
+    static void restorePinHashing() {
+        System.clearProperty(PinAuthenticator.ITERATIONS_PROPERTY);
+    }
+
+    private static double balance(ShardedBank bank, String accountId) {
+        return bank.findAccount(accountId).getUnderlyingAccount().getBalance();
+    }
+
+    /**
+     * Finds two clients that hash to different shards.
+     */
+    private static String[] clientsOnDifferentShards(ShardedBank bank) {
+        for (int i = 1; ; i++) {
+            if (bank.shardOf("S" + i) != bank.shardOf("S0")) {
+                return new String[] {"S0", "S" + i};
+            }
+        }
+    }
+
+    /**
+     * Clients and their accounts live only on the shard picked by the client
+     * id, and account operations reach that shard.
+     */
+    @Test
+    @DisplayName("Clients and accounts are routed to their shard")
+    void routing() throws IOException {
+        try (ShardedBank bank = new ShardedBank(4, dir)) {
+            bank.setQuietMode(true);
+            for (int c = 0; c < 40; c++) {
+                bank.registerClient("Client " + c, "R" + c);
+                bank.createAccount("R" + c, 100, "1234", "MONTHLY", null);
+            }
+            int used = 0;
+            for (int s = 0; s < bank.getShardCount(); s++) {
+                int clients = bank.getShard(s).getAllClients().size();
+                used += clients > 0 ? 1 : 0;
+            }
+            assertTrue(used > 1);
+            assertEquals(40, bank.getAllClients().size());
+
+            for (int c = 0; c < 40; c++) {
+                String accountId = "R" + c + "-ACC-1";
+                int shard = bank.shardOf("R" + c);
+                assertEquals(shard, bank.shardOfAccount(accountId));
+                for (int s = 0; s < bank.getShardCount(); s++) {
+                    assertEquals(s == shard, bank.getShard(s).findAccount(accountId) != null);
+                }
+                bank.deposit(accountId, c + 1, "1234");
+                bank.withdraw(accountId, 50, "1234");
+                assertEquals(51 + c, bank.checkBalance(accountId, "1234"), 1e-9);
+            }
+
+            List<BatchOperation> batch = new ArrayList<>();
+            for (int c = 0; c < 40; c++) {
+                batch.add(BatchOperation.deposit("R" + c + "-ACC-1", 10, "1234"));
+            }
+            List<BatchResult> results = bank.executeBatch(batch);
+            for (int c = 0; c < 40; c++) {
+                assertSame(batch.get(c), results.get(c).getOperation());
+                assertEquals(61 + c, results.get(c).getBalance(), 1e-9);
+            }
+
+            List<BatchOperation> local = List.of(BatchOperation.withdraw("R0-ACC-1", 1, "1234"),
+                BatchOperation.deposit("R0-ACC-1", 3, "1234"));
+            results = bank.executeBatch(local);
+            assertEquals(60, results.get(0).getBalance(), 1e-9);
+            assertEquals(63, results.get(1).getBalance(), 1e-9);
+            assertTrue(bank.executeBatch(List.of()).isEmpty());
+        }
+    }
+
+    /**
+     * A transfer between shards moves the money once, checks the source PIN
+     * and leaves the source untouched when the target cannot take deposits.
+     */
+    @Test
+    @DisplayName("Transfers between shards move money once")
+    void crossShardTransfer() throws IOException {
+        try (ShardedBank bank = new ShardedBank(4, dir)) {
+            bank.setQuietMode(true);
+            String[] ids = clientsOnDifferentShards(bank);
+            bank.registerClient("Ana", ids[0]);
+            bank.registerClient("Beto", ids[1]);
+            bank.createAccount(ids[0], 1000, "1111", "MONTHLY", null);
+            bank.createAccount(ids[1], 100, "2222", "MONTHLY", List.of("REWARDS"));
+            String from = ids[0] + "-ACC-1";
+            String to = ids[1] + "-ACC-1";
+
+            assertEquals(BatchResult.Status.APPLIED, bank.transfer(from, to, 250, "1111"));
+            assertEquals(750, balance(bank, from), 1e-9);
+            assertEquals(350, balance(bank, to), 1e-9);
+
+            assertEquals(BatchResult.Status.AUTH_FAILED, bank.transfer(from, to, 10, "2222"));
+            assertEquals(750, balance(bank, from), 1e-9);
+
+            bank.findAccount(to).getUnderlyingAccount().changeState(new FrozenState());
+            assertEquals(BatchResult.Status.DECLINED, bank.transfer(from, to, 10, "1111"));
+            assertEquals(750, balance(bank, from), 1e-9);
+            assertEquals(350, balance(bank, to), 1e-9);
+
+            assertThrows(IllegalArgumentException.class, () -> bank.transfer(from, ids[1] + "-ACC-9", 10, "1111"));
+            assertThrows(IllegalArgumentException.class, () -> bank.transfer(from, to, 0, "1111"));
+        }
+    }
+
+    /**
+     * The merged month-end report of a sharded bank has the same totals as a
+     * single facade holding the same accounts, and every log is written.
+     */
+    @Test
+    @DisplayName("Month-end runs on every shard and merges the reports")
+    void mergedMonthEnd() throws IOException {
+        PumaBankFacade single = new PumaBankFacade(dir.resolve("single.log"));
+        single.setQuietMode(true);
+        try (ShardedBank bank = new ShardedBank(3, dir.resolve("shards"))) {
+            bank.setQuietMode(true);
+            bank.setSuppressLogTimestamps(true);
+            for (int c = 0; c < 30; c++) {
+                single.registerClient("Client " + c, "M" + c);
+                bank.registerClient("Client " + c, "M" + c);
+                for (int a = 0; a < 3; a++) {
+                    single.createAccount("M" + c, 1000 * (a + 1), "1234", "MONTHLY", null);
+                    bank.createAccount("M" + c, 1000 * (a + 1), "1234", "MONTHLY", null);
+                }
+                if (c % 4 == 0) {
+                    single.withdraw("M" + c + "-ACC-1", 1500, "1234");
+                    bank.withdraw("M" + c + "-ACC-1", 1500, "1234");
+                }
+            }
+
+            MonthlyReport expected = single.processMonthlyOperations(1);
+            MonthlyReport merged = bank.processMonthlyOperations(1);
+
+            assertEquals(1, merged.getMonth());
+            assertEquals(90, merged.getAccounts());
+            assertEquals(expected.getAccounts(), merged.getAccounts());
+            assertEquals(expected.getTransactions(), merged.getTransactions());
+            assertEquals(expected.getFees(), merged.getFees(), 1e-6);
+            assertTrue(merged.getFees() > 0);
+            assertEquals(expected.getInterest(), merged.getInterest(), 1e-6);
+            assertEquals(merged.getFees(), bank.getTotalFeesCollected(), 1e-6);
+
+            for (int s = 0; s < 3; s++) {
+                assertTrue(Files.readString(dir.resolve("shards").resolve("shard-" + s + ".log"),
+                    StandardCharsets.UTF_8).contains("MONTHLY REPORT SUMMARY"));
+            }
+            String bankLog = Files.readString(dir.resolve("shards").resolve("monthly_operations_log.txt"),
+                StandardCharsets.UTF_8);
+            assertTrue(bankLog.contains("Total Accounts Processed: 90"));
+            assertTrue(bankLog.contains("Summary for Simulated Month: 1"));
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package mx.unam.ciencias.myp.pumabank.test.facade;
+
+import mx.unam.ciencias.myp.pumabank.facade.ExportFormat;
+import mx.unam.ciencias.myp.pumabank.facade.PumaBankFacade;
+import mx.unam.ciencias.myp.pumabank.model.Account;
+import mx.unam.ciencias.myp.pumabank.patterns.proxy.PinAuthenticator;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link PumaBankFacade#exportStatements}, checking the content of
+ * both formats and that the output does not depend on the number of threads.
+ */
+class StatementExportTest {
+
+    @TempDir
+    Path dir;
+
+    /**
+     * Hashes PINs with a single iteration so that building large banks stays fast.
+     */
+    @BeforeAll
+    static void fastPinHashing() {
+        System.setProperty(PinAuthenticator.ITERATIONS_PROPERTY, "1");
+    }
+
+    @AfterAll
+    static void restorePinHashing() {
+        System.clearProperty(PinAuthenticator.ITERATIONS_PROPERTY);
+    }
+
+    private static PumaBankFacade smallBank() {
+        PumaBankFacade f = new PumaBankFacade();
+        f.setQuietMode(true);
+        f.registerClient("Lopez, \"Ana\"", "S1");
+        f.registerClient("Luis", "S2");
+        f.createAccount("S1", 1000.0, "1111", "MONTHLY", Arrays.asList("ANTI_FRAUD", "REWARDS"));
+        f.createAccount("S1", 20.0, "2222", "ANNUAL", null);
+        f.deposit("S1-ACC-1", 500.0, "1111");
+        f.processMonthlyOperations(1);
+        return f;
+    }
+
+    /**
+     * Ensures a JSON line holds the portfolio totals and the month statement.
+     */
+    @Test
+    @DisplayName("JSON Lines export holds portfolios and statements")
+    void exportJsonLines() throws IOException {
+        PumaBankFacade f = smallBank();
+        Account first = f.findAccount("S1-ACC-1").getUnderlyingAccount();
+        Path file = dir.resolve("statements.jsonl");
+
+        assertEquals(2, f.exportStatements(file, ExportFormat.JSON_LINES));
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(2, lines.size());
+        String ana = lines.get(0).startsWith("{\"clientId\":\"S1\"") ? lines.get(0) : lines.get(1);
+        String luis = ana == lines.get(0) ? lines.get(1) : lines.get(0);
+        assertTrue(ana.contains("\"name\":\"Lopez, \\\"Ana\\\"\""), ana);
+        assertTrue(ana.contains("\"totalAccounts\":2"), ana);
+        assertTrue(ana.contains("{\"accountId\":\"S1-ACC-1\",\"state\":\"ACTIVE\",\"interestType\":\"MONTHLY\","
+            + "\"services\":[\"ANTI_FRAUD\",\"REWARDS\"],\"openingBalance\":1500.00,"), ana);
+        assertTrue(ana.contains("\"fees\":80.00"), ana);
+        assertTrue(ana.contains(String.format("\"balance\":%.2f", first.getBalance())), ana);
+        assertTrue(ana.contains(String.format("\"interest\":%.2f", first.getStatementInterest())), ana);
+        assertTrue(ana.contains("\"rewardPoints\":5}"), ana);
+        assertTrue(ana.contains("\"accountId\":\"S1-ACC-2\""), ana);
+        assertEquals("{\"clientId\":\"S2\",\"name\":\"Luis\",\"totalAccounts\":0,\"totalBalance\":0.00,\"accounts\":[]}", luis);
+    }
+
+    /**
+     * Ensures the CSV export has a header, one row per account and quoted names.
+     */
+    @Test
+    @DisplayName("CSV export writes one row per account")
+    void exportCsv() throws IOException {
+        PumaBankFacade f = smallBank();
+        Path file = dir.resolve("statements.csv");
+
+        f.exportStatements(file, ExportFormat.CSV, 1);
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(4, lines.size());
+        assertTrue(lines.get(0).startsWith("clientId,clientName,accountId,state"));
+        assertTrue(lines.contains("S2,Luis,,,,,,,,,"), lines.toString());
+        assertTrue(lines.stream().anyMatch(l -> l.startsWith(
+            "S1,\"Lopez, \"\"Ana\"\"\",S1-ACC-1,ACTIVE,MONTHLY,ANTI_FRAUD;REWARDS,1500.00,")), lines.toString());
+    }
+
+    /**
+     * Exports a bank spanning several partitions with one and four threads and
+     * expects identical files.
+     */
+    @Test
+    @DisplayName("Output is the same with one or several threads")
+    void parallelExportIsOrdered() throws IOException {
+        Path input = dir.resolve("bank.csv");
+        try (BufferedWriter out = Files.newBufferedWriter(input)) {
+            for (int i = 0; i < 10_000; i++) {
+                if (i % 7 == 0) {
+                    out.write("C,C" + i / 7 + ",Client " + i / 7 + "\n");
+                }
+                out.write("A,C" + i / 7 + "," + i + ".5,1234,MONTHLY," + (i % 2 == 0 ? "REWARDS" : "") + "\n");
+            }
+        }
+        PumaBankFacade f = new PumaBankFacade();
+        f.setQuietMode(true);
+        f.importAccounts(input, 1);
+        f.deleteAccount("C3-ACC-1");
+        f.registerClient("Nobody", "EMPTY");
+
+        Path one = dir.resolve("one.jsonl");
+        Path many = dir.resolve("many.jsonl");
+        assertEquals(9_999, f.exportStatements(one, ExportFormat.JSON_LINES, 1));
+        assertEquals(9_999, f.exportStatements(many, ExportFormat.JSON_LINES, 4));
+
+        assertArrayEquals(Files.readAllBytes(one), Files.readAllBytes(many));
+        assertEquals(f.getAllClients().size(), Files.readAllLines(one).size());
+        String c3 = Files.readAllLines(one).stream().filter(l -> l.startsWith("{\"clientId\":\"C3\"")).findFirst().get();
+        assertTrue(c3.contains("\"accountId\":\"C3-ACC-2\""), c3);
+        assertFalse(c3.contains("C3-ACC-1"), c3);
+        assertFalse(Files.readString(one).contains("UNKNOWN-ACCOUNT"));
+        assertEquals(Collections.emptyList(), f.getClientAccounts("EMPTY"));
+    }
+}
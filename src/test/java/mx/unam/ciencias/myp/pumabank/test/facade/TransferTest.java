@@ -0,0 +1,202 @@
+package mx.unam.ciencias.myp.pumabank.test.facade;
+
+import mx.unam.ciencias.myp.pumabank.facade.BatchResult;
+import mx.unam.ciencias.myp.pumabank.facade.PumaBankFacade;
+import mx.unam.ciencias.myp.pumabank.facade.WriteAheadJournal;
+import mx.unam.ciencias.myp.pumabank.model.Account;
+import mx.unam.ciencias.myp.pumabank.patterns.proxy.PinAuthenticator;
+import mx.unam.ciencias.myp.pumabank.patterns.state.AccountState;
+import mx.unam.ciencias.myp.pumabank.patterns.state.states.FrozenState;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link PumaBankFacade#transfer}: outcomes, journaling and money
+ * conservation under concurrent transfers.
+ */
+class TransferTest {
+
+    @TempDir
+    Path dir;
+
+    @BeforeAll
+    static void fastPinHashing() {
+        System.setProperty(PinAuthenticator.ITERATIONS_PROPERTY, "1");
+    }
+
+    @AfterAll
+    static void restorePinHashing() {
+        System.clearProperty(PinAuthenticator.ITERATIONS_PROPERTY);
+    }
+
+    private static PumaBankFacade quietFacade() {
+        PumaBankFacade f = new PumaBankFacade();
+        f.setQuietMode(true);
+        return f;
+    }
+
+    private static double balance(PumaBankFacade f, String accountId) {
+        return f.findAccount(accountId).getUnderlyingAccount().getBalance();
+    }
+
+    /**
+     * A transfer moves the money once, checks the PIN of the source only and
+     * refuses to debit when the target cannot take deposits.
+     */
+    @Test
+    @DisplayName("transfer moves money and reports declined or refused transfers")
+    void outcomes() {
+        PumaBankFacade f = quietFacade();
+        f.registerClient("Ana", "T1");
+        f.createAccount("T1", 1000, "1111", "MONTHLY", List.of("REWARDS"));
+        f.createAccount("T1", 100, "2222", "MONTHLY", List.of("PREMIUM_ALERTS"));
+
+        assertEquals(BatchResult.Status.APPLIED, f.transfer("T1-ACC-1", "T1-ACC-2", 250, "1111"));
+        assertEquals(750, balance(f, "T1-ACC-1"), 1e-9);
+        assertEquals(350, balance(f, "T1-ACC-2"), 1e-9);
+        assertEquals(1, f.getMonthlyTransactions());
+
+        assertEquals(BatchResult.Status.AUTH_FAILED, f.transfer("T1-ACC-1", "T1-ACC-2", 10, "2222"));
+        assertEquals(750, balance(f, "T1-ACC-1"), 1e-9);
+
+        f.findAccount("T1-ACC-2").getUnderlyingAccount().changeState(new FrozenState());
+        assertEquals(BatchResult.Status.DECLINED, f.transfer("T1-ACC-1", "T1-ACC-2", 10, "1111"));
+        assertEquals(750, balance(f, "T1-ACC-1"), 1e-9);
+        assertEquals(350, balance(f, "T1-ACC-2"), 1e-9);
+
+        assertThrows(IllegalArgumentException.class, () -> f.transfer("T1-ACC-1", "T1-ACC-1", 10, "1111"));
+        assertThrows(IllegalArgumentException.class, () -> f.transfer("T1-ACC-1", "T1-ACC-2", -1, "1111"));
+        assertThrows(IllegalArgumentException.class, () -> f.transfer("T1-ACC-1", "T9-ACC-1", 10, "1111"));
+    }
+
+    /**
+     * A transfer is journaled as one record and replayed on recovery.
+     */
+    @Test
+    @DisplayName("recover replays journaled transfers")
+    void journaled() throws IOException {
+        Path journalFile = dir.resolve("bank.journal");
+        PumaBankFacade f = quietFacade();
+        try (WriteAheadJournal journal = new WriteAheadJournal(journalFile, WriteAheadJournal.Durability.SYNC)) {
+            f.attachJournal(journal);
+            f.registerClient("Ana", "T2");
+            f.createAccount("T2", 500, "1111", "MONTHLY", null);
+            f.createAccount("T2", 0.5, "2222", "MONTHLY", null);
+            f.transfer("T2-ACC-1", "T2-ACC-2", 120, "1111");
+            f.transfer("T2-ACC-1", "T2-ACC-2", 5, "9999");
+            assertEquals(4, journal.getRecordCount());
+        }
+        PumaBankFacade recovered = PumaBankFacade.recover(dir.resolve("missing.snap"), journalFile);
+        assertEquals(380, balance(recovered, "T2-ACC-1"), 1e-9);
+        assertEquals(120.5, balance(recovered, "T2-ACC-2"), 1e-9);
+    }
+
+    /**
+     * A credit that fails after the debit gives the money back to the source,
+     * declines the transfer and journals the refund, so recovery ends with
+     * the same balances.
+     */
+    @Test
+    @DisplayName("a failed credit is refunded and journaled")
+    void failedCreditRefunded() throws IOException {
+        Path journalFile = dir.resolve("refund.journal");
+        PumaBankFacade f = quietFacade();
+        try (WriteAheadJournal journal = new WriteAheadJournal(journalFile, WriteAheadJournal.Durability.SYNC)) {
+            f.attachJournal(journal);
+            f.registerClient("Ana", "T4");
+            f.createAccount("T4", 500, "1111", "MONTHLY", List.of("REWARDS"));
+            f.createAccount("T4", 50, "2222", "MONTHLY", null);
+            f.findAccount("T4-ACC-2").getUnderlyingAccount().changeState(new AccountState() {
+                @Override public void deposit(double amount, Account account) {
+                    throw new IllegalStateException("ledger unavailable");
+                }
+                @Override public void withdraw(double amount, Account account) {}
+                @Override public void processMonth(Account account) {}
+                @Override public void unfreeze(Account account) {}
+            });
+
+            assertEquals(BatchResult.Status.DECLINED, f.transfer("T4-ACC-1", "T4-ACC-2", 120, "1111"));
+            assertEquals(500, balance(f, "T4-ACC-1"), 1e-9);
+            assertEquals(50, balance(f, "T4-ACC-2"), 1e-9);
+            assertEquals(4, journal.getRecordCount());
+        }
+        PumaBankFacade recovered = PumaBankFacade.recover(dir.resolve("missing.snap"), journalFile);
+        assertEquals(500, balance(recovered, "T4-ACC-1"), 1e-9);
+        assertEquals(50, balance(recovered, "T4-ACC-2"), 1e-9);
+    }
+
+    /**
+     * Threads transfer random amounts between random pairs, including
+     * opposite directions on the same pair, while others deposit and
+     * withdraw the same amount. No thread may hang and the money in the bank
+     * must not change.
+     */
+    @Test
+    @DisplayName("concurrent transfers never deadlock and preserve the total balance")
+    void concurrentTransfers() {
+        PumaBankFacade f = quietFacade();
+        f.registerClient("Ana", "T3");
+        int accounts = 16;
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < accounts; i++) {
+            f.createAccount("T3", 1_000_000, "1111", "MONTHLY", i % 2 == 0 ? List.of("REWARDS") : null);
+            ids.add("T3-ACC-" + (i + 1));
+        }
+        double total = accounts * 1_000_000.0;
+        int threads = 8;
+        int perThread = 2_000;
+        AtomicLong applied = new AtomicLong();
+
+        assertTimeoutPreemptively(Duration.ofSeconds(60), () -> {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Thread> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                Random random = new Random(t);
+                Thread worker = new Thread(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < perThread; i++) {
+                        String from = ids.get(random.nextInt(accounts));
+                        String to = ids.get(random.nextInt(accounts));
+                        int amount = 1 + random.nextInt(100);
+                        if (from.equals(to)) {
+                            f.deposit(from, amount, "1111");
+                            f.withdraw(from, amount, "1111");
+                        } else if (f.transfer(from, to, amount, "1111") == BatchResult.Status.APPLIED) {
+                            applied.incrementAndGet();
+                        }
+                    }
+                });
+                workers.add(worker);
+                worker.start();
+            }
+            start.countDown();
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        });
+
+        double sum = 0;
+        for (String id : ids) {
+            sum += balance(f, id);
+        }
+        assertEquals(total, sum, 1e-6);
+        assertTrue(applied.get() > 0);
+    }
+}
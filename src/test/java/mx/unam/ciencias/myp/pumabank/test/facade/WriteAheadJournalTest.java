@@ -0,0 +1,223 @@
+package mx.unam.ciencias.myp.pumabank.test.facade;
+
+import mx.unam.ciencias.myp.pumabank.facade.PumaBankFacade;
+import mx.unam.ciencias.myp.pumabank.facade.WriteAheadJournal;
+import mx.unam.ciencias.myp.pumabank.patterns.decorator.RewardsProgramDecorator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link WriteAheadJournal}, verifying that journaled mutations are
+ * recovered on top of the latest snapshot in every durability mode.
+ */
+class WriteAheadJournalTest {
+
+    @TempDir
+    Path dir;
+
+    private PumaBankFacade newQuietFacade() {
+        PumaBankFacade f = new PumaBankFacade();
+        f.setQuietMode(true);
+        return f;
+    }
+
+    /**
+     * Ensures accepted mutations are replayed and rejected ones are not journaled.
+     */
+    @ParameterizedTest
+    @EnumSource(WriteAheadJournal.Durability.class)
+    @DisplayName("recover replays the journaled mutations")
+    void replaysJournal(WriteAheadJournal.Durability durability) throws IOException {
+        Path journalFile = dir.resolve("bank.journal");
+        PumaBankFacade f = newQuietFacade();
+        WriteAheadJournal journal = new WriteAheadJournal(journalFile, durability);
+        f.attachJournal(journal);
+        f.registerClient("Ana", "J1");
+        f.createAccount("J1", 100.0, "1111", "MONTHLY", Arrays.asList("REWARDS"));
+        f.deposit("J1-ACC-1", 900.0, "1111");
+        f.deposit("J1-ACC-1", 5000.0, "0001");
+        f.withdraw("J1-ACC-1", 50.0, "1111");
+        journal.close();
+
+        assertEquals(4, journal.getRecordCount());
+        PumaBankFacade recovered = PumaBankFacade.recover(dir.resolve("missing.snap"), journalFile);
+        assertEquals(950.0, recovered.findAccount("J1-ACC-1").getUnderlyingAccount().getBalance(), 1e-9);
+        assertEquals(950.0, recovered.checkBalance("J1-ACC-1", "1111"), 1e-9);
+    }
+
+    /**
+     * Ensures a snapshot empties the journal and later mutations are replayed on top of it.
+     */
+    @Test
+    @DisplayName("recover applies the journal on top of the latest snapshot")
+    void replaysOnTopOfSnapshot() throws IOException {
+        Path snapshot = dir.resolve("bank.snap");
+        Path journalFile = dir.resolve("bank.journal");
+        PumaBankFacade f = newQuietFacade();
+        try (WriteAheadJournal journal = new WriteAheadJournal(journalFile, WriteAheadJournal.Durability.SYNC)) {
+            f.attachJournal(journal);
+            f.registerClient("Ana", "J2");
+            f.createAccount("J2", 2000.0, "1111", "MONTHLY", null);
+            f.saveSnapshot(snapshot);
+            assertEquals(0, Files.size(journalFile));
+
+            f.deposit("J2-ACC-1", 1000.0, "1111");
+            f.createAccount("J2", 10.0, "2222", "ANNUAL", null);
+            f.processMonthlyOperations(1);
+        }
+
+        PumaBankFacade recovered = PumaBankFacade.recover(snapshot, journalFile);
+        assertAll(
+            () -> assertEquals(f.findAccount("J2-ACC-1").getUnderlyingAccount().getBalance(),
+                               recovered.findAccount("J2-ACC-1").getUnderlyingAccount().getBalance(), 1e-9),
+            () -> assertNotNull(recovered.findAccount("J2-ACC-2")),
+            () -> assertEquals(f.getTotalInterestPaid(), recovered.getTotalInterestPaid(), 1e-9));
+    }
+
+    /**
+     * Ensures a client moved between banks is recovered on the bank it moved
+     * to, with the operations made after the move, and not on the one it left.
+     */
+    @Test
+    @DisplayName("recover replays client moves")
+    void replaysClientMoves() throws IOException {
+        Path sourceJournal = dir.resolve("source.journal");
+        Path targetJournal = dir.resolve("target.journal");
+        PumaBankFacade source = newQuietFacade();
+        PumaBankFacade target = newQuietFacade();
+        try (WriteAheadJournal from = new WriteAheadJournal(sourceJournal, WriteAheadJournal.Durability.SYNC);
+             WriteAheadJournal to = new WriteAheadJournal(targetJournal, WriteAheadJournal.Durability.SYNC)) {
+            source.attachJournal(from);
+            target.attachJournal(to);
+            source.registerClient("Ana", "J6");
+            source.createAccount("J6", 500.0, "1111", "MONTHLY", Arrays.asList("REWARDS"));
+            source.deposit("J6-ACC-1", 1500.0, "1111");
+
+            target.importClients(source.exportClients(List.of("J6")));
+            assertEquals(1, source.removeClient("J6"));
+            target.withdraw("J6-ACC-1", 200.0, "1111");
+        }
+
+        PumaBankFacade left = PumaBankFacade.recover(dir.resolve("missing.snap"), sourceJournal);
+        PumaBankFacade arrived = PumaBankFacade.recover(dir.resolve("missing.snap"), targetJournal);
+        assertNull(left.findAccount("J6-ACC-1"));
+        assertEquals(1800.0, arrived.checkBalance("J6-ACC-1", "1111"), 1e-9);
+        int points = ((RewardsProgramDecorator) target.getClientAccounts("J6").get(0)).getRewardPoints();
+        assertTrue(points > 0);
+        assertEquals(points, ((RewardsProgramDecorator) arrived.getClientAccounts("J6").get(0)).getRewardPoints());
+    }
+
+    /**
+     * Ensures an account created with a loaded tier schedule is recovered with
+     * that schedule rather than the registry default.
+     */
+    @Test
+    @DisplayName("recover keeps loaded tier schedules")
+    void replaysLoadedSchedule() throws IOException {
+        Path schedule = dir.resolve("tiers.properties");
+        Files.writeString(schedule, "mode=MARGINAL\ntiers=0:0.01, 500:0.03\n");
+        Path journalFile = dir.resolve("bank.journal");
+        PumaBankFacade f = newQuietFacade();
+        try (WriteAheadJournal journal = new WriteAheadJournal(journalFile, WriteAheadJournal.Durability.SYNC)) {
+            f.attachJournal(journal);
+            f.loadInterestSchedule(schedule);
+            f.registerClient("Ana", "J5");
+            f.createAccount("J5", 1000.0, "1111", "TIERED", null);
+        }
+
+        PumaBankFacade recovered = PumaBankFacade.recover(dir.resolve("missing.snap"), journalFile);
+        assertEquals(f.findAccount("J5-ACC-1").getUnderlyingAccount().getInterestPolicy(),
+                     recovered.findAccount("J5-ACC-1").getUnderlyingAccount().getInterestPolicy());
+    }
+
+    /**
+     * Ensures month-end records restore the balances, states, totals and
+     * accrual the primary computed.
+     */
+    @Test
+    @DisplayName("recover restores journaled month-end results")
+    void replaysMonthEndResults() throws IOException {
+        Path journalFile = dir.resolve("bank.journal");
+        PumaBankFacade f = newQuietFacade();
+        try (WriteAheadJournal journal = new WriteAheadJournal(journalFile, WriteAheadJournal.Durability.SYNC)) {
+            f.attachJournal(journal);
+            f.registerClient("Ana", "J6");
+            f.createAccount("J6", 5000.0, "1111", "ANNUAL", Arrays.asList("REWARDS", "ANTI_FRAUD"));
+            f.createAccount("J6", 100.0, "2222", "MONTHLY", null);
+            f.withdraw("J6-ACC-2", 150.0, "2222");
+            f.processMonthlyOperations(1);
+            f.deposit("J6-ACC-1", 700.0, "1111");
+            f.processMonthlyOperations(2);
+        }
+
+        PumaBankFacade recovered = PumaBankFacade.recover(dir.resolve("missing.snap"), journalFile);
+        for (String id : new String[] {"J6-ACC-1", "J6-ACC-2"}) {
+            assertEquals(f.findAccount(id).getUnderlyingAccount().getBalance(),
+                         recovered.findAccount(id).getUnderlyingAccount().getBalance(), 1e-9, id);
+            assertEquals(f.findAccount(id).getUnderlyingAccount().getState().getClass(),
+                         recovered.findAccount(id).getUnderlyingAccount().getState().getClass(), id);
+        }
+        assertEquals(f.getTotalFeesCollected(), recovered.getTotalFeesCollected(), 1e-9);
+        assertEquals(f.getTotalInterestPaid(), recovered.getTotalInterestPaid(), 1e-9);
+    }
+
+    /**
+     * Ensures a torn record at the end of the journal is ignored and cut off.
+     */
+    @Test
+    @DisplayName("recover discards a torn record at the end of the journal")
+    void discardsTornTail() throws IOException {
+        Path journalFile = dir.resolve("bank.journal");
+        PumaBankFacade f = newQuietFacade();
+        try (WriteAheadJournal journal = new WriteAheadJournal(journalFile, WriteAheadJournal.Durability.GROUP)) {
+            f.attachJournal(journal);
+            f.registerClient("Ana", "J3");
+            f.createAccount("J3", 10.0, "1111", "MONTHLY", null);
+        }
+        long valid = Files.size(journalFile);
+        Files.write(journalFile, new byte[] {0, 0, 0, 40, 4, 1, 2}, StandardOpenOption.APPEND);
+
+        PumaBankFacade recovered = PumaBankFacade.recover(dir.resolve("missing.snap"), journalFile);
+        assertNotNull(recovered.findAccount("J3-ACC-1"));
+        assertEquals(valid, Files.size(journalFile));
+    }
+
+    /**
+     * Ensures concurrent group commit appends share forces and are all durable.
+     */
+    @Test
+    @DisplayName("group commit forces once per batch of concurrent records")
+    void groupCommitBatches() throws Exception {
+        Path journalFile = dir.resolve("bank.journal");
+        WriteAheadJournal journal = new WriteAheadJournal(journalFile, WriteAheadJournal.Durability.GROUP, 2_000);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 50; i++) {
+                    journal.logDeposit("X-ACC-1", 1.0);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        journal.close();
+
+        assertEquals(400, journal.getRecordCount());
+        assertTrue(journal.getForceCount() < 400, "forces: " + journal.getForceCount());
+    }
+}
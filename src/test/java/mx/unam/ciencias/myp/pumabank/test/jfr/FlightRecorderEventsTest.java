@@ -0,0 +1,161 @@
+package mx.unam.ciencias.myp.pumabank.test.jfr;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+import mx.unam.ciencias.myp.pumabank.facade.PumaBankFacade;
+import mx.unam.ciencias.myp.pumabank.patterns.proxy.PinAuthenticator;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that the Flight Recorder events of the bank reach a recording, with
+ * their fields filled in.
+ */
+class FlightRecorderEventsTest {
+
+    private static final List<String> EVENTS = List.of("pumabank.AccountOperation", "pumabank.StateTransition",
+        "pumabank.ServiceFee", "pumabank.PinFailure", "pumabank.MonthEndAccount");
+
+    @TempDir
+    Path dir;
+
+    @BeforeAll
+    static void fastPinHashing() {
+        System.setProperty(PinAuthenticator.ITERATIONS_PROPERTY, "1");
+    }
+
+    @AfterAll
+    static void restorePinHashing() {
+        System.clearProperty(PinAuthenticator.ITERATIONS_PROPERTY);
+    }
+
+    /**
+     * Operations, an overdraft, a wrong PIN and a month-end with a service fee
+     * each produce their events in a recording stream.
+     */
+    @Test
+    @DisplayName("operations, transitions, fees, PIN failures and month-end are recorded")
+    void eventsAreRecorded() throws InterruptedException {
+        Queue<RecordedEvent> events = new ConcurrentLinkedQueue<>();
+        try (RecordingStream stream = new RecordingStream()) {
+            for (String name : EVENTS) {
+                stream.enable(name).withoutThreshold();
+                stream.onEvent(name, events::add);
+            }
+            stream.startAsync();
+
+            PumaBankFacade f = new PumaBankFacade(dir.resolve("monthly.log"));
+            f.setQuietMode(true);
+            f.registerClient("Ana", "J1");
+            f.createAccount("J1", 1000, "1111", "MONTHLY", List.of("REWARDS"));
+            f.createAccount("J1", 100, "2222", "MONTHLY", List.of());
+            f.deposit("J1-ACC-1", 50, "1111");
+            f.withdraw("J1-ACC-2", 150, "2222");
+            f.deposit("J1-ACC-2", 10, "9999");
+            f.checkBalance("J1-ACC-1", "1111");
+            f.processMonthlyOperations(1);
+
+            long deadline = System.nanoTime() + Duration.ofSeconds(20).toNanos();
+            while (count(events, "pumabank.MonthEndAccount") < 2 && System.nanoTime() < deadline) {
+                Thread.sleep(50);
+            }
+        }
+
+        List<RecordedEvent> operations = named(events, "pumabank.AccountOperation");
+        assertEquals(4, operations.size());
+        RecordedEvent deposit = operations.get(0);
+        assertEquals("J1-ACC-1", deposit.getString("accountId"));
+        assertEquals("DEPOSIT", deposit.getString("operation"));
+        assertEquals(50, deposit.getDouble("amount"));
+        assertEquals(1050, deposit.getDouble("balance"));
+        assertEquals("APPLIED", deposit.getString("outcome"));
+        assertEquals("AUTH_FAILED", operations.get(2).getString("outcome"));
+
+        RecordedEvent transition = named(events, "pumabank.StateTransition").get(0);
+        assertEquals("J1-ACC-2", transition.getString("accountId"));
+        assertEquals("Active", transition.getString("fromState"));
+        assertEquals("Overdrawn", transition.getString("toState"));
+        assertEquals(-50, transition.getDouble("balance"));
+
+        RecordedEvent failure = named(events, "pumabank.PinFailure").get(0);
+        assertEquals("J1-ACC-2", failure.getString("accountId"));
+        assertEquals("DEPOSIT", failure.getString("operation"));
+        assertEquals(1, failure.getInt("failedAttempts"));
+        assertFalse(failure.getBoolean("blocked"));
+
+        RecordedEvent fee = named(events, "pumabank.ServiceFee").get(0);
+        assertEquals("J1-ACC-1", fee.getString("accountId"));
+        assertEquals("RewardsProgram", fee.getString("service"));
+        assertTrue(fee.getDouble("fee") > 0);
+
+        List<RecordedEvent> monthEnd = named(events, "pumabank.MonthEndAccount");
+        assertEquals(2, monthEnd.size());
+        RecordedEvent first = monthEnd.stream().filter(e -> e.getString("accountId").equals("J1-ACC-1"))
+            .findFirst().orElseThrow();
+        assertEquals(1, first.getInt("month"));
+        assertEquals(1050, first.getDouble("openingBalance"));
+        assertEquals(fee.getDouble("fee"), first.getDouble("fees"));
+        assertTrue(first.getDouble("interest") > 0);
+        assertEquals("Active", first.getString("state"));
+        assertFalse(first.getDuration().isNegative());
+    }
+
+    /**
+     * Keyed operations produce an operation event for every call, including
+     * retries answered from the idempotency cache.
+     */
+    @Test
+    @DisplayName("keyed operations and their retries are recorded")
+    void keyedOperationsAreRecorded() throws InterruptedException {
+        Queue<RecordedEvent> events = new ConcurrentLinkedQueue<>();
+        try (RecordingStream stream = new RecordingStream()) {
+            stream.enable("pumabank.AccountOperation").withoutThreshold();
+            stream.onEvent("pumabank.AccountOperation", events::add);
+            stream.startAsync();
+
+            PumaBankFacade f = new PumaBankFacade(dir.resolve("monthly.log"));
+            f.setQuietMode(true);
+            f.registerClient("Ana", "J2");
+            f.createAccount("J2", 1000, "1111", "MONTHLY", List.of());
+            f.createAccount("J2", 100, "2222", "MONTHLY", List.of());
+            f.deposit("J2-ACC-1", 50, "1111", "k1");
+            f.deposit("J2-ACC-1", 50, "1111", "k1");
+            f.withdraw("J2-ACC-2", 30, "2222", "k2");
+            f.transfer("J2-ACC-1", "J2-ACC-2", 200, "1111", "k3");
+            f.transfer("J2-ACC-1", "J2-ACC-2", 200, "1111", "k3");
+
+            long deadline = System.nanoTime() + Duration.ofSeconds(20).toNanos();
+            while (events.size() < 5 && System.nanoTime() < deadline) {
+                Thread.sleep(50);
+            }
+        }
+
+        List<RecordedEvent> operations = named(events, "pumabank.AccountOperation");
+        assertEquals(List.of("DEPOSIT", "DEPOSIT", "WITHDRAW", "TRANSFER", "TRANSFER"),
+            operations.stream().map(e -> e.getString("operation")).collect(Collectors.toList()));
+        assertTrue(operations.stream().allMatch(e -> e.getString("outcome").equals("APPLIED")));
+        assertEquals(1050, operations.get(1).getDouble("balance"));
+        assertEquals("J2-ACC-2", operations.get(4).getString("targetAccountId"));
+        assertEquals(850, operations.get(4).getDouble("balance"));
+    }
+
+    private static long count(Queue<RecordedEvent> events, String name) {
+        return events.stream().filter(e -> e.getEventType().getName().equals(name)).count();
+    }
+
+    private static List<RecordedEvent> named(Queue<RecordedEvent> events, String name) {
+        return events.stream().filter(e -> e.getEventType().getName().equals(name))
+            .sorted((a, b) -> a.getStartTime().compareTo(b.getStartTime())).collect(Collectors.toList());
+    }
+}
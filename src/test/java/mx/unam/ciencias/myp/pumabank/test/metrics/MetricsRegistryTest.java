@@ -0,0 +1,198 @@
+package mx.unam.ciencias.myp.pumabank.test.metrics;
+
+import mx.unam.ciencias.myp.pumabank.facade.LatencyHistogram;
+import mx.unam.ciencias.myp.pumabank.facade.PumaBankFacade;
+import mx.unam.ciencias.myp.pumabank.metrics.Counter;
+import mx.unam.ciencias.myp.pumabank.metrics.Histogram;
+import mx.unam.ciencias.myp.pumabank.metrics.MetricsRegistry;
+import mx.unam.ciencias.myp.pumabank.metrics.PrometheusExporter;
+import mx.unam.ciencias.myp.pumabank.patterns.proxy.PinAuthenticator;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the metrics registry, its Prometheus text format, the metrics the
+ * facade keeps and the file and HTTP exporters.
+ */
+class MetricsRegistryTest {
+
+    @TempDir
+    Path dir;
+
+    @BeforeAll
+    static void fastPinHashing() {
+        System.setProperty(PinAuthenticator.ITERATIONS_PROPERTY, "1");
+    }
+
+    @AfterAll
+    static void restorePinHashing() {
+        System.clearProperty(PinAuthenticator.ITERATIONS_PROPERTY);
+    }
+
+    /**
+     * Counters, gauges and histograms are written with their help, type and
+     * labels; histogram buckets are cumulative and end at +Inf.
+     */
+    @Test
+    @DisplayName("metrics are written in the Prometheus text format")
+    void writesTextFormat() {
+        MetricsRegistry registry = new MetricsRegistry();
+        Counter fees = registry.counter("fees_total", "Fees", "service", "AntiFraud");
+        fees.add(2.5);
+        fees.increment();
+        assertSame(fees, registry.counter("fees_total", "Fees", "service", "AntiFraud"));
+        registry.gauge("open", "Open \"things\"", "kind", "a\"b").add(3);
+        Histogram amounts = registry.histogram("amount", "Amounts", new double[] {10, 100});
+        amounts.observe(5);
+        amounts.observe(50);
+        amounts.observe(500);
+
+        String text = registry.toPrometheus();
+        assertTrue(text.contains("# HELP fees_total Fees\n# TYPE fees_total counter\n"
+            + "fees_total{service=\"AntiFraud\"} 3.5\n"), text);
+        assertTrue(text.contains("open{kind=\"a\\\"b\"} 3\n"), text);
+        assertTrue(text.contains("# TYPE amount histogram\n"
+            + "amount_bucket{le=\"10\"} 1\n"
+            + "amount_bucket{le=\"100\"} 2\n"
+            + "amount_bucket{le=\"+Inf\"} 3\n"
+            + "amount_sum 555\n"
+            + "amount_count 3\n"), text);
+        assertTrue(text.indexOf("amount_bucket") < text.indexOf("fees_total"));
+    }
+
+    /**
+     * Names used with another type, bad names, reserved labels and negative
+     * counter increments are rejected.
+     */
+    @Test
+    @DisplayName("invalid names, labels and increments are rejected")
+    void rejectsInvalidMetrics() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("ops_total", "Operations");
+        assertThrows(IllegalArgumentException.class, () -> registry.gauge("ops_total", "Operations"));
+        assertThrows(IllegalArgumentException.class, () -> registry.counter("2ops", "Operations"));
+        assertThrows(IllegalArgumentException.class, () -> registry.counter("ops_total", "Operations", "le", "1"));
+        assertThrows(IllegalArgumentException.class, () -> registry.counter("ops_total", "Operations", "odd"));
+        assertThrows(IllegalArgumentException.class, () -> registry.counter("ops_total", "Operations").add(-1));
+        assertThrows(IllegalArgumentException.class,
+            () -> registry.histogram("h", "H", new double[] {10, 10}));
+    }
+
+    /**
+     * A latency histogram is written as a summary in seconds.
+     */
+    @Test
+    @DisplayName("latency histograms are written as summaries in seconds")
+    void writesSummaries() {
+        MetricsRegistry registry = new MetricsRegistry();
+        LatencyHistogram latencies = new LatencyHistogram();
+        for (int i = 0; i < 100; i++) {
+            latencies.record(1_000);
+        }
+        registry.summary("op_seconds", "Durations", latencies, "operation", "deposit");
+
+        String text = registry.toPrometheus();
+        assertTrue(text.contains("# TYPE op_seconds summary\n"), text);
+        assertTrue(text.contains("op_seconds{operation=\"deposit\",quantile=\"0.99\"} 1.0"), text);
+        assertTrue(text.contains("op_seconds_count{operation=\"deposit\"} 100\n"), text);
+    }
+
+    /**
+     * The facade counts transactions, amounts, fees by service, accounts by
+     * state, state transitions and observer notifications.
+     */
+    @Test
+    @DisplayName("the facade keeps bank metrics")
+    void facadeMetrics() {
+        PumaBankFacade f = new PumaBankFacade(dir.resolve("monthly.log"));
+        f.setQuietMode(true);
+        f.registerClient("Ana", "J1");
+        f.createAccount("J1", 1000, "1111", "MONTHLY", List.of("ANTI_FRAUD"));
+        f.createAccount("J1", 100, "2222", "MONTHLY", List.of());
+        f.deposit("J1-ACC-1", 50, "1111");
+        f.withdraw("J1-ACC-2", 150, "2222");
+        f.processMonthlyOperations(1);
+
+        String text = f.getMetrics().toPrometheus();
+        assertTrue(text.contains("pumabank_clients 1\n"), text);
+        assertTrue(text.contains("pumabank_accounts{state=\"active\"} 1\n"), text);
+        assertTrue(text.contains("pumabank_accounts{state=\"overdrawn\"} 1\n"), text);
+        assertTrue(text.contains("pumabank_accounts{state=\"frozen\"} 0\n"), text);
+        assertTrue(text.contains("pumabank_state_transitions_total{from=\"active\",to=\"overdrawn\"} 1\n"), text);
+        assertTrue(text.contains("pumabank_transaction_amount_count{operation=\"deposit\"} 1\n"), text);
+        assertTrue(text.contains("pumabank_transaction_amount_sum{operation=\"withdraw\"} 150\n"), text);
+        assertTrue(text.contains("pumabank_fees_collected_total{service=\"AntiFraud\"}"), text);
+        assertTrue(text.contains("pumabank_fees_collected_total{service=\"Overdrawn\"}"), text);
+        assertTrue(text.contains("pumabank_operation_duration_seconds_count{operation=\"deposit\"} 1\n"), text);
+        assertFalse(text.contains("pumabank_observer_notifications_total 0\n"), text);
+
+        f.deposit("J1-ACC-1", 20, "1111", "k1");
+        f.deposit("J1-ACC-1", 20, "1111", "k1");
+        f.withdraw("J1-ACC-1", 5, "1111", "k2");
+        text = f.getMetrics().toPrometheus();
+        assertTrue(text.contains("pumabank_transaction_amount_count{operation=\"deposit\"} 2\n"), text);
+        assertTrue(text.contains("pumabank_transaction_amount_sum{operation=\"withdraw\"} 155\n"), text);
+
+        f.deleteAccount("J1-ACC-2");
+        assertTrue(f.getMetrics().toPrometheus().contains("pumabank_accounts{state=\"overdrawn\"} 0\n"));
+    }
+
+    /**
+     * The file exporter writes the file when started and again when closed.
+     */
+    @Test
+    @DisplayName("the file exporter rewrites the metrics file")
+    void exportsToFile() throws IOException {
+        MetricsRegistry registry = new MetricsRegistry();
+        Counter ops = registry.counter("ops_total", "Operations");
+        Path file = dir.resolve("pumabank.prom");
+        try (PrometheusExporter exporter = PrometheusExporter.toFile(registry, file, Duration.ofHours(1))) {
+            assertEquals(-1, exporter.getPort());
+            ops.increment();
+        }
+        assertTrue(Files.readString(file).contains("ops_total 1\n"));
+        assertFalse(Files.exists(dir.resolve("pumabank.prom.tmp")));
+        assertThrows(IllegalArgumentException.class,
+            () -> PrometheusExporter.toFile(registry, file, Duration.ZERO));
+    }
+
+    /**
+     * The HTTP exporter answers GET /metrics with the text format and refuses
+     * other methods.
+     */
+    @Test
+    @DisplayName("the HTTP exporter serves /metrics")
+    void servesHttp() throws IOException, InterruptedException {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("ops_total", "Operations").add(7);
+        try (PrometheusExporter exporter = PrometheusExporter.serveHttp(registry,
+                new InetSocketAddress("127.0.0.1", 0))) {
+            HttpClient client = HttpClient.newHttpClient();
+            URI uri = URI.create("http://127.0.0.1:" + exporter.getPort() + "/metrics");
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(uri).build(),
+                HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, response.statusCode());
+            assertEquals(PrometheusExporter.CONTENT_TYPE, response.headers().firstValue("Content-Type").orElse(""));
+            assertTrue(response.body().contains("ops_total 7\n"));
+
+            HttpResponse<String> post = client.send(HttpRequest.newBuilder(uri)
+                .POST(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals(405, post.statusCode());
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package mx.unam.ciencias.myp.pumabank.test.model;
+
+import mx.unam.ciencias.myp.pumabank.facade.PumaBankFacade;
+import mx.unam.ciencias.myp.pumabank.model.Account;
+import mx.unam.ciencias.myp.pumabank.model.AccountTable;
+import mx.unam.ciencias.myp.pumabank.model.IAccount;
+import mx.unam.ciencias.myp.pumabank.model.Client;
+import mx.unam.ciencias.myp.pumabank.patterns.decorator.AntiFraudDecorator;
+import mx.unam.ciencias.myp.pumabank.patterns.decorator.RewardsProgramDecorator;
+import mx.unam.ciencias.myp.pumabank.patterns.state.states.ActiveState;
+import mx.unam.ciencias.myp.pumabank.patterns.strategy.periods.AnnualInterest;
+import mx.unam.ciencias.myp.pumabank.patterns.strategy.periods.MonthlyInterest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link AccountTable}, checking that table rows follow the same
+ * rules as decorated {@link Account} objects and survive reopening the file.
+ */
+class AccountTableTest {
+
+    @TempDir
+    Path dir;
+
+    /**
+     * Runs the same operations on a table view and on a decorated account and
+     * expects the same balances, reward points and bank totals.
+     */
+    @Test
+    @DisplayName("Views follow the rules of the object model")
+    void matchesObjectModel() throws IOException {
+        MonthlyInterest policy = new MonthlyInterest(0.02, 0.0);
+        PumaBankFacade objects = new PumaBankFacade();
+        PumaBankFacade rows = new PumaBankFacade();
+        objects.setQuietMode(true);
+        Account account = new Account(new Client("Ana", "C1"), 200.0, new ActiveState(), policy, objects);
+        RewardsProgramDecorator rewards = new RewardsProgramDecorator(account);
+        IAccount decorated = new AntiFraudDecorator(rewards);
+
+        try (AccountTable table = AccountTable.create(dir.resolve("accounts.tbl"), 4, policy)) {
+            long index = table.add(200.0, 0, AccountTable.SERVICE_ANTI_FRAUD | AccountTable.SERVICE_REWARDS);
+            IAccount view = table.view(index);
+            table.setFacade(rows);
+
+            for (IAccount a : new IAccount[] {decorated, view}) {
+                a.deposit(300.0, "1234");
+                a.withdraw(700.0, "1234");
+                a.withdraw(10.0, "1234");
+                a.processMonth();
+                a.deposit(1000.0, "1234");
+                a.processMonth();
+            }
+
+            assertEquals(account.getBalance(), view.checkBalance("1234"), 1e-9);
+            assertEquals(rewards.getRewardPoints(), table.getRewardPoints(index));
+            assertEquals(objects.getTotalFeesCollected(), rows.getTotalFeesCollected(), 1e-9);
+            assertEquals(objects.getTotalInterestPaid(), rows.getTotalInterestPaid(), 1e-9);
+            assertEquals(AccountTable.STATE_ACTIVE, table.getState(index));
+            assertThrows(IllegalArgumentException.class, () -> view.deposit(0.0, "1234"));
+        }
+    }
+
+    /**
+     * Ensures frozen rows refuse operations and that rows persist after the
+     * file is closed and reopened.
+     */
+    @Test
+    @DisplayName("Rows persist across reopening and frozen rows are untouched")
+    void reopenAndFreeze() throws IOException {
+        Path file = dir.resolve("accounts.tbl");
+        MonthlyInterest policy = new MonthlyInterest(0.01, 0.0);
+        try (AccountTable table = AccountTable.create(file, 3, policy)) {
+            table.add(100.0, 0, 0);
+            long frozen = table.add(500.0, 0, AccountTable.SERVICE_PREMIUM_ALERTS);
+            table.setState(frozen, AccountTable.STATE_FROZEN);
+            table.view(frozen).deposit(50.0, "0000");
+            table.processMonth();
+        }
+        try (AccountTable table = AccountTable.open(file, policy)) {
+            assertEquals(2, table.size());
+            assertEquals(101.0, table.getBalance(0), 1e-9);
+            assertEquals(500.0, table.getBalance(1), 1e-9);
+            assertEquals(AccountTable.SERVICE_PREMIUM_ALERTS, table.getServices(1));
+            assertThrows(IndexOutOfBoundsException.class, () -> table.view(2));
+            table.add(1.0, 0, 0);
+            assertThrows(IllegalStateException.class, () -> table.add(1.0, 0, 0));
+        }
+    }
+
+    /**
+     * Ensures policies that keep per-account history are rejected.
+     */
+    @Test
+    @DisplayName("create rejects stateful interest policies")
+    void rejectsStatefulPolicies() {
+        assertThrows(IllegalArgumentException.class,
+            () -> AccountTable.create(dir.resolve("accounts.tbl"), 1, new AnnualInterest(0.05, 100.0)));
+    }
+}
@@ -0,0 +1,153 @@
+package mx.unam.ciencias.myp.pumabank.test.model;
+
+import mx.unam.ciencias.myp.pumabank.facade.PumaBankFacade;
+import mx.unam.ciencias.myp.pumabank.model.Account;
+import mx.unam.ciencias.myp.pumabank.model.Client;
+import mx.unam.ciencias.myp.pumabank.patterns.state.states.ActiveState;
+import mx.unam.ciencias.myp.pumabank.patterns.state.states.OverdrawnState;
+import mx.unam.ciencias.myp.pumabank.patterns.strategy.periods.MonthlyInterest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the optimistic balance updates of {@link Account}: no lost
+ * updates under contention, the version stamp and the retry counters.
+ */
+class AccountVersioningTest {
+
+    private static Account newAccount(double balance) {
+        return new Account(new Client("Ana", "V1"), balance, new ActiveState(),
+            new MonthlyInterest(0.0, 0.0), new PumaBankFacade());
+    }
+
+    /**
+     * Threads add to the same balance at once; every update lands and
+     * advances the version exactly once.
+     */
+    @Test
+    @DisplayName("Concurrent balance updates are never lost")
+    void concurrentUpdates() {
+        Account account = newAccount(0);
+        int threads = 4;
+        int perThread = 50_000;
+
+        assertTimeoutPreemptively(Duration.ofSeconds(60), () -> {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Thread> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                boolean odd = t % 2 == 1;
+                Thread worker = new Thread(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < perThread; i++) {
+                        if (odd) {
+                            account.getAndUpdateBalance(b -> b - 1);
+                        } else {
+                            account.getAndAddBalance(3);
+                        }
+                    }
+                });
+                workers.add(worker);
+                worker.start();
+            }
+            start.countDown();
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        });
+
+        assertEquals(threads / 2 * perThread * 2.0, account.getBalance(), 0.0);
+        assertEquals((long) threads * perThread, account.getVersion());
+        assertTrue(account.getBalanceRetries() >= account.getContendedUpdates());
+    }
+
+    /**
+     * The version is published with the balance: with unit deposits from
+     * zero, a reader never sees a balance ahead of the version read after it,
+     * and the interest accrual ends with the final balance.
+     */
+    @Test
+    @DisplayName("Version and balance are published together")
+    void versionPublishedWithBalance() {
+        Account account = newAccount(0);
+        int threads = 3;
+        int perThread = 50_000;
+
+        assertTimeoutPreemptively(Duration.ofSeconds(60), () -> {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Thread> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                Thread worker = new Thread(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < perThread; i++) {
+                        account.getAndAddBalance(1);
+                    }
+                });
+                workers.add(worker);
+                worker.start();
+            }
+            start.countDown();
+            long total = (long) threads * perThread;
+            long before;
+            do {
+                before = account.getVersion();
+                double balance = account.getBalance();
+                long after = account.getVersion();
+                assertTrue(before <= balance && balance <= after, before + " <= " + balance + " <= " + after);
+            } while (before < total);
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        });
+
+        assertEquals(threads * perThread, account.getBalance(), 0.0);
+        assertEquals(account.getBalance(), account.getInterestAccrual().getLastBalance(), 0.0);
+    }
+
+    /**
+     * A failed compare-and-set leaves the balance and version alone and
+     * counts as a retry.
+     */
+    @Test
+    @DisplayName("compareAndSetBalance only applies on the expected balance")
+    void compareAndSet() {
+        Account account = newAccount(100);
+        assertTrue(account.compareAndSetBalance(100, 150));
+        assertEquals(1, account.getVersion());
+        assertFalse(account.compareAndSetBalance(100, 200));
+        assertEquals(150, account.getBalance(), 0.0);
+        assertEquals(1, account.getVersion());
+        assertEquals(1, account.getBalanceRetries());
+        assertEquals(0, account.getContendedUpdates());
+    }
+
+    /**
+     * A deposit that exactly pays the overdraft fee leaves the balance where
+     * it was, but the version still shows the account was updated.
+     */
+    @Test
+    @DisplayName("Version advances even when a fee cancels a deposit")
+    void versionTracksCancelledDeposit() {
+        Account account = newAccount(-50);
+        account.changeState(new OverdrawnState());
+        long version = account.getVersion();
+
+        account.deposit(100, "SYSTEM");
+
+        assertEquals(-50, account.getBalance(), 0.0);
+        assertEquals(version + 1, account.getVersion());
+    }
+}
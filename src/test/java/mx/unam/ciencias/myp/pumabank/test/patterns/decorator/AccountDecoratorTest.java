@@ -25,6 +25,8 @@ class AccountDecoratorTest {
         boolean processMonthCalled;
         double balanceToReturn = 123.45;
         String lastCheckBalancePin;
+        double lastSystemDepositAmount;
+        double lastSystemWithdrawAmount;
 
         final List<String> history = new ArrayList<>();
         final List<String> notifications = new ArrayList<>();
@@ -43,6 +45,16 @@ class AccountDecoratorTest {
             this.lastWithdrawPin = pin;
         }
 
+        @Override
+        public void systemDeposit(double amount) {
+            this.lastSystemDepositAmount = amount;
+        }
+
+        @Override
+        public void systemWithdraw(double amount) {
+            this.lastSystemWithdrawAmount = amount;
+        }
+
         @Override
         public double checkBalance(String pin) {
 
@@ -75,6 +87,8 @@ class AccountDecoratorTest {
         @Override public void deposit(double amount, String pin) {}
 
         @Override public void withdraw(double amount, String pin) {}
+        @Override public void systemDeposit(double amount) {}
+        @Override public void systemWithdraw(double amount) {}
 
         @Override public double checkBalance(String pin) { return 0; }
         @Override public void processMonth() {}
@@ -87,6 +101,8 @@ class AccountDecoratorTest {
 
         @Override public void deposit(double amount, String pin) {}
         @Override public void withdraw(double amount, String pin) {}
+        @Override public void systemDeposit(double amount) {}
+        @Override public void systemWithdraw(double amount) {}
         @Override public double checkBalance(String pin) { return 0; }
         @Override public void processMonth() {}
         public void addHistory(String event) { throw new RuntimeException(); }
@@ -178,6 +194,24 @@ class AccountDecoratorTest {
             assertAll(() -> assertEquals(20.0, base.lastWithdrawAmount),() -> assertEquals("9999", base.lastWithdrawPin));
         }
 
+        /**
+         * Ensures deposits and withdrawals made by the bank are delegated
+         * without a credential.
+         */
+        @Test
+        @DisplayName("system deposit and withdraw delegate amount")
+        void systemOperationsDelegate() {
+            RecordingAccount base = new RecordingAccount();
+            AccountDecorator deco = new TestDecorator(base);
+
+            deco.systemDeposit(30.0);
+            deco.systemWithdraw(12.0);
+            assertAll(() -> assertEquals(30.0, base.lastSystemDepositAmount),
+                      () -> assertEquals(12.0, base.lastSystemWithdrawAmount),
+                      () -> assertNull(base.lastDepositPin),
+                      () -> assertNull(base.lastWithdrawPin));
+        }
+
         /**
          * Ensures checkBalance delegates input and returns decorated value.
          */
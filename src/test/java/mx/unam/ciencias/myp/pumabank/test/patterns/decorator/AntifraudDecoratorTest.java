@@ -26,6 +26,8 @@ class AntiFraudDecoratorTest {
         double lastWithdrawAmount;
         String lastWithdrawPin;
         int withdrawCalls;
+        int systemDepositCalls;
+        int systemWithdrawCalls;
         int processMonthCalls;
         double balanceToReturn = 0.0;
         String lastCheckBalancePin;
@@ -49,6 +51,22 @@ class AntiFraudDecoratorTest {
             lastWithdrawPin = pin;
         }
 
+        @Override
+        public void systemDeposit(double amount) {
+            depositCalls++;
+            systemDepositCalls++;
+            lastDepositAmount = amount;
+            lastDepositPin = null;
+        }
+
+        @Override
+        public void systemWithdraw(double amount) {
+            withdrawCalls++;
+            systemWithdrawCalls++;
+            lastWithdrawAmount = amount;
+            lastWithdrawPin = null;
+        }
+
         @Override
         public double checkBalance(String pin) {
             lastCheckBalancePin = pin;
@@ -73,6 +91,8 @@ class AntiFraudDecoratorTest {
 
         @Override public void deposit(double amount, String pin) {}
         @Override public void withdraw(double amount, String pin) {}
+        @Override public void systemDeposit(double amount) {}
+        @Override public void systemWithdraw(double amount) {}
         @Override public double checkBalance(String pin) { return 0; }
         @Override public void processMonth() {}
     }
@@ -219,7 +239,7 @@ class AntiFraudDecoratorTest {
             AntiFraudDecorator deco = new AntiFraudDecorator(mid);
             deco.processMonth();
             
-            assertAll(() -> assertEquals(1, base.withdrawCalls),() -> assertEquals(50.0, base.lastWithdrawAmount, 1e-9),() -> assertEquals("SYSTEM", base.lastWithdrawPin),() -> assertEquals(1, base.processMonthCalls));
+            assertAll(() -> assertEquals(1, base.withdrawCalls),() -> assertEquals(50.0, base.lastWithdrawAmount, 1e-9),() -> assertEquals(1, base.systemWithdrawCalls),() -> assertEquals(1, base.processMonthCalls));
         }
     }
 }
@@ -26,6 +26,8 @@ class PremiumAlertsDecoratorTest {
         double lastWithdrawAmount;
         String lastWithdrawPin;
         int withdrawCalls;
+        int systemDepositCalls;
+        int systemWithdrawCalls;
         int processMonthCalls;
         double balanceToReturn = 100.0;
         String lastCheckBalancePin;
@@ -44,6 +46,22 @@ class PremiumAlertsDecoratorTest {
             lastWithdrawAmount = amount;lastWithdrawPin = pin;
         }
 
+        @Override
+        public void systemDeposit(double amount) {
+            depositCalls++;
+            systemDepositCalls++;
+            lastDepositAmount = amount;
+            lastDepositPin = null;
+        }
+
+        @Override
+        public void systemWithdraw(double amount) {
+            withdrawCalls++;
+            systemWithdrawCalls++;
+            lastWithdrawAmount = amount;
+            lastWithdrawPin = null;
+        }
+
         @Override
         public double checkBalance(String pin) {
             lastCheckBalancePin = pin;
@@ -163,7 +181,7 @@ class PremiumAlertsDecoratorTest {
             PremiumAlertsDecorator deco = new PremiumAlertsDecorator(mid);
             deco.processMonth();
 
-            assertAll(() -> assertEquals(1, base.withdrawCalls),() -> assertEquals(25.0, base.lastWithdrawAmount, 1e-9),() -> assertEquals("SYSTEM", base.lastWithdrawPin),() -> assertEquals(1, base.processMonthCalls));
+            assertAll(() -> assertEquals(1, base.withdrawCalls),() -> assertEquals(25.0, base.lastWithdrawAmount, 1e-9),() -> assertEquals(1, base.systemWithdrawCalls),() -> assertEquals(1, base.processMonthCalls));
 
 
         }
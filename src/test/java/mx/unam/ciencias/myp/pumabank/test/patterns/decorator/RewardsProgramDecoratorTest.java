@@ -25,6 +25,8 @@ class RewardsProgramDecoratorTest {
         double lastWithdrawAmount;
         String lastWithdrawPin;
         int withdrawCalls;
+        int systemDepositCalls;
+        int systemWithdrawCalls;
         int processMonthCalls;
         double balanceToReturn = 0.0;
         String lastCheckBalancePin;
@@ -35,6 +37,12 @@ class RewardsProgramDecoratorTest {
         @Override
         public void withdraw(double amount, String pin) { withdrawCalls++; lastWithdrawAmount = amount; lastWithdrawPin = pin; }
 
+        @Override
+        public void systemDeposit(double amount) { depositCalls++; systemDepositCalls++; lastDepositAmount = amount; lastDepositPin = null; }
+
+        @Override
+        public void systemWithdraw(double amount) { withdrawCalls++; systemWithdrawCalls++; lastWithdrawAmount = amount; lastWithdrawPin = null; }
+
         @Override
         public double checkBalance(String pin) { lastCheckBalancePin = pin; return balanceToReturn; }
 
@@ -144,7 +152,7 @@ class RewardsProgramDecoratorTest {
             deco.deposit(1000.0, "p");
 
             deco.processMonth();
-            assertAll(() -> assertEquals(1, base.withdrawCalls, "One fee withdraw expected"),() -> assertEquals(30.0, base.lastWithdrawAmount, 1e-9),() -> assertEquals("SYSTEM", base.lastWithdrawPin),() -> assertEquals(1, base.processMonthCalls, "Base processMonth should be invoked once"));
+            assertAll(() -> assertEquals(1, base.withdrawCalls, "One fee withdraw expected"),() -> assertEquals(30.0, base.lastWithdrawAmount, 1e-9),() -> assertEquals(1, base.systemWithdrawCalls),() -> assertEquals(1, base.processMonthCalls, "Base processMonth should be invoked once"));
 
         }
 
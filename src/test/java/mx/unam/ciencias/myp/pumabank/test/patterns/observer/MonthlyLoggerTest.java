@@ -1,4 +1,6 @@
 package mx.unam.ciencias.myp.pumabank.test.patterns.observer;
+import mx.unam.ciencias.myp.pumabank.patterns.observer.LogCategory;
+import mx.unam.ciencias.myp.pumabank.patterns.observer.LogLevel;
 import mx.unam.ciencias.myp.pumabank.patterns.observer.MonthlyLogger;
 import static org.junit.jupiter.api.Assertions.*;
 import java.io.IOException;
@@ -88,4 +90,43 @@ class MonthlyLoggerTest {
         
         assertTrue(Files.isDirectory(LOG_PATH), "Path should remain a directory");
     }
+
+    /**
+     * Ensures categories below the configured level are not written.
+     */
+    @Test
+    @DisplayName("Categories below the configured level are skipped")
+    void levelFiltersCategories() throws Exception {
+        MonthlyLogger logger = new MonthlyLogger();
+        logger.setLevel(LogLevel.INFO);
+
+        assertFalse(logger.isEnabled(LogCategory.BALANCE_CHECK));
+        assertTrue(logger.isEnabled(LogCategory.CLIENT_REGISTERED));
+
+        logger.logSystemOperation(LogCategory.BALANCE_CHECK, "Account: A-ACC-1");
+        logger.logSystemOperation(LogCategory.CLIENT_REGISTERED, "Client: Hi");
+
+        List<String> lines = Files.readAllLines(LOG_PATH, StandardCharsets.UTF_8);
+        assertAll(() -> assertEquals(1, lines.size()),() -> assertTrue(lines.get(0).contains("CLIENT_REGISTERED")));
+    }
+
+    /**
+     * Ensures a single category can be switched off and on at runtime.
+     */
+    @Test
+    @DisplayName("Single categories can be disabled and re-enabled at runtime")
+    void categoryToggle() {
+        MonthlyLogger logger = new MonthlyLogger();
+        logger.setLevel(LogLevel.DEBUG);
+
+        logger.setCategoryEnabled(LogCategory.DEPOSIT_ATTEMPT, false);
+        assertFalse(logger.isEnabled(LogCategory.DEPOSIT_ATTEMPT));
+        assertTrue(logger.isEnabled(LogCategory.WITHDRAWAL_ATTEMPT));
+
+        logger.setCategoryEnabled(LogCategory.DEPOSIT_ATTEMPT, true);
+        assertTrue(logger.isEnabled(LogCategory.DEPOSIT_ATTEMPT));
+
+        logger.setLevel(LogLevel.OFF);
+        assertFalse(logger.isEnabled(LogCategory.ACCOUNT_PROCESSING_ERROR));
+    }
 }
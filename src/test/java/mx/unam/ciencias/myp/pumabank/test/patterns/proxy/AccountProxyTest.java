@@ -55,6 +55,8 @@ class AccountProxyTest {
         int withdrawCalls = 0;
         double lastWithdrawAmount = 0.0;
         String lastWithdrawPin = null;
+        int systemDepositCalls = 0;
+        int systemWithdrawCalls = 0;
         int checkBalanceCalls = 0;
         String lastCheckPin = null;
         double balanceToReturn = 0.0;
@@ -64,6 +66,8 @@ class AccountProxyTest {
 
         @Override public void deposit(double amount, String pin) { depositCalls++; lastDepositAmount = amount; lastDepositPin = pin; }
         @Override public void withdraw(double amount, String pin) { withdrawCalls++; lastWithdrawAmount = amount; lastWithdrawPin = pin; }
+        @Override public void systemDeposit(double amount) { systemDepositCalls++; lastDepositAmount = amount; }
+        @Override public void systemWithdraw(double amount) { systemWithdrawCalls++; lastWithdrawAmount = amount; }
         @Override public double checkBalance(String pin) { checkBalanceCalls++; lastCheckPin = pin; return balanceToReturn; }
         @Override public void processMonth() { processMonthCalls++; }
         @Override public void notify(String message) { notifications.add(message); }
@@ -104,7 +108,7 @@ class AccountProxyTest {
                 proxy.deposit(100.0, "1234");
                 FakeAccount fa = (FakeAccount) real;
                 FakeAuthenticator au = (FakeAuthenticator) auth;
-                assertAll(() -> assertEquals(1, au.validateCalls),() -> assertEquals("1234", au.lastValidatedPin),() -> assertEquals(1, fa.depositCalls),() -> assertEquals(100.0, fa.lastDepositAmount, 1e-9),() -> assertEquals("1234", fa.lastDepositPin),() -> assertTrue(fa.notifications.isEmpty()),() -> assertEquals("", err.toString()));
+                assertAll(() -> assertEquals(1, au.validateCalls),() -> assertEquals("1234", au.lastValidatedPin),() -> assertEquals(1, fa.depositCalls),() -> assertEquals(100.0, fa.lastDepositAmount, 1e-9),() -> assertEquals("1234", fa.lastDepositPin),() -> assertTrue(fa.notifications.isEmpty()),() -> assertEquals("", err.toString()),() -> assertEquals(AccountProxy.Access.GRANTED, proxy.getLastAccess()));
 
             } finally {
                 System.setErr(orig);
@@ -134,7 +138,7 @@ class AccountProxyTest {
 
                 FakeAuthenticator au = (FakeAuthenticator) auth;
 
-                assertAll(() -> assertEquals(1, au.validateCalls),() -> assertEquals("bad", au.lastValidatedPin),() -> assertEquals(0, fa.depositCalls),() -> assertEquals(1, fa.notifications.size()),() -> assertEquals("[PROXY] Failed deposit attempt due to incorrect PIN.", fa.notifications.get(0)),() -> assertTrue(err.toString().contains("[ACCESS DENIED]") && err.toString().contains("Deposit")));
+                assertAll(() -> assertEquals(1, au.validateCalls),() -> assertEquals("bad", au.lastValidatedPin),() -> assertEquals(0, fa.depositCalls),() -> assertEquals(1, fa.notifications.size()),() -> assertEquals("[PROXY] Failed deposit attempt due to incorrect PIN.", fa.notifications.get(0)),() -> assertTrue(err.toString().contains("[ACCESS DENIED]") && err.toString().contains("Deposit")),() -> assertEquals(AccountProxy.Access.DENIED, proxy.getLastAccess()));
             } finally {
 
                 System.setErr(orig);
@@ -0,0 +1,185 @@
+package mx.unam.ciencias.myp.pumabank.test.patterns.proxy;
+
+import mx.unam.ciencias.myp.pumabank.patterns.proxy.AccountProxy;
+import mx.unam.ciencias.myp.pumabank.patterns.proxy.LoginThrottle;
+import mx.unam.ciencias.myp.pumabank.patterns.proxy.PinAuthenticator;
+import mx.unam.ciencias.myp.pumabank.patterns.proxy.SessionCache;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link LoginThrottle}, verifying free attempts, exponential backoff,
+ * lockout expiry through the timing wheel and silent rejection in the proxy.
+ */
+class LoginThrottleTest {
+
+    /**
+     * Clock whose time is moved by hand.
+     */
+    static class ManualClock extends Clock {
+        long millis = 1_000_000;
+        @Override public ZoneId getZone() { return ZoneOffset.UTC; }
+        @Override public Clock withZone(ZoneId zone) { return this; }
+        @Override public long millis() { return millis; }
+        @Override public Instant instant() { return Instant.ofEpochMilli(millis); }
+    }
+
+    /**
+     * Throttle with 2 free attempts, 100 ms base delay, lockout at 5 failures for 10 s.
+     */
+    private LoginThrottle newThrottle(ManualClock clock) {
+        return new LoginThrottle(clock, 2, 5, 100, 1_000, 10_000);
+    }
+
+    /**
+     * Ensures failures beyond the free attempts block for doubling delays, and
+     * that only dropped attempts count as rejected, not queries.
+     */
+    @Test
+    @DisplayName("Applies exponential backoff after the free attempts")
+    void exponentialBackoff() {
+        ManualClock clock = new ManualClock();
+        LoginThrottle throttle = newThrottle(clock);
+        LoginThrottle.Attempts attempts = new LoginThrottle.Attempts();
+
+        throttle.onFailure(attempts);
+        throttle.onFailure(attempts);
+        assertFalse(throttle.isBlocked(attempts));
+
+        throttle.onFailure(attempts);
+        assertTrue(throttle.reject(attempts));
+        clock.millis += 100;
+        assertFalse(throttle.reject(attempts));
+
+        throttle.onFailure(attempts);
+        clock.millis += 100;
+        assertTrue(throttle.isBlocked(attempts));
+        assertTrue(throttle.reject(attempts));
+        clock.millis += 100;
+        assertFalse(throttle.isBlocked(attempts));
+        assertEquals(2, throttle.getRejected());
+    }
+
+    /**
+     * Ensures a success clears the failure counter.
+     */
+    @Test
+    @DisplayName("A successful attempt resets the counter")
+    void successResets() {
+        LoginThrottle throttle = newThrottle(new ManualClock());
+        LoginThrottle.Attempts attempts = new LoginThrottle.Attempts();
+        throttle.onFailure(attempts);
+        throttle.onFailure(attempts);
+        throttle.onSuccess(attempts);
+        assertEquals(0, attempts.getFailures());
+    }
+
+    /**
+     * Ensures the lockout holds for its whole duration and the wheel then clears it.
+     */
+    @Test
+    @DisplayName("Locks at the threshold and unlocks when the wheel passes the deadline")
+    void lockoutExpires() {
+        ManualClock clock = new ManualClock();
+        LoginThrottle throttle = newThrottle(clock);
+        LoginThrottle.Attempts attempts = new LoginThrottle.Attempts();
+        for (int i = 0; i < 5; i++) {
+            clock.millis += 2_000;
+            throttle.onFailure(attempts);
+        }
+        assertEquals(1, throttle.getLockouts());
+
+        clock.millis += 9_999;
+        assertTrue(throttle.isBlocked(attempts));
+        clock.millis += 1_001;
+        assertFalse(throttle.isBlocked(attempts));
+        assertEquals(0, attempts.getFailures());
+    }
+
+    /**
+     * Ensures a locked proxy drops attempts without notifying or verifying, even
+     * with the correct PIN, while system credentials still go through.
+     */
+    @Test
+    @DisplayName("Locked proxy rejects silently before any notification")
+    void proxyShortCircuits() {
+        ManualClock clock = new ManualClock();
+        AccountProxyTest.FakeAccount account = new AccountProxyTest.FakeAccount();
+        AccountProxy proxy = new AccountProxy(account, new PinAuthenticator("1234", 1),
+                                              new SessionCache(), newThrottle(clock));
+        for (int i = 0; i < 5; i++) {
+            clock.millis += 2_000;
+            proxy.deposit(10, "0001");
+        }
+        assertTrue(proxy.isLocked());
+        int notified = account.notifications.size();
+
+        proxy.deposit(10, "1234");
+        assertEquals(AccountProxy.Access.THROTTLED, proxy.getLastAccess());
+        proxy.withdraw(10, "1234");
+        assertEquals(-1, proxy.checkBalance("1234"), 1e-9);
+        assertNull(proxy.openSession("1234"));
+        assertEquals(notified, account.notifications.size());
+        assertEquals(0, account.depositCalls);
+
+        for (String credential : new String[] {"SYSTEM", "0000"}) {
+            proxy.deposit(10, credential);
+            assertEquals(AccountProxy.Access.THROTTLED, proxy.getLastAccess());
+        }
+        assertEquals(0, account.depositCalls);
+
+        proxy.systemDeposit(10);
+        assertEquals(1, account.systemDepositCalls);
+    }
+
+    /**
+     * Ensures lockouts scheduled from several threads while the wheel moves are
+     * all cleared once their deadline passes.
+     */
+    @Test
+    @DisplayName("Concurrent lockouts are all cleared by the wheel")
+    void concurrentLockouts() throws InterruptedException {
+        ManualClock clock = new ManualClock();
+        LoginThrottle throttle = newThrottle(clock);
+        LoginThrottle.Attempts[] records = new LoginThrottle.Attempts[400];
+        for (int i = 0; i < records.length; i++) {
+            records[i] = new LoginThrottle.Attempts();
+        }
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            int first = t;
+            threads[t] = new Thread(() -> {
+                for (int i = first; i < records.length; i += threads.length) {
+                    for (int j = 0; j < 5; j++) {
+                        throttle.onFailure(records[i]);
+                    }
+                    throttle.isBlocked(records[(i * 7) % records.length]);
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (int i = 0; i < 20; i++) {
+            clock.millis += 50;
+            Thread.sleep(1);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(records.length, throttle.getLockouts());
+
+        clock.millis += 12_000;
+        for (LoginThrottle.Attempts record : records) {
+            assertFalse(throttle.isBlocked(record));
+            assertEquals(0, record.getFailures());
+        }
+        assertEquals(0, throttle.getRejected());
+    }
+}
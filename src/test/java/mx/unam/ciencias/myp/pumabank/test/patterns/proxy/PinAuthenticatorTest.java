@@ -106,5 +106,25 @@ class PinAuthenticatorTest {
             
             assertDoesNotThrow(() -> new PinAuthenticator(null),"Constructor should allow null storedPin");
         }
+
+        /**
+         * Ensures a non-positive hashing cost is rejected.
+         */
+        @Test
+        @DisplayName("Rejects a non-positive iteration count")
+        void rejectsInvalidIterations() {
+            assertThrows(IllegalArgumentException.class, () -> new PinAuthenticator("1234", 0));
+        }
+
+        /**
+         * Ensures authenticators with a custom hashing cost still validate correctly.
+         */
+        @Test
+        @DisplayName("Validates with a custom iteration count")
+        void customIterations() {
+            PinAuthenticator auth = new PinAuthenticator("4321", 1);
+            assertTrue(auth.validate("4321"));
+            assertFalse(auth.validate("4322"));
+        }
     }
 }
@@ -0,0 +1,165 @@
+package mx.unam.ciencias.myp.pumabank.test.patterns.proxy;
+
+import mx.unam.ciencias.myp.pumabank.facade.PumaBankFacade;
+import mx.unam.ciencias.myp.pumabank.model.Account;
+import mx.unam.ciencias.myp.pumabank.patterns.proxy.AccountProxy;
+import mx.unam.ciencias.myp.pumabank.patterns.proxy.PinAuthenticator;
+import mx.unam.ciencias.myp.pumabank.patterns.proxy.SessionCache;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link SessionCache}, verifying that session tokens authenticate
+ * operations without re-verifying the PIN, expire, stay bounded and report metrics.
+ */
+class SessionCacheTest {
+
+    /**
+     * Creates a quiet facade with one monthly account holding 1000.
+     */
+    private PumaBankFacade newFacade() {
+        PumaBankFacade f = new PumaBankFacade();
+        f.setQuietMode(true);
+        f.registerClient("Ana", "C1");
+        f.createAccount("C1", 1000, "1234", "MONTHLY", Collections.emptyList());
+        return f;
+    }
+
+    /**
+     * Ensures a token authenticates operations as a cache hit after a single verification.
+     */
+    @Test
+    @DisplayName("Session token authenticates operations without verifying the PIN again")
+    void tokenSkipsVerification() {
+        PumaBankFacade f = newFacade();
+        String token = f.openSession("C1-ACC-1", "1234");
+        assertNotNull(token);
+
+        f.deposit("C1-ACC-1", 500, token);
+        f.withdraw("C1-ACC-1", 200, token);
+        assertEquals(1300, f.checkBalance("C1-ACC-1", token), 1e-9);
+
+        SessionCache cache = f.getSessionCache();
+        assertAll(
+            () -> assertEquals(3, cache.getHits()),
+            () -> assertEquals(1, cache.getMisses()),
+            () -> assertEquals(0.75, cache.getHitRate(), 1e-9),
+            () -> assertTrue(cache.getAverageVerificationMillis() > 0.0));
+    }
+
+    /**
+     * Ensures an incorrect PIN does not open a session.
+     */
+    @Test
+    @DisplayName("openSession returns null on an incorrect PIN")
+    void wrongPinOpensNothing() {
+        PumaBankFacade f = newFacade();
+        assertNull(f.openSession("C1-ACC-1", "9999"));
+        assertEquals(0, f.getSessionCache().size());
+    }
+
+    /**
+     * Ensures a token only grants access to the account it was opened on and stops
+     * working once closed.
+     */
+    @Test
+    @DisplayName("Tokens are bound to one account and can be closed")
+    void tokenBoundToAccount() {
+        PumaBankFacade f = newFacade();
+        f.createAccount("C1", 50, "5678", "MONTHLY", Collections.emptyList());
+        String token = f.openSession("C1-ACC-1", "1234");
+
+        assertEquals(-1, f.checkBalance("C1-ACC-2", token), 1e-9);
+        assertTrue(f.closeSession(token));
+        assertEquals(-1, f.checkBalance("C1-ACC-1", token), 1e-9);
+    }
+
+    /**
+     * Ensures expired sessions are rejected and the cache never exceeds its capacity.
+     */
+    @Test
+    @DisplayName("Sessions expire and the cache stays bounded")
+    void expiresAndStaysBounded() throws InterruptedException {
+        Account account = newFacade().findAccount("C1-ACC-1").getUnderlyingAccount();
+        AccountProxy shortLived = new AccountProxy(account, new PinAuthenticator("1234", 1), new SessionCache(2, 1));
+        String token = shortLived.openSession("1234");
+        Thread.sleep(5);
+        assertEquals(-1, shortLived.checkBalance(token), 1e-9);
+
+        AccountProxy bounded = new AccountProxy(account, new PinAuthenticator("1234", 1), new SessionCache(2, 60_000));
+        String first = bounded.openSession("1234");
+        bounded.openSession("1234");
+        bounded.openSession("1234");
+        assertEquals(2, bounded.getSessionCache().size());
+        assertEquals(-1, bounded.checkBalance(first), 1e-9);
+    }
+
+    /**
+     * Ensures concurrent opens on a full cache never leave more sessions than
+     * its capacity, and that closing a session frees its slot.
+     */
+    @Test
+    @DisplayName("Concurrent opens never exceed the capacity")
+    void concurrentOpensStayBounded() throws InterruptedException {
+        Account account = newFacade().findAccount("C1-ACC-1").getUnderlyingAccount();
+        SessionCache cache = new SessionCache(8, 60_000);
+        AccountProxy proxy = new AccountProxy(account, new PinAuthenticator("1234", 1), cache);
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int j = 0; j < 200; j++) {
+                    assertNotNull(proxy.openSession("1234"));
+                    assertTrue(cache.size() <= 8);
+                }
+            });
+            threads[i].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(8, cache.size());
+
+        String token = proxy.openSession("1234");
+        assertTrue(cache.close(token));
+        assertEquals(7, cache.size());
+        assertNotNull(proxy.openSession("1234"));
+        assertEquals(8, cache.size());
+    }
+
+    /**
+     * Ensures sessions closed early are swept from the expiry queue without
+     * touching the sessions still open.
+     */
+    @Test
+    @DisplayName("Closed sessions are swept and open ones survive")
+    void closedSessionsAreSwept() {
+        Account account = newFacade().findAccount("C1-ACC-1").getUnderlyingAccount();
+        SessionCache cache = new SessionCache(4, 60_000);
+        AccountProxy proxy = new AccountProxy(account, new PinAuthenticator("1234", 1), cache);
+        String first = proxy.openSession("1234");
+        String second = proxy.openSession("1234");
+        for (int i = 0; i < 100; i++) {
+            assertTrue(cache.close(proxy.openSession("1234")));
+        }
+        assertEquals(2, cache.size());
+        assertEquals(1000, proxy.checkBalance(first), 1e-9);
+        assertEquals(1000, proxy.checkBalance(second), 1e-9);
+
+        proxy.openSession("1234");
+        proxy.openSession("1234");
+        proxy.openSession("1234");
+        assertEquals(4, cache.size());
+        assertEquals(-1, proxy.checkBalance(first), 1e-9);
+    }
+}
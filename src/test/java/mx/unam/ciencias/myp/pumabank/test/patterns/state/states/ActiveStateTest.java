@@ -14,6 +14,7 @@ import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.DoubleUnaryOperator;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -59,6 +60,8 @@ class ActiveStateTest {
         InterestCalculation policy = ZERO_INTEREST;
         @Override public double getBalance() { return balance; }
         @Override public void setBalance(double b) { balance = b; }
+        @Override public double getAndAddBalance(double d) { double b = balance; balance += d; return b; }
+        @Override public double getAndUpdateBalance(DoubleUnaryOperator u) { double b = balance; balance = u.applyAsDouble(b); return b; }
         @Override public void addHistory(String e) { history.add(e); }
 
         @Override public void notify(String m) { notifications.add(m); }
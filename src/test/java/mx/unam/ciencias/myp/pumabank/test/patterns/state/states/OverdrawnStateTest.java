@@ -13,6 +13,7 @@ import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.DoubleUnaryOperator;
 import static org.junit.jupiter.api.Assertions.*;
 /**
  * Tests for {@link OverdrawnState}, covering fee application, deposit transitions, withdrawal denial, monthly processing logic, and state restoration back to ActiveState.
@@ -58,6 +59,8 @@ class OverdrawnStateTest {
 
         @Override public double getBalance() { return balance; }
         @Override public void setBalance(double b) { balance = b; }
+        @Override public double getAndAddBalance(double d) { double b = balance; balance += d; return b; }
+        @Override public double getAndUpdateBalance(DoubleUnaryOperator u) { double b = balance; balance = u.applyAsDouble(b); return b; }
         @Override public void addHistory(String e) { history.add(e); }
 
 
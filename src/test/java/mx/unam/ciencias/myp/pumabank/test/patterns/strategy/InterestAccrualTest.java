@@ -0,0 +1,78 @@
+package mx.unam.ciencias.myp.pumabank.test.patterns.strategy;
+
+import mx.unam.ciencias.myp.pumabank.patterns.strategy.InterestAccrual;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link InterestAccrual}, verifying the balance-time integral, average daily balance and month history.
+ */
+class InterestAccrualTest {
+
+    private static final double DELTA = 1e-9;
+    private static final long DAY = 24L * 60 * 60 * 1000;
+
+    /**
+     * Ensures each balance contributes for exactly the time it was held.
+     */
+    @Test
+    @DisplayName("Integral adds each balance for the time it was held")
+    void integratesBalanceOverTime() {
+        InterestAccrual accrual = new InterestAccrual();
+        accrual.startPeriod(1000.0, 0L);
+
+        accrual.onBalanceChange(3000.0, 10 * DAY);
+        accrual.onBalanceChange(0.0, 20 * DAY);
+
+        assertEquals(1000.0 * 10 + 3000.0 * 10, accrual.getBalanceDays(30 * DAY), DELTA);
+        assertEquals(40000.0 / 30, accrual.getAverageDailyBalance(30 * DAY), DELTA);
+        assertEquals(30.0, accrual.getElapsedDays(30 * DAY), DELTA);
+    }
+
+    /**
+     * Ensures the current balance is returned when no time has elapsed.
+     */
+    @Test
+    @DisplayName("Average daily balance falls back to the current balance with no elapsed time")
+    void noElapsedTime() {
+        InterestAccrual accrual = new InterestAccrual();
+        accrual.startPeriod(500.0, 100L);
+        accrual.onBalanceChange(750.0, 100L);
+
+        assertEquals(750.0, accrual.getAverageDailyBalance(100L), DELTA);
+        assertEquals(0.0, accrual.getBalanceDays(100L), DELTA);
+    }
+
+    /**
+     * Ensures a new period discards the previous integral but keeps the month history.
+     */
+    @Test
+    @DisplayName("startPeriod clears the integral and keeps recorded months")
+    void startPeriodClearsIntegral() {
+        InterestAccrual accrual = new InterestAccrual();
+        accrual.startPeriod(1000.0, 0L);
+        accrual.recordMonthBalance(1000.0);
+        accrual.recordMonthBalance(-5.0);
+
+        accrual.startPeriod(200.0, 5 * DAY);
+
+        assertEquals(200.0 * 2, accrual.getBalanceDays(7 * DAY), DELTA);
+        assertEquals(1, accrual.getMonthsRecorded());
+        assertEquals(1000.0, accrual.getAverageBalance(), DELTA);
+    }
+
+    /**
+     * Ensures the month of year is validated.
+     */
+    @Test
+    @DisplayName("setMonthOfYear only accepts 1 to 12")
+    void monthOfYearRange() {
+        InterestAccrual accrual = new InterestAccrual();
+        assertEquals(0, accrual.getMonthOfYear());
+        assertThrows(IllegalArgumentException.class, () -> accrual.setMonthOfYear(13));
+        accrual.setMonthOfYear(12);
+        assertEquals(12, accrual.getMonthOfYear());
+    }
+}
@@ -0,0 +1,87 @@
+package mx.unam.ciencias.myp.pumabank.test.patterns.strategy;
+
+import mx.unam.ciencias.myp.pumabank.facade.PumaBankFacade;
+import mx.unam.ciencias.myp.pumabank.model.Account;
+import mx.unam.ciencias.myp.pumabank.model.Client;
+import mx.unam.ciencias.myp.pumabank.patterns.state.states.ActiveState;
+import mx.unam.ciencias.myp.pumabank.patterns.strategy.InterestBatch;
+import mx.unam.ciencias.myp.pumabank.patterns.strategy.InterestCalculation;
+import mx.unam.ciencias.myp.pumabank.patterns.strategy.periods.AnnualInterest;
+import mx.unam.ciencias.myp.pumabank.patterns.strategy.periods.MonthlyInterest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link InterestBatch}, verifying that precomputed interest is grouped by policy and consumed by the account.
+ */
+class InterestBatchTest {
+
+    private static final double DELTA = 1e-9;
+
+    /**
+     * Facade stub to suppress side effects during tests.
+     */
+    static class DummyFacade extends PumaBankFacade {
+        @Override public void recordFeeCollection(double fee) {}
+        @Override public void recordInterestPayment(double interest) {}
+    }
+
+    private static Account newAccount(double balance, InterestCalculation policy) {
+        return new Account(new Client("Hi", "B1"), balance, new ActiveState(), policy, new DummyFacade());
+    }
+
+    /**
+     * Ensures equal stateless policies are grouped and their interest is reused once.
+     */
+    @Test
+    @DisplayName("precompute batches stateless policies and the account consumes the value once")
+    void precomputesStatelessPolicies() {
+        int[] calls = {0};
+        InterestCalculation counting = new MonthlyInterest(0.01, 0.0) {
+            @Override public double calculate(double balance) {
+                calls[0]++;
+                return super.calculate(balance);
+            }
+        };
+        Account a = newAccount(1000.0, counting);
+        Account b = newAccount(2000.0, new MonthlyInterest(0.01, 0.0));
+
+        int computed = InterestBatch.precompute(Arrays.asList(a, b));
+
+        assertEquals(2, computed);
+        assertEquals(10.0, a.calculateInterest(1000.0), DELTA);
+        assertEquals(20.0, b.calculateInterest(2000.0), DELTA);
+        assertEquals(0, calls[0], "Batched value should be used instead of the policy");
+
+        assertEquals(10.0, a.calculateInterest(1000.0), DELTA);
+        assertEquals(1, calls[0], "Batched value is consumed only once");
+    }
+
+    /**
+     * Ensures a precomputed value is ignored if the balance changed before month-end interest.
+     */
+    @Test
+    @DisplayName("precomputed interest is discarded when the balance changed")
+    void discardsStaleBalance() {
+        Account a = newAccount(1000.0, new MonthlyInterest(0.01, 0.0));
+        InterestBatch.precompute(Arrays.asList(a));
+
+        assertEquals(9.5, a.calculateInterest(950.0), DELTA);
+    }
+
+    /**
+     * Ensures stateful policies are left out of the batch.
+     */
+    @Test
+    @DisplayName("stateful policies are not precomputed")
+    void skipsStatefulPolicies() {
+        Account a = newAccount(1000.0, new AnnualInterest(0.12, 10.0));
+        Account b = newAccount(1000.0, balance -> 1.0);
+
+        assertEquals(0, InterestBatch.precompute(Arrays.asList(a, b)));
+    }
+}
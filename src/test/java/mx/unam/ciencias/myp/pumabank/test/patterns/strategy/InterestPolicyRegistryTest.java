@@ -0,0 +1,56 @@
+package mx.unam.ciencias.myp.pumabank.test.patterns.strategy;
+
+import mx.unam.ciencias.myp.pumabank.patterns.strategy.InterestCalculation;
+import mx.unam.ciencias.myp.pumabank.patterns.strategy.InterestPolicyRegistry;
+import mx.unam.ciencias.myp.pumabank.patterns.strategy.periods.AnnualInterest;
+import mx.unam.ciencias.myp.pumabank.patterns.strategy.periods.MonthlyInterest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link InterestPolicyRegistry}, verifying shared instances, lookups and registration.
+ */
+class InterestPolicyRegistryTest {
+
+    /**
+     * Ensures repeated lookups return the same shared instance regardless of case.
+     */
+    @Test
+    @DisplayName("get returns one shared instance per type")
+    void returnsSharedInstances() {
+        InterestPolicyRegistry registry = new InterestPolicyRegistry();
+
+        assertSame(registry.get("MONTHLY"), registry.get("monthly"));
+        assertSame(registry.get("ANNUAL"), registry.get("Annual"));
+        assertTrue(registry.get("ANNUAL") instanceof AnnualInterest);
+    }
+
+    /**
+     * Ensures unknown or null types are rejected.
+     */
+    @Test
+    @DisplayName("get rejects unknown types")
+    void rejectsUnknownTypes() {
+        InterestPolicyRegistry registry = new InterestPolicyRegistry();
+
+        assertThrows(IllegalArgumentException.class, () -> registry.get("INVALID"));
+        assertThrows(IllegalArgumentException.class, () -> registry.get(null));
+    }
+
+    /**
+     * Ensures registering a type replaces the shared instance.
+     */
+    @Test
+    @DisplayName("register replaces the shared policy of a type")
+    void registerReplaces() {
+        InterestPolicyRegistry registry = new InterestPolicyRegistry();
+        InterestCalculation custom = new MonthlyInterest(0.05, 0.0);
+
+        registry.register("monthly", custom);
+
+        assertSame(custom, registry.get("MONTHLY"));
+        assertThrows(IllegalArgumentException.class, () -> registry.register("X", null));
+    }
+}
@@ -1,4 +1,5 @@
 package mx.unam.ciencias.myp.pumabank.test.patterns.strategy.periods;
+import mx.unam.ciencias.myp.pumabank.patterns.strategy.InterestAccrual;
 import mx.unam.ciencias.myp.pumabank.patterns.strategy.periods.AnnualInterest;
 import static org.junit.jupiter.api.Assertions.*;
 import org.junit.jupiter.api.Test;
@@ -149,5 +150,58 @@ class AnnualInterestTest {
     ai.setCurrentMonth(12);
     assertEquals(0.0, ai.calculate(-1.0), DELTA);
   }
-  
+
+  /**
+   * Ensures the batch calculation pays every positive balance once in December and then resets the history.
+   */
+  @Test
+  void batchPaysInDecemberAndResets() {
+    AnnualInterest ai = new AnnualInterest(0.10, 1000.0);
+    record(ai, 1200, 1300, 1400);
+    ai.setCurrentMonth(12);
+
+    double[] balances = {2000.0, -5.0, 500.0};
+    double[] out = new double[balances.length];
+    ai.calculate(balances, out, 0, balances.length);
+
+    assertEquals(200.0, out[0], DELTA);
+    assertEquals(0.0, out[1], DELTA);
+    assertEquals(50.0, out[2], DELTA);
+
+    ai.calculate(balances, out, 0, balances.length);
+    assertEquals(0.0, out[0], DELTA);
+  }
+
+  /**
+   * Ensures a shared instance keeps each account's history separate through its accrual.
+   */
+  @Test
+  void sharedInstanceUsesPerAccountAccrual() {
+    AnnualInterest shared = new AnnualInterest(0.10, 1000.0, 12);
+    InterestAccrual rich = new InterestAccrual();
+    InterestAccrual poor = new InterestAccrual();
+    rich.recordMonthBalance(5000.0);
+    poor.recordMonthBalance(100.0);
+
+    assertEquals(200.0, shared.calculate(2000.0, rich), DELTA);
+    assertEquals(0.0, shared.calculate(2000.0, poor), DELTA);
+    assertEquals(0, rich.getMonthsRecorded());
+    assertEquals(0, poor.getMonthsRecorded());
+  }
+
+  /**
+   * Ensures the shared instance refuses the legacy API, so no caller can give
+   * it a history that changes the interest of every account using it.
+   */
+  @Test
+  void sharedInstanceIsStateless() {
+    AnnualInterest shared = AnnualInterest.shared(0.10, 1000.0, 12);
+    assertThrows(IllegalStateException.class, () -> shared.recordMonthBalance(5000.0));
+    assertThrows(IllegalStateException.class, () -> shared.setCurrentMonth(12));
+    assertThrows(IllegalStateException.class, () -> shared.calculate(2000.0));
+
+    InterestAccrual poor = new InterestAccrual();
+    poor.recordMonthBalance(100.0);
+    assertEquals(0.0, shared.calculate(2000.0, poor), DELTA);
+  }
 }
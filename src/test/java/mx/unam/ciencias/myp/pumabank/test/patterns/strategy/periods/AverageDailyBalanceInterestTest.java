@@ -0,0 +1,100 @@
+package mx.unam.ciencias.myp.pumabank.test.patterns.strategy.periods;
+
+import mx.unam.ciencias.myp.pumabank.facade.PumaBankFacade;
+import mx.unam.ciencias.myp.pumabank.model.Account;
+import mx.unam.ciencias.myp.pumabank.model.Client;
+import mx.unam.ciencias.myp.pumabank.patterns.state.states.ActiveState;
+import mx.unam.ciencias.myp.pumabank.patterns.strategy.InterestAccrual;
+import mx.unam.ciencias.myp.pumabank.patterns.strategy.periods.AverageDailyBalanceInterest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link AverageDailyBalanceInterest}, verifying interest on the balance held over time and accrued-to-date queries.
+ */
+class AverageDailyBalanceInterestTest {
+
+    private static final double DELTA = 1e-9;
+    private static final long DAY = 24L * 60 * 60 * 1000;
+
+    /**
+     * Clock whose time is moved by hand.
+     */
+    static class ManualClock extends Clock {
+        long millis;
+        @Override public ZoneId getZone() { return ZoneOffset.UTC; }
+        @Override public Clock withZone(ZoneId zone) { return this; }
+        @Override public long millis() { return millis; }
+        @Override public Instant instant() { return Instant.ofEpochMilli(millis); }
+    }
+
+    /**
+     * Facade stub to suppress side effects during tests.
+     */
+    static class DummyFacade extends PumaBankFacade {
+        @Override public void recordFeeCollection(double fee) {}
+        @Override public void recordInterestPayment(double interest) {}
+    }
+
+    /**
+     * Ensures interest is paid on the balance-days of the period.
+     */
+    @Test
+    @DisplayName("Pays interest on the balance actually held")
+    void paysOnBalanceDays() {
+        AverageDailyBalanceInterest adb = new AverageDailyBalanceInterest(0.365, 0.0);
+        InterestAccrual accrual = new InterestAccrual();
+        accrual.startPeriod(1000.0, 0L);
+        accrual.onBalanceChange(2000.0, 10 * DAY);
+        accrual.accrueTo(30 * DAY);
+
+        assertEquals((1000.0 * 10 + 2000.0 * 20) * 0.001, adb.calculate(2000.0, accrual), DELTA);
+    }
+
+    /**
+     * Ensures no interest is paid when the average is below the minimum.
+     */
+    @Test
+    @DisplayName("Requires the minimum average daily balance")
+    void requiresMinimumAverage() {
+        AverageDailyBalanceInterest adb = new AverageDailyBalanceInterest(0.365, 1500.0);
+        InterestAccrual accrual = new InterestAccrual();
+        accrual.startPeriod(0.0, 0L);
+        accrual.onBalanceChange(5000.0, 29 * DAY);
+        accrual.accrueTo(30 * DAY);
+
+        assertEquals(0.0, adb.calculate(5000.0, accrual), DELTA);
+    }
+
+    /**
+     * Ensures accrued interest through the account follows its deposits without changing it.
+     */
+    @Test
+    @DisplayName("Account exposes accrued-to-date interest from its deposits")
+    void accountAccruedInterest() {
+        ManualClock clock = new ManualClock();
+        DummyFacade facade = new DummyFacade();
+        facade.setClock(clock);
+        Account account = new Account(new Client("Hi", "ADB1"), 1000.0, new ActiveState(),
+            new AverageDailyBalanceInterest(0.365, 0.0), facade);
+
+        clock.millis = 10 * DAY;
+        account.deposit(1000.0, "SYSTEM");
+        clock.millis = 20 * DAY;
+
+        assertEquals((1000.0 * 10 + 2000.0 * 10) * 0.001, account.getAccruedInterest(), DELTA);
+        assertEquals(account.getAccruedInterest(), account.getAccruedInterest(), DELTA);
+
+        account.processMonth();
+        assertEquals(2000.0 + 30.0, account.getBalance(), DELTA);
+        assertEquals(0.0, account.getAccruedInterest(), DELTA);
+    }
+}
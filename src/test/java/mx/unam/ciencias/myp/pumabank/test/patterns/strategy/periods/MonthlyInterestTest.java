@@ -99,6 +99,20 @@ class MonthlyInterestTest {
     assertEquals(0.0, mi.calculate(-1.0), DELTA);
   }
 
-}
+  /**
+   * Ensures the batch calculation matches the single-balance calculation element by element.
+   */
+  @Test
+  void batchMatchesSingleCalculation() {
+    MonthlyInterest mi = new MonthlyInterest(0.02, 1000.0);
+    double[] balances = {-10.0, 0.0, 999.99, 1000.0, 2500.0, Double.NaN};
+    double[] out = new double[balances.length];
+
+    mi.calculate(balances, out, 0, balances.length);
 
+    for (int i = 0; i < balances.length; i++) {
+      assertEquals(mi.calculate(balances[i]), out[i], DELTA);
+    }
+  }
 
+}
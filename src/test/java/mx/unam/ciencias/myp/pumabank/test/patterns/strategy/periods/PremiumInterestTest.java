@@ -95,6 +95,22 @@ class PremiumInterestTest {
 
     }
 
-}
+    /**
+     * Ensures the batch calculation matches the single-balance calculation, only inside the requested range.
+     */
+    @Test
+    void batchMatchesSingleCalculationWithinRange() {
+        PremiumInterest pi = new PremiumInterest(0.02, 1000.0, 5000.0, 0.005, 0.01);
+        double[] balances = {7.0, -50.0, 0.0, 800.0, 1000.0, 3000.0, 5000.0, 10_000.0};
+        double[] out = new double[balances.length];
+        out[0] = -1.0;
+
+        pi.calculate(balances, out, 1, balances.length);
 
+        assertEquals(-1.0, out[0], DELTA);
+        for (int i = 1; i < balances.length; i++) {
+            assertEquals(pi.calculate(balances[i]), out[i], DELTA);
+        }
+    }
 
+}
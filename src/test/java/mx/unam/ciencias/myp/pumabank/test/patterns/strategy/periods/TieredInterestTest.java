@@ -0,0 +1,112 @@
+package mx.unam.ciencias.myp.pumabank.test.patterns.strategy.periods;
+
+import mx.unam.ciencias.myp.pumabank.patterns.strategy.periods.PremiumInterest;
+import mx.unam.ciencias.myp.pumabank.patterns.strategy.periods.TieredInterest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests for {@link TieredInterest}, verifying blended and marginal tiering, validation and configuration loading.
+ */
+class TieredInterestTest {
+
+    private static final double DELTA = 1e-9;
+
+    private static TieredInterest threeTiers(TieredInterest.Mode mode) {
+        return new TieredInterest(new double[] {0.0, 1000.0, 5000.0}, new double[] {0.02, 0.025, 0.03}, mode);
+    }
+
+    /**
+     * Ensures blended tiers match the premium strategy with the same thresholds.
+     */
+    @Test
+    @DisplayName("Blended tiers match PremiumInterest")
+    void blendedMatchesPremium() {
+        TieredInterest tiered = threeTiers(TieredInterest.Mode.BLENDED);
+        PremiumInterest premium = new PremiumInterest(0.02, 1000.0, 5000.0, 0.005, 0.01);
+
+        for (double balance : new double[] {-50.0, 0.0, 800.0, 1000.0, 3000.0, 5000.0, 10_000.0}) {
+            assertEquals(premium.calculate(balance), tiered.calculate(balance), DELTA);
+        }
+    }
+
+    /**
+     * Ensures marginal tiers charge each slice at its own rate.
+     */
+    @Test
+    @DisplayName("Marginal tiers apply each rate to its own slice")
+    void marginalSlices() {
+        TieredInterest tiered = threeTiers(TieredInterest.Mode.MARGINAL);
+
+        assertEquals(800.0 * 0.02, tiered.calculate(800.0), DELTA);
+        assertEquals(1000.0 * 0.02 + 2000.0 * 0.025, tiered.calculate(3000.0), DELTA);
+        assertEquals(1000.0 * 0.02 + 4000.0 * 0.025 + 5000.0 * 0.03, tiered.calculate(10_000.0), DELTA);
+    }
+
+    /**
+     * Ensures balances below the first boundary earn nothing.
+     */
+    @Test
+    @DisplayName("Balances below the first tier earn no interest")
+    void belowFirstTier() {
+        TieredInterest tiered = new TieredInterest(new double[] {500.0}, new double[] {0.01}, TieredInterest.Mode.BLENDED);
+
+        assertEquals(0.0, tiered.calculate(499.99), DELTA);
+        assertEquals(5.0, tiered.calculate(500.0), DELTA);
+        assertEquals(0.0, tiered.calculate(Double.NaN), DELTA);
+    }
+
+    /**
+     * Ensures the batch calculation matches the single-balance calculation.
+     */
+    @Test
+    @DisplayName("Batch calculation matches single calculation")
+    void batchMatchesSingle() {
+        double[] balances = {-1.0, 0.0, 999.0, 1000.0, 4999.0, 5000.0, 1e7};
+        double[] out = new double[balances.length];
+        for (TieredInterest.Mode mode : TieredInterest.Mode.values()) {
+            TieredInterest tiered = threeTiers(mode);
+            tiered.calculate(balances, out, 0, balances.length);
+            for (int i = 0; i < balances.length; i++) {
+                assertEquals(tiered.calculate(balances[i]), out[i], DELTA);
+            }
+        }
+    }
+
+    /**
+     * Ensures invalid schedules are rejected.
+     */
+    @Test
+    @DisplayName("Rejects empty, mismatched or unsorted tiers")
+    void rejectsInvalidTiers() {
+        assertThrows(IllegalArgumentException.class,
+            () -> new TieredInterest(new double[0], new double[0], TieredInterest.Mode.BLENDED));
+        assertThrows(IllegalArgumentException.class,
+            () -> new TieredInterest(new double[] {0.0, 10.0}, new double[] {0.01}, TieredInterest.Mode.BLENDED));
+        assertThrows(IllegalArgumentException.class,
+            () -> new TieredInterest(new double[] {10.0, 10.0}, new double[] {0.01, 0.02}, TieredInterest.Mode.BLENDED));
+    }
+
+    /**
+     * Ensures a schedule can be loaded from a properties file.
+     */
+    @Test
+    @DisplayName("Loads a schedule from a configuration file")
+    void loadsFromFile(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("tiers.properties");
+        Files.write(file, "mode=MARGINAL\ntiers=0:0.02, 1000:0.025, 5000:0.03\n".getBytes(StandardCharsets.UTF_8));
+
+        TieredInterest loaded = TieredInterest.load(file);
+
+        assertEquals(threeTiers(TieredInterest.Mode.MARGINAL), loaded);
+        assertEquals(3, loaded.getTierCount());
+    }
+}
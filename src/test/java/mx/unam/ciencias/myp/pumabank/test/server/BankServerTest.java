@@ -0,0 +1,191 @@
+package mx.unam.ciencias.myp.pumabank.test.server;
+
+import mx.unam.ciencias.myp.pumabank.facade.PumaBankFacade;
+import mx.unam.ciencias.myp.pumabank.patterns.proxy.PinAuthenticator;
+import mx.unam.ciencias.myp.pumabank.server.BankServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link BankServer}: every command of the line protocol,
+ * pipelined requests and malformed input, over a real localhost socket.
+ */
+class BankServerTest {
+
+    private static final String SECRET = "s3cret";
+
+    private PumaBankFacade facade;
+    private BankServer server;
+    private Socket socket;
+    private OutputStream out;
+    private BufferedReader in;
+
+    @BeforeAll
+    static void fastPinHashing() {
+        System.setProperty(PinAuthenticator.ITERATIONS_PROPERTY, "1");
+    }
+
+    @AfterAll
+    static void restorePinHashing() {
+        System.clearProperty(PinAuthenticator.ITERATIONS_PROPERTY);
+    }
+
+    @BeforeEach
+    void start() throws IOException {
+        facade = new PumaBankFacade();
+        facade.setQuietMode(true);
+        facade.registerClient("Ana", "C1");
+        facade.createAccount("C1", 1000, "1234", "MONTHLY", List.of());
+        facade.createAccount("C1", 500, "5678", "MONTHLY", List.of());
+        server = new BankServer(facade, new InetSocketAddress("127.0.0.1", 0), SECRET);
+        socket = new Socket("127.0.0.1", server.getPort());
+        out = socket.getOutputStream();
+        in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+    }
+
+    @AfterEach
+    void stop() throws IOException {
+        socket.close();
+        server.close();
+    }
+
+    private String call(String request) throws IOException {
+        out.write((request + "\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+        return in.readLine();
+    }
+
+    /**
+     * Each command reaches the facade and answers with the resulting balance.
+     */
+    @Test
+    @DisplayName("Protocol commands update the bank and report balances")
+    void commands() throws IOException {
+        assertEquals("PONG", call("PING"));
+        assertEquals("APPLIED 1100.00", call("DEPOSIT C1-ACC-1 100 1234"));
+        assertEquals("APPLIED 1050.00", call("WITHDRAW C1-ACC-1 50 1234"));
+        assertEquals("AUTH_FAILED", call("BALANCE C1-ACC-1 9999"));
+
+        String login = call("LOGIN C1-ACC-1 1234");
+        assertTrue(login.startsWith("OK "), login);
+        String token = login.substring(3);
+        assertEquals("APPLIED 1050.00", call("BALANCE C1-ACC-1 " + token));
+
+        assertEquals("APPLIED 800.00", call("TRANSFER C1-ACC-1 C1-ACC-2 250 " + token));
+        assertEquals("APPLIED 750.00", call("BALANCE C1-ACC-2 5678"));
+        assertEquals("NOT_FOUND", call("TRANSFER C1-ACC-1 C9-ACC-1 10 1234"));
+        assertEquals("NOT_FOUND", call("DEPOSIT C9-ACC-1 10 1234"));
+
+        assertEquals("OK", call("ADMIN " + SECRET));
+        assertEquals("OK", call("CLOSE_MONTH 1"));
+        assertEquals("BYE", call("QUIT"));
+        assertNull(in.readLine());
+    }
+
+    /**
+     * Admin commands need the secret, and the credentials the bank keeps for
+     * itself are refused before they reach an account.
+     */
+    @Test
+    @DisplayName("Admin commands need the secret and reserved credentials are refused")
+    void adminAndReservedCredentials() throws IOException {
+        assertEquals("ERR CLOSE_MONTH needs ADMIN", call("CLOSE_MONTH 1"));
+        assertEquals("ERR DETACH needs ADMIN", call("DETACH C1"));
+        assertEquals("ERR reserved credential", call("DEPOSIT C1-ACC-1 100 SYSTEM"));
+        assertEquals("ERR reserved credential", call("WITHDRAW C1-ACC-1 100 0000"));
+        assertEquals("ERR reserved credential", call("BALANCE C1-ACC-1 SYSTEM"));
+        assertEquals("ERR reserved credential", call("TRANSFER C1-ACC-1 C1-ACC-2 10 0000"));
+        assertEquals("ERR reserved credential", call("LOGIN C1-ACC-1 SYSTEM"));
+        assertEquals(1000, facade.findAccount("C1-ACC-1").getUnderlyingAccount().getBalance(), 0.001);
+
+        assertEquals("ERR wrong admin secret", call("ADMIN guess"));
+        assertNull(in.readLine());
+
+        try (Socket admin = new Socket("127.0.0.1", server.getPort())) {
+            socket.close();
+            socket = admin;
+            out = admin.getOutputStream();
+            in = new BufferedReader(new InputStreamReader(admin.getInputStream(), StandardCharsets.US_ASCII));
+            assertEquals("OK", call("ADMIN " + SECRET));
+            assertEquals("ERR reserved credential", call("OPEN C1 100 0000 MONTHLY"));
+            assertEquals("OK C1-ACC-3", call("OPEN C1 100 4321 MONTHLY"));
+        }
+    }
+
+    /**
+     * Requests sent in one write without waiting are answered in order.
+     */
+    @Test
+    @DisplayName("Pipelined requests are answered in request order")
+    void pipelining() throws IOException {
+        StringBuilder requests = new StringBuilder();
+        List<String> expected = new ArrayList<>();
+        double first = 1000;
+        double second = 500;
+        for (int i = 1; i <= 200; i++) {
+            if (i % 2 == 0) {
+                first += 1;
+                requests.append("DEPOSIT C1-ACC-1 1 1234\n");
+                expected.add(String.format(Locale.ROOT, "APPLIED %.2f", first));
+            } else {
+                second += 2;
+                requests.append("DEPOSIT C1-ACC-2 2 5678\r\n");
+                expected.add(String.format(Locale.ROOT, "APPLIED %.2f", second));
+            }
+        }
+        out.write(requests.toString().getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+        for (String line : expected) {
+            assertEquals(line, in.readLine());
+        }
+        assertEquals(200, server.getRequests());
+    }
+
+    /**
+     * A request retried with its idempotency key gets the first answer and
+     * moves no more money.
+     */
+    @Test
+    @DisplayName("Keyed requests run once")
+    void idempotentRequests() throws IOException {
+        assertEquals("APPLIED 1100.00", call("DEPOSIT C1-ACC-1 100 1234 req-1"));
+        assertEquals("APPLIED 1100.00", call("DEPOSIT C1-ACC-1 100 1234 req-1"));
+        assertEquals("APPLIED 1000.00", call("WITHDRAW C1-ACC-1 100 1234 req-2"));
+        assertEquals("APPLIED 1000.00", call("WITHDRAW C1-ACC-1 100 1234 req-2"));
+        assertEquals("APPLIED 900.00", call("TRANSFER C1-ACC-1 C1-ACC-2 100 1234 req-3"));
+        assertEquals("APPLIED 900.00", call("TRANSFER C1-ACC-1 C1-ACC-2 100 1234 req-3"));
+        assertEquals("APPLIED 600.00", call("BALANCE C1-ACC-2 5678"));
+        assertTrue(call("DEPOSIT C1-ACC-1 5 1234 req-1").startsWith("ERR"));
+        assertEquals("NOT_FOUND", call("DEPOSIT C9-ACC-1 5 1234 req-4"));
+    }
+
+    /**
+     * Malformed requests get an error line and the connection stays usable.
+     */
+    @Test
+    @DisplayName("Malformed requests are answered with ERR")
+    void malformedRequests() throws IOException {
+        assertTrue(call("HELLO").startsWith("ERR unknown command"));
+        assertTrue(call("DEPOSIT C1-ACC-1 1234").startsWith("ERR"));
+        assertTrue(call("DEPOSIT C1-ACC-1 abc 1234").startsWith("ERR"));
+        assertTrue(call("TRANSFER C1-ACC-1 C1-ACC-1 10 1234").startsWith("ERR"));
+        assertTrue(call("DEPOSIT C1-ACC-1 -5 1234").startsWith("INVALID"));
+        assertEquals("PONG", call("PING"));
+    }
+}